@@ -35,6 +35,11 @@ public interface Cache<K, V> {
      */
     Map<K, V> getAll(Collection<K> keys);
 
+    /**
+     * Get multiple values, loading all misses with a single {@link CacheLoader#loadAll} call.
+     */
+    Map<K, V> getAll(Collection<K> keys, CacheLoader<K, V> loader);
+
     /**
      * Put value with default TTL.
      */
@@ -1,5 +1,7 @@
 package com.andyadc.skeleton.ncache.api;
 
+import java.util.Map;
+
 /**
  * Cache statistics holder.
  */
@@ -32,11 +34,53 @@ public interface CacheStats {
 
     long getL1Size();
 
+    /**
+     * Estimated bytes held by L1 when it is bounded by weight, otherwise 0.
+     */
+    long getL1WeightedSize();
+
     // L2 specific stats
     long getL2HitCount();
 
     long getL2MissCount();
 
+    /**
+     * Serialized size of values written to L2 before compression.
+     */
+    long getL2UncompressedBytes();
+
+    /**
+     * Size of the same values as stored in L2, including the codec header.
+     */
+    long getL2CompressedBytes();
+
+    /**
+     * Reads answered as absent without a load, from a cached null value or the bloom
+     * filter. Included in the hit count.
+     */
+    long getNegativeHitCount();
+
+    // Off-heap tier stats, counted on L1 misses
+    long getOffHeapHitCount();
+
+    long getOffHeapMissCount();
+
+    /**
+     * Serialized bytes currently held in the off-heap tier.
+     */
+    long getOffHeapBytes();
+
+    /**
+     * Number of reads that triggered a probabilistic early recompute.
+     */
+    long getEarlyRecomputeCount();
+
+    /**
+     * Top-K most frequently read keys with their estimated recent access counts, hottest
+     * first. Empty unless hot key detection is enabled.
+     */
+    Map<Object, Long> getHotKeys();
+
     /**
      * Create a snapshot of current stats.
      */
@@ -51,6 +51,20 @@ public interface CacheSynchronizer {
         void onBulkInvalidate(String cacheName, Collection<?> keys);
 
         void onClear(String cacheName);
+
+        /**
+         * Invalidations may have been missed, e.g. after a long disconnect, so every
+         * locally cached entry of every cache may be stale.
+         */
+        default void onClearAll() {
+        }
+
+        /**
+         * Invalidations reported as raw Redis keys, e.g. by Redis client tracking.
+         * Listeners pick out the keys of their own cache and ignore the rest.
+         */
+        default void onInvalidateRedisKeys(Collection<byte[]> redisKeys) {
+        }
     }
 
 }
@@ -0,0 +1,119 @@
+package com.andyadc.skeleton.ncache.compression;
+
+import com.andyadc.skeleton.ncache.config.CacheConfig.CompressionConfig;
+import com.andyadc.skeleton.ncache.config.CacheConfig.CompressionConfig.CompressionType;
+import com.andyadc.skeleton.ncache.serialization.SerializationException;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+
+/**
+ * Compresses serialized L2 values above a size threshold.
+ * <p>
+ * A value left uncompressed is stored as the serialized bytes themselves, exactly as with
+ * compression off. A compressed value starts with a magic byte that no serializer output
+ * starts with, followed by its codec id, so values written with a different algorithm or
+ * threshold, with compression off, or before compression existed are all readable:
+ * <pre>
+ * [payload]
+ * [MAGIC][codec][original length: int][compressed payload]
+ * </pre>
+ * A value that does not start with the magic byte and a known codec id is read as raw.
+ */
+public class CompressionCodec {
+
+    // Not the first byte of JDK (0xAC), JSON (ASCII) or BinarySerializer output
+    static final byte MAGIC = (byte) 0xC7;
+    static final byte GZIP = 1;
+    static final byte DEFLATE = 2;
+
+    private static final int COMPRESSED_HEADER_SIZE = 2 + Integer.BYTES;
+
+    private static final Compressor GZIP_COMPRESSOR = new GzipCompressor();
+    private static final Compressor DEFLATE_COMPRESSOR = new DeflateCompressor();
+
+    private final byte codec;
+    private final Compressor compressor;
+    private final int threshold;
+
+    public CompressionCodec(CompressionConfig config) {
+        this.codec = codecOf(config.getType());
+        this.compressor = compressorOf(codec);
+        this.threshold = config.getThreshold();
+    }
+
+    private static byte codecOf(CompressionType type) {
+        return switch (type) {
+            case GZIP -> GZIP;
+            case DEFLATE -> DEFLATE;
+            default -> throw new IllegalArgumentException("Unsupported compression type: " + type);
+        };
+    }
+
+    private static Compressor compressorOf(byte codec) {
+        return switch (codec) {
+            case GZIP -> GZIP_COMPRESSOR;
+            case DEFLATE -> DEFLATE_COMPRESSOR;
+            default -> throw new SerializationException("Unknown compression codec: " + codec);
+        };
+    }
+
+    /**
+     * Encode a serialized value, compressing it when it is at least {@code threshold} bytes
+     * and compression actually makes it smaller.
+     */
+    public byte[] encode(byte[] data) {
+        if (data.length >= threshold) {
+            try {
+                ByteArrayOutputStream out = new ByteArrayOutputStream(data.length / 2 + COMPRESSED_HEADER_SIZE);
+                out.write(MAGIC);
+                out.write(codec);
+                out.write(ByteBuffer.allocate(Integer.BYTES).putInt(data.length).array());
+                compressor.compress(data, out);
+                if (out.size() < data.length) {
+                    return out.toByteArray();
+                }
+            } catch (IOException e) {
+                throw new SerializationException("Failed to compress value", e);
+            }
+        }
+        return data;
+    }
+
+    /**
+     * Whether a region holds a value compressed by {@link #encode(byte[])}, rather than
+     * raw serialized bytes.
+     */
+    public static boolean isCompressed(byte[] data, int offset, int length) {
+        return length >= COMPRESSED_HEADER_SIZE && data[offset] == MAGIC
+                && (data[offset + 1] == GZIP || data[offset + 1] == DEFLATE);
+    }
+
+    /**
+     * Decode a value produced by {@link #encode(byte[])}.
+     */
+    public static byte[] decode(byte[] data) {
+        return decode(data, 0, data.length);
+    }
+
+    /**
+     * Decode an encoded value stored in a region of a byte array.
+     */
+    public static byte[] decode(byte[] data, int offset, int length) {
+        if (!isCompressed(data, offset, length)) {
+            byte[] result = new byte[length];
+            System.arraycopy(data, offset, result, 0, length);
+            return result;
+        }
+
+        int originalLength = ByteBuffer.wrap(data, offset + 2, Integer.BYTES).getInt();
+        try {
+            return compressorOf(data[offset + 1]).decompress(data, offset + COMPRESSED_HEADER_SIZE,
+                    length - COMPRESSED_HEADER_SIZE, originalLength);
+        } catch (IOException e) {
+            throw new SerializationException("Failed to decompress value", e);
+        }
+    }
+
+}
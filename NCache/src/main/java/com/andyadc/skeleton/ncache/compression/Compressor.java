@@ -0,0 +1,21 @@
+package com.andyadc.skeleton.ncache.compression;
+
+import java.io.IOException;
+import java.io.OutputStream;
+
+/**
+ * Compression algorithm used by the L2 value codec.
+ */
+public interface Compressor {
+
+    /**
+     * Compress data and write the result to the given stream.
+     */
+    void compress(byte[] data, OutputStream out) throws IOException;
+
+    /**
+     * Decompress a region of a byte array whose uncompressed size is known.
+     */
+    byte[] decompress(byte[] data, int offset, int length, int originalLength) throws IOException;
+
+}
@@ -0,0 +1,57 @@
+package com.andyadc.skeleton.ncache.compression;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.zip.DataFormatException;
+import java.util.zip.Deflater;
+import java.util.zip.Inflater;
+
+/**
+ * Raw deflate at {@link Deflater#BEST_SPEED}, a fast pure-Java codec without GZIP framing.
+ */
+public class DeflateCompressor implements Compressor {
+
+    private static final int BUFFER_SIZE = 8192;
+
+    @Override
+    public void compress(byte[] data, OutputStream out) throws IOException {
+        Deflater deflater = new Deflater(Deflater.BEST_SPEED, true);
+        try {
+            deflater.setInput(data);
+            deflater.finish();
+            byte[] buffer = new byte[Math.min(BUFFER_SIZE, data.length + 64)];
+            while (!deflater.finished()) {
+                int n = deflater.deflate(buffer);
+                out.write(buffer, 0, n);
+            }
+        } finally {
+            deflater.end();
+        }
+    }
+
+    @Override
+    public byte[] decompress(byte[] data, int offset, int length, int originalLength) throws IOException {
+        Inflater inflater = new Inflater(true);
+        try {
+            inflater.setInput(data, offset, length);
+            byte[] result = new byte[originalLength];
+            int read = 0;
+            while (read < originalLength && !inflater.finished()) {
+                int n = inflater.inflate(result, read, originalLength - read);
+                if (n == 0 && (inflater.needsInput() || inflater.needsDictionary())) {
+                    break;
+                }
+                read += n;
+            }
+            if (read != originalLength) {
+                throw new IOException("Truncated deflate stream: " + read + " of " + originalLength + " bytes");
+            }
+            return result;
+        } catch (DataFormatException e) {
+            throw new IOException("Corrupt deflate stream", e);
+        } finally {
+            inflater.end();
+        }
+    }
+
+}
@@ -0,0 +1,28 @@
+package com.andyadc.skeleton.ncache.compression;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * GZIP compression, best ratio of the built-in codecs.
+ */
+public class GzipCompressor implements Compressor {
+
+    @Override
+    public void compress(byte[] data, OutputStream out) throws IOException {
+        try (GZIPOutputStream gzip = new GZIPOutputStream(out)) {
+            gzip.write(data);
+        }
+    }
+
+    @Override
+    public byte[] decompress(byte[] data, int offset, int length, int originalLength) throws IOException {
+        try (GZIPInputStream gzip = new GZIPInputStream(new ByteArrayInputStream(data, offset, length))) {
+            return gzip.readNBytes(originalLength);
+        }
+    }
+
+}
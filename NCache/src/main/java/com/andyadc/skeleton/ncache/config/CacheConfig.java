@@ -4,6 +4,7 @@ import com.andyadc.skeleton.ncache.api.CacheLoader;
 import com.andyadc.skeleton.ncache.api.CacheWriter;
 import com.andyadc.skeleton.ncache.serialization.Serializer;
 
+import java.nio.file.Path;
 import java.time.Duration;
 import java.util.Objects;
 
@@ -25,6 +26,10 @@ public class CacheConfig<K, V> {
     private final boolean statisticsEnabled;
     private final boolean nullValueCachingEnabled;
     private final Duration nullValueTtl;
+    private final HotKeyConfig hotKeyConfig;
+    private final OffHeapConfig offHeapConfig;
+    private final SnapshotConfig snapshotConfig;
+    private final BloomFilterConfig bloomFilterConfig;
 
     private CacheConfig(Builder<K, V> builder) {
         this.l1Config = builder.l1Config;
@@ -38,6 +43,10 @@ public class CacheConfig<K, V> {
         this.statisticsEnabled = builder.statisticsEnabled;
         this.nullValueCachingEnabled = builder.nullValueCachingEnabled;
         this.nullValueTtl = builder.nullValueTtl;
+        this.hotKeyConfig = builder.hotKeyConfig;
+        this.offHeapConfig = builder.offHeapConfig;
+        this.snapshotConfig = builder.snapshotConfig;
+        this.bloomFilterConfig = builder.bloomFilterConfig;
     }
 
     public static <K, V> Builder<K, V> builder() {
@@ -93,15 +102,34 @@ public class CacheConfig<K, V> {
         return nullValueTtl;
     }
 
+    public HotKeyConfig getHotKeyConfig() {
+        return hotKeyConfig;
+    }
+
+    public OffHeapConfig getOffHeapConfig() {
+        return offHeapConfig;
+    }
+
+    public SnapshotConfig getSnapshotConfig() {
+        return snapshotConfig;
+    }
+
+    public BloomFilterConfig getBloomFilterConfig() {
+        return bloomFilterConfig;
+    }
+
     /**
      * L1 (Local Cache) Configuration.
      */
     public static class L1Config {
         private final boolean enabled;
         private final long maximumSize;
+        private final long maximumWeight;
+        private final Weigher weigher;
         private final Duration expireAfterWrite;
         private final Duration expireAfterAccess;
         private final Duration refreshAfterWrite;
+        private final double ttlJitter;
         private final int initialCapacity;
         private final boolean weakKeys;
         private final boolean weakValues;
@@ -111,9 +139,12 @@ public class CacheConfig<K, V> {
         private L1Config(L1ConfigBuilder builder) {
             this.enabled = builder.enabled;
             this.maximumSize = builder.maximumSize;
+            this.maximumWeight = builder.maximumWeight;
+            this.weigher = builder.weigher;
             this.expireAfterWrite = builder.expireAfterWrite;
             this.expireAfterAccess = builder.expireAfterAccess;
             this.refreshAfterWrite = builder.refreshAfterWrite;
+            this.ttlJitter = builder.ttlJitter;
             this.initialCapacity = builder.initialCapacity;
             this.weakKeys = builder.weakKeys;
             this.weakValues = builder.weakValues;
@@ -138,6 +169,20 @@ public class CacheConfig<K, V> {
             return maximumSize;
         }
 
+        /**
+         * Weight bound in bytes, or 0 to bound by {@link #getMaximumSize()} instead.
+         */
+        public long getMaximumWeight() {
+            return maximumWeight;
+        }
+
+        /**
+         * Weigher for {@link #getMaximumWeight()}; null for the built-in heap estimate.
+         */
+        public Weigher getWeigher() {
+            return weigher;
+        }
+
         public Duration getExpireAfterWrite() {
             return expireAfterWrite;
         }
@@ -150,6 +195,14 @@ public class CacheConfig<K, V> {
             return refreshAfterWrite;
         }
 
+        /**
+         * Up to this fraction of an entry's remaining TTL is cut at random when it is
+         * written to L1; 0 expires every entry exactly at its deadline.
+         */
+        public double getTtlJitter() {
+            return ttlJitter;
+        }
+
         public int getInitialCapacity() {
             return initialCapacity;
         }
@@ -170,12 +223,24 @@ public class CacheConfig<K, V> {
             return recordStats;
         }
 
+        /**
+         * Estimates how many bytes an L1 value retains, together with its key. The cache adds
+         * a fixed per-entry overhead on top.
+         */
+        @FunctionalInterface
+        public interface Weigher {
+            int weigh(Object key, Object value);
+        }
+
         public static class L1ConfigBuilder {
             private boolean enabled = true;
             private long maximumSize = 10_000;
+            private long maximumWeight = 0;
+            private Weigher weigher;
             private Duration expireAfterWrite = Duration.ofMinutes(10);
             private Duration expireAfterAccess = null;
             private Duration refreshAfterWrite = null;
+            private double ttlJitter = 0;
             private int initialCapacity = 256;
             private boolean weakKeys = false;
             private boolean weakValues = false;
@@ -192,6 +257,19 @@ public class CacheConfig<K, V> {
                 return this;
             }
 
+            /**
+             * Bound L1 by the estimated bytes of its entries instead of their number.
+             */
+            public L1ConfigBuilder maximumWeight(long maximumWeight) {
+                this.maximumWeight = maximumWeight;
+                return this;
+            }
+
+            public L1ConfigBuilder weigher(Weigher weigher) {
+                this.weigher = weigher;
+                return this;
+            }
+
             public L1ConfigBuilder expireAfterWrite(Duration duration) {
                 this.expireAfterWrite = duration;
                 return this;
@@ -207,6 +285,11 @@ public class CacheConfig<K, V> {
                 return this;
             }
 
+            public L1ConfigBuilder ttlJitter(double ttlJitter) {
+                this.ttlJitter = ttlJitter;
+                return this;
+            }
+
             public L1ConfigBuilder initialCapacity(int initialCapacity) {
                 this.initialCapacity = initialCapacity;
                 return this;
@@ -233,6 +316,9 @@ public class CacheConfig<K, V> {
             }
 
             public L1Config build() {
+                if (ttlJitter < 0 || ttlJitter >= 1) {
+                    throw new IllegalArgumentException("ttlJitter must be in [0, 1)");
+                }
                 return new L1Config(this);
             }
         }
@@ -248,6 +334,7 @@ public class CacheConfig<K, V> {
         private final boolean useKeyHashTag;
         private final CompressionConfig compression;
         private final BatchConfig batch;
+        private final EarlyExpirationConfig earlyExpiration;
 
         private L2Config(L2ConfigBuilder builder) {
             this.enabled = builder.enabled;
@@ -256,6 +343,7 @@ public class CacheConfig<K, V> {
             this.useKeyHashTag = builder.useKeyHashTag;
             this.compression = builder.compression;
             this.batch = builder.batch;
+            this.earlyExpiration = builder.earlyExpiration;
         }
 
         public static L2ConfigBuilder builder() {
@@ -291,6 +379,10 @@ public class CacheConfig<K, V> {
             return batch;
         }
 
+        public EarlyExpirationConfig getEarlyExpiration() {
+            return earlyExpiration;
+        }
+
         public static class L2ConfigBuilder {
             private boolean enabled = true;
             private String keyPrefix = "cache:";
@@ -298,6 +390,7 @@ public class CacheConfig<K, V> {
             private boolean useKeyHashTag = false;
             private CompressionConfig compression = CompressionConfig.disabled();
             private BatchConfig batch = BatchConfig.defaultConfig();
+            private EarlyExpirationConfig earlyExpiration = EarlyExpirationConfig.disabled();
 
             public L2ConfigBuilder enabled(boolean enabled) {
                 this.enabled = enabled;
@@ -329,6 +422,11 @@ public class CacheConfig<K, V> {
                 return this;
             }
 
+            public L2ConfigBuilder earlyExpiration(EarlyExpirationConfig earlyExpiration) {
+                this.earlyExpiration = earlyExpiration;
+                return this;
+            }
+
             public L2Config build() {
                 return new L2Config(this);
             }
@@ -361,6 +459,10 @@ public class CacheConfig<K, V> {
             return new CompressionConfig(true, CompressionType.LZ4, threshold);
         }
 
+        public static CompressionConfig deflate(int threshold) {
+            return new CompressionConfig(true, CompressionType.DEFLATE, threshold);
+        }
+
         public boolean isEnabled() {
             return enabled;
         }
@@ -373,28 +475,68 @@ public class CacheConfig<K, V> {
             return threshold;
         }
 
+        /**
+         * Compression algorithms. GZIP and DEFLATE (level 1, pure Java) are built in;
+         * the others need a native codec on the classpath and are rejected for now.
+         */
         public enum CompressionType {
-            GZIP, LZ4, SNAPPY, ZSTD
+            GZIP, DEFLATE, LZ4, SNAPPY, ZSTD
         }
     }
 
 
     /**
      * Batch operation configuration.
+     * <p>
+     * When {@code writeCoalescing} is enabled, single-key L2 writes are queued and flushed as one
+     * pipeline once {@code maxBatchSize} operations are pending or {@code batchTimeout} has elapsed
+     * since the first of them was queued. When {@code readBatching} is enabled, concurrent point
+     * reads arriving within {@code readWindow} are merged into one MGET of up to {@code maxBatchSize} keys.
      */
     public static class BatchConfig {
+        private final boolean writeCoalescing;
+        private final boolean readBatching;
         private final int maxBatchSize;
         private final Duration batchTimeout;
+        private final Duration readWindow;
 
         public BatchConfig(int maxBatchSize, Duration batchTimeout) {
+            this(false, maxBatchSize, batchTimeout);
+        }
+
+        public BatchConfig(boolean writeCoalescing, int maxBatchSize, Duration batchTimeout) {
+            this(writeCoalescing, false, maxBatchSize, batchTimeout, Duration.ofNanos(200_000));
+        }
+
+        public BatchConfig(boolean writeCoalescing, boolean readBatching, int maxBatchSize,
+                           Duration batchTimeout, Duration readWindow) {
+            this.writeCoalescing = writeCoalescing;
+            this.readBatching = readBatching;
             this.maxBatchSize = maxBatchSize;
             this.batchTimeout = batchTimeout;
+            this.readWindow = readWindow;
         }
 
         public static BatchConfig defaultConfig() {
             return new BatchConfig(100, Duration.ofMillis(50));
         }
 
+        public static BatchConfig coalescing(int maxBatchSize, Duration batchTimeout) {
+            return new BatchConfig(true, maxBatchSize, batchTimeout);
+        }
+
+        public static BatchConfig readBatching(int maxBatchSize, Duration readWindow) {
+            return new BatchConfig(false, true, maxBatchSize, Duration.ofMillis(50), readWindow);
+        }
+
+        public boolean isWriteCoalescing() {
+            return writeCoalescing;
+        }
+
+        public boolean isReadBatching() {
+            return readBatching;
+        }
+
         public int getMaxBatchSize() {
             return maxBatchSize;
         }
@@ -402,6 +544,266 @@ public class CacheConfig<K, V> {
         public Duration getBatchTimeout() {
             return batchTimeout;
         }
+
+        public Duration getReadWindow() {
+            return readWindow;
+        }
+    }
+
+    /**
+     * Probabilistic early expiration (XFetch) configuration.
+     * <p>
+     * Each L2 entry records how long its value took to compute and when it expires. A reader
+     * recomputes early when {@code now - delta * beta * ln(random) >= expiry}, so the chance of
+     * a refresh rises as the deadline approaches instead of every node missing at once.
+     * A beta above 1.0 favours earlier recomputation, below 1.0 later.
+     */
+    public static class EarlyExpirationConfig {
+        private final boolean enabled;
+        private final double beta;
+
+        public EarlyExpirationConfig(boolean enabled, double beta) {
+            this.enabled = enabled;
+            this.beta = beta;
+        }
+
+        public static EarlyExpirationConfig disabled() {
+            return new EarlyExpirationConfig(false, 1.0);
+        }
+
+        public static EarlyExpirationConfig xfetch(double beta) {
+            return new EarlyExpirationConfig(true, beta);
+        }
+
+        public boolean isEnabled() {
+            return enabled;
+        }
+
+        public double getBeta() {
+            return beta;
+        }
+    }
+
+    /**
+     * Hot key detection on the read path.
+     * <p>
+     * Every lookup is counted in a frequency sketch that keeps the current top-K keys.
+     * With pinning, hot keys stay available locally after L1 evicts or expires them, and
+     * are refreshed once {@code refreshAheadRatio} of their L1 lifetime has passed: through
+     * the cache loader if there is one, otherwise from L2.
+     */
+    public static class HotKeyConfig {
+        private final boolean enabled;
+        private final int topK;
+        private final boolean pinning;
+        private final double refreshAheadRatio;
+
+        public HotKeyConfig(boolean enabled, int topK, boolean pinning, double refreshAheadRatio) {
+            this.enabled = enabled;
+            this.topK = topK;
+            this.pinning = pinning;
+            this.refreshAheadRatio = refreshAheadRatio;
+        }
+
+        public static HotKeyConfig disabled() {
+            return new HotKeyConfig(false, 0, false, 1.0);
+        }
+
+        /**
+         * Track the top-K keys without changing how they are cached.
+         */
+        public static HotKeyConfig track(int topK) {
+            return new HotKeyConfig(true, topK, false, 1.0);
+        }
+
+        /**
+         * Track the top-K keys, pin them in L1 and refresh them ahead of expiry.
+         */
+        public static HotKeyConfig pin(int topK, double refreshAheadRatio) {
+            return new HotKeyConfig(true, topK, true, refreshAheadRatio);
+        }
+
+        public boolean isEnabled() {
+            return enabled;
+        }
+
+        public int getTopK() {
+            return topK;
+        }
+
+        public boolean isPinning() {
+            return pinning;
+        }
+
+        public double getRefreshAheadRatio() {
+            return refreshAheadRatio;
+        }
+    }
+
+    /**
+     * Off-heap tier between L1 and L2.
+     * <p>
+     * Entries that L1 evicts for size are kept serialized outside the Java heap, up to
+     * {@code capacityBytes}, and moved back into L1 when read again. The capacity is split
+     * into {@code segments} buffers of at most 1 GiB each, with their own locks.
+     */
+    public static class OffHeapConfig {
+        private final boolean enabled;
+        private final long capacityBytes;
+        private final Storage storage;
+        private final Path directory;
+        private final int segments;
+
+        public OffHeapConfig(boolean enabled, long capacityBytes, Storage storage, Path directory, int segments) {
+            if (enabled && capacityBytes < 1) {
+                throw new IllegalArgumentException("capacityBytes must be positive");
+            }
+            if (segments < 1) {
+                throw new IllegalArgumentException("segments must be positive");
+            }
+            this.enabled = enabled;
+            this.capacityBytes = capacityBytes;
+            this.storage = storage;
+            this.directory = directory;
+            this.segments = segments;
+        }
+
+        public static OffHeapConfig disabled() {
+            return new OffHeapConfig(false, 0, Storage.DIRECT, null, 16);
+        }
+
+        /**
+         * Direct buffers; they count against {@code -XX:MaxDirectMemorySize}.
+         */
+        public static OffHeapConfig direct(long capacityBytes) {
+            return new OffHeapConfig(true, capacityBytes, Storage.DIRECT, null, 16);
+        }
+
+        /**
+         * Buffers mapped from files in {@code directory}, or the temp directory if null.
+         */
+        public static OffHeapConfig mapped(long capacityBytes, Path directory) {
+            return new OffHeapConfig(true, capacityBytes, Storage.MAPPED, directory, 16);
+        }
+
+        public boolean isEnabled() {
+            return enabled;
+        }
+
+        public long getCapacityBytes() {
+            return capacityBytes;
+        }
+
+        public Storage getStorage() {
+            return storage;
+        }
+
+        public Path getDirectory() {
+            return directory;
+        }
+
+        public int getSegments() {
+            return segments;
+        }
+
+        public enum Storage {
+            DIRECT, MAPPED
+        }
+    }
+
+    /**
+     * Warm restart: L1 entries are written to {@code <directory>/<cache name>.snapshot} when
+     * the cache is destroyed and loaded back when it is created, keeping their original
+     * expiry. Needs the key and value serializers. Invalidations sent while the node was
+     * down are missed, so snapshots older than {@code maxAge} are ignored.
+     */
+    public static class SnapshotConfig {
+        private final boolean enabled;
+        private final Path directory;
+        private final Duration maxAge;
+
+        public SnapshotConfig(boolean enabled, Path directory, Duration maxAge) {
+            if (enabled && directory == null) {
+                throw new IllegalArgumentException("Snapshot directory is required");
+            }
+            this.enabled = enabled;
+            this.directory = directory;
+            this.maxAge = maxAge;
+        }
+
+        public static SnapshotConfig disabled() {
+            return new SnapshotConfig(false, null, null);
+        }
+
+        public static SnapshotConfig at(Path directory, Duration maxAge) {
+            return new SnapshotConfig(true, directory, maxAge);
+        }
+
+        public boolean isEnabled() {
+            return enabled;
+        }
+
+        public Path getDirectory() {
+            return directory;
+        }
+
+        public Duration getMaxAge() {
+            return maxAge;
+        }
+    }
+
+    /**
+     * Bloom filter of the keys that exist, consulted after an L1 miss so that reads of keys
+     * known never to exist skip L2 and the loader.
+     * <p>
+     * The filter is sized for {@code expectedInsertions} keys at {@code falsePositiveRate},
+     * kept as a Redis bitmap shared by all nodes and mirrored locally. Every key written
+     * through the cache is added; keys that exist only in the backing store must be added
+     * by a rebuild. The local copy is merged with Redis every {@code reloadInterval}.
+     */
+    public static class BloomFilterConfig {
+        private final boolean enabled;
+        private final long expectedInsertions;
+        private final double falsePositiveRate;
+        private final Duration reloadInterval;
+
+        public BloomFilterConfig(boolean enabled, long expectedInsertions, double falsePositiveRate,
+                                 Duration reloadInterval) {
+            if (enabled && expectedInsertions < 1) {
+                throw new IllegalArgumentException("expectedInsertions must be positive");
+            }
+            if (enabled && (falsePositiveRate <= 0 || falsePositiveRate >= 1)) {
+                throw new IllegalArgumentException("falsePositiveRate must be in (0, 1)");
+            }
+            this.enabled = enabled;
+            this.expectedInsertions = expectedInsertions;
+            this.falsePositiveRate = falsePositiveRate;
+            this.reloadInterval = reloadInterval;
+        }
+
+        public static BloomFilterConfig disabled() {
+            return new BloomFilterConfig(false, 0, 0.01, null);
+        }
+
+        public static BloomFilterConfig of(long expectedInsertions, double falsePositiveRate) {
+            return new BloomFilterConfig(true, expectedInsertions, falsePositiveRate, Duration.ofMinutes(1));
+        }
+
+        public boolean isEnabled() {
+            return enabled;
+        }
+
+        public long getExpectedInsertions() {
+            return expectedInsertions;
+        }
+
+        public double getFalsePositiveRate() {
+            return falsePositiveRate;
+        }
+
+        public Duration getReloadInterval() {
+            return reloadInterval;
+        }
     }
 
     public static class Builder<K, V> {
@@ -416,6 +818,10 @@ public class CacheConfig<K, V> {
         private boolean statisticsEnabled = true;
         private boolean nullValueCachingEnabled = false;
         private Duration nullValueTtl = Duration.ofMinutes(1);
+        private HotKeyConfig hotKeyConfig = HotKeyConfig.disabled();
+        private OffHeapConfig offHeapConfig = OffHeapConfig.disabled();
+        private SnapshotConfig snapshotConfig = SnapshotConfig.disabled();
+        private BloomFilterConfig bloomFilterConfig = BloomFilterConfig.disabled();
 
         public Builder<K, V> l1Config(L1Config l1Config) {
             this.l1Config = Objects.requireNonNull(l1Config);
@@ -468,6 +874,26 @@ public class CacheConfig<K, V> {
             return this;
         }
 
+        public Builder<K, V> hotKeys(HotKeyConfig hotKeyConfig) {
+            this.hotKeyConfig = Objects.requireNonNull(hotKeyConfig);
+            return this;
+        }
+
+        public Builder<K, V> offHeap(OffHeapConfig offHeapConfig) {
+            this.offHeapConfig = Objects.requireNonNull(offHeapConfig);
+            return this;
+        }
+
+        public Builder<K, V> snapshot(SnapshotConfig snapshotConfig) {
+            this.snapshotConfig = Objects.requireNonNull(snapshotConfig);
+            return this;
+        }
+
+        public Builder<K, V> bloomFilter(BloomFilterConfig bloomFilterConfig) {
+            this.bloomFilterConfig = Objects.requireNonNull(bloomFilterConfig);
+            return this;
+        }
+
         public CacheConfig<K, V> build() {
             return new CacheConfig<>(this);
         }
@@ -1,11 +1,15 @@
 package com.andyadc.skeleton.ncache.config;
 
 import com.andyadc.skeleton.ncache.api.CacheSynchronizer;
+import com.andyadc.skeleton.ncache.impl.CacheExecutors;
 import com.andyadc.skeleton.ncache.metrics.MetricsCollector;
 import com.andyadc.skeleton.ncache.resilience.CircuitBreakerConfig;
 import com.andyadc.skeleton.ncache.resilience.RetryConfig;
 import com.andyadc.skeleton.ncache.serialization.Serializer;
+import com.andyadc.skeleton.ncache.sync.SyncConfig;
+import com.andyadc.skeleton.ncache.sync.TrackingCacheSynchronizer;
 
+import java.time.Duration;
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.ScheduledExecutorService;
 
@@ -15,27 +19,39 @@ import java.util.concurrent.ScheduledExecutorService;
 public class TwoLevelCacheManagerConfig {
 
     private final RedisClientConfig redisConfig;
+    private final L2Client l2Client;
     private final CacheSynchronizer synchronizer;
+    private final SyncTransport syncTransport;
+    private final SyncConfig syncConfig;
+    private final TrackingCacheSynchronizer.Mode trackingMode;
     private final MetricsCollector metricsCollector;
     private final CircuitBreakerConfig circuitBreakerConfig;
     private final RetryConfig retryConfig;
+    private final ExecutorMode executorMode;
     private final ExecutorService asyncExecutor;
     private final ScheduledExecutorService scheduledExecutor;
     private final Serializer<?> defaultSerializer;
     private final CacheConfig<?, ?> defaultCacheConfig;
     private final String instanceId;
+    private final Duration maintenanceInterval;
 
     private TwoLevelCacheManagerConfig(Builder builder) {
         this.redisConfig = builder.redisConfig;
+        this.l2Client = builder.l2Client;
         this.synchronizer = builder.synchronizer;
+        this.syncTransport = builder.syncTransport;
+        this.syncConfig = builder.syncConfig;
+        this.trackingMode = builder.trackingMode;
         this.metricsCollector = builder.metricsCollector;
         this.circuitBreakerConfig = builder.circuitBreakerConfig;
         this.retryConfig = builder.retryConfig;
+        this.executorMode = builder.executorMode;
         this.asyncExecutor = builder.asyncExecutor;
         this.scheduledExecutor = builder.scheduledExecutor;
         this.defaultSerializer = builder.defaultSerializer;
         this.defaultCacheConfig = builder.defaultCacheConfig;
         this.instanceId = builder.instanceId;
+        this.maintenanceInterval = builder.maintenanceInterval;
     }
 
     public static Builder builder() {
@@ -47,10 +63,29 @@ public class TwoLevelCacheManagerConfig {
         return redisConfig;
     }
 
+    public L2Client getL2Client() {
+        return l2Client;
+    }
+
     public CacheSynchronizer getSynchronizer() {
         return synchronizer;
     }
 
+    /**
+     * Transport of the synchronizer the manager creates when none is given.
+     */
+    public SyncTransport getSyncTransport() {
+        return syncTransport;
+    }
+
+    public SyncConfig getSyncConfig() {
+        return syncConfig;
+    }
+
+    public TrackingCacheSynchronizer.Mode getTrackingMode() {
+        return trackingMode;
+    }
+
     public MetricsCollector getMetricsCollector() {
         return metricsCollector;
     }
@@ -63,6 +98,10 @@ public class TwoLevelCacheManagerConfig {
         return retryConfig;
     }
 
+    public ExecutorMode getExecutorMode() {
+        return executorMode;
+    }
+
     public ExecutorService getAsyncExecutor() {
         return asyncExecutor;
     }
@@ -83,28 +122,104 @@ public class TwoLevelCacheManagerConfig {
         return instanceId;
     }
 
+    /**
+     * How often the manager cleans up L1, publishes stats and reloads bloom filters.
+     */
+    public Duration getMaintenanceInterval() {
+        return maintenanceInterval;
+    }
+
+    /**
+     * Redis client backing the L2 tier.
+     */
+    public enum L2Client {
+        /**
+         * Pooled blocking connections; async operations run on the async executor.
+         */
+        JEDIS,
+        /**
+         * Shared non-blocking connection; async operations do not occupy a thread.
+         */
+        LETTUCE
+    }
+
+    /**
+     * How invalidations reach other nodes.
+     */
+    public enum SyncTransport {
+        /**
+         * Redis pub/sub; messages published while a node is disconnected are lost to it.
+         */
+        PUBSUB,
+        /**
+         * A Redis stream, replayed from where a node left off after a reconnect.
+         */
+        STREAM,
+        /**
+         * Redis 6 client tracking on the L2 connection; needs {@link L2Client#LETTUCE}.
+         */
+        TRACKING
+    }
+
+    /**
+     * Threads used for async operations, refreshes, preloads and sync listener dispatch.
+     */
+    public enum ExecutorMode {
+        PLATFORM,
+        /**
+         * Virtual threads on JDK 21+, platform threads otherwise.
+         */
+        VIRTUAL
+    }
+
     public static class Builder {
         private RedisClientConfig redisConfig;
+        private L2Client l2Client = L2Client.JEDIS;
         private CacheSynchronizer synchronizer;
+        private SyncTransport syncTransport = SyncTransport.PUBSUB;
+        private SyncConfig syncConfig = SyncConfig.defaultConfig();
+        private TrackingCacheSynchronizer.Mode trackingMode = TrackingCacheSynchronizer.Mode.DEFAULT;
         private MetricsCollector metricsCollector;
         private CircuitBreakerConfig circuitBreakerConfig = CircuitBreakerConfig.defaultConfig();
         private RetryConfig retryConfig = RetryConfig.defaultConfig();
+        private ExecutorMode executorMode = ExecutorMode.PLATFORM;
         private ExecutorService asyncExecutor;
         private ScheduledExecutorService scheduledExecutor;
         private Serializer<?> defaultSerializer;
         private CacheConfig<?, ?> defaultCacheConfig;
         private String instanceId;
+        private Duration maintenanceInterval = Duration.ofSeconds(10);
 
         public Builder redisConfig(RedisClientConfig redisConfig) {
             this.redisConfig = redisConfig;
             return this;
         }
 
+        public Builder l2Client(L2Client l2Client) {
+            this.l2Client = l2Client;
+            return this;
+        }
+
         public Builder synchronizer(CacheSynchronizer synchronizer) {
             this.synchronizer = synchronizer;
             return this;
         }
 
+        public Builder syncTransport(SyncTransport syncTransport) {
+            this.syncTransport = syncTransport;
+            return this;
+        }
+
+        public Builder syncConfig(SyncConfig syncConfig) {
+            this.syncConfig = syncConfig;
+            return this;
+        }
+
+        public Builder trackingMode(TrackingCacheSynchronizer.Mode trackingMode) {
+            this.trackingMode = trackingMode;
+            return this;
+        }
+
         public Builder metricsCollector(MetricsCollector metricsCollector) {
             this.metricsCollector = metricsCollector;
             return this;
@@ -120,6 +235,11 @@ public class TwoLevelCacheManagerConfig {
             return this;
         }
 
+        public Builder executorMode(ExecutorMode executorMode) {
+            this.executorMode = executorMode;
+            return this;
+        }
+
         public Builder asyncExecutor(ExecutorService executor) {
             this.asyncExecutor = executor;
             return this;
@@ -145,10 +265,28 @@ public class TwoLevelCacheManagerConfig {
             return this;
         }
 
+        public Builder maintenanceInterval(Duration maintenanceInterval) {
+            this.maintenanceInterval = maintenanceInterval;
+            return this;
+        }
+
         public TwoLevelCacheManagerConfig build() {
+            if (maintenanceInterval == null || maintenanceInterval.isNegative() || maintenanceInterval.isZero()) {
+                throw new IllegalArgumentException("maintenanceInterval must be positive");
+            }
+            if (syncTransport == SyncTransport.TRACKING && synchronizer == null && l2Client != L2Client.LETTUCE) {
+                throw new IllegalArgumentException("The TRACKING sync transport needs the LETTUCE L2 client");
+            }
             if (instanceId == null) {
                 instanceId = java.util.UUID.randomUUID().toString();
             }
+            if (asyncExecutor == null) {
+                // Never run more Redis calls at once than the pool can serve
+                int concurrency = redisConfig != null
+                        ? redisConfig.getPoolMaxTotal()
+                        : Runtime.getRuntime().availableProcessors() * 2;
+                asyncExecutor = CacheExecutors.newAsyncExecutor(executorMode, concurrency);
+            }
             return new TwoLevelCacheManagerConfig(this);
         }
     }
@@ -0,0 +1,377 @@
+package com.andyadc.skeleton.ncache.impl;
+
+import com.andyadc.skeleton.ncache.config.CacheConfig;
+import com.andyadc.skeleton.ncache.serialization.Serializer;
+import com.andyadc.skeleton.ncache.serialization.TextKeySerializer;
+import io.lettuce.core.api.StatefulRedisConnection;
+import io.lettuce.core.api.async.RedisAsyncCommands;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import redis.clients.jedis.Jedis;
+import redis.clients.jedis.JedisPool;
+import redis.clients.jedis.Pipeline;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Bloom filter of the keys of one cache, kept as a Redis bitmap and mirrored in memory.
+ * <p>
+ * Lookups only read the local copy. {@link #add} sets the bits locally and in Redis; other
+ * nodes pick them up from the invalidation every write publishes ({@link #addLocal}) and
+ * from {@link #reload}, which merges the Redis bitmap in. The Redis string starts with a
+ * 16-byte header (rebuild time, word count, hash count) followed by the bits in
+ * {@code SETBIT} order, which is also the big-endian byte order of the local words.
+ * <p>
+ * The filter only rejects keys once it has been {@linkplain #rebuild built} from every key
+ * that exists, here or on another node; until then every key might be contained.
+ */
+public class CacheBloomFilter<K> {
+
+    private static final Logger logger = LoggerFactory.getLogger(CacheBloomFilter.class);
+
+    private static final int HEADER_SIZE = 16;
+    private static final long HEADER_BITS = HEADER_SIZE * 8L;
+    // Largest Redis string is 512 MiB
+    private static final long MAX_BITS = (1L << 32) - HEADER_BITS;
+
+    private final String name;
+    private final byte[] redisKey;
+    private final Serializer<K> keySerializer;
+    // Null keeps the filter local to this node
+    private final BitmapStore store;
+    private final int words;
+    private final long bitCount;
+    private final int hashCount;
+
+    private volatile Bits bits;
+    // Filled by a running rebuild; adds go to both arrays meanwhile
+    private volatile AtomicLongArray rebuilding;
+    private final ConcurrentLinkedQueue<long[]> addedDuringRebuild = new ConcurrentLinkedQueue<>();
+
+    public CacheBloomFilter(String name,
+                            String keyPrefix,
+                            CacheConfig.BloomFilterConfig config,
+                            Serializer<K> keySerializer,
+                            BitmapStore store) {
+        this.name = name;
+        this.redisKey = (keyPrefix + "__bloom__:" + name).getBytes(StandardCharsets.UTF_8);
+        this.keySerializer = keySerializer != null ? keySerializer : new TextKeySerializer<>();
+        this.store = store;
+
+        // m = -n ln(p) / ln(2)^2 bits and k = m/n ln(2) hashes minimize the false positive rate
+        long n = config.getExpectedInsertions();
+        double m = -n * Math.log(config.getFalsePositiveRate()) / (Math.log(2) * Math.log(2));
+        this.words = (int) Math.ceil(Math.min(m, MAX_BITS) / Long.SIZE);
+        this.bitCount = (long) words * Long.SIZE;
+        this.hashCount = Math.max(1, (int) Math.round(m / n * Math.log(2)));
+        this.bits = new Bits(0, new AtomicLongArray(words));
+    }
+
+    /**
+     * Whether the filter has been built and can reject keys.
+     */
+    public boolean isReady() {
+        return bits.epoch != 0;
+    }
+
+    /**
+     * False only if the key was never added since the last rebuild.
+     */
+    public boolean mightContain(K key) {
+        Bits current = bits;
+        if (current.epoch == 0) {
+            return true;
+        }
+        long[] offsets = offsets(key);
+        for (long offset : offsets) {
+            if ((current.words.get((int) (offset >>> 6)) & mask(offset)) == 0) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Add a key written on this node, locally and in Redis.
+     */
+    public void add(K key) {
+        long[] offsets = offsets(key);
+        setLocal(offsets);
+        if (store != null) {
+            if (rebuilding != null) {
+                addedDuringRebuild.add(offsets);
+            }
+            try {
+                store.setBits(redisKey, shift(offsets));
+            } catch (Exception e) {
+                logger.warn("Failed to add key to bloom filter of cache {}", name, e);
+            }
+        }
+    }
+
+    /**
+     * Add a key another node wrote, and so already added to Redis.
+     */
+    public void addLocal(K key) {
+        setLocal(offsets(key));
+    }
+
+    /**
+     * Replace the filter with one holding exactly {@code keys}, which must cover every key
+     * that exists. Other nodes switch to it on their next {@link #reload}. Keys first
+     * written on another node while the new bitmap is being stored can be lost from it, so
+     * the key source should include those.
+     */
+    public synchronized void rebuild(Iterable<K> keys) {
+        long start = System.nanoTime();
+        AtomicLongArray fresh = new AtomicLongArray(words);
+        addedDuringRebuild.clear();
+        rebuilding = fresh;
+        long epoch;
+        try {
+            long count = 0;
+            for (K key : keys) {
+                set(fresh, offsets(key));
+                count++;
+            }
+            epoch = System.currentTimeMillis();
+            if (store != null) {
+                store.replace(redisKey, toBytes(epoch, fresh));
+                // Adds on this node that the replaced bitmap may have overwritten
+                for (long[] offsets; (offsets = addedDuringRebuild.poll()) != null; ) {
+                    store.setBits(redisKey, shift(offsets));
+                }
+            }
+            bits = new Bits(epoch, fresh);
+            logger.info("Rebuilt bloom filter of cache {} with {} keys in {}ms", name, count,
+                    TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start));
+        } finally {
+            rebuilding = null;
+            addedDuringRebuild.clear();
+        }
+    }
+
+    /**
+     * Bring the local copy up to date with Redis: switch to a newer rebuild, otherwise
+     * merge in the bits other nodes have set.
+     */
+    public void reload() {
+        if (store == null) {
+            return;
+        }
+        byte[] bitmap;
+        try {
+            bitmap = store.get(redisKey);
+        } catch (Exception e) {
+            logger.warn("Failed to load bloom filter of cache {}", name, e);
+            return;
+        }
+        if (bitmap == null || bitmap.length < HEADER_SIZE) {
+            return;
+        }
+
+        ByteBuffer buffer = ByteBuffer.wrap(bitmap);
+        long epoch = buffer.getLong();
+        int storedWords = buffer.getInt();
+        int storedHashCount = buffer.getInt();
+        if (epoch == 0) {
+            // Only adds so far, nothing to rely on
+            return;
+        }
+        if (storedWords != words || storedHashCount != hashCount) {
+            logger.warn("Ignoring bloom filter of cache {} built with another size ({} words, {} hashes)",
+                    name, storedWords, storedHashCount);
+            return;
+        }
+
+        Bits current = bits;
+        if (epoch != current.epoch) {
+            AtomicLongArray loaded = new AtomicLongArray(words);
+            merge(loaded, buffer);
+            bits = new Bits(epoch, loaded);
+        } else {
+            merge(current.words, buffer);
+        }
+    }
+
+    private void setLocal(long[] offsets) {
+        // Retry if a rebuild swapped the arrays under us, so no add is lost
+        Bits target;
+        do {
+            target = bits;
+            set(target.words, offsets);
+            AtomicLongArray next = rebuilding;
+            if (next != null) {
+                set(next, offsets);
+            }
+        } while (target != bits);
+    }
+
+    private static void set(AtomicLongArray words, long[] offsets) {
+        for (long offset : offsets) {
+            int index = (int) (offset >>> 6);
+            long mask = mask(offset);
+            long word = words.get(index);
+            while ((word & mask) == 0 && !words.compareAndSet(index, word, word | mask)) {
+                word = words.get(index);
+            }
+        }
+    }
+
+    private static void merge(AtomicLongArray words, ByteBuffer buffer) {
+        // SETBIT only grows the string as far as the highest bit set
+        for (int i = 0; i < words.length() && buffer.hasRemaining(); i++) {
+            long stored;
+            if (buffer.remaining() >= Long.BYTES) {
+                stored = buffer.getLong();
+            } else {
+                stored = 0;
+                for (int shift = 56; buffer.hasRemaining(); shift -= 8) {
+                    stored |= (buffer.get() & 0xFFL) << shift;
+                }
+            }
+            if (stored != 0) {
+                words.getAndAccumulate(i, stored, (a, b) -> a | b);
+            }
+        }
+    }
+
+    private byte[] toBytes(long epoch, AtomicLongArray words) {
+        ByteBuffer buffer = ByteBuffer.allocate(HEADER_SIZE + words.length() * Long.BYTES)
+                .putLong(epoch)
+                .putInt(words.length())
+                .putInt(hashCount);
+        for (int i = 0; i < words.length(); i++) {
+            buffer.putLong(words.get(i));
+        }
+        return buffer.array();
+    }
+
+    // Bit 0 of the filter is the most significant bit of word 0, as in a Redis bitmap
+    private static long mask(long offset) {
+        return Long.MIN_VALUE >>> (offset & 63);
+    }
+
+    private static long[] shift(long[] offsets) {
+        long[] shifted = new long[offsets.length];
+        for (int i = 0; i < offsets.length; i++) {
+            shifted[i] = offsets[i] + HEADER_BITS;
+        }
+        return shifted;
+    }
+
+    /**
+     * Bit offsets of a key, by double hashing of its serialized form, so that every node
+     * computes the same ones.
+     */
+    long[] offsets(K key) {
+        byte[] bytes = keySerializer.serialize(key);
+        // FNV-1a, then two independent finalizations
+        long hash = 0xCBF29CE484222325L;
+        for (byte b : bytes) {
+            hash = (hash ^ (b & 0xFF)) * 0x100000001B3L;
+        }
+        long h1 = mix(hash);
+        long h2 = mix(hash ^ 0x9E3779B97F4A7C15L);
+
+        long[] offsets = new long[hashCount];
+        long combined = h1;
+        for (int i = 0; i < hashCount; i++) {
+            offsets[i] = (combined & Long.MAX_VALUE) % bitCount;
+            combined += h2;
+        }
+        return offsets;
+    }
+
+    private static long mix(long z) {
+        z = (z ^ (z >>> 33)) * 0xFF51AFD7ED558CCDL;
+        z = (z ^ (z >>> 33)) * 0xC4CEB9FE1A85EC53L;
+        return z ^ (z >>> 33);
+    }
+
+    long bitCount() {
+        return bitCount;
+    }
+
+    int hashCount() {
+        return hashCount;
+    }
+
+    private record Bits(long epoch, AtomicLongArray words) {
+    }
+
+    /**
+     * Redis commands the filter needs.
+     */
+    public interface BitmapStore {
+
+        void setBits(byte[] key, long[] offsets);
+
+        byte[] get(byte[] key);
+
+        /**
+         * Replace the whole bitmap in one write.
+         */
+        void replace(byte[] key, byte[] bitmap);
+
+    }
+
+    public static BitmapStore jedis(JedisPool jedisPool) {
+        return new BitmapStore() {
+            @Override
+            public void setBits(byte[] key, long[] offsets) {
+                try (Jedis jedis = jedisPool.getResource()) {
+                    Pipeline pipeline = jedis.pipelined();
+                    for (long offset : offsets) {
+                        pipeline.setbit(key, offset, true);
+                    }
+                    pipeline.sync();
+                }
+            }
+
+            @Override
+            public byte[] get(byte[] key) {
+                try (Jedis jedis = jedisPool.getResource()) {
+                    return jedis.get(key);
+                }
+            }
+
+            @Override
+            public void replace(byte[] key, byte[] bitmap) {
+                try (Jedis jedis = jedisPool.getResource()) {
+                    jedis.set(key, bitmap);
+                }
+            }
+        };
+    }
+
+    public static BitmapStore lettuce(StatefulRedisConnection<byte[], byte[]> connection) {
+        RedisAsyncCommands<byte[], byte[]> commands = connection.async();
+        return new BitmapStore() {
+            @Override
+            public void setBits(byte[] key, long[] offsets) {
+                CompletableFuture<?>[] futures = new CompletableFuture<?>[offsets.length];
+                for (int i = 0; i < offsets.length; i++) {
+                    futures[i] = commands.setbit(key, offsets[i], 1).toCompletableFuture();
+                }
+                CompletableFuture.allOf(futures).join();
+            }
+
+            @Override
+            public byte[] get(byte[] key) {
+                return commands.get(key).toCompletableFuture().join();
+            }
+
+            @Override
+            public void replace(byte[] key, byte[] bitmap) {
+                commands.set(key, bitmap).toCompletableFuture().join();
+            }
+        };
+    }
+
+}
@@ -33,6 +33,13 @@ public class CacheEntry<V> implements Serializable {
         return new CacheEntry<>(null, now, now + ttlMillis, true);
     }
 
+    /**
+     * Rebuild an entry with its original timestamps, e.g. after it was stored serialized.
+     */
+    static <V> CacheEntry<V> restore(V value, long createTime, long expireTime, boolean nullValue) {
+        return new CacheEntry<>(value, createTime, expireTime, nullValue);
+    }
+
     public V getValue() {
         return value;
     }
@@ -53,6 +60,10 @@ public class CacheEntry<V> implements Serializable {
         return System.currentTimeMillis() > expireTime;
     }
 
+    public boolean isRefreshDue(long refreshAfterMillis) {
+        return System.currentTimeMillis() - createTime >= refreshAfterMillis;
+    }
+
     public long getTtlMillis() {
         return Math.max(0, expireTime - System.currentTimeMillis());
     }
@@ -0,0 +1,166 @@
+package com.andyadc.skeleton.ncache.impl;
+
+import com.andyadc.skeleton.ncache.config.TwoLevelCacheManagerConfig.ExecutorMode;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.lang.reflect.Method;
+import java.util.List;
+import java.util.concurrent.AbstractExecutorService;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Factories for the executors and threads NCache runs its background work on.
+ * <p>
+ * {@link ExecutorMode#VIRTUAL} uses virtual threads when the runtime provides them (JDK 21+).
+ * They are looked up reflectively so the module still targets 17; older runtimes fall back
+ * to platform threads.
+ */
+public final class CacheExecutors {
+
+    private static final Logger logger = LoggerFactory.getLogger(CacheExecutors.class);
+
+    private static final Method OF_VIRTUAL;
+    private static final Method BUILDER_NAME;
+    private static final Method BUILDER_FACTORY;
+    private static final Method NEW_THREAD_PER_TASK_EXECUTOR;
+
+    static {
+        Method ofVirtual = null;
+        Method builderName = null;
+        Method builderFactory = null;
+        Method newThreadPerTask = null;
+        try {
+            Class<?> builder = Class.forName("java.lang.Thread$Builder");
+            ofVirtual = Thread.class.getMethod("ofVirtual");
+            builderName = builder.getMethod("name", String.class, long.class);
+            builderFactory = builder.getMethod("factory");
+            newThreadPerTask = Executors.class.getMethod("newThreadPerTaskExecutor", ThreadFactory.class);
+        } catch (ReflectiveOperationException e) {
+            // Virtual threads not available on this runtime
+        }
+        OF_VIRTUAL = ofVirtual;
+        BUILDER_NAME = builderName;
+        BUILDER_FACTORY = builderFactory;
+        NEW_THREAD_PER_TASK_EXECUTOR = newThreadPerTask;
+    }
+
+    private CacheExecutors() {
+    }
+
+    public static boolean isVirtualThreadSupported() {
+        return OF_VIRTUAL != null;
+    }
+
+    /**
+     * Executor for async cache operations, refreshes and preloads.
+     * <p>
+     * In virtual mode every task gets its own virtual thread, but at most {@code maxConcurrency}
+     * run at once. Size it to the Redis pool's {@code maxTotal}: excess callers park cheaply on
+     * a permit instead of queueing on the pool and timing out on its max wait.
+     * In platform mode this is a fixed pool of {@code maxConcurrency} daemon threads.
+     */
+    public static ExecutorService newAsyncExecutor(ExecutorMode mode, int maxConcurrency) {
+        int concurrency = Math.max(1, maxConcurrency);
+        ThreadFactory factory = threadFactory("ncache-async-", mode);
+        if (mode == ExecutorMode.VIRTUAL && isVirtualThreadSupported()) {
+            return new BoundedExecutorService(newThreadPerTaskExecutor(factory), concurrency);
+        }
+        return Executors.newFixedThreadPool(concurrency, factory);
+    }
+
+    /**
+     * Thread factory naming threads {@code prefix0}, {@code prefix1}, ...
+     * Platform threads are daemons.
+     */
+    public static ThreadFactory threadFactory(String prefix, ExecutorMode mode) {
+        if (mode == ExecutorMode.VIRTUAL) {
+            if (isVirtualThreadSupported()) {
+                return virtualThreadFactory(prefix);
+            }
+            logger.warn("Virtual threads require JDK 21+, using platform threads for {}", prefix);
+        }
+
+        AtomicInteger counter = new AtomicInteger();
+        return r -> {
+            Thread t = new Thread(r, prefix + counter.getAndIncrement());
+            t.setDaemon(true);
+            return t;
+        };
+    }
+
+    private static ThreadFactory virtualThreadFactory(String prefix) {
+        try {
+            Object builder = BUILDER_NAME.invoke(OF_VIRTUAL.invoke(null), prefix, 0L);
+            return (ThreadFactory) BUILDER_FACTORY.invoke(builder);
+        } catch (ReflectiveOperationException e) {
+            throw new IllegalStateException("Failed to create virtual thread factory", e);
+        }
+    }
+
+    private static ExecutorService newThreadPerTaskExecutor(ThreadFactory factory) {
+        try {
+            return (ExecutorService) NEW_THREAD_PER_TASK_EXECUTOR.invoke(null, factory);
+        } catch (ReflectiveOperationException e) {
+            throw new IllegalStateException("Failed to create thread-per-task executor", e);
+        }
+    }
+
+    /**
+     * Caps how many submitted tasks run at once. Permits are taken on the task's own
+     * thread, so waiting costs nothing but a parked virtual thread.
+     */
+    private static final class BoundedExecutorService extends AbstractExecutorService {
+
+        private final ExecutorService delegate;
+        private final Semaphore permits;
+
+        BoundedExecutorService(ExecutorService delegate, int maxConcurrency) {
+            this.delegate = delegate;
+            this.permits = new Semaphore(maxConcurrency);
+        }
+
+        @Override
+        public void execute(Runnable command) {
+            delegate.execute(() -> {
+                permits.acquireUninterruptibly();
+                try {
+                    command.run();
+                } finally {
+                    permits.release();
+                }
+            });
+        }
+
+        @Override
+        public void shutdown() {
+            delegate.shutdown();
+        }
+
+        @Override
+        public List<Runnable> shutdownNow() {
+            return delegate.shutdownNow();
+        }
+
+        @Override
+        public boolean isShutdown() {
+            return delegate.isShutdown();
+        }
+
+        @Override
+        public boolean isTerminated() {
+            return delegate.isTerminated();
+        }
+
+        @Override
+        public boolean awaitTermination(long timeout, TimeUnit unit) throws InterruptedException {
+            return delegate.awaitTermination(timeout, unit);
+        }
+    }
+
+}
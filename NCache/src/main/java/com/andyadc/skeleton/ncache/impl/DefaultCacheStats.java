@@ -1,8 +1,14 @@
 package com.andyadc.skeleton.ncache.impl;
 
 import com.andyadc.skeleton.ncache.api.CacheStats;
+import com.andyadc.skeleton.ncache.metrics.MetricsCollector;
+import com.andyadc.skeleton.ncache.metrics.MetricsCollector.LatencyRecorder;
 
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
 import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Supplier;
 
 /**
  * Default implementation of cache statistics.
@@ -22,8 +28,26 @@ public class DefaultCacheStats implements CacheStats {
     private final LongAdder l1MissCount = new LongAdder();
     private final LongAdder l2HitCount = new LongAdder();
     private final LongAdder l2MissCount = new LongAdder();
+    private final LongAdder earlyRecomputeCount = new LongAdder();
+    private final LongAdder l2UncompressedBytes = new LongAdder();
+    private final LongAdder l2CompressedBytes = new LongAdder();
+    private final LongAdder offHeapHitCount = new LongAdder();
+    private final LongAdder offHeapMissCount = new LongAdder();
+    private final LongAdder negativeHitCount = new LongAdder();
 
     private volatile long l1Size = 0;
+    private volatile long l1WeightedSize = 0;
+    private volatile long offHeapBytes = 0;
+    private volatile Supplier<? extends Map<?, Long>> hotKeySource;
+
+    // Latency recorders, no-ops until bound to a metrics collector
+    private volatile boolean latencyTracked;
+    private volatile LatencyRecorder l1GetLatency = LatencyRecorder.NOOP;
+    private volatile LatencyRecorder l2GetLatency = LatencyRecorder.NOOP;
+    private volatile LatencyRecorder l2PutLatency = LatencyRecorder.NOOP;
+    private volatile LatencyRecorder l2MgetLatency = LatencyRecorder.NOOP;
+    private volatile LatencyRecorder l2PipelineLatency = LatencyRecorder.NOOP;
+    private volatile LatencyRecorder loadLatency = LatencyRecorder.NOOP;
 
     public void recordHit() {
         hitCount.increment();
@@ -33,9 +57,18 @@ public class DefaultCacheStats implements CacheStats {
         missCount.increment();
     }
 
+    public void recordHits(int count) {
+        hitCount.add(count);
+    }
+
+    public void recordMisses(int count) {
+        missCount.add(count);
+    }
+
     public void recordLoadSuccess(long loadTimeNanos) {
         loadSuccessCount.increment();
         totalLoadTime.add(loadTimeNanos);
+        loadLatency.record(loadTimeNanos);
     }
 
     public void recordLoadFailure() {
@@ -70,10 +103,84 @@ public class DefaultCacheStats implements CacheStats {
         l2MissCount.increment();
     }
 
+    public void recordNegativeHit() {
+        negativeHitCount.increment();
+    }
+
+    public void recordOffHeapHit() {
+        offHeapHitCount.increment();
+    }
+
+    public void recordOffHeapMiss() {
+        offHeapMissCount.increment();
+    }
+
+    public void recordEarlyRecompute() {
+        earlyRecomputeCount.increment();
+    }
+
+    public void recordL2Compression(long uncompressedBytes, long compressedBytes) {
+        l2UncompressedBytes.add(uncompressedBytes);
+        l2CompressedBytes.add(compressedBytes);
+    }
+
     public void updateL1Size(long size) {
         this.l1Size = size;
     }
 
+    public void updateL1WeightedSize(long weightedSize) {
+        this.l1WeightedSize = weightedSize;
+    }
+
+    public void updateOffHeapBytes(long bytes) {
+        this.offHeapBytes = bytes;
+    }
+
+    /**
+     * Send the operation latencies of this cache to {@code collector}. The recorders are
+     * looked up once here, so recording does no map lookups.
+     */
+    public void bindLatencies(MetricsCollector collector, String cacheName) {
+        l1GetLatency = collector.latencyRecorder(cacheName, MetricsCollector.OP_L1_GET);
+        l2GetLatency = collector.latencyRecorder(cacheName, MetricsCollector.OP_L2_GET);
+        l2PutLatency = collector.latencyRecorder(cacheName, MetricsCollector.OP_L2_PUT);
+        l2MgetLatency = collector.latencyRecorder(cacheName, MetricsCollector.OP_L2_MGET);
+        l2PipelineLatency = collector.latencyRecorder(cacheName, MetricsCollector.OP_L2_PIPELINE);
+        loadLatency = collector.latencyRecorder(cacheName, MetricsCollector.OP_LOAD);
+        latencyTracked = true;
+    }
+
+    /**
+     * Whether latencies are recorded anywhere, for callers to skip reading the clock.
+     */
+    public boolean isLatencyTracked() {
+        return latencyTracked;
+    }
+
+    public void recordL1GetTime(long nanos) {
+        l1GetLatency.record(nanos);
+    }
+
+    public void recordL2GetTime(long nanos) {
+        l2GetLatency.record(nanos);
+    }
+
+    public void recordL2PutTime(long nanos) {
+        l2PutLatency.record(nanos);
+    }
+
+    public void recordL2MgetTime(long nanos) {
+        l2MgetLatency.record(nanos);
+    }
+
+    public void recordL2PipelineTime(long nanos) {
+        l2PipelineLatency.record(nanos);
+    }
+
+    public void setHotKeySource(Supplier<? extends Map<?, Long>> hotKeySource) {
+        this.hotKeySource = hotKeySource;
+    }
+
     @Override
     public long getHitCount() {
         return hitCount.sum();
@@ -141,6 +248,11 @@ public class DefaultCacheStats implements CacheStats {
         return l1Size;
     }
 
+    @Override
+    public long getL1WeightedSize() {
+        return l1WeightedSize;
+    }
+
     @Override
     public long getL2HitCount() {
         return l2HitCount.sum();
@@ -151,6 +263,47 @@ public class DefaultCacheStats implements CacheStats {
         return l2MissCount.sum();
     }
 
+    @Override
+    public long getNegativeHitCount() {
+        return negativeHitCount.sum();
+    }
+
+    @Override
+    public long getOffHeapHitCount() {
+        return offHeapHitCount.sum();
+    }
+
+    @Override
+    public long getOffHeapMissCount() {
+        return offHeapMissCount.sum();
+    }
+
+    @Override
+    public long getOffHeapBytes() {
+        return offHeapBytes;
+    }
+
+    @Override
+    public long getEarlyRecomputeCount() {
+        return earlyRecomputeCount.sum();
+    }
+
+    @Override
+    public long getL2UncompressedBytes() {
+        return l2UncompressedBytes.sum();
+    }
+
+    @Override
+    public long getL2CompressedBytes() {
+        return l2CompressedBytes.sum();
+    }
+
+    @Override
+    public Map<Object, Long> getHotKeys() {
+        Supplier<? extends Map<?, Long>> source = hotKeySource;
+        return source != null ? Collections.unmodifiableMap(new LinkedHashMap<>(source.get())) : Map.of();
+    }
+
     @Override
     public CacheStats snapshot() {
         return new ImmutableCacheStats(this);
@@ -170,6 +323,12 @@ public class DefaultCacheStats implements CacheStats {
         l1MissCount.reset();
         l2HitCount.reset();
         l2MissCount.reset();
+        earlyRecomputeCount.reset();
+        l2UncompressedBytes.reset();
+        l2CompressedBytes.reset();
+        offHeapHitCount.reset();
+        offHeapMissCount.reset();
+        negativeHitCount.reset();
     }
 
     /**
@@ -187,8 +346,17 @@ public class DefaultCacheStats implements CacheStats {
         private final long l1HitCount;
         private final long l1MissCount;
         private final long l1Size;
+        private final long l1WeightedSize;
         private final long l2HitCount;
         private final long l2MissCount;
+        private final long earlyRecomputeCount;
+        private final long l2UncompressedBytes;
+        private final long l2CompressedBytes;
+        private final long offHeapHitCount;
+        private final long offHeapMissCount;
+        private final long negativeHitCount;
+        private final long offHeapBytes;
+        private final Map<Object, Long> hotKeys;
 
         ImmutableCacheStats(DefaultCacheStats source) {
             this.hitCount = source.getHitCount();
@@ -202,8 +370,17 @@ public class DefaultCacheStats implements CacheStats {
             this.l1HitCount = source.getL1HitCount();
             this.l1MissCount = source.getL1MissCount();
             this.l1Size = source.getL1Size();
+            this.l1WeightedSize = source.getL1WeightedSize();
             this.l2HitCount = source.getL2HitCount();
             this.l2MissCount = source.getL2MissCount();
+            this.earlyRecomputeCount = source.getEarlyRecomputeCount();
+            this.l2UncompressedBytes = source.getL2UncompressedBytes();
+            this.l2CompressedBytes = source.getL2CompressedBytes();
+            this.offHeapHitCount = source.getOffHeapHitCount();
+            this.offHeapMissCount = source.getOffHeapMissCount();
+            this.negativeHitCount = source.getNegativeHitCount();
+            this.offHeapBytes = source.getOffHeapBytes();
+            this.hotKeys = source.getHotKeys();
         }
 
         @Override
@@ -272,6 +449,11 @@ public class DefaultCacheStats implements CacheStats {
             return l1Size;
         }
 
+        @Override
+        public long getL1WeightedSize() {
+            return l1WeightedSize;
+        }
+
         @Override
         public long getL2HitCount() {
             return l2HitCount;
@@ -282,6 +464,46 @@ public class DefaultCacheStats implements CacheStats {
             return l2MissCount;
         }
 
+        @Override
+        public long getNegativeHitCount() {
+            return negativeHitCount;
+        }
+
+        @Override
+        public long getOffHeapHitCount() {
+            return offHeapHitCount;
+        }
+
+        @Override
+        public long getOffHeapMissCount() {
+            return offHeapMissCount;
+        }
+
+        @Override
+        public long getOffHeapBytes() {
+            return offHeapBytes;
+        }
+
+        @Override
+        public long getEarlyRecomputeCount() {
+            return earlyRecomputeCount;
+        }
+
+        @Override
+        public long getL2UncompressedBytes() {
+            return l2UncompressedBytes;
+        }
+
+        @Override
+        public long getL2CompressedBytes() {
+            return l2CompressedBytes;
+        }
+
+        @Override
+        public Map<Object, Long> getHotKeys() {
+            return hotKeys;
+        }
+
         @Override
         public CacheStats snapshot() {
             return this;
@@ -0,0 +1,174 @@
+package com.andyadc.skeleton.ncache.impl;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.Consumer;
+
+/**
+ * Count-min sketch of key access frequencies with periodic aging, tracking the top-K keys.
+ * <p>
+ * Counters are plain ints updated without locks or CAS; a lost increment under contention
+ * only makes an estimate slightly low. After {@code 10 * width} accesses all counters are
+ * halved, so the sketch follows recent traffic. Keys whose estimate reaches the current
+ * admission threshold become candidates; once there are twice as many candidates as
+ * {@code topK}, the weakest are dropped and reported to the demotion listener.
+ */
+public class HotKeySketch<K> {
+
+    private static final int DEPTH = 4;
+    private static final int MIN_FREQUENCY = 8;
+    private static final int MAX_COUNT = 1 << 30;
+    private static final long[] SEEDS = {
+            0x9E3779B97F4A7C15L, 0xC2B2AE3D27D4EB4FL, 0x165667B19E3779F9L, 0xD6E8FEB86659FD93L};
+
+    private final int topK;
+    private final int width;
+    private final int indexShift;
+    private final int sampleSize;
+    private final int[] table;
+    private final Set<K> candidates = ConcurrentHashMap.newKeySet();
+    private final AtomicBoolean maintaining = new AtomicBoolean();
+    private final Consumer<K> demotionListener;
+
+    private int additions;
+    private volatile int threshold = MIN_FREQUENCY;
+
+    /**
+     * @param expectedKeys     roughly the number of distinct keys in play, e.g. the L1 maximum size
+     * @param demotionListener told about keys that stop being hot; may be null
+     */
+    public HotKeySketch(int topK, long expectedKeys, Consumer<K> demotionListener) {
+        if (topK < 1) {
+            throw new IllegalArgumentException("topK must be positive");
+        }
+        this.topK = topK;
+        int bits = 64 - Long.numberOfLeadingZeros(Math.max(256, Math.min(expectedKeys, 1 << 22)) - 1);
+        this.width = 1 << bits;
+        this.indexShift = 64 - bits;
+        this.sampleSize = 10 * width;
+        this.table = new int[DEPTH * width];
+        this.demotionListener = demotionListener;
+    }
+
+    /**
+     * Count one access.
+     *
+     * @return whether the key is currently among the hot candidates
+     */
+    public boolean record(K key) {
+        long hash = spread(key.hashCode());
+        int estimate = Integer.MAX_VALUE;
+        for (int i = 0; i < DEPTH; i++) {
+            int index = i * width + (int) ((hash * SEEDS[i]) >>> indexShift);
+            int count = table[index];
+            if (count < MAX_COUNT) {
+                table[index] = ++count;
+            }
+            estimate = Math.min(estimate, count);
+        }
+
+        if (++additions >= sampleSize) {
+            age();
+        }
+        return estimate >= threshold && (candidates.contains(key) || admit(key));
+    }
+
+    /**
+     * Estimated recent access count of a key.
+     */
+    public int frequency(K key) {
+        long hash = spread(key.hashCode());
+        int estimate = Integer.MAX_VALUE;
+        for (int i = 0; i < DEPTH; i++) {
+            estimate = Math.min(estimate, table[i * width + (int) ((hash * SEEDS[i]) >>> indexShift)]);
+        }
+        return estimate;
+    }
+
+    /**
+     * Current top-K keys with their estimated frequencies, hottest first.
+     */
+    public Map<K, Long> hotKeys() {
+        List<Map.Entry<K, Integer>> ranked = rank();
+        Map<K, Long> result = new LinkedHashMap<>();
+        for (int i = 0; i < Math.min(topK, ranked.size()); i++) {
+            result.put(ranked.get(i).getKey(), (long) ranked.get(i).getValue());
+        }
+        return result;
+    }
+
+    public boolean isHot(K key) {
+        return candidates.contains(key);
+    }
+
+    private boolean admit(K key) {
+        candidates.add(key);
+        if (candidates.size() > 2 * topK) {
+            prune();
+        }
+        return candidates.contains(key);
+    }
+
+    private void age() {
+        if (!maintaining.compareAndSet(false, true)) {
+            return;
+        }
+        try {
+            additions = 0;
+            for (int i = 0; i < table.length; i++) {
+                table[i] >>>= 1;
+            }
+            retainTop();
+        } finally {
+            maintaining.set(false);
+        }
+    }
+
+    // Only one thread maintains the candidates at a time; others carry on without waiting
+    private void prune() {
+        if (!maintaining.compareAndSet(false, true)) {
+            return;
+        }
+        try {
+            retainTop();
+        } finally {
+            maintaining.set(false);
+        }
+    }
+
+    private void retainTop() {
+        List<Map.Entry<K, Integer>> ranked = rank();
+        int kept = 0;
+        int lowest = MIN_FREQUENCY;
+        for (Map.Entry<K, Integer> entry : ranked) {
+            if (kept < topK && entry.getValue() >= MIN_FREQUENCY) {
+                kept++;
+                lowest = entry.getValue();
+            } else if (candidates.remove(entry.getKey()) && demotionListener != null) {
+                demotionListener.accept(entry.getKey());
+            }
+        }
+        // Once the top-K is full, a newcomer has to match its weakest member
+        threshold = kept < topK ? MIN_FREQUENCY : Math.max(MIN_FREQUENCY, lowest);
+    }
+
+    private List<Map.Entry<K, Integer>> rank() {
+        List<Map.Entry<K, Integer>> ranked = new ArrayList<>(candidates.size());
+        for (K key : candidates) {
+            ranked.add(Map.entry(key, frequency(key)));
+        }
+        ranked.sort(Map.Entry.<K, Integer>comparingByValue().reversed());
+        return ranked;
+    }
+
+    private static long spread(int hashCode) {
+        long h = hashCode * 0x9E3779B97F4A7C15L;
+        return h ^ (h >>> 32);
+    }
+
+}
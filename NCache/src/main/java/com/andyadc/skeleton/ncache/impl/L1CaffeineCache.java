@@ -3,48 +3,97 @@ package com.andyadc.skeleton.ncache.impl;
 import com.andyadc.skeleton.ncache.config.CacheConfig;
 import com.github.benmanes.caffeine.cache.Cache;
 import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.Expiry;
+import com.github.benmanes.caffeine.cache.Policy;
 import com.github.benmanes.caffeine.cache.RemovalCause;
 import com.github.benmanes.caffeine.cache.stats.CacheStats;
 
+import java.time.Duration;
 import java.util.Collection;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
 import java.util.Map;
 import java.util.Optional;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
 import java.util.function.Function;
+import java.util.function.UnaryOperator;
 
 /**
  * L1 cache implementation using Caffeine.
+ * <p>
+ * Entries can also be pinned: a pinned entry is kept outside Caffeine and put back when
+ * Caffeine has evicted it, until it expires, is replaced, or is invalidated.
+ * <p>
+ * Each entry expires at its own {@link CacheEntry#getExpireTime()} through a variable
+ * Caffeine {@link Expiry}, so reads never check the clock themselves and expired entries
+ * are swept by Caffeine's timer wheel instead of waiting to be read. With a TTL jitter the
+ * deadline is pulled forward by a random fraction, so entries written together do not all
+ * expire together.
+ * <p>
+ * L1 is bounded by entry count, or by estimated bytes when {@code maximumWeight} is set;
+ * each entry then weighs its key and value per the configured weigher plus a fixed
+ * overhead for the entry and Caffeine node.
+ * <p>
+ * With an {@link OffHeapStore}, entries Caffeine evicts for size are demoted to it and
+ * promoted back into Caffeine on their next read.
  */
 public class L1CaffeineCache<K, V> {
 
+    // CacheEntry plus Caffeine node
+    static final int ENTRY_OVERHEAD = 96;
+
     private final String name;
     private final Cache<K, CacheEntry<V>> cache;
+    // Null unless bounded by weight
+    private final Policy.Eviction<K, CacheEntry<V>> weightedEviction;
     private final CacheConfig.L1Config config;
     private final DefaultCacheStats stats;
     private final EvictionListener<K, V> evictionListener;
+    private final Map<K, CacheEntry<V>> pinned = new ConcurrentHashMap<>();
+    private final OffHeapStore<K, V> offHeap;
 
     public L1CaffeineCache(String name, CacheConfig.L1Config config,
                            DefaultCacheStats stats,
                            EvictionListener<K, V> evictionListener) {
+        this(name, config, stats, evictionListener, null);
+    }
+
+    /**
+     * @param offHeap tier receiving entries evicted for size; may be null
+     */
+    public L1CaffeineCache(String name, CacheConfig.L1Config config,
+                           DefaultCacheStats stats,
+                           EvictionListener<K, V> evictionListener,
+                           OffHeapStore<K, V> offHeap) {
         this.name = name;
         this.config = config;
         this.stats = stats;
         this.evictionListener = evictionListener;
+        this.offHeap = offHeap;
         this.cache = buildCache();
+        this.weightedEviction = config.getMaximumWeight() > 0 ? cache.policy().eviction().orElse(null) : null;
     }
 
     private Cache<K, CacheEntry<V>> buildCache() {
         Caffeine<Object, Object> builder = Caffeine.newBuilder()
-                .maximumSize(config.getMaximumSize())
                 .initialCapacity(config.getInitialCapacity());
 
-        if (config.getExpireAfterWrite() != null) {
-            builder.expireAfterWrite(config.getExpireAfterWrite());
+        if (config.getMaximumWeight() > 0) {
+            CacheConfig.L1Config.Weigher weigher = config.getWeigher() != null
+                    ? config.getWeigher() : Weighers.estimated();
+            builder.maximumWeight(config.getMaximumWeight())
+                    .weigher((key, value) -> {
+                        CacheEntry<?> entry = (CacheEntry<?>) value;
+                        long weight = (long) ENTRY_OVERHEAD + weigher.weigh(key, entry.getValue());
+                        return (int) Math.min(Integer.MAX_VALUE, weight);
+                    });
+        } else {
+            builder.maximumSize(config.getMaximumSize());
         }
 
-        if (config.getExpireAfterAccess() != null) {
-            builder.expireAfterAccess(config.getExpireAfterAccess());
-        }
+        builder.expireAfter(new EntryExpiry(config.getExpireAfterAccess(), config.getTtlJitter()));
 
         if (config.isWeakKeys()) {
             builder.weakKeys();
@@ -75,6 +124,22 @@ public class L1CaffeineCache<K, V> {
             }
         });
 
+        if (offHeap != null) {
+            // Runs atomically with the eviction, so a concurrent invalidation cannot be overtaken
+            builder.evictionListener((key, value, cause) -> {
+                if (cause == RemovalCause.SIZE && key != null && value != null) {
+                    @SuppressWarnings("unchecked")
+                    CacheEntry<V> entry = (CacheEntry<V>) value;
+                    if (!entry.isExpired()) {
+                        @SuppressWarnings("unchecked")
+                        K k = (K) key;
+                        offHeap.put(k, entry);
+                        stats.updateOffHeapBytes(offHeap.usedBytes());
+                    }
+                }
+            });
+        }
+
         return builder.build();
 
 //        Cache<K, CacheEntry<V>> result = (Cache<K, CacheEntry<V>>) builder.build();
@@ -82,87 +147,298 @@ public class L1CaffeineCache<K, V> {
     }
 
     public Optional<V> get(K key) {
+        CacheEntry<V> entry = getEntry(key);
+        if (entry != null) {
+            return Optional.ofNullable(entry.isNullValue() ? null : entry.getValue());
+        }
+        return Optional.empty();
+    }
+
+    /**
+     * Get the live entry for a key, or null if absent or expired.
+     */
+    public CacheEntry<V> getEntry(K key) {
+        // Caffeine does not return entries past their deadline
         CacheEntry<V> entry = cache.getIfPresent(key);
         if (entry != null) {
-            if (entry.isExpired()) {
-                cache.invalidate(key);
-                stats.recordL1Miss();
-                return Optional.empty();
-            }
             stats.recordL1Hit();
-            return Optional.ofNullable(entry.isNullValue() ? null : entry.getValue());
+            return entry;
+        }
+        entry = restorePinned(key);
+        if (entry != null) {
+            stats.recordL1Hit();
+            return entry;
         }
         stats.recordL1Miss();
-        return Optional.empty();
+        return offHeap != null ? promote(key) : null;
+    }
+
+    /**
+     * Move a key's entry from the off-heap tier back into Caffeine.
+     */
+    private CacheEntry<V> promote(K key) {
+        CacheEntry<V> entry = takeOffHeap(key);
+        if (entry == null) {
+            return null;
+        }
+        // A value written meanwhile wins over the demoted one
+        CacheEntry<V> current = cache.asMap().putIfAbsent(key, entry);
+        return current != null ? current : entry;
+    }
+
+    private CacheEntry<V> takeOffHeap(K key) {
+        CacheEntry<V> entry = offHeap.remove(key);
+        if (entry == null) {
+            stats.recordOffHeapMiss();
+            return null;
+        }
+        stats.recordOffHeapHit();
+        stats.updateOffHeapBytes(offHeap.usedBytes());
+        return entry;
+    }
+
+    private CacheEntry<V> restorePinned(K key) {
+        if (pinned.isEmpty()) {
+            return null;
+        }
+        CacheEntry<V> entry = pinned.get(key);
+        if (entry == null) {
+            return null;
+        }
+        if (entry.isExpired()) {
+            pinned.remove(key, entry);
+            return null;
+        }
+        cache.put(key, entry);
+        return entry;
+    }
+
+    /**
+     * Keep this entry for the key even if Caffeine evicts it.
+     */
+    public void pin(K key, CacheEntry<V> entry) {
+        if (pinned.get(key) != entry) {
+            pinned.put(key, entry);
+        }
+    }
+
+    public void unpin(K key) {
+        pinned.remove(key);
+    }
+
+    public int pinnedCount() {
+        return pinned.size();
     }
 
     public V get(K key, Function<K, CacheEntry<V>> loader) {
-        CacheEntry<V> entry = cache.get(key, loader);
-        if (entry != null && !entry.isExpired()) {
+        Function<K, CacheEntry<V>> mappingFunction = loader;
+        if (offHeap != null) {
+            mappingFunction = k -> {
+                CacheEntry<V> demoted = takeOffHeap(k);
+                return demoted != null ? demoted : loader.apply(k);
+            };
+        }
+        CacheEntry<V> entry = cache.get(key, mappingFunction);
+        if (entry != null) {
             return entry.isNullValue() ? null : entry.getValue();
         }
         return null;
     }
 
-    public Map<K, V> getAll(Collection<K> keys) {
-        Map<K, CacheEntry<V>> entries = cache.getAllPresent(keys);
-        Map<K, V> result = new ConcurrentHashMap<>();
-
-        for (Map.Entry<K, CacheEntry<V>> e : entries.entrySet()) {
-            if (!e.getValue().isExpired() && !e.getValue().isNullValue()) {
-                result.put(e.getKey(), e.getValue().getValue());
+    /**
+     * Live entries of the keys that have one, null markers included.
+     */
+    public Map<K, CacheEntry<V>> getAllEntries(Collection<K> keys) {
+        Map<K, CacheEntry<V>> result = new HashMap<>(cache.getAllPresent(keys));
+        for (K key : keys) {
+            if (result.containsKey(key)) {
+                stats.recordL1Hit();
+                continue;
+            }
+            CacheEntry<V> entry = restorePinned(key);
+            if (entry != null) {
                 stats.recordL1Hit();
             } else {
                 stats.recordL1Miss();
+                entry = offHeap != null ? promote(key) : null;
+            }
+            if (entry != null) {
+                result.put(key, entry);
             }
         }
-
         return result;
     }
 
     public void put(K key, CacheEntry<V> entry) {
         cache.put(key, entry);
-        stats.updateL1Size(cache.estimatedSize());
+        if (!pinned.isEmpty()) {
+            pinned.replace(key, entry);
+        }
+        if (offHeap != null) {
+            offHeap.invalidate(key);
+        }
+        updateSize();
     }
 
     public void putAll(Map<K, CacheEntry<V>> entries) {
         cache.putAll(entries);
-        stats.updateL1Size(cache.estimatedSize());
+        if (!pinned.isEmpty()) {
+            entries.forEach(pinned::replace);
+        }
+        if (offHeap != null) {
+            entries.keySet().forEach(offHeap::invalidate);
+        }
+        updateSize();
+    }
+
+    /**
+     * Replace the key's live entry with one derived from it; does nothing if there is none.
+     */
+    public void computeIfPresent(K key, UnaryOperator<CacheEntry<V>> remapping) {
+        CacheEntry<V> entry = cache.asMap().computeIfPresent(key, (k, current) -> remapping.apply(current));
+        if (entry != null && !pinned.isEmpty()) {
+            pinned.replace(key, entry);
+        }
     }
 
     public void invalidate(K key) {
+        pinned.remove(key);
         cache.invalidate(key);
-        stats.updateL1Size(cache.estimatedSize());
+        if (offHeap != null) {
+            offHeap.invalidate(key);
+        }
+        updateSize();
     }
 
     public void invalidateAll(Collection<K> keys) {
+        if (!pinned.isEmpty()) {
+            keys.forEach(pinned::remove);
+        }
         cache.invalidateAll(keys);
-        stats.updateL1Size(cache.estimatedSize());
+        if (offHeap != null) {
+            keys.forEach(offHeap::invalidate);
+        }
+        updateSize();
     }
 
     public void clear() {
+        pinned.clear();
         cache.invalidateAll();
+        if (weightedEviction != null) {
+            stats.updateL1WeightedSize(0);
+        }
+        if (offHeap != null) {
+            offHeap.clear();
+            stats.updateOffHeapBytes(0);
+        }
         stats.updateL1Size(0);
     }
 
     public boolean containsKey(K key) {
+        if (cache.getIfPresent(key) != null) {
+            return true;
+        }
+        return offHeap != null && offHeap.containsKey(key);
+    }
+
+    /**
+     * Like {@link #containsKey}, not counting null markers.
+     */
+    public boolean containsValue(K key) {
         CacheEntry<V> entry = cache.getIfPresent(key);
-        return entry != null && !entry.isExpired();
+        if (entry != null) {
+            return !entry.isNullValue();
+        }
+        return offHeap != null && offHeap.containsValue(key);
     }
 
     public long size() {
         return cache.estimatedSize();
     }
 
+    /**
+     * Total weight of the entries in bytes, or -1 when bounded by entry count.
+     */
+    public long weightedSize() {
+        return weightedEviction != null ? weightedEviction.weightedSize().orElse(-1) : -1;
+    }
+
+    private void updateSize() {
+        stats.updateL1Size(cache.estimatedSize());
+        if (weightedEviction != null) {
+            stats.updateL1WeightedSize(weightedEviction.weightedSize().orElse(0));
+        }
+    }
+
+    /**
+     * Copy of the entries held by Caffeine, hottest first when the size policy can tell.
+     */
+    public Map<K, CacheEntry<V>> entries() {
+        return cache.policy().eviction()
+                .map(eviction -> eviction.hottest(Integer.MAX_VALUE))
+                .orElseGet(() -> new LinkedHashMap<>(cache.asMap()));
+    }
+
     public void cleanUp() {
         cache.cleanUp();
-        stats.updateL1Size(cache.estimatedSize());
+        updateSize();
+        if (offHeap != null) {
+            stats.updateOffHeapBytes(offHeap.usedBytes());
+        }
+    }
+
+    /**
+     * Number of entries in the off-heap tier, or 0 without one.
+     */
+    public long offHeapSize() {
+        return offHeap != null ? offHeap.size() : 0;
     }
 
     public CacheStats getCaffeineStats() {
         return cache.stats();
     }
 
+    /**
+     * Expires an entry at its own deadline, optionally jittered, and with
+     * {@code expireAfterAccess} also once it has not been read for that long.
+     */
+    private static final class EntryExpiry implements Expiry<Object, Object> {
+
+        private final long accessNanos;
+        private final double jitter;
+
+        EntryExpiry(Duration expireAfterAccess, double jitter) {
+            this.accessNanos = expireAfterAccess != null ? expireAfterAccess.toNanos() : -1;
+            this.jitter = jitter;
+        }
+
+        @Override
+        public long expireAfterCreate(Object key, Object value, long currentTime) {
+            long lifetime = remainingNanos((CacheEntry<?>) value);
+            if (jitter > 0) {
+                lifetime -= (long) (lifetime * jitter * ThreadLocalRandom.current().nextDouble());
+            }
+            return accessNanos >= 0 ? Math.min(lifetime, accessNanos) : lifetime;
+        }
+
+        @Override
+        public long expireAfterUpdate(Object key, Object value, long currentTime, long currentDuration) {
+            return expireAfterCreate(key, value, currentTime);
+        }
+
+        @Override
+        public long expireAfterRead(Object key, Object value, long currentTime, long currentDuration) {
+            if (accessNanos < 0) {
+                return currentDuration;
+            }
+            return Math.min(accessNanos, remainingNanos((CacheEntry<?>) value));
+        }
+
+        private static long remainingNanos(CacheEntry<?> entry) {
+            return TimeUnit.MILLISECONDS.toNanos(Math.max(0, entry.getExpireTime() - System.currentTimeMillis()));
+        }
+    }
+
     @FunctionalInterface
     public interface EvictionListener<K, V> {
         void onEviction(K key, CacheEntry<V> value, RemovalCause cause);
@@ -0,0 +1,184 @@
+package com.andyadc.skeleton.ncache.impl;
+
+import com.andyadc.skeleton.ncache.serialization.Serializer;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.time.Duration;
+import java.util.Map;
+import java.util.function.BiConsumer;
+import java.util.zip.CRC32;
+import java.util.zip.CheckedOutputStream;
+
+/**
+ * Snapshot file of L1 entries, written on shutdown and read back on startup.
+ * <p>
+ * Layout, big-endian: a fixed header of magic, version, creation time, entry count, body
+ * length and CRC32 of the body, followed by one record per entry:
+ * {@code keyLength, key, createTime, expireTime, nullFlag, valueLength, value}. Keys and
+ * values are in the cache's serializer formats. The file is written next to its final name
+ * and moved into place, and it is read through a memory mapping. A file with another
+ * magic or version, a wrong checksum, or older than the allowed age is skipped.
+ */
+public final class L1Snapshot {
+
+    private static final Logger logger = LoggerFactory.getLogger(L1Snapshot.class);
+
+    private static final int MAGIC = 0x4E43534E; // "NCSN"
+    private static final short VERSION = 1;
+    // magic, version, createdAt, count, bodyLength, crc
+    private static final int HEADER_SIZE = 4 + 2 + 8 + 4 + 8 + 8;
+
+    private L1Snapshot() {
+    }
+
+    /**
+     * Write the live entries to {@code file}, replacing it atomically.
+     *
+     * @return number of entries written
+     */
+    public static <K, V> int write(Path file,
+                                   Iterable<Map.Entry<K, CacheEntry<V>>> entries,
+                                   Serializer<K> keySerializer,
+                                   Serializer<V> valueSerializer) throws IOException {
+        Files.createDirectories(file.toAbsolutePath().getParent());
+        Path tmp = file.resolveSibling(file.getFileName() + ".tmp");
+        int count = 0;
+        long bodyLength;
+        CRC32 crc = new CRC32();
+
+        try (FileChannel channel = FileChannel.open(tmp, StandardOpenOption.CREATE,
+                StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING)) {
+            channel.position(HEADER_SIZE);
+            DataOutputStream out = new DataOutputStream(new BufferedOutputStream(
+                    new CheckedOutputStream(Channels.newOutputStream(channel), crc), 64 * 1024));
+            for (Map.Entry<K, CacheEntry<V>> e : entries) {
+                CacheEntry<V> entry = e.getValue();
+                if (entry.isExpired()) {
+                    continue;
+                }
+                byte[] key;
+                byte[] value;
+                try {
+                    key = keySerializer.serialize(e.getKey());
+                    value = entry.isNullValue() ? new byte[0] : valueSerializer.serialize(entry.getValue());
+                } catch (Exception ex) {
+                    logger.debug("Leaving key out of snapshot, serialization failed: {}", e.getKey(), ex);
+                    continue;
+                }
+                out.writeInt(key.length);
+                out.write(key);
+                out.writeLong(entry.getCreateTime());
+                out.writeLong(entry.getExpireTime());
+                out.writeBoolean(entry.isNullValue());
+                out.writeInt(value.length);
+                out.write(value);
+                count++;
+            }
+            out.flush();
+            bodyLength = channel.position() - HEADER_SIZE;
+
+            ByteBuffer header = ByteBuffer.allocate(HEADER_SIZE)
+                    .putInt(MAGIC)
+                    .putShort(VERSION)
+                    .putLong(System.currentTimeMillis())
+                    .putInt(count)
+                    .putLong(bodyLength)
+                    .putLong(crc.getValue())
+                    .flip();
+            channel.write(header, 0);
+            channel.force(false);
+        } catch (IOException | RuntimeException e) {
+            Files.deleteIfExists(tmp);
+            throw e;
+        }
+        Files.move(tmp, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        return count;
+    }
+
+    /**
+     * Hand every unexpired entry of {@code file} to {@code consumer}. Missing, stale or
+     * corrupt files are skipped.
+     *
+     * @param maxAge skip snapshots older than this; null for no limit
+     * @return number of entries loaded
+     */
+    public static <K, V> int read(Path file,
+                                  Duration maxAge,
+                                  Serializer<K> keySerializer,
+                                  Serializer<V> valueSerializer,
+                                  BiConsumer<K, CacheEntry<V>> consumer) throws IOException {
+        if (!Files.isRegularFile(file)) {
+            return 0;
+        }
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            long size = channel.size();
+            if (size < HEADER_SIZE || size > Integer.MAX_VALUE) {
+                logger.warn("Skipping snapshot {} of unexpected size {}", file, size);
+                return 0;
+            }
+            ByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, size);
+
+            int magic = buffer.getInt();
+            short version = buffer.getShort();
+            long createdAt = buffer.getLong();
+            int count = buffer.getInt();
+            long bodyLength = buffer.getLong();
+            long checksum = buffer.getLong();
+            if (magic != MAGIC || version != VERSION) {
+                logger.warn("Skipping snapshot {} with unknown format {}/{}", file, Integer.toHexString(magic), version);
+                return 0;
+            }
+            if (bodyLength != size - HEADER_SIZE) {
+                logger.warn("Skipping truncated snapshot {}", file);
+                return 0;
+            }
+            if (maxAge != null && System.currentTimeMillis() - createdAt > maxAge.toMillis()) {
+                logger.info("Skipping snapshot {} older than {}", file, maxAge);
+                return 0;
+            }
+            CRC32 crc = new CRC32();
+            crc.update(buffer.duplicate());
+            if (crc.getValue() != checksum) {
+                logger.warn("Skipping snapshot {} with a checksum mismatch", file);
+                return 0;
+            }
+
+            long now = System.currentTimeMillis();
+            int loaded = 0;
+            for (int i = 0; i < count; i++) {
+                byte[] key = new byte[buffer.getInt()];
+                buffer.get(key);
+                long createTime = buffer.getLong();
+                long expireTime = buffer.getLong();
+                boolean nullValue = buffer.get() != 0;
+                int valueLength = buffer.getInt();
+                if (expireTime < now) {
+                    buffer.position(buffer.position() + valueLength);
+                    continue;
+                }
+                byte[] value = new byte[valueLength];
+                buffer.get(value);
+                try {
+                    consumer.accept(keySerializer.deserialize(key), CacheEntry.restore(
+                            nullValue ? null : valueSerializer.deserialize(value), createTime, expireTime, nullValue));
+                    loaded++;
+                } catch (Exception e) {
+                    logger.debug("Skipping snapshot entry that failed to deserialize", e);
+                }
+            }
+            return loaded;
+        }
+    }
+
+}
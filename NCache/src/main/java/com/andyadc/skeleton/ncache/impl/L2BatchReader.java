@@ -0,0 +1,103 @@
+package com.andyadc.skeleton.ncache.impl;
+
+import com.andyadc.skeleton.ncache.config.CacheConfig;
+import com.andyadc.skeleton.ncache.resilience.CircuitBreaker;
+import com.andyadc.skeleton.ncache.resilience.RetryExecutor;
+import redis.clients.jedis.Jedis;
+import redis.clients.jedis.JedisPool;
+
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.function.Function;
+
+/**
+ * Micro-batching reader for L2 (DataLoader style). Point lookups that arrive within the read
+ * window are merged into a single MGET, and each caller's future completes with its own raw value.
+ * <p>
+ * Duplicate keys in a window share one slot, and key encoding, the connection borrow and the
+ * circuit breaker call all happen once per batch.
+ */
+class L2BatchReader<K> extends L2Batcher<L2BatchReader.ReadOp<K>> {
+
+    private final JedisPool jedisPool;
+    private final CircuitBreaker circuitBreaker;
+    private final RetryExecutor retryExecutor;
+    private final Function<K, byte[]> keyBuilder;
+
+    L2BatchReader(String name,
+                  JedisPool jedisPool,
+                  CacheConfig.BatchConfig config,
+                  CircuitBreaker circuitBreaker,
+                  RetryExecutor retryExecutor,
+                  Function<K, byte[]> keyBuilder) {
+        super(name, "cache-l2-reader-" + name, config.getMaxBatchSize(), config.getReadWindow().toNanos());
+        this.jedisPool = jedisPool;
+        this.circuitBreaker = circuitBreaker;
+        this.retryExecutor = retryExecutor;
+        this.keyBuilder = keyBuilder;
+    }
+
+    /**
+     * Queue a lookup; the future completes with the raw value, or null if the key is absent.
+     */
+    CompletableFuture<byte[]> get(K key) {
+        ReadOp<K> op = new ReadOp<>(key);
+        submit(op);
+        return op.future;
+    }
+
+    @Override
+    protected void process(List<ReadOp<K>> batch) {
+        Map<K, List<CompletableFuture<byte[]>>> waiters = new LinkedHashMap<>();
+        for (ReadOp<K> op : batch) {
+            waiters.computeIfAbsent(op.key, k -> new ArrayList<>(1)).add(op.future);
+        }
+
+        byte[][] redisKeys = new byte[waiters.size()][];
+        int i = 0;
+        for (K key : waiters.keySet()) {
+            redisKeys[i++] = keyBuilder.apply(key);
+        }
+
+        List<byte[]> values;
+        try {
+            values = circuitBreaker.execute(retryExecutor, () -> {
+                try (Jedis jedis = jedisPool.getResource()) {
+                    return jedis.mget(redisKeys);
+                }
+            });
+        } catch (Exception e) {
+            for (ReadOp<K> op : batch) {
+                op.future.completeExceptionally(e);
+            }
+            return;
+        }
+
+        Iterator<byte[]> valueIterator = values.iterator();
+        for (List<CompletableFuture<byte[]>> futures : waiters.values()) {
+            byte[] value = valueIterator.next();
+            for (CompletableFuture<byte[]> future : futures) {
+                future.complete(value);
+            }
+        }
+    }
+
+    @Override
+    protected void reject(ReadOp<K> op, Throwable cause) {
+        op.future.completeExceptionally(cause);
+    }
+
+    static final class ReadOp<K> {
+        final K key;
+        final CompletableFuture<byte[]> future = new CompletableFuture<>();
+
+        ReadOp(K key) {
+            this.key = key;
+        }
+    }
+
+}
@@ -0,0 +1,222 @@
+package com.andyadc.skeleton.ncache.impl;
+
+import com.andyadc.skeleton.ncache.config.CacheConfig;
+import com.andyadc.skeleton.ncache.resilience.CircuitBreaker;
+import com.andyadc.skeleton.ncache.resilience.RetryExecutor;
+import redis.clients.jedis.Jedis;
+import redis.clients.jedis.JedisPool;
+import redis.clients.jedis.Pipeline;
+import redis.clients.jedis.Response;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * Micro-batching writer for L2. Queues single-key writes and flushes them as one pipeline.
+ * <p>
+ * Operations keep their submission order inside a batch. A put followed by another put or a
+ * remove of the same key collapses into the later operation, and a repeated remove rides on
+ * the earlier one, so each key costs at most one command per batch in the common cases.
+ */
+class L2BatchWriter extends L2Batcher<L2BatchWriter.WriteOp> {
+
+    private static final byte[] PUT_IF_ABSENT_SCRIPT =
+            L2Codec.PUT_IF_ABSENT_SCRIPT.getBytes(StandardCharsets.UTF_8);
+
+    private final JedisPool jedisPool;
+    private final DefaultCacheStats stats;
+    private final CircuitBreaker circuitBreaker;
+    private final RetryExecutor retryExecutor;
+
+    L2BatchWriter(String name,
+                  JedisPool jedisPool,
+                  CacheConfig.BatchConfig config,
+                  DefaultCacheStats stats,
+                  CircuitBreaker circuitBreaker,
+                  RetryExecutor retryExecutor) {
+        super(name, "cache-l2-writer-" + name, config.getMaxBatchSize(), config.getBatchTimeout().toNanos());
+        this.jedisPool = jedisPool;
+        this.stats = stats;
+        this.circuitBreaker = circuitBreaker;
+        this.retryExecutor = retryExecutor;
+    }
+
+    CompletableFuture<Boolean> put(byte[] key, byte[] value, long ttlMillis) {
+        return enqueue(new WriteOp(OpType.PUT, key, value, ttlMillis));
+    }
+
+    CompletableFuture<Boolean> putIfAbsent(byte[] key, byte[] value, long ttlMillis) {
+        return enqueue(new WriteOp(OpType.PUT_IF_ABSENT, key, value, ttlMillis));
+    }
+
+    CompletableFuture<Boolean> remove(byte[] key) {
+        return enqueue(new WriteOp(OpType.REMOVE, key, null, 0));
+    }
+
+    private CompletableFuture<Boolean> enqueue(WriteOp op) {
+        submit(op);
+        return op.future();
+    }
+
+    @Override
+    protected void process(List<WriteOp> batch) {
+        flush(coalesce(batch));
+    }
+
+    @Override
+    protected void reject(WriteOp op, Throwable cause) {
+        op.fail(cause);
+    }
+
+    private List<WriteOp> coalesce(List<WriteOp> drained) {
+        List<WriteOp> batch = new ArrayList<>(drained.size());
+        // Latest operation per key that is still open for merging
+        Map<ByteBuffer, WriteOp> latest = new HashMap<>();
+
+        for (WriteOp op : drained) {
+            ByteBuffer key = ByteBuffer.wrap(op.key);
+            WriteOp previous = latest.get(key);
+
+            if (previous != null && previous.type == OpType.PUT && op.type != OpType.PUT_IF_ABSENT) {
+                // put+put -> later put, put+remove -> remove that is known to delete something
+                previous.supersede(op);
+                continue;
+            }
+            if (previous != null && previous.type == OpType.REMOVE && op.type == OpType.REMOVE) {
+                // The key is already gone by the time the second remove would run
+                previous.attach(op, Boolean.FALSE);
+                continue;
+            }
+
+            batch.add(op);
+            latest.put(key, op);
+        }
+        return batch;
+    }
+
+    private void flush(List<WriteOp> batch) {
+        List<Response<?>> responses;
+        long start = System.nanoTime();
+        try {
+            responses = circuitBreaker.execute(retryExecutor, () -> {
+                try (Jedis jedis = jedisPool.getResource()) {
+                    Pipeline pipeline = jedis.pipelined();
+                    List<Response<?>> pending = new ArrayList<>(batch.size());
+                    for (WriteOp op : batch) {
+                        pending.add(op.enqueue(pipeline));
+                    }
+                    pipeline.sync();
+                    return pending;
+                }
+            });
+        } catch (Exception e) {
+            for (WriteOp op : batch) {
+                op.fail(e);
+            }
+            return;
+        } finally {
+            stats.recordL2PipelineTime(System.nanoTime() - start);
+        }
+
+        for (int i = 0; i < batch.size(); i++) {
+            WriteOp op = batch.get(i);
+            boolean result = op.result(responses.get(i).get());
+            if (result) {
+                if (op.type == OpType.REMOVE) {
+                    stats.recordRemove();
+                } else {
+                    stats.recordPut();
+                }
+            }
+            op.complete(result);
+        }
+    }
+
+    private enum OpType {
+        PUT, PUT_IF_ABSENT, REMOVE
+    }
+
+    static class WriteOp {
+        // Callers completed by this operation; a null result means "use the server reply"
+        final List<CompletableFuture<Boolean>> callers = new ArrayList<>(1);
+        final List<Boolean> callerResults = new ArrayList<>(1);
+        OpType type;
+        final byte[] key;
+        byte[] value;
+        long ttlMillis;
+        // Set when a merge makes the server reply irrelevant
+        Boolean forcedResult;
+
+        WriteOp(OpType type, byte[] key, byte[] value, long ttlMillis) {
+            this.type = type;
+            this.key = key;
+            this.value = value;
+            this.ttlMillis = ttlMillis;
+            callers.add(new CompletableFuture<>());
+            callerResults.add(null);
+        }
+
+        CompletableFuture<Boolean> future() {
+            return callers.get(0);
+        }
+
+        void supersede(WriteOp later) {
+            // Puts replaced by a later write still succeeded from their caller's point of view
+            callerResults.replaceAll(result -> result == null ? Boolean.TRUE : result);
+            attach(later, null);
+            type = later.type;
+            value = later.value;
+            ttlMillis = later.ttlMillis;
+            if (later.type == OpType.REMOVE) {
+                // The pending put guarantees there is something to delete
+                forcedResult = Boolean.TRUE;
+            }
+        }
+
+        void attach(WriteOp later, Boolean result) {
+            callers.add(later.future());
+            callerResults.add(result);
+        }
+
+        Response<?> enqueue(Pipeline pipeline) {
+            return switch (type) {
+                case PUT -> ttlMillis > 0
+                        ? pipeline.psetex(key, ttlMillis, value)
+                        : pipeline.set(key, value);
+                case PUT_IF_ABSENT -> pipeline.eval(PUT_IF_ABSENT_SCRIPT, List.of(key),
+                        List.of(value, Long.toString(ttlMillis).getBytes(StandardCharsets.US_ASCII)));
+                case REMOVE -> pipeline.del(key);
+            };
+        }
+
+        boolean result(Object reply) {
+            if (forcedResult != null) {
+                return forcedResult;
+            }
+            return switch (type) {
+                case PUT -> true;
+                case PUT_IF_ABSENT -> Long.valueOf(1).equals(reply);
+                case REMOVE -> reply instanceof Long removed && removed > 0;
+            };
+        }
+
+        void complete(boolean result) {
+            for (int i = 0; i < callers.size(); i++) {
+                Boolean callerResult = callerResults.get(i);
+                callers.get(i).complete(callerResult != null ? callerResult : result);
+            }
+        }
+
+        void fail(Throwable t) {
+            for (CompletableFuture<Boolean> caller : callers) {
+                caller.completeExceptionally(t);
+            }
+        }
+    }
+
+}
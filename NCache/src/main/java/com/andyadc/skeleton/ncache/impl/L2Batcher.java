@@ -0,0 +1,132 @@
+package com.andyadc.skeleton.ncache.impl;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Queue plus dispatcher thread shared by the L2 micro-batchers.
+ * <p>
+ * The dispatcher waits for a first operation, then keeps collecting until {@code maxBatchSize}
+ * operations are pending or {@code window} has elapsed since the first one, and hands the
+ * batch to {@link #process(List)}.
+ */
+abstract class L2Batcher<T> {
+
+    private static final Logger logger = LoggerFactory.getLogger(L2Batcher.class);
+
+    // Pending operations allowed per batch slot before submitters block
+    private static final int QUEUE_BATCHES = 16;
+    private static final long IDLE_POLL_MILLIS = 100;
+
+    protected final String name;
+    private final int maxBatchSize;
+    private final long windowNanos;
+    private final BlockingQueue<T> queue;
+    private final Thread dispatcher;
+
+    private volatile boolean running = true;
+
+    L2Batcher(String name, String threadName, int maxBatchSize, long windowNanos) {
+        this.name = name;
+        this.maxBatchSize = Math.max(1, maxBatchSize);
+        this.windowNanos = windowNanos;
+        this.queue = new ArrayBlockingQueue<>(this.maxBatchSize * QUEUE_BATCHES);
+        this.dispatcher = new Thread(this::dispatchLoop, threadName);
+        this.dispatcher.setDaemon(true);
+        this.dispatcher.start();
+    }
+
+    /**
+     * Handle one batch. Runs on the dispatcher thread.
+     */
+    protected abstract void process(List<T> batch);
+
+    /**
+     * Complete an operation that will never be processed.
+     */
+    protected abstract void reject(T op, Throwable cause);
+
+    protected void submit(T op) {
+        if (!running) {
+            reject(op, closedException());
+            return;
+        }
+        try {
+            queue.put(op);
+            if (!running && !dispatcher.isAlive() && queue.remove(op)) {
+                reject(op, closedException());
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            reject(op, e);
+        }
+    }
+
+    /**
+     * Stop accepting operations, process what is queued and wait for the dispatcher to exit.
+     */
+    void close() {
+        running = false;
+        try {
+            dispatcher.join(TimeUnit.SECONDS.toMillis(5));
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private void dispatchLoop() {
+        List<T> drained = new ArrayList<>(maxBatchSize);
+        while (running || !queue.isEmpty()) {
+            try {
+                T first = queue.poll(IDLE_POLL_MILLIS, TimeUnit.MILLISECONDS);
+                if (first == null) {
+                    continue;
+                }
+                drained.add(first);
+
+                long deadline = System.nanoTime() + windowNanos;
+                while (drained.size() < maxBatchSize) {
+                    queue.drainTo(drained, maxBatchSize - drained.size());
+                    long remaining = deadline - System.nanoTime();
+                    if (drained.size() >= maxBatchSize || remaining <= 0) {
+                        break;
+                    }
+                    T next = queue.poll(remaining, TimeUnit.NANOSECONDS);
+                    if (next == null) {
+                        break;
+                    }
+                    drained.add(next);
+                }
+
+                process(drained);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                running = false;
+            } catch (Exception e) {
+                logger.error("L2 batch failed for cache: {}", name, e);
+                for (T op : drained) {
+                    reject(op, e);
+                }
+            } finally {
+                drained.clear();
+            }
+        }
+
+        // Reject anything that raced with shutdown
+        T op;
+        while ((op = queue.poll()) != null) {
+            reject(op, closedException());
+        }
+    }
+
+    private IllegalStateException closedException() {
+        return new IllegalStateException("L2 batcher is closed: " + name);
+    }
+
+}
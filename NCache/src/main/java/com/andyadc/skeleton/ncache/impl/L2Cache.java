@@ -0,0 +1,96 @@
+package com.andyadc.skeleton.ncache.impl;
+
+import java.time.Duration;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * L2 (remote) cache backend used by {@link TwoLevelCache}.
+ */
+public interface L2Cache<K, V> {
+
+    /**
+     * Get the value; a null sentinel reads as empty.
+     */
+    Optional<V> get(K key);
+
+    /**
+     * Get value with its compute time and expiry. The metadata is only populated
+     * when early expiration is enabled for this cache. A null sentinel comes back as an
+     * entry for which {@link L2CacheEntry#isNullValue()} is true.
+     */
+    Optional<L2CacheEntry<V>> getEntry(K key);
+
+    /**
+     * Values of the keys that have one; null sentinels are left out.
+     */
+    default Map<K, V> getAll(Collection<K> keys) {
+        Map<K, V> result = new HashMap<>();
+        getAllEntries(keys).forEach((key, entry) -> {
+            if (!entry.isNullValue()) {
+                result.put(key, entry.getValue());
+            }
+        });
+        return result;
+    }
+
+    /**
+     * Entries of the keys that have one, in one round trip. Null sentinels come back as
+     * entries for which {@link L2CacheEntry#isNullValue()} is true.
+     */
+    Map<K, L2CacheEntry<V>> getAllEntries(Collection<K> keys);
+
+    void put(K key, V value, Duration ttl);
+
+    /**
+     * Put value, recording how long it took to compute for early expiration.
+     */
+    void put(K key, V value, Duration ttl, long computeTimeMillis);
+
+    void putAll(Map<K, V> entries, Duration ttl);
+
+    /**
+     * Store the null sentinel, telling every node the key has no value for {@code ttl}.
+     */
+    void putNull(K key, Duration ttl);
+
+    /**
+     * Atomically put the value unless the key has one; a null sentinel counts as absent
+     * and is replaced.
+     */
+    boolean putIfAbsent(K key, V value, Duration ttl);
+
+    boolean remove(K key);
+
+    void removeAll(Collection<K> keys);
+
+    void clear();
+
+    /**
+     * Whether the key holds a value; a null sentinel counts as absent.
+     */
+    boolean containsKey(K key);
+
+    CompletableFuture<Optional<V>> getAsync(K key);
+
+    CompletableFuture<Optional<L2CacheEntry<V>>> getEntryAsync(K key);
+
+    CompletableFuture<Void> putAsync(K key, V value, Duration ttl);
+
+    CompletableFuture<Boolean> removeAsync(K key);
+
+    /**
+     * The cache key stored under a Redis key, or {@code null} if the Redis key is not one
+     * of this cache's.
+     */
+    K decodeKey(byte[] redisKey);
+
+    /**
+     * Flush pending operations and release background resources.
+     */
+    void close();
+
+}
@@ -0,0 +1,74 @@
+package com.andyadc.skeleton.ncache.impl;
+
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * L2 value together with the metadata needed for probabilistic early expiration (XFetch).
+ */
+public class L2CacheEntry<V> {
+
+    private final V value;
+    private final long computeTimeMillis;
+    private final long expireTime;
+    private final boolean nullValue;
+
+    public L2CacheEntry(V value, long computeTimeMillis, long expireTime) {
+        this(value, computeTimeMillis, expireTime, false);
+    }
+
+    private L2CacheEntry(V value, long computeTimeMillis, long expireTime, boolean nullValue) {
+        this.value = value;
+        this.computeTimeMillis = computeTimeMillis;
+        this.expireTime = expireTime;
+        this.nullValue = nullValue;
+    }
+
+    /**
+     * Sentinel recording that the key has no value, shared by all nodes.
+     */
+    public static <V> L2CacheEntry<V> nullEntry(long expireTime) {
+        return new L2CacheEntry<>(null, 0, expireTime, true);
+    }
+
+    public V getValue() {
+        return value;
+    }
+
+    public boolean isNullValue() {
+        return nullValue;
+    }
+
+    /**
+     * Time it took to compute the value (the XFetch delta).
+     */
+    public long getComputeTimeMillis() {
+        return computeTimeMillis;
+    }
+
+    /**
+     * Absolute expiry in epoch millis, or 0 if the entry never expires.
+     */
+    public long getExpireTime() {
+        return expireTime;
+    }
+
+    public long getTtlMillis(long nowMillis) {
+        return expireTime <= 0 ? Long.MAX_VALUE : Math.max(0, expireTime - nowMillis);
+    }
+
+    /**
+     * Decide whether this reader should recompute the value ahead of its expiry.
+     */
+    public boolean shouldRecomputeEarly(long nowMillis, double beta) {
+        // 1 - nextDouble() is in (0, 1], so the logarithm is always finite
+        return shouldRecomputeEarly(nowMillis, beta, 1.0 - ThreadLocalRandom.current().nextDouble());
+    }
+
+    boolean shouldRecomputeEarly(long nowMillis, double beta, double random) {
+        if (expireTime <= 0 || computeTimeMillis <= 0) {
+            return false;
+        }
+        return nowMillis - computeTimeMillis * beta * Math.log(random) >= expireTime;
+    }
+
+}
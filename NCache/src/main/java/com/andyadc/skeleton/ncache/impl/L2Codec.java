@@ -0,0 +1,218 @@
+package com.andyadc.skeleton.ncache.impl;
+
+import com.andyadc.skeleton.ncache.compression.CompressionCodec;
+import com.andyadc.skeleton.ncache.config.CacheConfig;
+import com.andyadc.skeleton.ncache.serialization.BinaryOutput;
+import com.andyadc.skeleton.ncache.serialization.SerializationException;
+import com.andyadc.skeleton.ncache.serialization.Serializer;
+import com.andyadc.skeleton.ncache.serialization.TextKeySerializer;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.Arrays;
+
+/**
+ * Key and value encoding shared by the L2 backends.
+ * <p>
+ * Values are serialized, optionally compressed, and, with early expiration enabled,
+ * prefixed by a marker byte and the expiry and compute time used by XFetch. Values
+ * without the marker are read as a body alone, so early expiration can be switched on or
+ * off over existing data. An uncompressed body is the serialized value itself, byte for
+ * byte what was stored before compression existed; a compressed one is recognised by its
+ * {@link CompressionCodec} header whatever the current setting, so compression can be
+ * switched on or off over existing data. A value with an empty body is the null sentinel
+ * written by negative caching.
+ */
+public class L2Codec<K, V> {
+
+    // Starts the entry header; never the first byte of a body, compressed or not
+    private static final byte ENTRY_MARKER = (byte) 0xE1;
+    // marker + expireTime (8 bytes) + computeTimeMillis (4 bytes), prepended when early expiration is enabled
+    private static final int ENTRY_HEADER_SIZE = 1 + Long.BYTES + Integer.BYTES;
+    /**
+     * Sets KEYS[1] to ARGV[1], for ARGV[2] millis if positive, unless it holds a value
+     * other than the null sentinel; returns 1 if it was set. A sentinel is empty or the
+     * entry header alone, which no value encodes to.
+     */
+    static final String PUT_IF_ABSENT_SCRIPT = ""
+            + "local v = redis.call('GET', KEYS[1]) "
+            + "if " + holdsValue("v") + " then return 0 end "
+            + "if tonumber(ARGV[2]) > 0 then redis.call('SET', KEYS[1], ARGV[1], 'PX', ARGV[2]) "
+            + "else redis.call('SET', KEYS[1], ARGV[1]) end "
+            + "return 1";
+
+    /**
+     * Returns 1 if KEYS[1] holds a value other than the null sentinel, 0 otherwise,
+     * without sending the value back.
+     */
+    static final String CONTAINS_VALUE_SCRIPT = ""
+            + "local v = redis.call('GET', KEYS[1]) "
+            + "if " + holdsValue("v") + " then return 1 end "
+            + "return 0";
+
+    // Per-thread encode buffers; one that grew past this is dropped instead of retained
+    private static final int MAX_RETAINED_BUFFER = 64 * 1024;
+
+    private static final ThreadLocal<BinaryOutput> KEY_BUFFER =
+            ThreadLocal.withInitial(() -> new BinaryOutput(128));
+    private static final ThreadLocal<BinaryOutput> VALUE_BUFFER =
+            ThreadLocal.withInitial(() -> new BinaryOutput(1024));
+
+    private final Serializer<K> keySerializer;
+    private final Serializer<V> valueSerializer;
+    private final DefaultCacheStats stats;
+    private final String keyPrefix;
+    // keyPrefix as UTF-8, followed by '{' in hash tag mode
+    private final byte[] keyPrefixBytes;
+    private final boolean useKeyHashTag;
+    private final boolean earlyExpiration;
+    private final CompressionCodec compressionCodec;
+
+    public L2Codec(String name,
+                   CacheConfig.L2Config config,
+                   Serializer<K> keySerializer,
+                   Serializer<V> valueSerializer,
+                   DefaultCacheStats stats) {
+        this.keySerializer = keySerializer != null ? keySerializer : new TextKeySerializer<>();
+        this.valueSerializer = valueSerializer;
+        this.stats = stats;
+        this.keyPrefix = config.getKeyPrefix() + name + ":";
+        this.useKeyHashTag = config.isUseKeyHashTag();
+        this.keyPrefixBytes = (useKeyHashTag ? keyPrefix + "{" : keyPrefix).getBytes(StandardCharsets.UTF_8);
+        this.earlyExpiration = config.getEarlyExpiration() != null && config.getEarlyExpiration().isEnabled();
+        this.compressionCodec = config.getCompression() != null && config.getCompression().isEnabled()
+                ? new CompressionCodec(config.getCompression()) : null;
+    }
+
+    public static long ttlMillis(Duration ttl) {
+        return ttl != null && !ttl.isZero() ? ttl.toMillis() : 0;
+    }
+
+    // Lua condition that the GET reply in the variable holds a value, not a sentinel
+    private static String holdsValue(String reply) {
+        return reply + " and #" + reply + " > 0 and not (#" + reply + " == " + ENTRY_HEADER_SIZE
+                + " and string.byte(" + reply + ", 1) == " + (ENTRY_MARKER & 0xFF) + ")";
+    }
+
+    /**
+     * TTL argument of {@link #PUT_IF_ABSENT_SCRIPT}.
+     */
+    static byte[] ttlArgument(Duration ttl) {
+        return Long.toString(ttlMillis(ttl)).getBytes(StandardCharsets.US_ASCII);
+    }
+
+    /**
+     * SCAN pattern matching every key of this cache.
+     */
+    public String keyPattern() {
+        return keyPrefix + "*";
+    }
+
+    public byte[] encodeValue(V value, Duration ttl, long computeTimeMillis) {
+        BinaryOutput out = acquire(VALUE_BUFFER);
+        if (earlyExpiration) {
+            long expireTime = ttl != null && !ttl.isZero() ? System.currentTimeMillis() + ttl.toMillis() : 0;
+            out.writeByte(ENTRY_MARKER);
+            out.writeFixedLong(expireTime);
+            out.writeFixedInt((int) Math.min(Integer.MAX_VALUE, Math.max(0, computeTimeMillis)));
+        }
+
+        if (compressionCodec == null) {
+            valueSerializer.serialize(value, out);
+        } else {
+            byte[] serialized = valueSerializer.serialize(value);
+            byte[] encoded = compressionCodec.encode(serialized);
+            stats.recordL2Compression(serialized.length, encoded.length);
+            out.writeBytes(encoded);
+        }
+        return release(VALUE_BUFFER, out);
+    }
+
+    /**
+     * Encode the null sentinel: the entry header, if any, and no body.
+     */
+    public byte[] encodeNull(Duration ttl) {
+        if (!earlyExpiration) {
+            return new byte[0];
+        }
+        long expireTime = ttl != null && !ttl.isZero() ? System.currentTimeMillis() + ttl.toMillis() : 0;
+        return ByteBuffer.allocate(ENTRY_HEADER_SIZE).put(ENTRY_MARKER).putLong(expireTime).putInt(0).array();
+    }
+
+    public L2CacheEntry<V> decodeEntry(byte[] bytes) {
+        if (bytes.length == 0) {
+            return L2CacheEntry.nullEntry(0);
+        }
+        if (bytes[0] != ENTRY_MARKER) {
+            // Written without early expiration
+            return new L2CacheEntry<>(deserializeValue(bytes, 0, bytes.length), 0, 0);
+        }
+        if (bytes.length < ENTRY_HEADER_SIZE) {
+            throw new SerializationException("Truncated L2 entry header");
+        }
+
+        ByteBuffer buffer = ByteBuffer.wrap(bytes);
+        long expireTime = buffer.getLong(1);
+        if (bytes.length == ENTRY_HEADER_SIZE) {
+            return L2CacheEntry.nullEntry(expireTime);
+        }
+        int delta = buffer.getInt(1 + Long.BYTES);
+        V value = deserializeValue(bytes, ENTRY_HEADER_SIZE, bytes.length - ENTRY_HEADER_SIZE);
+        return new L2CacheEntry<>(value, delta, expireTime);
+    }
+
+    private V deserializeValue(byte[] bytes, int offset, int length) {
+        if (CompressionCodec.isCompressed(bytes, offset, length)) {
+            return valueSerializer.deserialize(CompressionCodec.decode(bytes, offset, length));
+        }
+        // Read in place rather than copying the body out
+        return valueSerializer.deserialize(bytes, offset, length);
+    }
+
+    /**
+     * Build the Redis key. The prefix is encoded once up front and the key is serialized
+     * into a per-thread buffer, so the returned array is the only allocation for text keys.
+     */
+    public byte[] buildKey(K key) {
+        BinaryOutput out = acquire(KEY_BUFFER);
+        out.writeBytes(keyPrefixBytes);
+        keySerializer.serialize(key, out);
+        if (useKeyHashTag) {
+            // For Redis Cluster - ensure keys hash to same slot
+            out.writeByte('}');
+        }
+        return release(KEY_BUFFER, out);
+    }
+
+    /**
+     * Reverse of {@link #buildKey}: the cache key for a Redis key of this cache, or
+     * {@code null} if the Redis key belongs to another cache. Keys come back in the form
+     * the key serializer reads them, i.e. as strings for {@link TextKeySerializer}.
+     */
+    public K decodeKey(byte[] redisKey) {
+        int suffix = useKeyHashTag ? 1 : 0;
+        if (redisKey.length < keyPrefixBytes.length + suffix
+                || !Arrays.equals(redisKey, 0, keyPrefixBytes.length, keyPrefixBytes, 0, keyPrefixBytes.length)
+                || (useKeyHashTag && redisKey[redisKey.length - 1] != '}')) {
+            return null;
+        }
+        return keySerializer.deserialize(redisKey, keyPrefixBytes.length,
+                redisKey.length - keyPrefixBytes.length - suffix);
+    }
+
+    private static BinaryOutput acquire(ThreadLocal<BinaryOutput> local) {
+        BinaryOutput out = local.get();
+        out.reset();
+        return out;
+    }
+
+    private static byte[] release(ThreadLocal<BinaryOutput> local, BinaryOutput out) {
+        byte[] bytes = out.toByteArray();
+        if (out.capacity() > MAX_RETAINED_BUFFER) {
+            local.remove();
+        }
+        return bytes;
+    }
+
+}
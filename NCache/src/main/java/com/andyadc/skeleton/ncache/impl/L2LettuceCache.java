@@ -0,0 +1,352 @@
+package com.andyadc.skeleton.ncache.impl;
+
+import com.andyadc.skeleton.ncache.config.CacheConfig;
+import com.andyadc.skeleton.ncache.resilience.CircuitBreaker;
+import com.andyadc.skeleton.ncache.resilience.RetryExecutor;
+import com.andyadc.skeleton.ncache.serialization.Serializer;
+import io.lettuce.core.KeyValue;
+import io.lettuce.core.ScanArgs;
+import io.lettuce.core.ScanCursor;
+import io.lettuce.core.ScriptOutputType;
+import io.lettuce.core.SetArgs;
+import io.lettuce.core.api.StatefulRedisConnection;
+import io.lettuce.core.api.async.RedisAsyncCommands;
+
+import java.time.Duration;
+import java.util.*;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.CompletionStage;
+import java.util.concurrent.Executor;
+import java.util.function.Supplier;
+
+/**
+ * L2 cache implementation using Lettuce's asynchronous API.
+ * <p>
+ * Commands are pipelined over one shared connection and complete on Lettuce's event loop,
+ * so async callers never hold a thread for the Redis round trip. Values are decoded on the
+ * calling thread for blocking reads, and on the decode executor, if given, for async ones,
+ * so deserialization never stalls the event loop. The connection is owned by the caller
+ * and is not closed by {@link #close()}.
+ */
+public class L2LettuceCache<K, V> implements L2Cache<K, V> {
+
+    private static final int SCAN_COUNT = 100;
+
+    private final String name;
+    private final RedisAsyncCommands<byte[], byte[]> commands;
+    private final L2Codec<K, V> codec;
+    private final DefaultCacheStats stats;
+    private final CircuitBreaker circuitBreaker;
+    private final RetryExecutor retryExecutor;
+    private final boolean trackWrites;
+    private final Executor decodeExecutor;
+
+    public L2LettuceCache(String name,
+                          StatefulRedisConnection<byte[], byte[]> connection,
+                          CacheConfig.L2Config config,
+                          Serializer<K> keySerializer,
+                          Serializer<V> valueSerializer,
+                          DefaultCacheStats stats,
+                          CircuitBreaker circuitBreaker,
+                          RetryExecutor retryExecutor) {
+        this(name, connection, config, keySerializer, valueSerializer, stats, circuitBreaker, retryExecutor, false);
+    }
+
+    /**
+     * @param trackWrites follow every write with a read of the key, so that Redis client
+     *                    tracking on the connection also reports later changes to keys this
+     *                    node wrote but never read
+     */
+    public L2LettuceCache(String name,
+                          StatefulRedisConnection<byte[], byte[]> connection,
+                          CacheConfig.L2Config config,
+                          Serializer<K> keySerializer,
+                          Serializer<V> valueSerializer,
+                          DefaultCacheStats stats,
+                          CircuitBreaker circuitBreaker,
+                          RetryExecutor retryExecutor,
+                          boolean trackWrites) {
+        this(name, connection, config, keySerializer, valueSerializer, stats, circuitBreaker, retryExecutor,
+                trackWrites, null);
+    }
+
+    /**
+     * @param decodeExecutor runs the decoding of async reads, or null to decode them on
+     *                       the event loop
+     */
+    public L2LettuceCache(String name,
+                          StatefulRedisConnection<byte[], byte[]> connection,
+                          CacheConfig.L2Config config,
+                          Serializer<K> keySerializer,
+                          Serializer<V> valueSerializer,
+                          DefaultCacheStats stats,
+                          CircuitBreaker circuitBreaker,
+                          RetryExecutor retryExecutor,
+                          boolean trackWrites,
+                          Executor decodeExecutor) {
+        this.name = name;
+        this.commands = connection.async();
+        this.codec = new L2Codec<>(name, config, keySerializer, valueSerializer, stats);
+        this.stats = stats;
+        this.circuitBreaker = circuitBreaker;
+        this.retryExecutor = retryExecutor;
+        this.trackWrites = trackWrites;
+        this.decodeExecutor = decodeExecutor;
+    }
+
+    @Override
+    public Optional<V> get(K key) {
+        return getEntry(key).filter(entry -> !entry.isNullValue()).map(L2CacheEntry::getValue);
+    }
+
+    @Override
+    public Optional<L2CacheEntry<V>> getEntry(K key) {
+        return toEntry(await(fetch(key)));
+    }
+
+    @Override
+    public CompletableFuture<Optional<L2CacheEntry<V>>> getEntryAsync(K key) {
+        CompletableFuture<byte[]> value = fetch(key);
+        return decodeExecutor != null
+                ? value.thenApplyAsync(this::toEntry, decodeExecutor)
+                : value.thenApply(this::toEntry);
+    }
+
+    private CompletableFuture<byte[]> fetch(K key) {
+        byte[] redisKey = codec.buildKey(key);
+        long start = System.nanoTime();
+        return execute(() -> commands.get(redisKey)).thenApply(value -> {
+            stats.recordL2GetTime(System.nanoTime() - start);
+            return value;
+        });
+    }
+
+    private Optional<L2CacheEntry<V>> toEntry(byte[] value) {
+        if (value != null) {
+            stats.recordL2Hit();
+            return Optional.of(codec.decodeEntry(value));
+        } else {
+            stats.recordL2Miss();
+            return Optional.empty();
+        }
+    }
+
+    @Override
+    public Map<K, L2CacheEntry<V>> getAllEntries(Collection<K> keys) {
+        if (keys.isEmpty()) {
+            return Collections.emptyMap();
+        }
+
+        List<K> keyList = new ArrayList<>(keys);
+        byte[][] redisKeys = keyList.stream()
+                .map(codec::buildKey)
+                .toArray(byte[][]::new);
+
+        long start = System.nanoTime();
+        List<KeyValue<byte[], byte[]>> values = await(execute(() -> commands.mget(redisKeys)));
+        stats.recordL2MgetTime(System.nanoTime() - start);
+
+        Map<K, L2CacheEntry<V>> result = new HashMap<>();
+        for (int i = 0; i < values.size(); i++) {
+            KeyValue<byte[], byte[]> value = values.get(i);
+            if (value.hasValue()) {
+                result.put(keyList.get(i), codec.decodeEntry(value.getValue()));
+                stats.recordL2Hit();
+            } else {
+                stats.recordL2Miss();
+            }
+        }
+        return result;
+    }
+
+    @Override
+    public void put(K key, V value, Duration ttl) {
+        put(key, value, ttl, 0);
+    }
+
+    @Override
+    public void put(K key, V value, Duration ttl, long computeTimeMillis) {
+        await(putAsync(key, value, ttl, computeTimeMillis));
+    }
+
+    private CompletableFuture<Void> putAsync(K key, V value, Duration ttl, long computeTimeMillis) {
+        byte[] redisKey = codec.buildKey(key);
+        byte[] redisValue = codec.encodeValue(value, ttl, computeTimeMillis);
+        SetArgs args = setArgs(ttl);
+
+        long start = System.nanoTime();
+        return execute(() -> track(redisKey, commands.set(redisKey, redisValue, args))).thenRun(() -> {
+            stats.recordL2PutTime(System.nanoTime() - start);
+            stats.recordPut();
+        });
+    }
+
+    @Override
+    public void putAll(Map<K, V> entries, Duration ttl) {
+        if (entries.isEmpty()) {
+            return;
+        }
+
+        List<byte[]> redisKeys = new ArrayList<>(entries.size());
+        List<byte[]> redisValues = new ArrayList<>(entries.size());
+        for (Map.Entry<K, V> entry : entries.entrySet()) {
+            redisKeys.add(codec.buildKey(entry.getKey()));
+            redisValues.add(codec.encodeValue(entry.getValue(), ttl, 0));
+        }
+        SetArgs args = setArgs(ttl);
+
+        // Commands are written back-to-back on the connection, i.e. pipelined
+        long start = System.nanoTime();
+        await(execute(() -> {
+            CompletableFuture<?>[] futures = new CompletableFuture<?>[redisKeys.size()];
+            for (int i = 0; i < futures.length; i++) {
+                futures[i] = track(redisKeys.get(i), commands.set(redisKeys.get(i), redisValues.get(i), args))
+                        .toCompletableFuture();
+            }
+            return CompletableFuture.allOf(futures);
+        }).thenRun(() -> {
+            stats.recordL2PipelineTime(System.nanoTime() - start);
+            stats.recordPut();
+        }));
+    }
+
+    @Override
+    public void putNull(K key, Duration ttl) {
+        byte[] redisKey = codec.buildKey(key);
+        byte[] redisValue = codec.encodeNull(ttl);
+        SetArgs args = setArgs(ttl);
+
+        await(execute(() -> track(redisKey, commands.set(redisKey, redisValue, args))));
+    }
+
+    @Override
+    public boolean putIfAbsent(K key, V value, Duration ttl) {
+        byte[] redisKey = codec.buildKey(key);
+        byte[] redisValue = codec.encodeValue(value, ttl, 0);
+        byte[] ttlMillis = L2Codec.ttlArgument(ttl);
+
+        return await(execute(() -> track(redisKey, commands.<Long>eval(L2Codec.PUT_IF_ABSENT_SCRIPT,
+                ScriptOutputType.INTEGER, new byte[][]{redisKey}, redisValue, ttlMillis))).thenApply(result -> {
+            boolean success = result != null && result == 1L;
+            if (success) {
+                stats.recordPut();
+            }
+            return success;
+        }));
+    }
+
+    @Override
+    public boolean remove(K key) {
+        return await(removeAsync(key));
+    }
+
+    @Override
+    public void removeAll(Collection<K> keys) {
+        if (keys.isEmpty()) {
+            return;
+        }
+
+        byte[][] redisKeys = keys.stream()
+                .map(codec::buildKey)
+                .toArray(byte[][]::new);
+
+        await(execute(() -> commands.del(redisKeys)).thenRun(stats::recordRemove));
+    }
+
+    @Override
+    public void clear() {
+        // Use SCAN to find and delete keys with prefix
+        ScanArgs args = ScanArgs.Builder.matches(codec.keyPattern()).limit(SCAN_COUNT);
+        await(execute(() -> clearFrom(ScanCursor.INITIAL, args)));
+    }
+
+    private CompletableFuture<Void> clearFrom(ScanCursor cursor, ScanArgs args) {
+        return commands.scan(cursor, args).toCompletableFuture().thenCompose(result -> {
+            List<byte[]> keys = result.getKeys();
+            CompletableFuture<Long> deleted = keys.isEmpty()
+                    ? CompletableFuture.completedFuture(0L)
+                    : commands.del(keys.toArray(new byte[0][])).toCompletableFuture();
+
+            return deleted.thenCompose(n -> result.isFinished()
+                    ? CompletableFuture.completedFuture(null)
+                    : clearFrom(result, args));
+        });
+    }
+
+    @Override
+    public boolean containsKey(K key) {
+        byte[] redisKey = codec.buildKey(key);
+        return await(execute(() -> commands.<Long>eval(L2Codec.CONTAINS_VALUE_SCRIPT,
+                ScriptOutputType.INTEGER, redisKey)).thenApply(result -> result != null && result == 1L));
+    }
+
+    @Override
+    public CompletableFuture<Optional<V>> getAsync(K key) {
+        return getEntryAsync(key).thenApply(entry -> entry
+                .filter(e -> !e.isNullValue()).map(L2CacheEntry::getValue));
+    }
+
+    @Override
+    public CompletableFuture<Void> putAsync(K key, V value, Duration ttl) {
+        return putAsync(key, value, ttl, 0);
+    }
+
+    @Override
+    public CompletableFuture<Boolean> removeAsync(K key) {
+        byte[] redisKey = codec.buildKey(key);
+        return execute(() -> commands.del(redisKey)).thenApply(removed -> {
+            if (removed > 0) {
+                stats.recordRemove();
+                return true;
+            }
+            return false;
+        });
+    }
+
+    /**
+     * Pipeline a read-only EXISTS right behind a write, the cheapest way to have client
+     * tracking register interest in the key. Its reply is not awaited.
+     */
+    private <T> CompletionStage<T> track(byte[] redisKey, CompletionStage<T> write) {
+        if (trackWrites) {
+            commands.exists(redisKey);
+        }
+        return write;
+    }
+
+    @Override
+    public K decodeKey(byte[] redisKey) {
+        return codec.decodeKey(redisKey);
+    }
+
+    @Override
+    public void close() {
+        // Nothing is buffered client-side; the connection is closed by its owner
+    }
+
+    private <T> CompletableFuture<T> execute(Supplier<? extends CompletionStage<T>> command) {
+        return circuitBreaker.executeAsync(retryExecutor, command);
+    }
+
+    private static SetArgs setArgs(Duration ttl) {
+        SetArgs args = new SetArgs();
+        long ttlMillis = L2Codec.ttlMillis(ttl);
+        if (ttlMillis > 0) {
+            args.px(ttlMillis);
+        }
+        return args;
+    }
+
+    private static <T> T await(CompletableFuture<T> future) {
+        try {
+            return future.join();
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof RuntimeException re) {
+                throw re;
+            }
+            throw e;
+        }
+    }
+
+}
@@ -13,23 +13,29 @@ import java.nio.charset.StandardCharsets;
 import java.time.Duration;
 import java.util.*;
 import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
 import java.util.concurrent.ExecutorService;
 
 /**
  * L2 cache implementation using Redis.
  */
-public class L2RedisCache<K, V> {
+public class L2RedisCache<K, V> implements L2Cache<K, V> {
+
+    private static final byte[] PUT_IF_ABSENT_SCRIPT =
+            L2Codec.PUT_IF_ABSENT_SCRIPT.getBytes(StandardCharsets.UTF_8);
+    private static final byte[] CONTAINS_VALUE_SCRIPT =
+            L2Codec.CONTAINS_VALUE_SCRIPT.getBytes(StandardCharsets.UTF_8);
 
     private final String name;
     private final JedisPool jedisPool;
     private final CacheConfig.L2Config config;
-    private final Serializer<K> keySerializer;
-    private final Serializer<V> valueSerializer;
+    private final L2Codec<K, V> codec;
     private final DefaultCacheStats stats;
     private final CircuitBreaker circuitBreaker;
     private final RetryExecutor retryExecutor;
     private final ExecutorService asyncExecutor;
-    private final String keyPrefix;
+    private final L2BatchWriter batchWriter;
+    private final L2BatchReader<K> batchReader;
 
     public L2RedisCache(String name,
                         JedisPool jedisPool,
@@ -43,92 +49,135 @@ public class L2RedisCache<K, V> {
         this.name = name;
         this.jedisPool = jedisPool;
         this.config = config;
-        this.keySerializer = keySerializer;
-        this.valueSerializer = valueSerializer;
+        this.codec = new L2Codec<>(name, config, keySerializer, valueSerializer, stats);
         this.stats = stats;
         this.circuitBreaker = circuitBreaker;
         this.retryExecutor = retryExecutor;
         this.asyncExecutor = asyncExecutor;
-        this.keyPrefix = config.getKeyPrefix() + name + ":";
+        this.batchWriter = config.getBatch() != null && config.getBatch().isWriteCoalescing()
+                ? new L2BatchWriter(name, jedisPool, config.getBatch(), stats, circuitBreaker, retryExecutor) : null;
+        this.batchReader = config.getBatch() != null && config.getBatch().isReadBatching()
+                ? new L2BatchReader<>(name, jedisPool, config.getBatch(), circuitBreaker, retryExecutor, codec::buildKey)
+                : null;
     }
 
+    @Override
     public Optional<V> get(K key) {
-        return circuitBreaker.execute(() -> retryExecutor.execute(() -> {
+        return getEntry(key).filter(entry -> !entry.isNullValue()).map(L2CacheEntry::getValue);
+    }
+
+    @Override
+    public Optional<L2CacheEntry<V>> getEntry(K key) {
+        if (batchReader != null) {
+            long start = System.nanoTime();
+            byte[] value = await(batchReader.get(key));
+            stats.recordL2GetTime(System.nanoTime() - start);
+            return toEntry(value);
+        }
+
+        // Decoded outside the breaker, so a value that fails to decode is not a Redis failure
+        byte[] value = circuitBreaker.execute(retryExecutor, () -> {
             try (Jedis jedis = jedisPool.getResource()) {
-                byte[] redisKey = buildKey(key);
-                byte[] value = jedis.get(redisKey);
-
-                if (value != null) {
-                    stats.recordL2Hit();
-                    return Optional.of(valueSerializer.deserialize(value));
-                } else {
-                    stats.recordL2Miss();
-                    return Optional.empty();
-                }
+                byte[] redisKey = codec.buildKey(key);
+                long start = System.nanoTime();
+                byte[] reply = jedis.get(redisKey);
+                stats.recordL2GetTime(System.nanoTime() - start);
+                return reply;
             }
-        }));
+        });
+        return toEntry(value);
+    }
+
+    private Optional<L2CacheEntry<V>> toEntry(byte[] value) {
+        if (value != null) {
+            stats.recordL2Hit();
+            return Optional.of(codec.decodeEntry(value));
+        } else {
+            stats.recordL2Miss();
+            return Optional.empty();
+        }
     }
 
-    public Map<K, V> getAll(Collection<K> keys) {
+    @Override
+    public Map<K, L2CacheEntry<V>> getAllEntries(Collection<K> keys) {
         if (keys.isEmpty()) {
             return Collections.emptyMap();
         }
 
-        return circuitBreaker.execute(() -> retryExecutor.execute(() -> {
+        byte[][] redisKeys = keys.stream()
+                .map(codec::buildKey)
+                .toArray(byte[][]::new);
+        List<byte[]> values = circuitBreaker.execute(retryExecutor, () -> {
             try (Jedis jedis = jedisPool.getResource()) {
-                byte[][] redisKeys = keys.stream()
-                        .map(this::buildKey)
-                        .toArray(byte[][]::new);
-
-                List<byte[]> values = jedis.mget(redisKeys);
-                Map<K, V> result = new HashMap<>();
-
-                Iterator<K> keyIterator = keys.iterator();
-                for (byte[] value : values) {
-                    K key = keyIterator.next();
-                    if (value != null) {
-                        result.put(key, valueSerializer.deserialize(value));
-                        stats.recordL2Hit();
-                    } else {
-                        stats.recordL2Miss();
-                    }
-                }
-
-                return result;
+                long start = System.nanoTime();
+                List<byte[]> replies = jedis.mget(redisKeys);
+                stats.recordL2MgetTime(System.nanoTime() - start);
+                return replies;
+            }
+        });
+
+        Map<K, L2CacheEntry<V>> result = new HashMap<>();
+        Iterator<K> keyIterator = keys.iterator();
+        for (byte[] value : values) {
+            K key = keyIterator.next();
+            if (value != null) {
+                result.put(key, codec.decodeEntry(value));
+                stats.recordL2Hit();
+            } else {
+                stats.recordL2Miss();
             }
-        }));
+        }
+        return result;
     }
 
+    @Override
     public void put(K key, V value, Duration ttl) {
-        circuitBreaker.execute(() -> retryExecutor.execute(() -> {
+        put(key, value, ttl, 0);
+    }
+
+    @Override
+    public void put(K key, V value, Duration ttl, long computeTimeMillis) {
+        if (batchWriter != null) {
+            long start = System.nanoTime();
+            await(batchWriter.put(codec.buildKey(key), codec.encodeValue(value, ttl, computeTimeMillis),
+                    L2Codec.ttlMillis(ttl)));
+            stats.recordL2PutTime(System.nanoTime() - start);
+            return;
+        }
+
+        circuitBreaker.execute(retryExecutor, () -> {
             try (Jedis jedis = jedisPool.getResource()) {
-                byte[] redisKey = buildKey(key);
-                byte[] redisValue = valueSerializer.serialize(value);
+                byte[] redisKey = codec.buildKey(key);
+                byte[] redisValue = codec.encodeValue(value, ttl, computeTimeMillis);
 
                 SetParams params = new SetParams();
                 if (ttl != null && !ttl.isZero()) {
                     params.px(ttl.toMillis());
                 }
 
+                long start = System.nanoTime();
                 jedis.set(redisKey, redisValue, params);
+                stats.recordL2PutTime(System.nanoTime() - start);
                 stats.recordPut();
                 return null;
             }
-        }));
+        });
     }
 
+    @Override
     public void putAll(Map<K, V> entries, Duration ttl) {
         if (entries.isEmpty()) {
             return;
         }
 
-        circuitBreaker.execute(() -> retryExecutor.execute(() -> {
+        circuitBreaker.execute(retryExecutor, () -> {
             try (Jedis jedis = jedisPool.getResource()) {
+                long start = System.nanoTime();
                 Pipeline pipeline = jedis.pipelined();
 
                 for (Map.Entry<K, V> entry : entries.entrySet()) {
-                    byte[] redisKey = buildKey(entry.getKey());
-                    byte[] redisValue = valueSerializer.serialize(entry.getValue());
+                    byte[] redisKey = codec.buildKey(entry.getKey());
+                    byte[] redisValue = codec.encodeValue(entry.getValue(), ttl, 0);
 
                     if (ttl != null && !ttl.isZero()) {
                         pipeline.psetex(redisKey, ttl.toMillis(), redisValue);
@@ -138,37 +187,65 @@ public class L2RedisCache<K, V> {
                 }
 
                 pipeline.sync();
+                stats.recordL2PipelineTime(System.nanoTime() - start);
                 stats.recordPut();
                 return null;
             }
-        }));
+        });
     }
 
-    public boolean putIfAbsent(K key, V value, Duration ttl) {
-        return circuitBreaker.execute(() -> retryExecutor.execute(() -> {
-            try (Jedis jedis = jedisPool.getResource()) {
-                byte[] redisKey = buildKey(key);
-                byte[] redisValue = valueSerializer.serialize(value);
+    @Override
+    public void putNull(K key, Duration ttl) {
+        if (batchWriter != null) {
+            await(batchWriter.put(codec.buildKey(key), codec.encodeNull(ttl), L2Codec.ttlMillis(ttl)));
+            return;
+        }
 
-                SetParams params = new SetParams().nx();
+        circuitBreaker.execute(retryExecutor, () -> {
+            try (Jedis jedis = jedisPool.getResource()) {
+                SetParams params = new SetParams();
                 if (ttl != null && !ttl.isZero()) {
                     params.px(ttl.toMillis());
                 }
 
-                String result = jedis.set(redisKey, redisValue, params);
-                boolean success = "OK".equals(result);
+                jedis.set(codec.buildKey(key), codec.encodeNull(ttl), params);
+                return null;
+            }
+        });
+    }
+
+    @Override
+    public boolean putIfAbsent(K key, V value, Duration ttl) {
+        if (batchWriter != null) {
+            return await(batchWriter.putIfAbsent(codec.buildKey(key), codec.encodeValue(value, ttl, 0),
+                    L2Codec.ttlMillis(ttl)));
+        }
+
+        return circuitBreaker.execute(retryExecutor, () -> {
+            try (Jedis jedis = jedisPool.getResource()) {
+                byte[] redisKey = codec.buildKey(key);
+                byte[] redisValue = codec.encodeValue(value, ttl, 0);
+
+                Object result = jedis.eval(PUT_IF_ABSENT_SCRIPT, List.of(redisKey),
+                        List.of(redisValue, L2Codec.ttlArgument(ttl)));
+                boolean success = Long.valueOf(1).equals(result);
                 if (success) {
                     stats.recordPut();
                 }
                 return success;
             }
-        }));
+        });
     }
 
+    @Override
     public boolean remove(K key) {
-        return circuitBreaker.execute(() -> retryExecutor.execute(() -> {
+        if (batchWriter != null) {
+            return await(batchWriter.remove(codec.buildKey(key)));
+        }
+
+        return circuitBreaker.execute(retryExecutor, () -> {
             try (Jedis jedis = jedisPool.getResource()) {
-                byte[] redisKey = buildKey(key);
+                byte[] redisKey = codec.buildKey(key);
                 long removed = jedis.del(redisKey);
                 if (removed > 0) {
                     stats.recordRemove();
@@ -176,32 +253,34 @@ public class L2RedisCache<K, V> {
                 }
                 return false;
             }
-        }));
+        });
     }
 
+    @Override
     public void removeAll(Collection<K> keys) {
         if (keys.isEmpty()) {
             return;
         }
 
-        circuitBreaker.execute(() -> retryExecutor.execute(() -> {
+        circuitBreaker.execute(retryExecutor, () -> {
             try (Jedis jedis = jedisPool.getResource()) {
                 byte[][] redisKeys = keys.stream()
-                        .map(this::buildKey)
+                        .map(codec::buildKey)
                         .toArray(byte[][]::new);
 
                 jedis.del(redisKeys);
                 stats.recordRemove();
                 return null;
             }
-        }));
+        });
     }
 
+    @Override
     public void clear() {
-        circuitBreaker.execute(() -> retryExecutor.execute(() -> {
+        circuitBreaker.execute(retryExecutor, () -> {
             try (Jedis jedis = jedisPool.getResource()) {
                 // Use SCAN to find and delete keys with prefix
-                String pattern = keyPrefix + "*";
+                String pattern = codec.keyPattern();
                 String cursor = "0";
 
                 do {
@@ -220,43 +299,77 @@ public class L2RedisCache<K, V> {
 
                 return null;
             }
-        }));
+        });
     }
 
+    @Override
     public boolean containsKey(K key) {
-        return circuitBreaker.execute(() -> retryExecutor.execute(() -> {
+        return circuitBreaker.execute(retryExecutor, () -> {
             try (Jedis jedis = jedisPool.getResource()) {
-                byte[] redisKey = buildKey(key);
-                return jedis.exists(redisKey);
+                byte[] redisKey = codec.buildKey(key);
+                return Long.valueOf(1).equals(jedis.eval(CONTAINS_VALUE_SCRIPT, 1, redisKey));
             }
-        }));
+        });
     }
 
+    @Override
     public CompletableFuture<Optional<V>> getAsync(K key) {
+        if (batchReader != null) {
+            return batchReader.get(key).thenApply(value -> toEntry(value)
+                    .filter(entry -> !entry.isNullValue()).map(L2CacheEntry::getValue));
+        }
         return CompletableFuture.supplyAsync(() -> get(key), asyncExecutor);
     }
 
+    @Override
+    public CompletableFuture<Optional<L2CacheEntry<V>>> getEntryAsync(K key) {
+        if (batchReader != null) {
+            return batchReader.get(key).thenApply(this::toEntry);
+        }
+        return CompletableFuture.supplyAsync(() -> getEntry(key), asyncExecutor);
+    }
+
+    @Override
     public CompletableFuture<Void> putAsync(K key, V value, Duration ttl) {
+        if (batchWriter != null) {
+            return batchWriter.put(codec.buildKey(key), codec.encodeValue(value, ttl, 0), L2Codec.ttlMillis(ttl))
+                    .thenApply(r -> null);
+        }
         return CompletableFuture.runAsync(() -> put(key, value, ttl), asyncExecutor);
     }
 
+    @Override
     public CompletableFuture<Boolean> removeAsync(K key) {
+        if (batchWriter != null) {
+            return batchWriter.remove(codec.buildKey(key));
+        }
         return CompletableFuture.supplyAsync(() -> remove(key), asyncExecutor);
     }
 
-    private byte[] buildKey(K key) {
-        if (config.isUseKeyHashTag()) {
-            // For Redis Cluster - ensure keys hash to same slot
-            String serializedKey = new String(keySerializer.serialize(key), StandardCharsets.UTF_8);
-            return (keyPrefix + "{" + serializedKey + "}").getBytes(StandardCharsets.UTF_8);
+    @Override
+    public K decodeKey(byte[] redisKey) {
+        return codec.decodeKey(redisKey);
+    }
+
+    @Override
+    public void close() {
+        if (batchWriter != null) {
+            batchWriter.close();
+        }
+        if (batchReader != null) {
+            batchReader.close();
         }
+    }
 
-        byte[] serializedKey = keySerializer.serialize(key);
-        byte[] prefix = keyPrefix.getBytes(StandardCharsets.UTF_8);
-        byte[] result = new byte[prefix.length + serializedKey.length];
-        System.arraycopy(prefix, 0, result, 0, prefix.length);
-        System.arraycopy(serializedKey, 0, result, prefix.length, serializedKey.length);
-        return result;
+    private static <T> T await(CompletableFuture<T> future) {
+        try {
+            return future.join();
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof RuntimeException re) {
+                throw re;
+            }
+            throw e;
+        }
     }
 
-}
\ No newline at end of file
+}
@@ -0,0 +1,286 @@
+package com.andyadc.skeleton.ncache.impl;
+
+import com.andyadc.skeleton.ncache.config.CacheConfig;
+import com.andyadc.skeleton.ncache.serialization.Serializer;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayDeque;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Store of serialized cache entries outside the Java heap, used as a victim tier behind L1.
+ * <p>
+ * The capacity is split into segments, each a direct or memory-mapped buffer written as a
+ * circular log: a value is appended at the write position, and once the log wraps around
+ * the oldest records in the way are evicted. Only the key index with offsets and
+ * timestamps lives on the heap. Each segment has its own lock, held while bytes are copied
+ * in or out; serialization happens outside it.
+ * <p>
+ * Mapped segment files are deleted right after mapping, so nothing is left behind on disk.
+ * Buffers are released when the store is garbage collected.
+ */
+public class OffHeapStore<K, V> {
+
+    private static final Logger logger = LoggerFactory.getLogger(OffHeapStore.class);
+
+    private static final int MAX_SEGMENT_BYTES = 1 << 30;
+    private static final byte[] EMPTY = new byte[0];
+
+    private final Segment<K>[] segments;
+    private final int segmentMask;
+    private final Serializer<V> serializer;
+
+    public OffHeapStore(CacheConfig.OffHeapConfig config, Serializer<V> serializer) {
+        if (serializer == null) {
+            throw new IllegalArgumentException("The off-heap tier needs a value serializer");
+        }
+        long capacity = config.getCapacityBytes();
+        long minSegments = Math.max(config.getSegments(), (capacity + MAX_SEGMENT_BYTES - 1) / MAX_SEGMENT_BYTES);
+        int count = 1;
+        while (count < minSegments) {
+            count <<= 1;
+        }
+        int segmentBytes = (int) Math.min(MAX_SEGMENT_BYTES, capacity / count);
+
+        @SuppressWarnings({"unchecked", "rawtypes"})
+        Segment<K>[] segments = (Segment<K>[]) new Segment[count];
+        this.segments = segments;
+        for (int i = 0; i < count; i++) {
+            segments[i] = new Segment<>(allocate(config, segmentBytes));
+        }
+        this.segmentMask = count - 1;
+        this.serializer = serializer;
+    }
+
+    private static ByteBuffer allocate(CacheConfig.OffHeapConfig config, int size) {
+        if (config.getStorage() != CacheConfig.OffHeapConfig.Storage.MAPPED) {
+            return ByteBuffer.allocateDirect(size);
+        }
+        try {
+            Path directory = config.getDirectory() != null
+                    ? config.getDirectory() : Path.of(System.getProperty("java.io.tmpdir"));
+            Path file = Files.createTempFile(directory, "ncache-", ".seg");
+            try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+                return channel.map(FileChannel.MapMode.READ_WRITE, 0, size);
+            } finally {
+                Files.deleteIfExists(file);
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException("Failed to map off-heap segment", e);
+        }
+    }
+
+    /**
+     * Store an entry, replacing any previous one for the key. Entries that do not fit in a
+     * segment or fail to serialize are dropped.
+     */
+    public void put(K key, CacheEntry<V> entry) {
+        byte[] bytes;
+        try {
+            bytes = entry.isNullValue() ? EMPTY : serializer.serialize(entry.getValue());
+        } catch (Exception e) {
+            logger.debug("Not moving entry off-heap, serialization failed for key: {}", key, e);
+            invalidate(key);
+            return;
+        }
+        segmentFor(key).put(key, bytes, entry);
+    }
+
+    /**
+     * Remove and return the live entry for a key, or null if absent or expired.
+     */
+    public CacheEntry<V> remove(K key) {
+        Segment<K> segment = segmentFor(key);
+        Slot<K> slot;
+        byte[] bytes;
+        synchronized (segment) {
+            slot = segment.index.remove(key);
+            if (slot == null) {
+                return null;
+            }
+            segment.usedBytes -= slot.length;
+            if (slot.isExpired()) {
+                return null;
+            }
+            bytes = new byte[slot.length];
+            segment.buffer.get(slot.offset, bytes);
+        }
+
+        if (slot.nullValue) {
+            return CacheEntry.restore(null, slot.createTime, slot.expireTime, true);
+        }
+        try {
+            return CacheEntry.restore(serializer.deserialize(bytes), slot.createTime, slot.expireTime, false);
+        } catch (Exception e) {
+            logger.warn("Dropping off-heap entry that failed to deserialize for key: {}", key, e);
+            return null;
+        }
+    }
+
+    public boolean containsKey(K key) {
+        Segment<K> segment = segmentFor(key);
+        synchronized (segment) {
+            Slot<K> slot = segment.index.get(key);
+            return slot != null && !slot.isExpired();
+        }
+    }
+
+    /**
+     * Like {@link #containsKey}, not counting null markers.
+     */
+    public boolean containsValue(K key) {
+        Segment<K> segment = segmentFor(key);
+        synchronized (segment) {
+            Slot<K> slot = segment.index.get(key);
+            return slot != null && !slot.nullValue && !slot.isExpired();
+        }
+    }
+
+    public void invalidate(K key) {
+        Segment<K> segment = segmentFor(key);
+        synchronized (segment) {
+            Slot<K> slot = segment.index.remove(key);
+            if (slot != null) {
+                segment.usedBytes -= slot.length;
+            }
+        }
+    }
+
+    public void clear() {
+        for (Segment<K> segment : segments) {
+            synchronized (segment) {
+                segment.index.clear();
+                segment.log.clear();
+                segment.writePos = 0;
+                segment.usedBytes = 0;
+            }
+        }
+    }
+
+    /**
+     * Number of entries, including expired ones not yet dropped.
+     */
+    public long size() {
+        long size = 0;
+        for (Segment<K> segment : segments) {
+            synchronized (segment) {
+                size += segment.index.size();
+            }
+        }
+        return size;
+    }
+
+    /**
+     * Bytes held by the entries currently stored.
+     */
+    public long usedBytes() {
+        long used = 0;
+        for (Segment<K> segment : segments) {
+            used += segment.usedBytes;
+        }
+        return used;
+    }
+
+    private Segment<K> segmentFor(K key) {
+        int h = key.hashCode();
+        return segments[(h ^ (h >>> 16)) & segmentMask];
+    }
+
+    private static final class Segment<K> {
+        final ByteBuffer buffer;
+        final int capacity;
+        final Map<K, Slot<K>> index = new HashMap<>();
+        // Records in write order; removed or replaced ones stay until the log passes them
+        final ArrayDeque<Slot<K>> log = new ArrayDeque<>();
+        int writePos;
+        volatile long usedBytes;
+
+        Segment(ByteBuffer buffer) {
+            this.buffer = buffer;
+            this.capacity = buffer.capacity();
+        }
+
+        synchronized void put(K key, byte[] bytes, CacheEntry<?> entry) {
+            Slot<K> previous = index.remove(key);
+            if (previous != null) {
+                usedBytes -= previous.length;
+            }
+            // Every record takes at least a byte so the log stays bounded by the capacity
+            int length = Math.max(1, bytes.length);
+            if (length > capacity) {
+                return;
+            }
+
+            int offset = allocate(length);
+            buffer.put(offset, bytes);
+            Slot<K> slot = new Slot<>(key, offset, bytes.length,
+                    entry.getCreateTime(), entry.getExpireTime(), entry.isNullValue());
+            index.put(key, slot);
+            log.addLast(slot);
+            usedBytes += bytes.length;
+        }
+
+        /**
+         * Claim {@code length} bytes at the write position, evicting the oldest records
+         * that overlap them. Records at or after the write position are always the oldest.
+         */
+        private int allocate(int length) {
+            int start = writePos;
+            if (start + length > capacity) {
+                // Not enough room before the end: drop what is stored there and wrap around
+                while (!log.isEmpty() && log.peekFirst().offset >= start) {
+                    evictOldest();
+                }
+                start = 0;
+            }
+            while (!log.isEmpty()) {
+                int offset = log.peekFirst().offset;
+                if (offset < start || offset >= start + length) {
+                    break;
+                }
+                evictOldest();
+            }
+            writePos = start + length;
+            return start;
+        }
+
+        private void evictOldest() {
+            Slot<K> slot = log.pollFirst();
+            if (index.remove(slot.key, slot)) {
+                usedBytes -= slot.length;
+            }
+        }
+    }
+
+    private static final class Slot<K> {
+        final K key;
+        final int offset;
+        final int length;
+        final long createTime;
+        final long expireTime;
+        final boolean nullValue;
+
+        Slot(K key, int offset, int length, long createTime, long expireTime, boolean nullValue) {
+            this.key = key;
+            this.offset = offset;
+            this.length = length;
+            this.createTime = createTime;
+            this.expireTime = expireTime;
+            this.nullValue = nullValue;
+        }
+
+        boolean isExpired() {
+            return System.currentTimeMillis() > expireTime;
+        }
+    }
+
+}
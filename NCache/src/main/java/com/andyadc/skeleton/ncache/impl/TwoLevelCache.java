@@ -2,16 +2,27 @@ package com.andyadc.skeleton.ncache.impl;
 
 import com.andyadc.skeleton.ncache.api.*;
 import com.andyadc.skeleton.ncache.config.CacheConfig;
+import com.andyadc.skeleton.ncache.jfr.CacheEvent;
+import com.andyadc.skeleton.ncache.jfr.L2CallEvent;
+import com.andyadc.skeleton.ncache.jfr.LoadEvent;
+import com.andyadc.skeleton.ncache.jfr.LoadWaitEvent;
+import com.andyadc.skeleton.ncache.jfr.LookupEvent;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
 import java.time.Duration;
 import java.util.*;
 import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
 import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.ExecutorService;
-import java.util.concurrent.locks.ReentrantLock;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
 import java.util.function.Function;
+import java.util.function.Supplier;
 
 /**
  * Two-level cache implementation combining L1 (Caffeine) and L2 (Redis).
@@ -19,28 +30,49 @@ import java.util.function.Function;
 public class TwoLevelCache<K, V> implements Cache<K, V>, CacheSynchronizer.InvalidationListener {
 
     private static final Logger logger = LoggerFactory.getLogger(TwoLevelCache.class);
-    private static final int LOCK_STRIPE_SIZE = 64;
     private final String name;
     private final CacheConfig<K, V> config;
     private final L1CaffeineCache<K, V> l1Cache;
-    private final L2RedisCache<K, V> l2Cache;
+    private final L2Cache<K, V> l2Cache;
     private final DefaultCacheStats stats;
     private final CacheSynchronizer synchronizer;
     private final CacheLoader<K, V> cacheLoader;
     private final CacheWriter<K, V> cacheWriter;
     private final ExecutorService asyncExecutor;
     private final String instanceId;
-    // Lock striping for concurrent loading
-    private final ConcurrentHashMap<K, ReentrantLock> loadingLocks = new ConcurrentHashMap<>();
+    // In-flight loads, one per key, shared by all concurrent callers (single-flight)
+    private final ConcurrentHashMap<K, CompletableFuture<V>> inFlightLoads = new ConcurrentHashMap<>();
+    // In-flight background refreshes, at most one per key
+    private final ConcurrentHashMap<K, CompletableFuture<Void>> inFlightRefreshes = new ConcurrentHashMap<>();
+    // Null unless hot key detection is enabled
+    private final HotKeySketch<K> hotKeys;
+    private final boolean pinHotKeys;
+    // Null unless a bloom filter is configured
+    private final CacheBloomFilter<K> bloomFilter;
 
     public TwoLevelCache(String name,
                          CacheConfig<K, V> config,
                          L1CaffeineCache<K, V> l1Cache,
-                         L2RedisCache<K, V> l2Cache,
+                         L2Cache<K, V> l2Cache,
                          DefaultCacheStats stats,
                          CacheSynchronizer synchronizer,
                          ExecutorService asyncExecutor,
                          String instanceId) {
+        this(name, config, l1Cache, l2Cache, stats, synchronizer, asyncExecutor, instanceId, null);
+    }
+
+    /**
+     * @param bloomFilter filter of existing keys consulted on L1 misses, or null
+     */
+    public TwoLevelCache(String name,
+                         CacheConfig<K, V> config,
+                         L1CaffeineCache<K, V> l1Cache,
+                         L2Cache<K, V> l2Cache,
+                         DefaultCacheStats stats,
+                         CacheSynchronizer synchronizer,
+                         ExecutorService asyncExecutor,
+                         String instanceId,
+                         CacheBloomFilter<K> bloomFilter) {
         this.name = name;
         this.config = config;
         this.l1Cache = l1Cache;
@@ -51,6 +83,20 @@ public class TwoLevelCache<K, V> implements Cache<K, V>, CacheSynchronizer.Inval
         this.cacheWriter = config.getCacheWriter();
         this.asyncExecutor = asyncExecutor;
         this.instanceId = instanceId;
+        this.bloomFilter = bloomFilter;
+
+        CacheConfig.HotKeyConfig hotKeyConfig = config.getHotKeyConfig();
+        if (hotKeyConfig != null && hotKeyConfig.isEnabled()) {
+            this.pinHotKeys = hotKeyConfig.isPinning() && config.getL1Config().isEnabled();
+            this.hotKeys = new HotKeySketch<>(hotKeyConfig.getTopK(), config.getL1Config().getMaximumSize(),
+                    pinHotKeys ? l1Cache::unpin : null);
+            stats.setHotKeySource(hotKeys::hotKeys);
+        } else {
+            this.hotKeys = null;
+            this.pinHotKeys = false;
+        }
+
+        restoreSnapshot();
 
         // Register for synchronization events
         if (synchronizer != null && config.isSyncEnabled()) {
@@ -58,6 +104,52 @@ public class TwoLevelCache<K, V> implements Cache<K, V>, CacheSynchronizer.Inval
         }
     }
 
+    private Path snapshotFile() {
+        if (!config.getL1Config().isEnabled() || !config.getSnapshotConfig().isEnabled()) {
+            return null;
+        }
+        if (config.getKeySerializer() == null || config.getValueSerializer() == null) {
+            logger.warn("L1 snapshot of cache {} needs key and value serializers, skipping", name);
+            return null;
+        }
+        return config.getSnapshotConfig().getDirectory()
+                .resolve(name.replaceAll("[^A-Za-z0-9._-]", "_") + ".snapshot");
+    }
+
+    private void restoreSnapshot() {
+        Path file = snapshotFile();
+        if (file == null) {
+            return;
+        }
+        try {
+            long start = System.nanoTime();
+            int loaded = L1Snapshot.read(file, config.getSnapshotConfig().getMaxAge(),
+                    config.getKeySerializer(), config.getValueSerializer(), l1Cache::put);
+            // A snapshot is only valid once; later restarts must not bring it back
+            Files.deleteIfExists(file);
+            if (loaded > 0) {
+                logger.info("Restored {} L1 entries of cache {} from {} in {}ms", loaded, name, file,
+                        TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start));
+            }
+        } catch (IOException | RuntimeException e) {
+            logger.warn("Failed to restore L1 snapshot of cache {} from {}", name, file, e);
+        }
+    }
+
+    private void writeSnapshot() {
+        Path file = snapshotFile();
+        if (file == null) {
+            return;
+        }
+        try {
+            int written = L1Snapshot.write(file, l1Cache.entries().entrySet(),
+                    config.getKeySerializer(), config.getValueSerializer());
+            logger.info("Wrote {} L1 entries of cache {} to {}", written, name, file);
+        } catch (IOException | RuntimeException e) {
+            logger.warn("Failed to write L1 snapshot of cache {} to {}", name, file, e);
+        }
+    }
+
     @Override
     public String getName() {
         return name;
@@ -66,29 +158,51 @@ public class TwoLevelCache<K, V> implements Cache<K, V>, CacheSynchronizer.Inval
     @Override
     public Optional<V> get(K key) {
         Objects.requireNonNull(key, "Key cannot be null");
+        CacheEntry<V> entry = lookup(key, false);
+        return entry != null ? Optional.ofNullable(entry.getValue()) : Optional.empty();
+    }
+
+    /**
+     * Look up both levels. Returns null on a miss, and a null entry if the key is known
+     * not to exist. When an L2 entry is due for early recompute and the caller brings its
+     * own loader, report a miss so the caller recomputes inline; otherwise serve the value
+     * and recompute in the background.
+     */
+    private CacheEntry<V> lookup(K key, boolean recomputeInline) {
+        LookupEvent event = new LookupEvent();
+        event.begin();
 
         // Try L1 first
-        if (config.getL1Config().isEnabled()) {
-            Optional<V> l1Value = l1Cache.get(key);
-            if (l1Value.isPresent()) {
-                stats.recordHit();
-                return l1Value;
-            }
+        CacheEntry<V> l1Entry = lookupL1(key);
+        if (l1Entry != null) {
+            event.complete(name, key, CacheEvent.LEVEL_L1);
+            return l1Entry;
+        }
+
+        if (isRejectedByBloomFilter(key)) {
+            event.complete(name, key, CacheEvent.LEVEL_BLOOM_FILTER);
+            return CacheEntry.nullEntry(0);
         }
 
         // Try L2
         if (config.getL2Config().isEnabled()) {
             try {
-                Optional<V> l2Value = l2Cache.get(key);
-                if (l2Value.isPresent()) {
-                    stats.recordHit();
-                    // Populate L1
-                    if (config.getL1Config().isEnabled()) {
-                        CacheEntry<V> entry = CacheEntry.of(l2Value.get(),
-                                config.getL1Config().getExpireAfterWrite().toMillis());
-                        l1Cache.put(key, entry);
+                Optional<L2CacheEntry<V>> l2Entry = callL2("get", key, 1, () -> l2Cache.getEntry(key));
+                if (l2Entry.isPresent()) {
+                    L2CacheEntry<V> entry = l2Entry.get();
+                    long now = System.currentTimeMillis();
+                    if (isEarlyRecomputeDue(entry, now, recomputeInline)) {
+                        stats.recordEarlyRecompute();
+                        if (recomputeInline) {
+                            // The caller recomputes the value, so this read counts as a miss
+                            stats.recordMiss();
+                            event.complete(name, key, CacheEvent.LEVEL_NONE);
+                            return null;
+                        }
+                        refreshAsync(key);
                     }
-                    return l2Value;
+                    event.complete(name, key, CacheEvent.LEVEL_L2);
+                    return promoteL2Entry(key, entry, now);
                 }
             } catch (Exception e) {
                 logger.warn("L2 cache get failed for key: {}", key, e);
@@ -97,59 +211,147 @@ public class TwoLevelCache<K, V> implements Cache<K, V>, CacheSynchronizer.Inval
         }
 
         stats.recordMiss();
-        return Optional.empty();
+        event.complete(name, key, CacheEvent.LEVEL_NONE);
+        return null;
     }
 
-    @Override
-    public V get(K key, Function<K, V> loader) {
-        Objects.requireNonNull(key, "Key cannot be null");
-        Objects.requireNonNull(loader, "Loader cannot be null");
+    private CacheEntry<V> lookupL1(K key) {
+        boolean hot = hotKeys != null && hotKeys.record(key);
+        if (config.getL1Config().isEnabled()) {
+            boolean timed = stats.isLatencyTracked();
+            long start = timed ? System.nanoTime() : 0;
+            CacheEntry<V> l1Entry = l1Cache.getEntry(key);
+            if (timed) {
+                stats.recordL1GetTime(System.nanoTime() - start);
+            }
+            if (l1Entry != null) {
+                stats.recordHit();
+                if (l1Entry.isNullValue()) {
+                    stats.recordNegativeHit();
+                    return l1Entry;
+                }
+                // Serve the current value and revalidate in the background once it is due
+                if (isRefreshDue(l1Entry)) {
+                    refreshAsync(key);
+                } else if (hot && pinHotKeys) {
+                    pinHotKey(key, l1Entry);
+                }
+                return l1Entry;
+            }
+        }
+        return null;
+    }
 
-        // Try to get from cache first
-        Optional<V> cached = get(key);
-        if (cached.isPresent()) {
-            return cached.get();
+    private boolean isRejectedByBloomFilter(K key) {
+        if (bloomFilter == null || bloomFilter.mightContain(key)) {
+            return false;
         }
+        stats.recordHit();
+        stats.recordNegativeHit();
+        return true;
+    }
 
-        // Load with lock to prevent thundering herd
-        ReentrantLock lock = getLockForKey(key);
-        lock.lock();
-        try {
-            // Double-check after acquiring lock
-            cached = get(key);
-            if (cached.isPresent()) {
-                return cached.get();
-            }
+    /**
+     * Keep a hot entry in L1 and refresh it before it expires, so reads of the key
+     * never fall through to L2.
+     */
+    private void pinHotKey(K key, CacheEntry<V> entry) {
+        l1Cache.pin(key, entry);
+        long lifetime = entry.getExpireTime() - entry.getCreateTime();
+        double refreshAheadRatio = config.getHotKeyConfig().getRefreshAheadRatio();
+        if (System.currentTimeMillis() - entry.getCreateTime() >= lifetime * refreshAheadRatio) {
+            refreshAhead(key);
+        }
+    }
 
-            // Load value
-            long startTime = System.nanoTime();
-            V value;
-            try {
-                value = loader.apply(key);
-                stats.recordLoadSuccess(System.nanoTime() - startTime);
-            } catch (Exception e) {
-                stats.recordLoadFailure();
-                throw e;
-            }
+    private void refreshAhead(K key) {
+        if (cacheLoader != null) {
+            refreshAsync(key);
+            return;
+        }
+        if (!config.getL2Config().isEnabled() || inFlightRefreshes.containsKey(key)) {
+            return;
+        }
 
-            // Handle null value
-            if (value == null) {
-                if (config.isNullValueCachingEnabled()) {
-                    putNullValue(key);
-                }
-                return null;
+        CompletableFuture<Void> refresh = new CompletableFuture<>();
+        if (inFlightRefreshes.putIfAbsent(key, refresh) != null) {
+            return;
+        }
+        l2Cache.getEntryAsync(key).whenComplete((l2Entry, error) -> {
+            if (error != null) {
+                logger.debug("Refresh-ahead of hot key {} from L2 failed", key, error);
+            } else if (l2Entry.isPresent() && !l2Entry.get().isNullValue()) {
+                L2CacheEntry<V> entry = l2Entry.get();
+                long l1TtlMillis = Math.min(config.getL1Config().getExpireAfterWrite().toMillis(),
+                        entry.getTtlMillis(System.currentTimeMillis()));
+                l1Cache.put(key, CacheEntry.of(entry.getValue(), l1TtlMillis));
             }
+            inFlightRefreshes.remove(key, refresh);
+            refresh.complete(null);
+        });
+    }
+
+    private CacheEntry<V> promoteL2Entry(K key, L2CacheEntry<V> entry, long now) {
+        stats.recordHit();
+        // Populate L1, never outliving the L2 entry
+        CacheEntry<V> l1Entry;
+        if (entry.isNullValue()) {
+            stats.recordNegativeHit();
+            l1Entry = CacheEntry.nullEntry(Math.min(config.getNullValueTtl().toMillis(), entry.getTtlMillis(now)));
+        } else {
+            l1Entry = CacheEntry.of(entry.getValue(), Math.min(config.getL1Config().getExpireAfterWrite().toMillis(),
+                    entry.getTtlMillis(now)));
+        }
+        if (config.getL1Config().isEnabled()) {
+            l1Cache.put(key, l1Entry);
+        }
+        return l1Entry;
+    }
+
+    @Override
+    public V get(K key, Function<K, V> loader) {
+        Objects.requireNonNull(key, "Key cannot be null");
+        Objects.requireNonNull(loader, "Loader cannot be null");
 
-            // Store in cache
-            put(key, value);
+        // Try to get from cache first; a key known not to exist is not loaded
+        CacheEntry<V> cached = lookup(key, true);
+        if (cached != null) {
+            return cached.getValue();
+        }
 
+        // Attach to an in-flight load if another caller is already loading this key
+        CompletableFuture<V> loading = new CompletableFuture<>();
+        CompletableFuture<V> inFlight = inFlightLoads.putIfAbsent(key, loading);
+        if (inFlight != null) {
+            return awaitLoad(key, inFlight);
+        }
+
+        try {
+            // A load that completed since the lookup has already cached the value
+            CacheEntry<V> loaded = recheck(key);
+            V value = loaded != null ? loaded.getValue() : loadValue(key, loader);
+            loading.complete(value);
             return value;
+        } catch (Throwable t) {
+            loading.completeExceptionally(t);
+            throw t;
         } finally {
-            lock.unlock();
-            cleanupLock(key, lock);
+            inFlightLoads.remove(key, loading);
         }
     }
 
+    /**
+     * Look the key up again in L1 after claiming its load: a load that finished in between
+     * has written it there. L2 is not read a second time, so a cold miss stays one round
+     * trip, and the early recompute decision already taken by {@link #lookup} stands.
+     */
+    private CacheEntry<V> recheck(K key) {
+        if (config.getL1Config().isEnabled()) {
+            return l1Cache.getEntry(key);
+        }
+        return null;
+    }
+
     @Override
     public Map<K, V> getAll(Collection<K> keys) {
         Objects.requireNonNull(keys, "Keys cannot be null");
@@ -160,48 +362,172 @@ public class TwoLevelCache<K, V> implements Cache<K, V>, CacheSynchronizer.Inval
 
         Map<K, V> result = new HashMap<>();
         Set<K> missingKeys = new HashSet<>();
+        lookupAll(keys, result, missingKeys);
+        return result;
+    }
+
+    @Override
+    public Map<K, V> getAll(Collection<K> keys, CacheLoader<K, V> loader) {
+        Objects.requireNonNull(keys, "Keys cannot be null");
+        Objects.requireNonNull(loader, "Loader cannot be null");
+
+        if (keys.isEmpty()) {
+            return Collections.emptyMap();
+        }
+
+        Map<K, V> result = new HashMap<>();
+        Set<K> missingKeys = new HashSet<>();
+        lookupAll(keys, result, missingKeys);
+        if (missingKeys.isEmpty()) {
+            return result;
+        }
+
+        // Claim the missing keys, attaching to single-key loads already in flight
+        Map<K, CompletableFuture<V>> claimed = new HashMap<>();
+        Map<K, CompletableFuture<V>> attached = new HashMap<>();
+        for (K key : missingKeys) {
+            CompletableFuture<V> loading = new CompletableFuture<>();
+            CompletableFuture<V> inFlight = inFlightLoads.putIfAbsent(key, loading);
+            if (inFlight != null) {
+                attached.put(key, inFlight);
+            } else {
+                claimed.put(key, loading);
+            }
+        }
+
+        if (!claimed.isEmpty()) {
+            try {
+                result.putAll(loadAllValues(claimed, loader));
+            } finally {
+                for (Map.Entry<K, CompletableFuture<V>> entry : claimed.entrySet()) {
+                    inFlightLoads.remove(entry.getKey(), entry.getValue());
+                }
+            }
+        }
+
+        for (Map.Entry<K, CompletableFuture<V>> entry : attached.entrySet()) {
+            V value = awaitLoad(entry.getKey(), entry.getValue());
+            if (value != null) {
+                result.put(entry.getKey(), value);
+            }
+        }
+
+        return result;
+    }
+
+    /**
+     * Resolve keys from L1, then L2 in one round trip, recording a hit or miss per key.
+     * Found values go into {@code result}; unresolved keys into {@code missingKeys}. Keys
+     * cached as absent are hits that end up in neither.
+     */
+    private void lookupAll(Collection<K> keys, Map<K, V> result, Set<K> missingKeys) {
+        int hits = 0;
 
         // Try L1 first
         if (config.getL1Config().isEnabled()) {
-            Map<K, V> l1Values = l1Cache.getAll(keys);
-            result.putAll(l1Values);
-
+            Map<K, CacheEntry<V>> l1Entries = l1Cache.getAllEntries(keys);
             for (K key : keys) {
-                if (!l1Values.containsKey(key)) {
+                CacheEntry<V> entry = l1Entries.get(key);
+                if (entry == null) {
                     missingKeys.add(key);
+                    continue;
+                }
+                hits++;
+                if (entry.isNullValue()) {
+                    stats.recordNegativeHit();
+                } else {
+                    result.put(key, entry.getValue());
                 }
             }
         } else {
             missingKeys.addAll(keys);
         }
 
+        // Keys known not to exist are neither looked up nor loaded
+        missingKeys.removeIf(this::isRejectedByBloomFilter);
+
         // Try L2 for missing keys
         if (!missingKeys.isEmpty() && config.getL2Config().isEnabled()) {
             try {
-                Map<K, V> l2Values = l2Cache.getAll(missingKeys);
-                result.putAll(l2Values);
-
-                // Populate L1 with L2 values
-                if (config.getL1Config().isEnabled()) {
-                    Map<K, CacheEntry<V>> entries = new HashMap<>();
-                    for (Map.Entry<K, V> entry : l2Values.entrySet()) {
-                        entries.put(entry.getKey(),
-                                CacheEntry.of(entry.getValue(),
-                                        config.getL1Config().getExpireAfterWrite().toMillis()));
+                Map<K, L2CacheEntry<V>> l2Entries = callL2("getAll", null, missingKeys.size(),
+                        () -> l2Cache.getAllEntries(missingKeys));
+
+                // Populate L1 with L2 entries, never outliving them
+                long now = System.currentTimeMillis();
+                Map<K, CacheEntry<V>> l1Entries = new HashMap<>();
+                for (Map.Entry<K, L2CacheEntry<V>> entry : l2Entries.entrySet()) {
+                    L2CacheEntry<V> l2Entry = entry.getValue();
+                    if (l2Entry.isNullValue()) {
+                        stats.recordNegativeHit();
+                        l1Entries.put(entry.getKey(), CacheEntry.nullEntry(
+                                Math.min(config.getNullValueTtl().toMillis(), l2Entry.getTtlMillis(now))));
+                    } else {
+                        result.put(entry.getKey(), l2Entry.getValue());
+                        l1Entries.put(entry.getKey(), CacheEntry.of(l2Entry.getValue(),
+                                Math.min(config.getL1Config().getExpireAfterWrite().toMillis(),
+                                        l2Entry.getTtlMillis(now))));
                     }
-                    l1Cache.putAll(entries);
+                }
+                if (config.getL1Config().isEnabled() && !l1Entries.isEmpty()) {
+                    l1Cache.putAll(l1Entries);
                 }
 
-                missingKeys.removeAll(l2Values.keySet());
+                hits += l2Entries.size();
+                missingKeys.removeAll(l2Entries.keySet());
             } catch (Exception e) {
                 logger.warn("L2 cache getAll failed", e);
             }
         }
 
         // Record stats
-        stats.recordHit(); // Simplified - could be more granular
+        stats.recordHits(hits);
+        stats.recordMisses(missingKeys.size());
+    }
 
-        return result;
+    private Map<K, V> loadAllValues(Map<K, CompletableFuture<V>> claimed, CacheLoader<K, V> loader) {
+        LoadEvent event = new LoadEvent();
+        event.begin();
+        long startTime = System.nanoTime();
+        Map<K, V> loaded;
+        try {
+            loaded = loader.loadAll(claimed.keySet());
+            stats.recordLoadSuccess(System.nanoTime() - startTime);
+            event.complete(name, LoadEvent.LOAD_ALL, null, claimed.size(), true);
+        } catch (Exception e) {
+            stats.recordLoadFailure();
+            event.complete(name, LoadEvent.LOAD_ALL, null, claimed.size(), false);
+            RuntimeException failure = e instanceof RuntimeException re
+                    ? re : new RuntimeException("Cache bulk load failed", e);
+            claimed.values().forEach(future -> future.completeExceptionally(failure));
+            throw failure;
+        }
+
+        Map<K, V> values = new HashMap<>();
+        List<K> absentKeys = new ArrayList<>();
+        for (K key : claimed.keySet()) {
+            V value = loaded != null ? loaded.get(key) : null;
+            if (value != null) {
+                values.put(key, value);
+            } else {
+                absentKeys.add(key);
+            }
+        }
+
+        try {
+            // Back-fill both levels in bulk
+            putAll(values);
+            if (config.isNullValueCachingEnabled()) {
+                absentKeys.forEach(this::putNullValue);
+            }
+        } catch (RuntimeException e) {
+            claimed.values().forEach(future -> future.completeExceptionally(e));
+            throw e;
+        }
+
+        for (Map.Entry<K, CompletableFuture<V>> entry : claimed.entrySet()) {
+            entry.getValue().complete(values.get(entry.getKey()));
+        }
+        return values;
     }
 
     @Override
@@ -211,6 +537,10 @@ public class TwoLevelCache<K, V> implements Cache<K, V>, CacheSynchronizer.Inval
 
     @Override
     public void put(K key, V value, Duration ttl) {
+        put(key, value, ttl, 0);
+    }
+
+    private void put(K key, V value, Duration ttl, long computeTimeMillis) {
         Objects.requireNonNull(key, "Key cannot be null");
 
         Duration effectiveTtl = ttl != null ? ttl : config.getDefaultTtl();
@@ -228,12 +558,22 @@ public class TwoLevelCache<K, V> implements Cache<K, V>, CacheSynchronizer.Inval
         // Put in L2 first
         if (config.getL2Config().isEnabled()) {
             try {
-                l2Cache.put(key, value, effectiveTtl);
+                callL2("put", key, 1, () -> {
+                    l2Cache.put(key, value, effectiveTtl, computeTimeMillis);
+                    return null;
+                });
             } catch (Exception e) {
                 logger.warn("L2 cache put failed for key: {}", key, e);
             }
         }
 
+        putLocal(key, value, effectiveTtl);
+    }
+
+    /**
+     * Put in L1 and notify other nodes, once L2 has been written.
+     */
+    private void putLocal(K key, V value, Duration effectiveTtl) {
         // Put in L1
         if (config.getL1Config().isEnabled()) {
             Duration l1Ttl = config.getL1Config().getExpireAfterWrite();
@@ -245,6 +585,11 @@ public class TwoLevelCache<K, V> implements Cache<K, V>, CacheSynchronizer.Inval
             l1Cache.put(key, entry);
         }
 
+        // Before the invalidation, which is what adds the key on other nodes
+        if (bloomFilter != null) {
+            bloomFilter.add(key);
+        }
+
         // Notify other nodes
         if (synchronizer != null && config.isSyncEnabled()) {
             synchronizer.publishInvalidation(name, key);
@@ -276,7 +621,10 @@ public class TwoLevelCache<K, V> implements Cache<K, V>, CacheSynchronizer.Inval
         // Put in L2
         if (config.getL2Config().isEnabled()) {
             try {
-                l2Cache.putAll(entries, ttl);
+                callL2("putAll", null, entries.size(), () -> {
+                    l2Cache.putAll(entries, ttl);
+                    return null;
+                });
             } catch (Exception e) {
                 logger.warn("L2 cache putAll failed", e);
             }
@@ -293,6 +641,10 @@ public class TwoLevelCache<K, V> implements Cache<K, V>, CacheSynchronizer.Inval
             l1Cache.putAll(l1Entries);
         }
 
+        if (bloomFilter != null) {
+            entries.keySet().forEach(bloomFilter::add);
+        }
+
         // Notify other nodes
         if (synchronizer != null && config.isSyncEnabled()) {
             synchronizer.publishBulkInvalidation(name, entries.keySet());
@@ -308,16 +660,15 @@ public class TwoLevelCache<K, V> implements Cache<K, V>, CacheSynchronizer.Inval
     public boolean putIfAbsent(K key, V value, Duration ttl) {
         Objects.requireNonNull(key, "Key cannot be null");
 
-        // Check L1 first
-        if (config.getL1Config().isEnabled() && l1Cache.containsKey(key)) {
+        // Check L1 first; a key cached as absent has no value to keep
+        if (config.getL1Config().isEnabled() && l1Cache.containsValue(key)) {
             return false;
         }
 
-        // Try atomic putIfAbsent on L2
+        // Try atomic putIfAbsent on L2, which also replaces a null sentinel
         if (config.getL2Config().isEnabled()) {
             try {
-                boolean success = l2Cache.putIfAbsent(key, value, ttl);
-                if (!success) {
+                if (!l2Cache.putIfAbsent(key, value, ttl)) {
                     return false;
                 }
             } catch (Exception e) {
@@ -333,6 +684,10 @@ public class TwoLevelCache<K, V> implements Cache<K, V>, CacheSynchronizer.Inval
             l1Cache.put(key, entry);
         }
 
+        if (bloomFilter != null) {
+            bloomFilter.add(key);
+        }
+
         // Notify other nodes
         if (synchronizer != null && config.isSyncEnabled()) {
             synchronizer.publishInvalidation(name, key);
@@ -345,8 +700,6 @@ public class TwoLevelCache<K, V> implements Cache<K, V>, CacheSynchronizer.Inval
     public boolean remove(K key) {
         Objects.requireNonNull(key, "Key cannot be null");
 
-        boolean removed = false;
-
         // Remove from external storage
         if (cacheWriter != null) {
             try {
@@ -356,15 +709,31 @@ public class TwoLevelCache<K, V> implements Cache<K, V>, CacheSynchronizer.Inval
             }
         }
 
+        return evict(key);
+    }
+
+    /**
+     * Remove the key from both levels without touching the backing store.
+     */
+    private boolean evict(K key) {
+        boolean removed = false;
+
         // Remove from L2
         if (config.getL2Config().isEnabled()) {
             try {
-                removed = l2Cache.remove(key);
+                removed = callL2("remove", key, 1, () -> l2Cache.remove(key));
             } catch (Exception e) {
                 logger.warn("L2 cache remove failed for key: {}", key, e);
             }
         }
 
+        return removeLocal(key, removed);
+    }
+
+    /**
+     * Remove from L1 and notify other nodes, once L2 has been updated.
+     */
+    private boolean removeLocal(K key, boolean removed) {
         // Remove from L1
         if (config.getL1Config().isEnabled()) {
             l1Cache.invalidate(key);
@@ -403,7 +772,10 @@ public class TwoLevelCache<K, V> implements Cache<K, V>, CacheSynchronizer.Inval
         // Remove from L2
         if (config.getL2Config().isEnabled()) {
             try {
-                l2Cache.removeAll(keys);
+                callL2("removeAll", null, keys.size(), () -> {
+                    l2Cache.removeAll(keys);
+                    return null;
+                });
             } catch (Exception e) {
                 logger.warn("L2 cache removeAll failed", e);
             }
@@ -446,9 +818,14 @@ public class TwoLevelCache<K, V> implements Cache<K, V>, CacheSynchronizer.Inval
     public boolean containsKey(K key) {
         Objects.requireNonNull(key, "Key cannot be null");
 
-        // Check L1
-        if (config.getL1Config().isEnabled() && l1Cache.containsKey(key)) {
-            return true;
+        // Check L1; a key cached as absent is known not to exist
+        if (config.getL1Config().isEnabled()) {
+            if (l1Cache.containsValue(key)) {
+                return true;
+            }
+            if (l1Cache.containsKey(key)) {
+                return false;
+            }
         }
 
         // Check L2
@@ -481,26 +858,95 @@ public class TwoLevelCache<K, V> implements Cache<K, V>, CacheSynchronizer.Inval
 
     @Override
     public CompletableFuture<Optional<V>> getAsync(K key) {
-        return CompletableFuture.supplyAsync(() -> get(key), asyncExecutor);
+        Objects.requireNonNull(key, "Key cannot be null");
+
+        // Piggyback on an in-flight load rather than issuing another lookup
+        CompletableFuture<V> inFlight = inFlightLoads.get(key);
+        if (inFlight != null) {
+            return inFlight.thenApply(Optional::ofNullable);
+        }
+
+        CacheEntry<V> l1Entry = lookupL1(key);
+        if (l1Entry != null) {
+            return CompletableFuture.completedFuture(Optional.ofNullable(l1Entry.getValue()));
+        }
+
+        if (isRejectedByBloomFilter(key)) {
+            return CompletableFuture.completedFuture(Optional.empty());
+        }
+
+        if (!config.getL2Config().isEnabled()) {
+            stats.recordMiss();
+            return CompletableFuture.completedFuture(Optional.empty());
+        }
+
+        // No thread is held while L2 is in flight when the backend is non-blocking; the
+        // L1 write and any refresh then run on the async executor, not the client's I/O thread
+        return l2Cache.getEntryAsync(key).handleAsync((l2Entry, error) -> {
+            if (error != null) {
+                logger.warn("L2 cache get failed for key: {}", key, error);
+            } else if (l2Entry.isPresent()) {
+                L2CacheEntry<V> entry = l2Entry.get();
+                long now = System.currentTimeMillis();
+                if (isEarlyRecomputeDue(entry, now, false)) {
+                    stats.recordEarlyRecompute();
+                    refreshAsync(key);
+                }
+                return Optional.ofNullable(promoteL2Entry(key, entry, now).getValue());
+            }
+            stats.recordMiss();
+            return Optional.<V>empty();
+        }, asyncExecutor);
     }
 
     @Override
     public CompletableFuture<Void> putAsync(K key, V value) {
-        return CompletableFuture.runAsync(() -> put(key, value), asyncExecutor);
+        Objects.requireNonNull(key, "Key cannot be null");
+
+        // Write-through storage is blocking, keep it off the caller's thread
+        if (cacheWriter != null || !config.getL2Config().isEnabled()) {
+            return CompletableFuture.runAsync(() -> put(key, value), asyncExecutor);
+        }
+
+        Duration ttl = config.getDefaultTtl();
+        return l2Cache.putAsync(key, value, ttl)
+                .exceptionally(e -> {
+                    logger.warn("L2 cache put failed for key: {}", key, e);
+                    return null;
+                })
+                .thenRunAsync(() -> putLocal(key, value, ttl), asyncExecutor);
     }
 
     @Override
     public CompletableFuture<Boolean> removeAsync(K key) {
-        return CompletableFuture.supplyAsync(() -> remove(key), asyncExecutor);
+        Objects.requireNonNull(key, "Key cannot be null");
+
+        if (cacheWriter != null || !config.getL2Config().isEnabled()) {
+            return CompletableFuture.supplyAsync(() -> remove(key), asyncExecutor);
+        }
+
+        return l2Cache.removeAsync(key)
+                .exceptionally(e -> {
+                    logger.warn("L2 cache remove failed for key: {}", key, e);
+                    return false;
+                })
+                .thenApplyAsync(removed -> removeLocal(key, removed), asyncExecutor);
     }
 
     // CacheSynchronizer.InvalidationListener implementation
 
     @Override
     public void onInvalidate(String cacheName, Object key) {
-        if (name.equals(cacheName) && config.getL1Config().isEnabled()) {
-            @SuppressWarnings("unchecked")
-            K typedKey = (K) key;
+        if (!name.equals(cacheName)) {
+            return;
+        }
+        @SuppressWarnings("unchecked")
+        K typedKey = (K) key;
+        // The key may have been written on the other node; removals add it needlessly but harmlessly
+        if (bloomFilter != null) {
+            bloomFilter.addLocal(typedKey);
+        }
+        if (config.getL1Config().isEnabled()) {
             l1Cache.invalidate(typedKey);
             logger.debug("L1 cache invalidated for key: {} in cache: {}", key, cacheName);
         }
@@ -508,9 +954,15 @@ public class TwoLevelCache<K, V> implements Cache<K, V>, CacheSynchronizer.Inval
 
     @Override
     public void onBulkInvalidate(String cacheName, Collection<?> keys) {
-        if (name.equals(cacheName) && config.getL1Config().isEnabled()) {
-            @SuppressWarnings("unchecked")
-            Collection<K> typedKeys = (Collection<K>) keys;
+        if (!name.equals(cacheName)) {
+            return;
+        }
+        @SuppressWarnings("unchecked")
+        Collection<K> typedKeys = (Collection<K>) keys;
+        if (bloomFilter != null) {
+            typedKeys.forEach(bloomFilter::addLocal);
+        }
+        if (config.getL1Config().isEnabled()) {
             l1Cache.invalidateAll(typedKeys);
             logger.debug("L1 cache bulk invalidated for {} keys in cache: {}",
                     keys.size(), cacheName);
@@ -525,44 +977,220 @@ public class TwoLevelCache<K, V> implements Cache<K, V>, CacheSynchronizer.Inval
         }
     }
 
+    @Override
+    public void onInvalidateRedisKeys(Collection<byte[]> redisKeys) {
+        if (l2Cache == null || (!config.getL1Config().isEnabled() && bloomFilter == null)) {
+            return;
+        }
+
+        List<K> keys = new ArrayList<>();
+        for (byte[] redisKey : redisKeys) {
+            K key = l2Cache.decodeKey(redisKey);
+            if (key != null) {
+                keys.add(key);
+            }
+        }
+        if (bloomFilter != null) {
+            keys.forEach(bloomFilter::addLocal);
+        }
+        if (!keys.isEmpty() && config.getL1Config().isEnabled()) {
+            l1Cache.invalidateAll(keys);
+            logger.debug("L1 cache invalidated {} keys tracked by Redis in cache: {}", keys.size(), name);
+        }
+    }
+
+    @Override
+    public void onClearAll() {
+        // Keys written elsewhere meanwhile are only known from the Redis bitmap
+        if (bloomFilter != null) {
+            asyncExecutor.execute(bloomFilter::reload);
+        }
+        if (config.getL1Config().isEnabled()) {
+            l1Cache.clear();
+            logger.debug("L1 cache cleared after missed invalidations for cache: {}", name);
+        }
+    }
+
     // Private helper methods
 
+    /**
+     * Cache that the key has no value, in L2 too so that no node loads it again until the
+     * null TTL runs out.
+     */
     private void putNullValue(K key) {
         Duration nullTtl = config.getNullValueTtl();
 
+        if (config.getL2Config().isEnabled()) {
+            try {
+                l2Cache.putNull(key, nullTtl);
+            } catch (Exception e) {
+                logger.warn("L2 cache put of null value failed for key: {}", key, e);
+            }
+        }
+
         if (config.getL1Config().isEnabled()) {
             CacheEntry<V> nullEntry = CacheEntry.nullEntry(nullTtl.toMillis());
             l1Cache.put(key, nullEntry);
         }
+
+        // Other nodes may still hold the value the key used to have
+        if (synchronizer != null && config.isSyncEnabled()) {
+            synchronizer.publishInvalidation(name, key);
+        }
     }
 
-    private ReentrantLock getLockForKey(K key) {
-        return loadingLocks.computeIfAbsent(key, k -> new ReentrantLock());
+    private V loadValue(K key, Function<K, V> loader) {
+        LoadEvent event = new LoadEvent();
+        event.begin();
+        long startTime = System.nanoTime();
+        V value;
+        long loadTime;
+        try {
+            value = loader.apply(key);
+            loadTime = System.nanoTime() - startTime;
+            stats.recordLoadSuccess(loadTime);
+            event.complete(name, LoadEvent.LOAD, key, 1, true);
+        } catch (Exception e) {
+            stats.recordLoadFailure();
+            event.complete(name, LoadEvent.LOAD, key, 1, false);
+            throw e;
+        }
+
+        // Handle null value
+        if (value == null) {
+            if (config.isNullValueCachingEnabled()) {
+                putNullValue(key);
+            }
+            return null;
+        }
+
+        // Store in cache
+        put(key, value, config.getDefaultTtl(), TimeUnit.NANOSECONDS.toMillis(loadTime));
+
+        return value;
+    }
+
+    private V awaitLoad(K key, CompletableFuture<V> inFlight) {
+        LoadWaitEvent event = new LoadWaitEvent();
+        event.begin();
+        try {
+            return inFlight.join();
+        } catch (CompletionException e) {
+            Throwable cause = e.getCause();
+            if (cause instanceof RuntimeException re) {
+                throw re;
+            }
+            if (cause instanceof Error err) {
+                throw err;
+            }
+            throw e;
+        } finally {
+            event.complete(name, key);
+        }
     }
 
-    private void cleanupLock(K key, ReentrantLock lock) {
-        // Only remove if no other thread is waiting
-        if (!lock.hasQueuedThreads()) {
-            loadingLocks.remove(key, lock);
+    /**
+     * Call L2, recording a flight recorder event if the call is slow.
+     */
+    private <T> T callL2(String operation, Object key, int keyCount, Supplier<T> call) {
+        L2CallEvent event = new L2CallEvent();
+        event.begin();
+        boolean success = false;
+        try {
+            T result = call.get();
+            success = true;
+            return result;
+        } finally {
+            event.complete(name, operation, key, keyCount, success);
         }
     }
 
+    private boolean isEarlyRecomputeDue(L2CacheEntry<V> entry, long now, boolean recomputeInline) {
+        CacheConfig.EarlyExpirationConfig earlyExpiration = config.getL2Config().getEarlyExpiration();
+        return earlyExpiration != null && earlyExpiration.isEnabled()
+                && (recomputeInline || cacheLoader != null)
+                && entry.shouldRecomputeEarly(now, earlyExpiration.getBeta());
+    }
+
+    private boolean isRefreshDue(CacheEntry<V> entry) {
+        Duration refreshAfterWrite = config.getL1Config().getRefreshAfterWrite();
+        return refreshAfterWrite != null && cacheLoader != null
+                && entry.isRefreshDue(refreshAfterWrite.toMillis());
+    }
+
     /**
-     * Refresh cache entry asynchronously.
+     * Refresh cache entry asynchronously. Concurrent refreshes of the same key share one reload.
      */
     public CompletableFuture<Void> refreshAsync(K key) {
-        return CompletableFuture.runAsync(() -> {
-            if (cacheLoader != null) {
+        if (cacheLoader == null) {
+            return CompletableFuture.completedFuture(null);
+        }
+
+        // Claimed before submitting, so a reload run inline never sees the map mid-update
+        CompletableFuture<Void> refresh = new CompletableFuture<>();
+        CompletableFuture<Void> inFlight = inFlightRefreshes.putIfAbsent(key, refresh);
+        if (inFlight != null) {
+            return inFlight;
+        }
+        try {
+            asyncExecutor.execute(() -> {
                 try {
-                    V value = cacheLoader.load(key);
-                    if (value != null) {
-                        put(key, value);
-                    }
-                } catch (Exception e) {
-                    logger.error("Failed to refresh key: {}", key, e);
+                    reload(key);
+                    inFlightRefreshes.remove(key, refresh);
+                    refresh.complete(null);
+                } catch (Throwable t) {
+                    inFlightRefreshes.remove(key, refresh);
+                    refresh.completeExceptionally(t);
                 }
+            });
+        } catch (RejectedExecutionException e) {
+            // The stale value keeps being served; a later hit tries again
+            logger.debug("Refresh of key {} was rejected", key, e);
+            inFlightRefreshes.remove(key, refresh);
+            refresh.completeExceptionally(e);
+        }
+        return refresh;
+    }
+
+    private void reload(K key) {
+        LoadEvent event = new LoadEvent();
+        event.begin();
+        long startTime = System.nanoTime();
+        boolean loaded = false;
+        try {
+            V value = cacheLoader.load(key);
+            long loadTime = System.nanoTime() - startTime;
+            stats.recordLoadSuccess(loadTime);
+            loaded = true;
+            event.complete(name, LoadEvent.REFRESH, key, 1, true);
+            if (value != null) {
+                put(key, value, config.getDefaultTtl(), TimeUnit.NANOSECONDS.toMillis(loadTime));
+            } else if (config.isNullValueCachingEnabled()) {
+                putNullValue(key);
+            } else {
+                // The key no longer exists, so the stale value must not be served either
+                evict(key);
             }
-        }, asyncExecutor);
+        } catch (Exception e) {
+            stats.recordLoadFailure();
+            if (!loaded) {
+                event.complete(name, LoadEvent.REFRESH, key, 1, false);
+            }
+            logger.error("Failed to refresh key: {}", key, e);
+            deferRefresh(key);
+        }
+    }
+
+    /**
+     * Keep serving the key's current L1 value until it expires, but only try to reload it
+     * again once another refresh interval has passed, not on the very next hit.
+     */
+    private void deferRefresh(K key) {
+        if (config.getL1Config().isEnabled()) {
+            long now = System.currentTimeMillis();
+            l1Cache.computeIfPresent(key, entry -> entry.isNullValue() ? entry
+                    : CacheEntry.restore(entry.getValue(), now, entry.getExpireTime(), false));
+        }
     }
 
     /**
@@ -585,14 +1213,30 @@ public class TwoLevelCache<K, V> implements Cache<K, V>, CacheSynchronizer.Inval
     }
 
     /**
-     * Cleanup resources.
+     * Rebuild the bloom filter from every key that exists, e.g. all ids in the backing
+     * store. Reads only skip L2 and the loader for absent keys once this has run on some
+     * node. Does nothing without a bloom filter.
+     */
+    public void rebuildBloomFilter(Iterable<K> keys) {
+        if (bloomFilter != null) {
+            bloomFilter.rebuild(keys);
+        }
+    }
+
+    /**
+     * Cleanup resources, writing the L1 snapshot first if enabled.
      */
     public void destroy() {
         if (synchronizer != null) {
             synchronizer.unsubscribe(this);
         }
+        if (l2Cache != null) {
+            l2Cache.close();
+        }
+        writeSnapshot();
         l1Cache.clear();
-        loadingLocks.clear();
+        inFlightLoads.clear();
+        inFlightRefreshes.clear();
     }
 
 }
@@ -0,0 +1,585 @@
+package com.andyadc.skeleton.ncache.impl;
+
+import com.andyadc.skeleton.ncache.api.Cache;
+import com.andyadc.skeleton.ncache.api.CacheManager;
+import com.andyadc.skeleton.ncache.api.CacheStats;
+import com.andyadc.skeleton.ncache.api.CacheSynchronizer;
+import com.andyadc.skeleton.ncache.config.CacheConfig;
+import com.andyadc.skeleton.ncache.config.RedisClientConfig;
+import com.andyadc.skeleton.ncache.config.TwoLevelCacheManagerConfig;
+import com.andyadc.skeleton.ncache.config.TwoLevelCacheManagerConfig.ExecutorMode;
+import com.andyadc.skeleton.ncache.config.TwoLevelCacheManagerConfig.L2Client;
+import com.andyadc.skeleton.ncache.config.TwoLevelCacheManagerConfig.SyncTransport;
+import com.andyadc.skeleton.ncache.metrics.MetricsCollector;
+import com.andyadc.skeleton.ncache.resilience.CircuitBreaker;
+import com.andyadc.skeleton.ncache.resilience.RetryExecutor;
+import com.andyadc.skeleton.ncache.serialization.JdkSerializer;
+import com.andyadc.skeleton.ncache.serialization.Serializer;
+import com.andyadc.skeleton.ncache.sync.RedisCacheSynchronizer;
+import com.andyadc.skeleton.ncache.sync.StreamCacheSynchronizer;
+import com.andyadc.skeleton.ncache.sync.TrackingCacheSynchronizer;
+import io.lettuce.core.ClientOptions;
+import io.lettuce.core.RedisClient;
+import io.lettuce.core.RedisURI;
+import io.lettuce.core.SocketOptions;
+import io.lettuce.core.SslOptions;
+import io.lettuce.core.api.StatefulRedisConnection;
+import io.lettuce.core.codec.ByteArrayCodec;
+import io.lettuce.core.protocol.ProtocolVersion;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import redis.clients.jedis.DefaultJedisClientConfig;
+import redis.clients.jedis.HostAndPort;
+import redis.clients.jedis.JedisPool;
+import redis.clients.jedis.JedisPoolConfig;
+
+import javax.net.ssl.SSLContext;
+import javax.net.ssl.SSLSocketFactory;
+import javax.net.ssl.TrustManagerFactory;
+import java.io.File;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.security.KeyStore;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Cache manager creating {@link TwoLevelCache} instances on first use.
+ * <p>
+ * All caches share the manager's Redis connections, the circuit breaker of the Redis
+ * endpoint, the retry policy, the async executor and one subscription to the synchronizer,
+ * which hands each invalidation to the cache it names. Periodic work for every cache runs
+ * in a single scheduled task: L1 cleanup, publishing stats to the metrics collector and
+ * reloading bloom filters.
+ * <p>
+ * Without a synchronizer in the config one is created for the configured transport. A
+ * synchronizer passed in is subscribed to, but starting and stopping it is left to its owner.
+ */
+public class TwoLevelCacheManager implements CacheManager {
+
+    private static final Logger logger = LoggerFactory.getLogger(TwoLevelCacheManager.class);
+
+    private final TwoLevelCacheManagerConfig config;
+    private final Map<String, ManagedCache<?, ?>> caches = new ConcurrentHashMap<>();
+    // Null without Redis, or when only Lettuce is needed
+    private final JedisPool jedisPool;
+    // Null unless the L2 client is Lettuce
+    private final LettuceClient lettuce;
+    private final CircuitBreaker circuitBreaker;
+    private final RetryExecutor retryExecutor;
+    private final ExecutorService asyncExecutor;
+    private final MetricsCollector metricsCollector;
+    private final CacheSynchronizer synchronizer;
+    private final boolean ownsSynchronizer;
+    private final boolean trackWrites;
+    private final CacheSynchronizer publisher;
+    private final CacheSynchronizer.InvalidationListener dispatcher = new Dispatcher();
+    private final ScheduledExecutorService scheduler;
+    private final boolean ownsScheduler;
+    private final ScheduledFuture<?> maintenance;
+    private final AtomicBoolean shutdown = new AtomicBoolean(false);
+
+    public TwoLevelCacheManager(TwoLevelCacheManagerConfig config) {
+        this.config = config;
+        RedisClientConfig redisConfig = config.getRedisConfig();
+        boolean lettuceL2 = redisConfig != null && config.getL2Client() == L2Client.LETTUCE;
+        boolean tracking = config.getSynchronizer() == null && config.getSyncTransport() == SyncTransport.TRACKING;
+        // Pub/sub and stream synchronizers run on Jedis whatever the L2 client
+        boolean jedisNeeded = !lettuceL2 || (config.getSynchronizer() == null && !tracking);
+
+        this.jedisPool = redisConfig != null && jedisNeeded ? createJedisPool(redisConfig) : null;
+        this.lettuce = lettuceL2 ? LettuceClient.connect(redisConfig, tracking) : null;
+        this.circuitBreaker = new CircuitBreaker("redis@" + endpoint(redisConfig), config.getCircuitBreakerConfig());
+        this.retryExecutor = new RetryExecutor(config.getRetryConfig());
+        this.asyncExecutor = config.getAsyncExecutor();
+        this.metricsCollector = config.getMetricsCollector();
+
+        if (config.getSynchronizer() != null) {
+            this.synchronizer = config.getSynchronizer();
+            this.ownsSynchronizer = false;
+        } else {
+            this.synchronizer = redisConfig != null ? createSynchronizer() : null;
+            this.ownsSynchronizer = synchronizer != null;
+        }
+        // Redis only tracks keys this connection read; writes must be read back to be tracked
+        this.trackWrites = ownsSynchronizer && synchronizer instanceof TrackingCacheSynchronizer
+                && config.getTrackingMode() == TrackingCacheSynchronizer.Mode.DEFAULT;
+        this.publisher = synchronizer != null ? new Publisher(synchronizer) : null;
+        if (synchronizer != null) {
+            synchronizer.subscribe(dispatcher);
+            if (ownsSynchronizer) {
+                synchronizer.start();
+            }
+        }
+
+        this.ownsScheduler = config.getScheduledExecutor() == null;
+        this.scheduler = ownsScheduler
+                ? Executors.newSingleThreadScheduledExecutor(
+                CacheExecutors.threadFactory("ncache-maintenance-", ExecutorMode.PLATFORM))
+                : config.getScheduledExecutor();
+        long interval = config.getMaintenanceInterval().toMillis();
+        this.maintenance = scheduler.scheduleWithFixedDelay(this::runMaintenance, interval, interval,
+                TimeUnit.MILLISECONDS);
+
+        logger.info("Two-level cache manager started with instance ID: {}", config.getInstanceId());
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public <K, V> Cache<K, V> getCache(String name) {
+        CacheConfig<K, V> defaults = (CacheConfig<K, V>) config.getDefaultCacheConfig();
+        return getCache(name, defaults != null ? defaults : CacheConfig.defaultConfig());
+    }
+
+    /**
+     * Get the cache, creating it from {@code cacheConfig} if it does not exist yet. An
+     * existing cache keeps the config it was created with.
+     */
+    @Override
+    @SuppressWarnings("unchecked")
+    public <K, V> Cache<K, V> getCache(String name, CacheConfig<K, V> cacheConfig) {
+        Objects.requireNonNull(name, "Cache name cannot be null");
+        Objects.requireNonNull(cacheConfig, "Cache config cannot be null");
+        if (shutdown.get()) {
+            throw new IllegalStateException("Cache manager has been shut down");
+        }
+
+        ManagedCache<?, ?> managed = caches.get(name);
+        if (managed == null) {
+            managed = caches.computeIfAbsent(name, n -> createCache(n, cacheConfig));
+        }
+        return (Cache<K, V>) managed.cache;
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public <K, V> Optional<Cache<K, V>> getCacheIfPresent(String name) {
+        ManagedCache<?, ?> managed = caches.get(name);
+        return managed != null ? Optional.of((Cache<K, V>) managed.cache) : Optional.empty();
+    }
+
+    @Override
+    public Collection<String> getCacheNames() {
+        return List.copyOf(caches.keySet());
+    }
+
+    @Override
+    public void destroyCache(String name) {
+        ManagedCache<?, ?> managed = caches.remove(name);
+        if (managed != null) {
+            managed.cache.destroy();
+            logger.info("Destroyed cache {}", name);
+        }
+    }
+
+    /**
+     * Destroy every cache, stop the background work and close the Redis connections.
+     * The executors in the config are shut down too.
+     */
+    @Override
+    public void shutdown() {
+        if (!shutdown.compareAndSet(false, true)) {
+            return;
+        }
+
+        maintenance.cancel(false);
+        if (ownsScheduler) {
+            scheduler.shutdownNow();
+        }
+
+        // No invalidations should arrive for caches being torn down
+        if (synchronizer != null) {
+            synchronizer.unsubscribe(dispatcher);
+            if (ownsSynchronizer) {
+                synchronizer.stop();
+            }
+        }
+
+        for (String name : List.copyOf(caches.keySet())) {
+            try {
+                destroyCache(name);
+            } catch (RuntimeException e) {
+                logger.warn("Failed to destroy cache {}", name, e);
+            }
+        }
+
+        asyncExecutor.shutdown();
+        if (lettuce != null) {
+            lettuce.close();
+        }
+        if (jedisPool != null) {
+            jedisPool.close();
+        }
+        logger.info("Two-level cache manager shut down");
+    }
+
+    @Override
+    public Map<String, CacheStats> getAllStats() {
+        Map<String, CacheStats> stats = new LinkedHashMap<>();
+        caches.forEach((name, managed) -> stats.put(name, managed.cache.getStats()));
+        return stats;
+    }
+
+    private <K, V> ManagedCache<K, V> createCache(String name, CacheConfig<K, V> cacheConfig) {
+        Serializer<K> keySerializer = cacheConfig.getKeySerializer();
+        Serializer<V> valueSerializer = valueSerializer(cacheConfig);
+
+        DefaultCacheStats stats = new DefaultCacheStats();
+        if (metricsCollector != null) {
+            stats.bindLatencies(metricsCollector, name);
+        }
+
+        CacheConfig.OffHeapConfig offHeapConfig = cacheConfig.getOffHeapConfig();
+        OffHeapStore<K, V> offHeap = offHeapConfig != null && offHeapConfig.isEnabled()
+                && cacheConfig.getL1Config().isEnabled()
+                ? new OffHeapStore<>(offHeapConfig, valueSerializer) : null;
+        L1CaffeineCache<K, V> l1Cache = new L1CaffeineCache<>(name, cacheConfig.getL1Config(), stats, null, offHeap);
+
+        L2Cache<K, V> l2Cache = null;
+        if (cacheConfig.getL2Config().isEnabled()) {
+            if (jedisPool == null && lettuce == null) {
+                throw new IllegalStateException("Cache " + name + " has L2 enabled but no Redis is configured");
+            }
+            l2Cache = lettuce != null
+                    ? new L2LettuceCache<>(name, lettuce.connection, cacheConfig.getL2Config(), keySerializer,
+                    valueSerializer, stats, circuitBreaker, retryExecutor, trackWrites, asyncExecutor)
+                    : new L2RedisCache<>(name, jedisPool, cacheConfig.getL2Config(), keySerializer,
+                    valueSerializer, stats, circuitBreaker, retryExecutor, asyncExecutor);
+        }
+
+        CacheBloomFilter<K> bloomFilter = createBloomFilter(name, cacheConfig, keySerializer);
+        boolean synced = publisher != null && cacheConfig.isSyncEnabled();
+        TwoLevelCache<K, V> cache = new TwoLevelCache<>(name, cacheConfig, l1Cache, l2Cache, stats,
+                synced ? publisher : null, asyncExecutor, config.getInstanceId(), bloomFilter);
+
+        logger.info("Created cache {}", name);
+        long bloomReloadMillis = bloomFilter != null
+                ? cacheConfig.getBloomFilterConfig().getReloadInterval().toMillis() : 0;
+        return new ManagedCache<>(cache, l1Cache, stats, bloomFilter, bloomReloadMillis, synced);
+    }
+
+    @SuppressWarnings("unchecked")
+    private <K, V> Serializer<V> valueSerializer(CacheConfig<K, V> cacheConfig) {
+        if (cacheConfig.getValueSerializer() != null) {
+            return cacheConfig.getValueSerializer();
+        }
+        return config.getDefaultSerializer() != null
+                ? (Serializer<V>) config.getDefaultSerializer() : new JdkSerializer<>();
+    }
+
+    private <K, V> CacheBloomFilter<K> createBloomFilter(String name, CacheConfig<K, V> cacheConfig,
+                                                         Serializer<K> keySerializer) {
+        CacheConfig.BloomFilterConfig bloomConfig = cacheConfig.getBloomFilterConfig();
+        if (bloomConfig == null || !bloomConfig.isEnabled()) {
+            return null;
+        }
+        CacheBloomFilter.BitmapStore store = lettuce != null ? CacheBloomFilter.lettuce(lettuce.connection)
+                : jedisPool != null ? CacheBloomFilter.jedis(jedisPool) : null;
+        CacheBloomFilter<K> bloomFilter = new CacheBloomFilter<>(name, cacheConfig.getL2Config().getKeyPrefix(),
+                bloomConfig, keySerializer, store);
+        // Pick up a filter another node has built
+        bloomFilter.reload();
+        return bloomFilter;
+    }
+
+    private CacheSynchronizer createSynchronizer() {
+        // Keys of every cache go through it, so keep their types
+        Serializer<Object> keySerializer = new JdkSerializer<>();
+        return switch (config.getSyncTransport()) {
+            case PUBSUB -> new RedisCacheSynchronizer(jedisPool, keySerializer, config.getInstanceId(),
+                    CacheExecutors.threadFactory("ncache-sync-subscriber-", ExecutorMode.PLATFORM),
+                    config.getSyncConfig(), metricsCollector);
+            case STREAM -> new StreamCacheSynchronizer(jedisPool, keySerializer, config.getInstanceId(),
+                    CacheExecutors.threadFactory("ncache-sync-stream-reader-", ExecutorMode.PLATFORM),
+                    config.getSyncConfig(), metricsCollector);
+            // Caches may use different key prefixes, so broadcast mode reports every key
+            case TRACKING -> new TrackingCacheSynchronizer(lettuce.connection, config.getTrackingMode(), List.of());
+        };
+    }
+
+    private void runMaintenance() {
+        long now = System.currentTimeMillis();
+        for (ManagedCache<?, ?> managed : caches.values()) {
+            try {
+                managed.maintain(now);
+            } catch (RuntimeException e) {
+                logger.warn("Maintenance of cache {} failed", managed.cache.getName(), e);
+            }
+        }
+    }
+
+    private static String endpoint(RedisClientConfig redisConfig) {
+        if (redisConfig == null) {
+            return "none";
+        }
+        return switch (redisConfig.getMode()) {
+            case STANDALONE -> redisConfig.getHost() + ":" + redisConfig.getPort();
+            case SENTINEL -> redisConfig.getMasterName();
+            case CLUSTER -> String.join(",", redisConfig.getClusterNodes());
+        };
+    }
+
+    private static JedisPool createJedisPool(RedisClientConfig redisConfig) {
+        if (redisConfig.getMode() != RedisClientConfig.Mode.STANDALONE) {
+            throw new IllegalArgumentException("Jedis connections support STANDALONE Redis only, not "
+                    + redisConfig.getMode() + "; use the LETTUCE client with the TRACKING transport "
+                    + "or pass a synchronizer");
+        }
+
+        JedisPoolConfig poolConfig = new JedisPoolConfig();
+        poolConfig.setMaxTotal(redisConfig.getPoolMaxTotal());
+        poolConfig.setMaxIdle(redisConfig.getPoolMaxIdle());
+        poolConfig.setMinIdle(redisConfig.getPoolMinIdle());
+        poolConfig.setMaxWait(redisConfig.getPoolMaxWait());
+        poolConfig.setBlockWhenExhausted(true);
+
+        DefaultJedisClientConfig.Builder clientConfig = DefaultJedisClientConfig.builder()
+                .connectionTimeoutMillis((int) redisConfig.getConnectionTimeout().toMillis())
+                .socketTimeoutMillis((int) redisConfig.getSocketTimeout().toMillis())
+                .password(redisConfig.getPassword())
+                .database(redisConfig.getDatabase())
+                .ssl(redisConfig.isSslEnabled());
+        if (redisConfig.isSslEnabled() && redisConfig.getSslTrustStorePath() != null) {
+            clientConfig.sslSocketFactory(sslSocketFactory(redisConfig));
+        }
+
+        return new JedisPool(poolConfig, new HostAndPort(redisConfig.getHost(), redisConfig.getPort()),
+                clientConfig.build());
+    }
+
+    private static SSLSocketFactory sslSocketFactory(RedisClientConfig redisConfig) {
+        String password = redisConfig.getSslTrustStorePassword();
+        try (InputStream in = Files.newInputStream(Path.of(redisConfig.getSslTrustStorePath()))) {
+            KeyStore trustStore = KeyStore.getInstance(KeyStore.getDefaultType());
+            trustStore.load(in, password != null ? password.toCharArray() : null);
+            TrustManagerFactory trustManagers = TrustManagerFactory.getInstance(TrustManagerFactory.getDefaultAlgorithm());
+            trustManagers.init(trustStore);
+            SSLContext context = SSLContext.getInstance("TLS");
+            context.init(null, trustManagers.getTrustManagers(), null);
+            return context.getSocketFactory();
+        } catch (Exception e) {
+            throw new IllegalStateException("Failed to load Redis trust store " + redisConfig.getSslTrustStorePath(), e);
+        }
+    }
+
+    /**
+     * Lettuce client with the one connection every cache shares. Kept apart so the optional
+     * Lettuce dependency is only loaded when configured.
+     */
+    private static final class LettuceClient {
+
+        final RedisClient client;
+        final StatefulRedisConnection<byte[], byte[]> connection;
+
+        private LettuceClient(RedisClient client, StatefulRedisConnection<byte[], byte[]> connection) {
+            this.client = client;
+            this.connection = connection;
+        }
+
+        static LettuceClient connect(RedisClientConfig redisConfig, boolean resp3) {
+            RedisURI.Builder uri;
+            switch (redisConfig.getMode()) {
+                case STANDALONE -> uri = RedisURI.builder()
+                        .withHost(redisConfig.getHost())
+                        .withPort(redisConfig.getPort());
+                case SENTINEL -> {
+                    uri = RedisURI.builder().withSentinelMasterId(redisConfig.getMasterName());
+                    for (String node : redisConfig.getSentinelNodes()) {
+                        HostAndPort sentinel = HostAndPort.from(node);
+                        uri.withSentinel(sentinel.getHost(), sentinel.getPort());
+                    }
+                }
+                default -> throw new IllegalArgumentException("The LETTUCE client supports STANDALONE and "
+                        + "SENTINEL Redis, not " + redisConfig.getMode());
+            }
+            uri.withDatabase(redisConfig.getDatabase())
+                    .withTimeout(redisConfig.getSocketTimeout())
+                    .withSsl(redisConfig.isSslEnabled());
+            if (redisConfig.getPassword() != null) {
+                uri.withPassword(redisConfig.getPassword().toCharArray());
+            }
+
+            ClientOptions.Builder options = ClientOptions.builder()
+                    .socketOptions(SocketOptions.builder().connectTimeout(redisConfig.getConnectionTimeout()).build());
+            if (resp3) {
+                // Client tracking pushes invalidations, which needs RESP3
+                options.protocolVersion(ProtocolVersion.RESP3);
+            }
+            if (redisConfig.isSslEnabled() && redisConfig.getSslTrustStorePath() != null) {
+                options.sslOptions(SslOptions.builder()
+                        .jdkSslProvider()
+                        .truststore(new File(redisConfig.getSslTrustStorePath()), redisConfig.getSslTrustStorePassword())
+                        .build());
+            }
+
+            RedisClient client = RedisClient.create(uri.build());
+            client.setOptions(options.build());
+            try {
+                return new LettuceClient(client, client.connect(ByteArrayCodec.INSTANCE));
+            } catch (RuntimeException e) {
+                client.shutdown();
+                throw e;
+            }
+        }
+
+        void close() {
+            connection.close();
+            client.shutdown();
+        }
+    }
+
+    /**
+     * Synchronizer handed to the caches: publishes through the shared one, while the
+     * manager's single subscription does the receiving.
+     */
+    private static final class Publisher implements CacheSynchronizer {
+
+        private final CacheSynchronizer delegate;
+
+        Publisher(CacheSynchronizer delegate) {
+            this.delegate = delegate;
+        }
+
+        @Override
+        public void publishInvalidation(String cacheName, Object key) {
+            delegate.publishInvalidation(cacheName, key);
+        }
+
+        @Override
+        public void publishBulkInvalidation(String cacheName, Collection<?> keys) {
+            delegate.publishBulkInvalidation(cacheName, keys);
+        }
+
+        @Override
+        public void publishClear(String cacheName) {
+            delegate.publishClear(cacheName);
+        }
+
+        @Override
+        public void subscribe(InvalidationListener listener) {
+            // The manager dispatches to its caches
+        }
+
+        @Override
+        public void unsubscribe(InvalidationListener listener) {
+            // The manager dispatches to its caches
+        }
+
+        @Override
+        public void start() {
+            // Owned by the manager
+        }
+
+        @Override
+        public void stop() {
+            // Owned by the manager
+        }
+    }
+
+    /**
+     * The one listener subscribed to the synchronizer, routing each message to its cache by
+     * name rather than offering it to every cache.
+     */
+    private final class Dispatcher implements CacheSynchronizer.InvalidationListener {
+
+        @Override
+        public void onInvalidate(String cacheName, Object key) {
+            TwoLevelCache<?, ?> cache = syncedCache(cacheName);
+            if (cache != null) {
+                cache.onInvalidate(cacheName, key);
+            }
+        }
+
+        @Override
+        public void onBulkInvalidate(String cacheName, Collection<?> keys) {
+            TwoLevelCache<?, ?> cache = syncedCache(cacheName);
+            if (cache != null) {
+                cache.onBulkInvalidate(cacheName, keys);
+            }
+        }
+
+        @Override
+        public void onClear(String cacheName) {
+            TwoLevelCache<?, ?> cache = syncedCache(cacheName);
+            if (cache != null) {
+                cache.onClear(cacheName);
+            }
+        }
+
+        @Override
+        public void onClearAll() {
+            for (ManagedCache<?, ?> managed : caches.values()) {
+                if (managed.synced) {
+                    managed.cache.onClearAll();
+                }
+            }
+        }
+
+        @Override
+        public void onInvalidateRedisKeys(Collection<byte[]> redisKeys) {
+            // Each cache picks out the keys under its own prefix
+            for (ManagedCache<?, ?> managed : caches.values()) {
+                if (managed.synced) {
+                    managed.cache.onInvalidateRedisKeys(redisKeys);
+                }
+            }
+        }
+
+        private TwoLevelCache<?, ?> syncedCache(String cacheName) {
+            ManagedCache<?, ?> managed = caches.get(cacheName);
+            return managed != null && managed.synced ? managed.cache : null;
+        }
+    }
+
+    /**
+     * A cache with the parts the maintenance task works on.
+     */
+    private final class ManagedCache<K, V> {
+
+        final TwoLevelCache<K, V> cache;
+        final L1CaffeineCache<K, V> l1Cache;
+        final DefaultCacheStats stats;
+        // Null unless a bloom filter is configured
+        final CacheBloomFilter<K> bloomFilter;
+        final long bloomReloadMillis;
+        final boolean synced;
+        long nextBloomReload;
+
+        ManagedCache(TwoLevelCache<K, V> cache, L1CaffeineCache<K, V> l1Cache, DefaultCacheStats stats,
+                     CacheBloomFilter<K> bloomFilter, long bloomReloadMillis, boolean synced) {
+            this.cache = cache;
+            this.l1Cache = l1Cache;
+            this.stats = stats;
+            this.bloomFilter = bloomFilter;
+            this.bloomReloadMillis = bloomReloadMillis;
+            this.synced = synced;
+            this.nextBloomReload = bloomFilter != null
+                    ? System.currentTimeMillis() + bloomReloadMillis : Long.MAX_VALUE;
+        }
+
+        void maintain(long now) {
+            l1Cache.cleanUp();
+            if (metricsCollector != null) {
+                metricsCollector.recordStats(cache.getName(), stats.snapshot());
+            }
+            if (now >= nextBloomReload) {
+                nextBloomReload = now + bloomReloadMillis;
+                // Can be a large read; keep it off the maintenance thread
+                asyncExecutor.execute(bloomFilter::reload);
+            }
+        }
+    }
+
+}
@@ -0,0 +1,130 @@
+package com.andyadc.skeleton.ncache.impl;
+
+import com.andyadc.skeleton.ncache.config.CacheConfig.L1Config.Weigher;
+import com.andyadc.skeleton.ncache.serialization.Serializer;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.Collection;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.stream.Stream;
+
+/**
+ * Built-in weighers for a byte-bounded L1.
+ */
+public final class Weighers {
+
+    private static final Logger logger = LoggerFactory.getLogger(Weighers.class);
+
+    // Sizes on a 64-bit JVM with compressed oops
+    private static final int OBJECT_HEADER = 16;
+    private static final int REFERENCE = 4;
+    private static final int STRING = 40;
+    private static final int UNKNOWN_OBJECT = 128;
+    // Elements inspected per collection; the rest are assumed to be alike
+    private static final int SAMPLE = 16;
+    private static final int MAX_DEPTH = 4;
+
+    private Weighers() {
+    }
+
+    /**
+     * Rough retained size of strings, primitive arrays, boxed values, collections and maps
+     * (sampled). Other objects count as a fixed {@value #UNKNOWN_OBJECT} bytes, so caches of
+     * arbitrary objects should use {@link #serialized(Serializer)} or their own weigher.
+     */
+    public static Weigher estimated() {
+        return (key, value) -> clamp(estimate(key, 0) + estimate(value, 0));
+    }
+
+    /**
+     * Serialized length of the value plus the estimated key size. Serializes every value
+     * once more on write, so it is for values the heap estimate cannot size.
+     */
+    @SuppressWarnings("unchecked")
+    public static Weigher serialized(Serializer<?> serializer) {
+        Serializer<Object> valueSerializer = (Serializer<Object>) serializer;
+        return (key, value) -> {
+            long size = estimate(key, 0);
+            if (value != null) {
+                try {
+                    size += valueSerializer.serialize(value).length;
+                } catch (Exception e) {
+                    logger.debug("Failed to serialize value for weighing, estimating instead", e);
+                    size += estimate(value, 0);
+                }
+            }
+            return clamp(size);
+        };
+    }
+
+    static long estimate(Object value, int depth) {
+        if (value == null) {
+            return 0;
+        }
+        if (value instanceof String s) {
+            // Latin-1 compact strings; UTF-16 ones take up to twice the array
+            return STRING + s.length();
+        }
+        if (value instanceof byte[] a) {
+            return OBJECT_HEADER + a.length;
+        }
+        if (value instanceof char[] a) {
+            return OBJECT_HEADER + 2L * a.length;
+        }
+        if (value instanceof int[] a) {
+            return OBJECT_HEADER + 4L * a.length;
+        }
+        if (value instanceof long[] a) {
+            return OBJECT_HEADER + 8L * a.length;
+        }
+        if (value instanceof double[] a) {
+            return OBJECT_HEADER + 8L * a.length;
+        }
+        if (value instanceof Long || value instanceof Double) {
+            return 24;
+        }
+        if (value instanceof Number || value instanceof Boolean || value instanceof Character) {
+            return 16;
+        }
+        if (depth >= MAX_DEPTH) {
+            return UNKNOWN_OBJECT;
+        }
+        if (value instanceof Object[] a) {
+            long size = OBJECT_HEADER + (long) REFERENCE * a.length;
+            int sampled = Math.min(a.length, SAMPLE);
+            long elements = 0;
+            for (int i = 0; i < sampled; i++) {
+                elements += estimate(a[i], depth + 1);
+            }
+            return sampled == 0 ? size : size + elements * a.length / sampled;
+        }
+        if (value instanceof Collection<?> c) {
+            // Backing array or node per element
+            return 32 + sampled(c.iterator(), c.size(), depth, 16);
+        }
+        if (value instanceof Map<?, ?> m) {
+            Iterator<Object> entries = m.entrySet().stream()
+                    .flatMap(e -> Stream.of(e.getKey(), e.getValue())).iterator();
+            return 48 + sampled(entries, 2 * m.size(), depth, 16);
+        }
+        return UNKNOWN_OBJECT;
+    }
+
+    private static long sampled(Iterator<?> elements, int size, int depth, int perElement) {
+        int sampled = 0;
+        long total = 0;
+        while (sampled < SAMPLE && elements.hasNext()) {
+            total += estimate(elements.next(), depth + 1);
+            sampled++;
+        }
+        long elementSize = sampled == 0 ? 0 : total / sampled;
+        return (long) size * (elementSize + perElement);
+    }
+
+    private static int clamp(long size) {
+        return (int) Math.min(Integer.MAX_VALUE, size);
+    }
+
+}
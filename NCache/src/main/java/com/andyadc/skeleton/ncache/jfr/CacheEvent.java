@@ -0,0 +1,52 @@
+package com.andyadc.skeleton.ncache.jfr;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.StackTrace;
+
+/**
+ * Fields shared by the cache's flight recorder events.
+ * <p>
+ * Events are begun before the operation and only filled in once {@link #shouldCommit()}
+ * says the event is enabled and over its threshold, so a disabled event costs little more
+ * than the allocation, which the JIT usually removes.
+ */
+@Category("NCache")
+@StackTrace(false)
+public abstract class CacheEvent extends Event {
+
+    public static final String LEVEL_L1 = "L1";
+    public static final String LEVEL_L2 = "L2";
+    public static final String LEVEL_BLOOM_FILTER = "BLOOM_FILTER";
+    public static final String LEVEL_LOADER = "LOADER";
+    public static final String LEVEL_SYNC = "SYNC";
+    public static final String LEVEL_NONE = "NONE";
+
+    @Label("Cache")
+    public String cacheName;
+
+    @Label("Key Hash")
+    @Description("Hash code of the key, 0 for operations on several keys")
+    public int keyHash;
+
+    @Label("Key Count")
+    public int keyCount;
+
+    @Label("Level")
+    @Description("Tier that served or performed the operation")
+    public String level;
+
+    final boolean fill(String cacheName, Object key, int keyCount, String level) {
+        if (!shouldCommit()) {
+            return false;
+        }
+        this.cacheName = cacheName;
+        this.keyHash = key != null ? key.hashCode() : 0;
+        this.keyCount = keyCount;
+        this.level = level;
+        return true;
+    }
+
+}
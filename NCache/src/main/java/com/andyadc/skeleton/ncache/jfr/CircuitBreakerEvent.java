@@ -0,0 +1,43 @@
+package com.andyadc.skeleton.ncache.jfr;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+/**
+ * A state change of a circuit breaker guarding L2.
+ */
+@Name("ncache.CircuitBreakerState")
+@Label("Circuit Breaker State Change")
+@Description("Circuit breaker in front of the L2 cache changed state")
+@Category("NCache")
+@StackTrace(false)
+public class CircuitBreakerEvent extends Event {
+
+    @Label("Circuit Breaker")
+    public String name;
+
+    @Label("From")
+    public String fromState;
+
+    @Label("To")
+    public String toState;
+
+    @Label("Failure Count")
+    public int failureCount;
+
+    public static void emit(String name, Enum<?> fromState, Enum<?> toState, int failureCount) {
+        CircuitBreakerEvent event = new CircuitBreakerEvent();
+        if (event.shouldCommit()) {
+            event.name = name;
+            event.fromState = fromState.name();
+            event.toState = toState.name();
+            event.failureCount = failureCount;
+            event.commit();
+        }
+    }
+
+}
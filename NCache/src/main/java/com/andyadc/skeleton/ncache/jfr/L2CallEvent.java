@@ -0,0 +1,31 @@
+package com.andyadc.skeleton.ncache.jfr;
+
+import jdk.jfr.Description;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.Threshold;
+
+/**
+ * A call to the L2 cache, including retries and the wait for a batched round trip.
+ */
+@Name("ncache.L2Call")
+@Label("L2 Call")
+@Description("Call to the Redis level of the cache")
+@Threshold("1 ms")
+public class L2CallEvent extends CacheEvent {
+
+    @Label("Operation")
+    public String operation;
+
+    @Label("Success")
+    public boolean success;
+
+    public void complete(String cacheName, String operation, Object key, int keyCount, boolean success) {
+        if (fill(cacheName, key, keyCount, LEVEL_L2)) {
+            this.operation = operation;
+            this.success = success;
+            commit();
+        }
+    }
+
+}
@@ -0,0 +1,35 @@
+package com.andyadc.skeleton.ncache.jfr;
+
+import jdk.jfr.Description;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.Threshold;
+
+/**
+ * An invocation of a loader on a miss, a bulk miss or a refresh.
+ */
+@Name("ncache.Load")
+@Label("Cache Load")
+@Description("Invocation of the loader of a cache")
+@Threshold("1 ms")
+public class LoadEvent extends CacheEvent {
+
+    public static final String LOAD = "load";
+    public static final String LOAD_ALL = "loadAll";
+    public static final String REFRESH = "refresh";
+
+    @Label("Operation")
+    public String operation;
+
+    @Label("Success")
+    public boolean success;
+
+    public void complete(String cacheName, String operation, Object key, int keyCount, boolean success) {
+        if (fill(cacheName, key, keyCount, LEVEL_LOADER)) {
+            this.operation = operation;
+            this.success = success;
+            commit();
+        }
+    }
+
+}
@@ -0,0 +1,23 @@
+package com.andyadc.skeleton.ncache.jfr;
+
+import jdk.jfr.Description;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.Threshold;
+
+/**
+ * Time a caller spent waiting for a load of the same key started by another caller.
+ */
+@Name("ncache.LoadWait")
+@Label("Cache Load Wait")
+@Description("Wait for an in-flight load of the same key")
+@Threshold("1 ms")
+public class LoadWaitEvent extends CacheEvent {
+
+    public void complete(String cacheName, Object key) {
+        if (fill(cacheName, key, 1, LEVEL_LOADER)) {
+            commit();
+        }
+    }
+
+}
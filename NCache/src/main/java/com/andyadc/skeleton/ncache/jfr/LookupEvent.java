@@ -0,0 +1,24 @@
+package com.andyadc.skeleton.ncache.jfr;
+
+import jdk.jfr.Description;
+import jdk.jfr.Enabled;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+
+/**
+ * A single-key read through the cache levels; the level is the one that answered, or
+ * {@value #LEVEL_NONE} on a miss. Off by default as it fires on every read.
+ */
+@Name("ncache.Lookup")
+@Label("Cache Lookup")
+@Description("Read of a key through L1, the bloom filter and L2")
+@Enabled(false)
+public class LookupEvent extends CacheEvent {
+
+    public void complete(String cacheName, Object key, String level) {
+        if (fill(cacheName, key, 1, level)) {
+            commit();
+        }
+    }
+
+}
@@ -0,0 +1,26 @@
+package com.andyadc.skeleton.ncache.jfr;
+
+import jdk.jfr.Description;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+
+/**
+ * An invalidation message published to or received from other nodes. Published messages
+ * span the write to Redis; received ones are instant.
+ */
+@Name("ncache.SyncMessage")
+@Label("Cache Sync Message")
+@Description("Invalidation message between cache nodes")
+public class SyncMessageEvent extends CacheEvent {
+
+    @Label("Direction")
+    public String direction;
+
+    public void complete(String cacheName, String direction, Object key, int keyCount) {
+        if (fill(cacheName, key, keyCount, LEVEL_SYNC)) {
+            this.direction = direction;
+            commit();
+        }
+    }
+
+}
@@ -1,6 +1,10 @@
 package com.andyadc.skeleton.ncache.metrics;
 
+import com.andyadc.skeleton.ncache.api.CacheStats;
+
+import java.util.LinkedHashMap;
 import java.util.Map;
+import java.util.TreeMap;
 import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.atomic.LongAdder;
 
@@ -61,7 +65,29 @@ public class DefaultMetricsCollector implements MetricsCollector {
 
     @Override
     public void recordOperationLatency(String cacheName, String operation, long timeNanos) {
-        // Could be extended for per-operation metrics
+        latencyRecorder(cacheName, operation).record(timeNanos);
+    }
+
+    @Override
+    public LatencyHistogram latencyRecorder(String cacheName, String operation) {
+        return getOrCreate(cacheName).latencies.computeIfAbsent(operation, k -> new LatencyHistogram());
+    }
+
+    @Override
+    public void recordSyncMessage(String cacheName, String direction, int keyCount) {
+        CacheMetricsHolder holder = getOrCreate(cacheName);
+        if (SYNC_PUBLISHED.equals(direction)) {
+            holder.syncPublishedMessages.increment();
+            holder.syncPublishedKeys.add(keyCount);
+        } else {
+            holder.syncReceivedMessages.increment();
+            holder.syncReceivedKeys.add(keyCount);
+        }
+    }
+
+    @Override
+    public void updateHotKeys(String cacheName, Map<?, Long> hotKeys) {
+        getOrCreate(cacheName).hotKeys = hotKeys;
     }
 
     @Override
@@ -69,9 +95,26 @@ public class DefaultMetricsCollector implements MetricsCollector {
         CacheMetricsHolder holder = getOrCreate(cacheName);
         if ("L1".equals(level)) {
             holder.l1Size = size;
+        } else if (L1_WEIGHT.equals(level)) {
+            holder.l1WeightedSize = size;
         }
     }
 
+    @Override
+    public void recordStats(String cacheName, CacheStats stats) {
+        MetricsCollector.super.recordStats(cacheName, stats);
+        CacheMetricsHolder holder = getOrCreate(cacheName);
+        CacheStats previous = holder.lastStats;
+        holder.lastStats = stats;
+        holder.hitCount.add(MetricsCollector.increase(stats, previous, CacheStats::getHitCount));
+        holder.missCount.add(MetricsCollector.increase(stats, previous, CacheStats::getMissCount));
+        holder.l1HitCount.add(MetricsCollector.increase(stats, previous, CacheStats::getL1HitCount));
+        holder.l2HitCount.add(MetricsCollector.increase(stats, previous, CacheStats::getL2HitCount));
+        holder.putCount.add(MetricsCollector.increase(stats, previous, CacheStats::getPutCount));
+        holder.removeCount.add(MetricsCollector.increase(stats, previous, CacheStats::getRemoveCount));
+        holder.evictionCount.add(MetricsCollector.increase(stats, previous, CacheStats::getEvictionCount));
+    }
+
     @Override
     public Map<String, Object> getMetrics() {
         Map<String, Object> result = new ConcurrentHashMap<>();
@@ -89,12 +132,24 @@ public class DefaultMetricsCollector implements MetricsCollector {
             cacheMap.put("removeCount", holder.removeCount.sum());
             cacheMap.put("evictionCount", holder.evictionCount.sum());
             cacheMap.put("l1Size", holder.l1Size);
+            cacheMap.put("l1WeightedSize", holder.l1WeightedSize);
+            cacheMap.put("hotKeys", hotKeysAsText(holder.hotKeys));
+            cacheMap.put("latencies", latenciesAsMap(snapshots(holder.latencies)));
 
             long hits = holder.hitCount.sum();
             long misses = holder.missCount.sum();
             double hitRate = (hits + misses) > 0 ? (double) hits / (hits + misses) : 0.0;
             cacheMap.put("hitRate", hitRate);
 
+            long publishedMessages = holder.syncPublishedMessages.sum();
+            long receivedMessages = holder.syncReceivedMessages.sum();
+            cacheMap.put("syncPublishedMessages", publishedMessages);
+            cacheMap.put("syncReceivedMessages", receivedMessages);
+            cacheMap.put("syncPublishedKeysPerMessage",
+                    publishedMessages > 0 ? (double) holder.syncPublishedKeys.sum() / publishedMessages : 0.0);
+            cacheMap.put("syncReceivedKeysPerMessage",
+                    receivedMessages > 0 ? (double) holder.syncReceivedKeys.sum() / receivedMessages : 0.0);
+
             result.put(cacheName, cacheMap);
         }
 
@@ -162,9 +217,43 @@ public class DefaultMetricsCollector implements MetricsCollector {
             public long getL1Size() {
                 return holder.l1Size;
             }
+
+            @Override
+            public Map<String, LatencyHistogram.Snapshot> getOperationLatencies() {
+                return snapshots(holder.latencies);
+            }
         };
     }
 
+    static Map<String, LatencyHistogram.Snapshot> snapshots(Map<String, LatencyHistogram> latencies) {
+        Map<String, LatencyHistogram.Snapshot> result = new TreeMap<>();
+        latencies.forEach((operation, histogram) -> result.put(operation, histogram.snapshot()));
+        return result;
+    }
+
+    /**
+     * Count and percentiles per operation, in nanoseconds.
+     */
+    static Map<String, Map<String, Long>> latenciesAsMap(Map<String, LatencyHistogram.Snapshot> snapshots) {
+        Map<String, Map<String, Long>> result = new TreeMap<>();
+        snapshots.forEach((operation, snapshot) -> {
+            Map<String, Long> values = new LinkedHashMap<>();
+            values.put("count", snapshot.getCount());
+            values.put("p50", snapshot.getP50());
+            values.put("p99", snapshot.getP99());
+            values.put("p999", snapshot.getP999());
+            values.put("max", snapshot.getMax());
+            result.put(operation, values);
+        });
+        return result;
+    }
+
+    static Map<String, Long> hotKeysAsText(Map<?, Long> hotKeys) {
+        Map<String, Long> result = new LinkedHashMap<>();
+        hotKeys.forEach((key, frequency) -> result.put(String.valueOf(key), frequency));
+        return result;
+    }
+
     private static class CacheMetricsHolder {
         final LongAdder hitCount = new LongAdder();
         final LongAdder missCount = new LongAdder();
@@ -177,6 +266,15 @@ public class DefaultMetricsCollector implements MetricsCollector {
         final LongAdder loadCount = new LongAdder();
         final LongAdder loadSuccessCount = new LongAdder();
         final LongAdder loadFailureCount = new LongAdder();
+        final LongAdder syncPublishedMessages = new LongAdder();
+        final LongAdder syncPublishedKeys = new LongAdder();
+        final LongAdder syncReceivedMessages = new LongAdder();
+        final LongAdder syncReceivedKeys = new LongAdder();
         volatile long l1Size = 0;
+        volatile long l1WeightedSize = 0;
+        volatile Map<?, Long> hotKeys = Map.of();
+        final Map<String, LatencyHistogram> latencies = new ConcurrentHashMap<>();
+        // Stats passed to the previous recordStats call
+        volatile CacheStats lastStats;
     }
 }
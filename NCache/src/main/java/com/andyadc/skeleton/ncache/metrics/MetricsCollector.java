@@ -1,12 +1,37 @@
 package com.andyadc.skeleton.ncache.metrics;
 
+import com.andyadc.skeleton.ncache.api.CacheStats;
+
 import java.util.Map;
+import java.util.function.ToLongFunction;
 
 /**
  * Interface for collecting and exporting cache metrics.
  */
 public interface MetricsCollector {
 
+    /**
+     * Sync message directions passed to {@link #recordSyncMessage}.
+     */
+    String SYNC_PUBLISHED = "published";
+    String SYNC_RECEIVED = "received";
+
+    /**
+     * Level passed to {@link #updateCacheSize} for the weighted size of L1 in bytes.
+     */
+    String L1_WEIGHT = "L1_WEIGHT";
+
+    /**
+     * Operations timed through {@link #recordOperationLatency}.
+     */
+    String OP_L1_GET = "l1.get";
+    String OP_L2_GET = "l2.get";
+    String OP_L2_PUT = "l2.put";
+    String OP_L2_MGET = "l2.mget";
+    String OP_L2_PIPELINE = "l2.pipeline";
+    String OP_LOAD = "load";
+    String OP_SYNC_PUBLISH = "sync.publish";
+
     /**
      * Record cache hit.
      */
@@ -43,10 +68,54 @@ public interface MetricsCollector {
     void recordOperationLatency(String cacheName, String operation, long timeNanos);
 
     /**
-     * Update cache size gauge.
+     * Recorder for one cache and operation, to look up once and keep for hot paths.
+     */
+    default LatencyRecorder latencyRecorder(String cacheName, String operation) {
+        return timeNanos -> recordOperationLatency(cacheName, operation, timeNanos);
+    }
+
+    /**
+     * Record a cache synchronization message and the number of keys it carried.
+     *
+     * @param direction {@link #SYNC_PUBLISHED} or {@link #SYNC_RECEIVED}
+     */
+    void recordSyncMessage(String cacheName, String direction, int keyCount);
+
+    /**
+     * Publish the current top-K hot keys of a cache, hottest first.
+     */
+    void updateHotKeys(String cacheName, Map<?, Long> hotKeys);
+
+    /**
+     * Update cache size gauge: entry count for "L1", bytes for {@link #L1_WEIGHT}.
      */
     void updateCacheSize(String cacheName, String level, long size);
 
+    /**
+     * Bring the collector up to date with the cumulative stats of a cache; the cache
+     * manager calls this periodically with a fresh snapshot. The default publishes the
+     * L1 sizes and hot keys; collectors that keep counters also add what the counts grew
+     * by since the previous call.
+     */
+    default void recordStats(String cacheName, CacheStats stats) {
+        updateCacheSize(cacheName, "L1", stats.getL1Size());
+        updateCacheSize(cacheName, L1_WEIGHT, stats.getL1WeightedSize());
+        Map<Object, Long> hotKeys = stats.getHotKeys();
+        if (!hotKeys.isEmpty()) {
+            updateHotKeys(cacheName, hotKeys);
+        }
+    }
+
+    /**
+     * How much a cumulative count grew since {@code previous}, which is null on the first
+     * call. Counts start over when the stats are reset.
+     */
+    static long increase(CacheStats current, CacheStats previous, ToLongFunction<CacheStats> count) {
+        long now = count.applyAsLong(current);
+        long before = previous != null ? count.applyAsLong(previous) : 0;
+        return now >= before ? now - before : now;
+    }
+
     /**
      * Get all metrics as map.
      */
@@ -80,6 +149,23 @@ public interface MetricsCollector {
         double getAverageLoadTimeMs();
 
         long getL1Size();
+
+        /**
+         * Latency histograms by operation, in nanoseconds.
+         */
+        Map<String, LatencyHistogram.Snapshot> getOperationLatencies();
+    }
+
+    /**
+     * Sink for the latencies of one operation of one cache.
+     */
+    @FunctionalInterface
+    interface LatencyRecorder {
+
+        LatencyRecorder NOOP = timeNanos -> {
+        };
+
+        void record(long timeNanos);
     }
 
 }
\ No newline at end of file
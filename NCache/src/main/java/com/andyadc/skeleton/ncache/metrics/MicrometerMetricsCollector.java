@@ -1,6 +1,10 @@
 package com.andyadc.skeleton.ncache.metrics;
 
+import com.andyadc.skeleton.ncache.api.CacheStats;
 import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
 import io.micrometer.core.instrument.MeterRegistry;
 import io.micrometer.core.instrument.Tags;
 import io.micrometer.core.instrument.Timer;
@@ -15,6 +19,7 @@ import java.util.concurrent.TimeUnit;
 public class MicrometerMetricsCollector implements MetricsCollector {
 
     private static final String METRIC_PREFIX = "cache.two_level";
+    private static final double[] PERCENTILES = {0.5, 0.99, 0.999};
 
     private final MeterRegistry registry;
     private final Map<String, CacheMeters> cacheMeters = new ConcurrentHashMap<>();
@@ -39,6 +44,9 @@ public class MicrometerMetricsCollector implements MetricsCollector {
                 registry.counter(METRIC_PREFIX + ".evictions", tags.and("level", "l1")),
                 registry.timer(METRIC_PREFIX + ".loads", tags),
                 registry.gauge(METRIC_PREFIX + ".size", tags.and("level", "l1"),
+                        new java.util.concurrent.atomic.AtomicLong()),
+                registry.gauge(METRIC_PREFIX + ".hot_keys", tags, new java.util.concurrent.atomic.AtomicLong()),
+                registry.gauge(METRIC_PREFIX + ".weighted_size", tags.and("level", "l1"),
                         new java.util.concurrent.atomic.AtomicLong())
         );
     }
@@ -80,9 +88,74 @@ public class MicrometerMetricsCollector implements MetricsCollector {
 
     @Override
     public void recordOperationLatency(String cacheName, String operation, long timeNanos) {
-        Timer timer = registry.timer(METRIC_PREFIX + ".operation",
-                Tags.of("cache", cacheName, "operation", operation));
-        timer.record(timeNanos, TimeUnit.NANOSECONDS);
+        latencyRecorder(cacheName, operation).record(timeNanos);
+    }
+
+    /**
+     * Latencies go into a lock-free histogram rather than a {@link Timer}, which costs
+     * more per record; Micrometer reads the count and percentiles from it when publishing.
+     */
+    @Override
+    public LatencyHistogram latencyRecorder(String cacheName, String operation) {
+        return getOrCreate(cacheName).latencies.computeIfAbsent(operation,
+                op -> registerLatency(Tags.of("cache", cacheName, "operation", op)));
+    }
+
+    private LatencyHistogram registerLatency(Tags tags) {
+        LatencyHistogram histogram = new LatencyHistogram();
+        FunctionCounter.builder(METRIC_PREFIX + ".operation.count", histogram, h -> h.snapshot().getCount())
+                .tags(tags)
+                .register(registry);
+        for (double percentile : PERCENTILES) {
+            Gauge.builder(METRIC_PREFIX + ".operation.latency.percentile", histogram,
+                            h -> h.snapshot().getValueAtPercentile(percentile) / 1e9)
+                    .tags(tags.and("phi", String.valueOf(percentile)))
+                    .baseUnit("seconds")
+                    .register(registry);
+        }
+        Gauge.builder(METRIC_PREFIX + ".operation.latency.max", histogram, h -> h.snapshot().getMax() / 1e9)
+                .tags(tags)
+                .baseUnit("seconds")
+                .register(registry);
+        return histogram;
+    }
+
+    /**
+     * One summary per cache and direction: its count rate is messages per second and its
+     * mean is keys per message.
+     */
+    @Override
+    public void recordSyncMessage(String cacheName, String direction, int keyCount) {
+        DistributionSummary.builder(METRIC_PREFIX + ".sync.keys")
+                .baseUnit("keys")
+                .tags(Tags.of("cache", cacheName, "direction", direction))
+                .register(registry)
+                .record(keyCount);
+    }
+
+    /**
+     * Keys are not turned into meter tags, which would grow without bound; the list is
+     * reported through {@link #getMetrics()} and its length as a gauge.
+     */
+    @Override
+    public void updateHotKeys(String cacheName, Map<?, Long> hotKeys) {
+        CacheMeters meters = getOrCreate(cacheName);
+        meters.hotKeys = hotKeys;
+        meters.hotKeyCount.set(hotKeys.size());
+    }
+
+    @Override
+    public void recordStats(String cacheName, CacheStats stats) {
+        MetricsCollector.super.recordStats(cacheName, stats);
+        CacheMeters meters = getOrCreate(cacheName);
+        CacheStats previous = meters.lastStats;
+        meters.lastStats = stats;
+        meters.l1Hits.increment(MetricsCollector.increase(stats, previous, CacheStats::getL1HitCount));
+        meters.l2Hits.increment(MetricsCollector.increase(stats, previous, CacheStats::getL2HitCount));
+        meters.misses.increment(MetricsCollector.increase(stats, previous, CacheStats::getMissCount));
+        meters.puts.increment(MetricsCollector.increase(stats, previous, CacheStats::getPutCount));
+        meters.removes.increment(MetricsCollector.increase(stats, previous, CacheStats::getRemoveCount));
+        meters.evictions.increment(MetricsCollector.increase(stats, previous, CacheStats::getEvictionCount));
     }
 
     @Override
@@ -90,6 +163,8 @@ public class MicrometerMetricsCollector implements MetricsCollector {
         CacheMeters meters = getOrCreate(cacheName);
         if ("L1".equals(level) && meters.l1Size instanceof java.util.concurrent.atomic.AtomicLong) {
             ((java.util.concurrent.atomic.AtomicLong) meters.l1Size).set(size);
+        } else if (L1_WEIGHT.equals(level)) {
+            meters.l1WeightedSize.set(size);
         }
     }
 
@@ -108,8 +183,12 @@ public class MicrometerMetricsCollector implements MetricsCollector {
             cacheMap.put("puts", meters.puts.count());
             cacheMap.put("removes", meters.removes.count());
             cacheMap.put("evictions", meters.evictions.count());
+            cacheMap.put("l1WeightedSize", meters.l1WeightedSize.get());
             cacheMap.put("loadCount", meters.loadTimer.count());
             cacheMap.put("loadTotalTimeMs", meters.loadTimer.totalTime(TimeUnit.MILLISECONDS));
+            cacheMap.put("hotKeys", DefaultMetricsCollector.hotKeysAsText(meters.hotKeys));
+            cacheMap.put("latencies", DefaultMetricsCollector.latenciesAsMap(
+                    DefaultMetricsCollector.snapshots(meters.latencies)));
 
             result.put(cacheName, cacheMap);
         }
@@ -179,6 +258,11 @@ public class MicrometerMetricsCollector implements MetricsCollector {
                 }
                 return 0;
             }
+
+            @Override
+            public Map<String, LatencyHistogram.Snapshot> getOperationLatencies() {
+                return DefaultMetricsCollector.snapshots(meters.latencies);
+            }
         };
     }
 
@@ -191,10 +275,17 @@ public class MicrometerMetricsCollector implements MetricsCollector {
         final Counter evictions;
         final Timer loadTimer;
         final Number l1Size;
+        final java.util.concurrent.atomic.AtomicLong hotKeyCount;
+        final java.util.concurrent.atomic.AtomicLong l1WeightedSize;
+        volatile Map<?, Long> hotKeys = Map.of();
+        final Map<String, LatencyHistogram> latencies = new ConcurrentHashMap<>();
+        // Stats passed to the previous recordStats call
+        volatile CacheStats lastStats;
 
         CacheMeters(Counter l1Hits, Counter l2Hits, Counter misses,
                     Counter puts, Counter removes, Counter evictions,
-                    Timer loadTimer, Number l1Size) {
+                    Timer loadTimer, Number l1Size, java.util.concurrent.atomic.AtomicLong hotKeyCount,
+                    java.util.concurrent.atomic.AtomicLong l1WeightedSize) {
             this.l1Hits = l1Hits;
             this.l2Hits = l2Hits;
             this.misses = misses;
@@ -203,6 +294,8 @@ public class MicrometerMetricsCollector implements MetricsCollector {
             this.evictions = evictions;
             this.loadTimer = loadTimer;
             this.l1Size = l1Size;
+            this.hotKeyCount = hotKeyCount;
+            this.l1WeightedSize = l1WeightedSize;
         }
     }
 }
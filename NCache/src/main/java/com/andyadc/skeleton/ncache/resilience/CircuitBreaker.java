@@ -1,16 +1,29 @@
 package com.andyadc.skeleton.ncache.resilience;
 
+import com.andyadc.skeleton.ncache.jfr.CircuitBreakerEvent;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
-import java.time.Duration;
-import java.time.Instant;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionStage;
 import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLongArray;
 import java.util.concurrent.atomic.AtomicReference;
 import java.util.function.Supplier;
 
 /**
  * Circuit breaker implementation for protecting L2 cache operations.
+ * <p>
+ * Calls are counted in a sliding time window split into buckets. The breaker trips once
+ * the window holds {@code minimumNumberOfCalls} and either the failure rate or the rate of
+ * calls slower than {@code slowCallDurationThreshold} reaches its threshold; the failure
+ * rate counts only once the window also holds {@code failureThreshold} failed calls.
+ * Recording a call is a few atomic increments on {@link System#nanoTime} buckets, without
+ * allocating.
+ * <p>
+ * When the guarded operation is retried, pass the {@link RetryExecutor} so that a call's
+ * duration is that of its last attempt, without the backoff between attempts.
  */
 public class CircuitBreaker {
 
@@ -19,15 +32,31 @@ public class CircuitBreaker {
     private final String name;
     private final CircuitBreakerConfig config;
     private final AtomicReference<State> state = new AtomicReference<>(State.CLOSED);
-    private final AtomicInteger failureCount = new AtomicInteger(0);
+    private final SlidingWindow window;
+    private final long slowCallNanos;
+    private final long openStateNanos;
     private final AtomicInteger successCount = new AtomicInteger(0);
     private final AtomicInteger halfOpenCalls = new AtomicInteger(0);
-    private volatile Instant lastFailureTime;
-    private volatile Instant openedAt;
+    // Records retried calls; one per breaker, so guarding a call allocates nothing for timing
+    private final RetryExecutor.CallListener recorder = new RetryExecutor.CallListener() {
+        @Override
+        public void onSuccess(long lastAttemptNanos) {
+            recordSuccess(lastAttemptNanos);
+        }
+
+        @Override
+        public void onFailure(long lastAttemptNanos) {
+            recordFailure(lastAttemptNanos);
+        }
+    };
+    private volatile long openedAtNanos;
 
     public CircuitBreaker(String name, CircuitBreakerConfig config) {
         this.name = name;
         this.config = config;
+        this.window = new SlidingWindow(config.getSlidingWindowSize().toNanos(), config.getSlidingWindowBuckets());
+        this.slowCallNanos = config.getSlowCallDurationThreshold().toNanos();
+        this.openStateNanos = config.getOpenStateDuration().toNanos();
     }
 
     public <T> T execute(Supplier<T> supplier) {
@@ -35,16 +64,69 @@ public class CircuitBreaker {
             throw new CircuitBreakerOpenException("Circuit breaker is open: " + name);
         }
 
+        long start = System.nanoTime();
         try {
             T result = supplier.get();
-            recordSuccess();
+            recordSuccess(System.nanoTime() - start);
             return result;
         } catch (Exception e) {
-            recordFailure();
+            recordFailure(System.nanoTime() - start);
             throw e;
         }
     }
 
+    /**
+     * Guard an operation retried by {@code retryExecutor}; the retries make up one call.
+     */
+    public <T> T execute(RetryExecutor retryExecutor, Callable<T> callable) {
+        if (!allowRequest()) {
+            throw new CircuitBreakerOpenException("Circuit breaker is open: " + name);
+        }
+
+        return retryExecutor.execute(callable, recorder);
+    }
+
+    /**
+     * Guard an asynchronous operation; the outcome is recorded when its future completes.
+     */
+    public <T> CompletableFuture<T> executeAsync(Supplier<? extends CompletionStage<T>> supplier) {
+        if (!allowRequest()) {
+            return CompletableFuture.failedFuture(
+                    new CircuitBreakerOpenException("Circuit breaker is open: " + name));
+        }
+
+        long start = System.nanoTime();
+        CompletionStage<T> stage;
+        try {
+            stage = supplier.get();
+        } catch (Exception e) {
+            recordFailure(System.nanoTime() - start);
+            return CompletableFuture.failedFuture(e);
+        }
+
+        return stage.toCompletableFuture().whenComplete((result, error) -> {
+            if (error == null) {
+                recordSuccess(System.nanoTime() - start);
+            } else {
+                recordFailure(System.nanoTime() - start);
+            }
+        });
+    }
+
+    /**
+     * Guard an asynchronous operation retried by {@code retryExecutor}; the retries make up
+     * one call, recorded when the last attempt completes.
+     */
+    public <T> CompletableFuture<T> executeAsync(RetryExecutor retryExecutor,
+                                                 Supplier<? extends CompletionStage<T>> supplier) {
+        if (!allowRequest()) {
+            return CompletableFuture.failedFuture(
+                    new CircuitBreakerOpenException("Circuit breaker is open: " + name));
+        }
+
+        return retryExecutor.executeAsync(supplier, recorder);
+    }
+
     public <T> T executeWithFallback(Supplier<T> supplier, Supplier<T> fallback) {
         try {
             return execute(supplier);
@@ -65,10 +147,12 @@ public class CircuitBreaker {
                 return true;
             }
             case OPEN -> {
-                if (shouldAttemptReset()) {
+                if (System.nanoTime() - openedAtNanos > openStateNanos) {
                     if (state.compareAndSet(State.OPEN, State.HALF_OPEN)) {
                         halfOpenCalls.set(0);
+                        successCount.set(0);
                         logger.info("Circuit breaker {} transitioned to HALF_OPEN", name);
+                        CircuitBreakerEvent.emit(name, State.OPEN, State.HALF_OPEN, getFailureCount());
                     }
                     return true;
                 }
@@ -83,63 +167,85 @@ public class CircuitBreaker {
         }
     }
 
-    private boolean shouldAttemptReset() {
-        return openedAt != null &&
-                Duration.between(openedAt, Instant.now())
-                        .compareTo(config.getOpenStateDuration()) > 0;
-    }
-
-    private void recordSuccess() {
+    private void recordSuccess(long durationNanos) {
+        boolean slow = durationNanos >= slowCallNanos;
+        long now = System.nanoTime();
+        window.record(now, false, slow);
         State currentState = state.get();
 
         if (currentState == State.HALF_OPEN) {
-            int successes = successCount.incrementAndGet();
-            if (successes >= config.getHalfOpenMaxCalls()) {
+            if (slow) {
+                // Not recovered yet
+                trip();
+            } else if (successCount.incrementAndGet() >= config.getHalfOpenMaxCalls()) {
                 reset();
             }
-        } else if (currentState == State.CLOSED) {
-            // Sliding window reset on success
-            failureCount.updateAndGet(count -> Math.max(0, count - 1));
+        } else if (currentState == State.CLOSED && slow) {
+            // Only slow calls and failures can push a rate over its threshold
+            checkThresholds(now);
         }
     }
 
-    private void recordFailure() {
-        lastFailureTime = Instant.now();
+    private void recordFailure(long durationNanos) {
+        long now = System.nanoTime();
+        window.record(now, true, durationNanos >= slowCallNanos);
         State currentState = state.get();
 
         if (currentState == State.HALF_OPEN) {
             trip();
         } else if (currentState == State.CLOSED) {
-            int failures = failureCount.incrementAndGet();
-            if (failures >= config.getFailureThreshold()) {
-                trip();
-            }
+            checkThresholds(now);
+        }
+    }
+
+    private void checkThresholds(long now) {
+        long calls = window.calls(now);
+        if (calls == 0 || calls < config.getMinimumNumberOfCalls()) {
+            return;
+        }
+        long failures = window.failures(now);
+        if (failures >= config.getFailureThreshold()
+                && failures * 100.0 / calls >= config.getFailureRateThreshold()
+                || window.slowCalls(now) * 100.0 / calls >= config.getSlowCallRateThreshold()) {
+            trip();
         }
     }
 
     private void trip() {
-        if (state.compareAndSet(State.CLOSED, State.OPEN) ||
-                state.compareAndSet(State.HALF_OPEN, State.OPEN)) {
-            openedAt = Instant.now();
+        State from = state.get();
+        if (from != State.OPEN && state.compareAndSet(from, State.OPEN)) {
+            openedAtNanos = System.nanoTime();
             logger.warn("Circuit breaker {} tripped to OPEN state", name);
+            CircuitBreakerEvent.emit(name, from, State.OPEN, getFailureCount());
         }
     }
 
     private void reset() {
-        state.set(State.CLOSED);
-        failureCount.set(0);
+        State from = state.getAndSet(State.CLOSED);
+        // Calls from before the breaker opened say nothing about the recovered server
+        window.clear();
         successCount.set(0);
         halfOpenCalls.set(0);
-        openedAt = null;
         logger.info("Circuit breaker {} reset to CLOSED state", name);
+        CircuitBreakerEvent.emit(name, from, State.CLOSED, 0);
     }
 
     public State getState() {
         return state.get();
     }
 
+    /**
+     * Failed calls in the sliding window.
+     */
     public int getFailureCount() {
-        return failureCount.get();
+        return (int) window.failures(System.nanoTime());
+    }
+
+    /**
+     * Calls in the sliding window that took at least the slow call threshold.
+     */
+    public int getSlowCallCount() {
+        return (int) window.slowCalls(System.nanoTime());
     }
 
     public enum State {
@@ -154,4 +260,84 @@ public class CircuitBreaker {
         }
     }
 
+    /**
+     * Ring of time buckets with call, failure and slow call counts. A bucket covers
+     * {@code bucketNanos} and belongs to the window while its epoch, the bucket number
+     * since an arbitrary origin, is among the latest {@link #buckets}. A stale bucket is
+     * claimed by swapping its epoch and zeroing its counts, so increments racing with
+     * that may be lost; the counts are for rates, not exact.
+     */
+    static final class SlidingWindow {
+
+        private static final int EPOCH = 0;
+        private static final int CALLS = 1;
+        private static final int FAILURES = 2;
+        private static final int SLOW = 3;
+        private static final int FIELDS = 4;
+        private static final long EMPTY = Long.MIN_VALUE;
+
+        final int buckets;
+        private final long bucketNanos;
+        private final AtomicLongArray counts;
+
+        SlidingWindow(long windowNanos, int buckets) {
+            this.buckets = buckets;
+            this.bucketNanos = Math.max(1, windowNanos / buckets);
+            this.counts = new AtomicLongArray(buckets * FIELDS);
+            clear();
+        }
+
+        void record(long now, boolean failure, boolean slow) {
+            int base = claim(Math.floorDiv(now, bucketNanos));
+            counts.incrementAndGet(base + CALLS);
+            if (failure) {
+                counts.incrementAndGet(base + FAILURES);
+            }
+            if (slow) {
+                counts.incrementAndGet(base + SLOW);
+            }
+        }
+
+        long calls(long now) {
+            return sum(now, CALLS);
+        }
+
+        long failures(long now) {
+            return sum(now, FAILURES);
+        }
+
+        long slowCalls(long now) {
+            return sum(now, SLOW);
+        }
+
+        void clear() {
+            for (int i = 0; i < buckets; i++) {
+                counts.set(i * FIELDS + EPOCH, EMPTY);
+            }
+        }
+
+        private int claim(long epoch) {
+            int base = (int) Math.floorMod(epoch, (long) buckets) * FIELDS;
+            long current = counts.get(base + EPOCH);
+            if (current != epoch && counts.compareAndSet(base + EPOCH, current, epoch)) {
+                counts.set(base + CALLS, 0);
+                counts.set(base + FAILURES, 0);
+                counts.set(base + SLOW, 0);
+            }
+            return base;
+        }
+
+        private long sum(long now, int field) {
+            long latest = Math.floorDiv(now, bucketNanos);
+            long total = 0;
+            for (int i = 0; i < buckets; i++) {
+                long epoch = counts.get(i * FIELDS + EPOCH);
+                if (epoch != EMPTY && epoch <= latest && latest - epoch < buckets) {
+                    total += counts.get(i * FIELDS + field);
+                }
+            }
+            return total;
+        }
+    }
+
 }
@@ -3,7 +3,7 @@ package com.andyadc.skeleton.ncache.resilience;
 import java.time.Duration;
 
 /**
- * Circuit breaker configuration.
+ * Circuit breaker configuration. Rates are percentages of the calls in the sliding window.
  */
 public class CircuitBreakerConfig {
 
@@ -14,6 +14,8 @@ public class CircuitBreakerConfig {
     private final int minimumNumberOfCalls;
     private final Duration slowCallDurationThreshold;
     private final double slowCallRateThreshold;
+    private final Duration slidingWindowSize;
+    private final int slidingWindowBuckets;
 
     private CircuitBreakerConfig(Builder builder) {
         this.failureThreshold = builder.failureThreshold;
@@ -23,6 +25,8 @@ public class CircuitBreakerConfig {
         this.minimumNumberOfCalls = builder.minimumNumberOfCalls;
         this.slowCallDurationThreshold = builder.slowCallDurationThreshold;
         this.slowCallRateThreshold = builder.slowCallRateThreshold;
+        this.slidingWindowSize = builder.slidingWindowSize;
+        this.slidingWindowBuckets = builder.slidingWindowBuckets;
     }
 
     public static CircuitBreakerConfig defaultConfig() {
@@ -62,6 +66,14 @@ public class CircuitBreakerConfig {
         return slowCallRateThreshold;
     }
 
+    public Duration getSlidingWindowSize() {
+        return slidingWindowSize;
+    }
+
+    public int getSlidingWindowBuckets() {
+        return slidingWindowBuckets;
+    }
+
     public static class Builder {
         private int failureThreshold = 5;
         private Duration openStateDuration = Duration.ofSeconds(30);
@@ -70,7 +82,13 @@ public class CircuitBreakerConfig {
         private int minimumNumberOfCalls = 10;
         private Duration slowCallDurationThreshold = Duration.ofSeconds(2);
         private double slowCallRateThreshold = 80.0;
+        private Duration slidingWindowSize = Duration.ofSeconds(10);
+        private int slidingWindowBuckets = 10;
 
+        /**
+         * Failed calls the sliding window must hold before its failure rate can trip the
+         * breaker, on top of {@link #minimumNumberOfCalls}. Failures alone never trip it.
+         */
         public Builder failureThreshold(int threshold) {
             this.failureThreshold = threshold;
             return this;
@@ -106,7 +124,26 @@ public class CircuitBreakerConfig {
             return this;
         }
 
+        public Builder slidingWindowSize(Duration size) {
+            this.slidingWindowSize = size;
+            return this;
+        }
+
+        /**
+         * Buckets the window is split into; calls leave the window one bucket at a time.
+         */
+        public Builder slidingWindowBuckets(int buckets) {
+            this.slidingWindowBuckets = buckets;
+            return this;
+        }
+
         public CircuitBreakerConfig build() {
+            if (slidingWindowBuckets <= 0) {
+                throw new IllegalArgumentException("slidingWindowBuckets must be positive");
+            }
+            if (slidingWindowSize == null || slidingWindowSize.toNanos() < slidingWindowBuckets) {
+                throw new IllegalArgumentException("slidingWindowSize must be at least one nanosecond per bucket");
+            }
             return new CircuitBreakerConfig(this);
         }
     }
@@ -5,7 +5,12 @@ import org.slf4j.LoggerFactory;
 
 import java.time.Duration;
 import java.util.concurrent.Callable;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.CompletionStage;
 import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
 
 /**
  * Retry executor with exponential backoff.
@@ -14,6 +19,16 @@ public class RetryExecutor {
 
     private static final Logger logger = LoggerFactory.getLogger(RetryExecutor.class);
 
+    private static final CallListener NO_LISTENER = new CallListener() {
+        @Override
+        public void onSuccess(long lastAttemptNanos) {
+        }
+
+        @Override
+        public void onFailure(long lastAttemptNanos) {
+        }
+    };
+
     private final RetryConfig config;
 
     public RetryExecutor(RetryConfig config) {
@@ -21,6 +36,14 @@ public class RetryExecutor {
     }
 
     public <T> T execute(Callable<T> callable) {
+        return execute(callable, NO_LISTENER);
+    }
+
+    /**
+     * Retry {@code callable}, telling {@code listener} the outcome and how long the last
+     * attempt took before returning or throwing.
+     */
+    public <T> T execute(Callable<T> callable, CallListener listener) {
         int attempt = 0;
         Duration delay = config.getInitialDelay();
         Exception lastException = null;
@@ -28,43 +51,124 @@ public class RetryExecutor {
         while (attempt < config.getMaxAttempts()) {
             attempt++;
 
+            long start = System.nanoTime();
             try {
-                return callable.call();
+                T result = callable.call();
+                listener.onSuccess(System.nanoTime() - start);
+                return result;
             } catch (Exception e) {
+                long attemptNanos = System.nanoTime() - start;
                 lastException = e;
 
                 if (shouldIgnore(e)) {
+                    listener.onFailure(attemptNanos);
                     throw new RuntimeException(e);
                 }
 
                 if (!shouldRetry(e) || attempt >= config.getMaxAttempts()) {
+                    listener.onFailure(attemptNanos);
                     throw new RuntimeException("Retry exhausted after " + attempt + " attempts", e);
                 }
 
                 logger.debug("Attempt {} failed, retrying in {}ms", attempt, delay.toMillis(), e);
 
                 try {
-                    // Add jitter to prevent thundering herd
-                    long jitter = ThreadLocalRandom.current().nextLong(delay.toMillis() / 4);
-                    Thread.sleep(delay.toMillis() + jitter);
+                    Thread.sleep(withJitter(delay));
                 } catch (InterruptedException ie) {
                     Thread.currentThread().interrupt();
                     throw new RuntimeException("Retry interrupted", ie);
                 }
 
-                // Exponential backoff
-                delay = Duration.ofMillis(
-                        Math.min(
-                                (long) (delay.toMillis() * config.getMultiplier()),
-                                config.getMaxDelay().toMillis()
-                        )
-                );
+                delay = nextDelay(delay);
             }
         }
 
+        listener.onFailure(0);
         throw new RuntimeException("Retry exhausted", lastException);
     }
 
+    /**
+     * Retry an asynchronous operation. Backoff delays are scheduled rather than slept,
+     * so no thread is held between attempts.
+     */
+    public <T> CompletableFuture<T> executeAsync(Supplier<? extends CompletionStage<T>> supplier) {
+        return executeAsync(supplier, NO_LISTENER);
+    }
+
+    /**
+     * Retry an asynchronous operation, telling {@code listener} the outcome and how long the
+     * last attempt took before the returned future completes.
+     */
+    public <T> CompletableFuture<T> executeAsync(Supplier<? extends CompletionStage<T>> supplier,
+                                                 CallListener listener) {
+        CompletableFuture<T> result = new CompletableFuture<>();
+        attemptAsync(supplier, listener, 1, config.getInitialDelay(), result);
+        return result;
+    }
+
+    private <T> void attemptAsync(Supplier<? extends CompletionStage<T>> supplier, CallListener listener,
+                                  int attempt, Duration delay, CompletableFuture<T> result) {
+        long start = System.nanoTime();
+        CompletionStage<T> stage;
+        try {
+            stage = supplier.get();
+        } catch (Exception e) {
+            stage = CompletableFuture.failedFuture(e);
+        }
+
+        stage.whenComplete((value, error) -> {
+            long attemptNanos = System.nanoTime() - start;
+            if (error == null) {
+                listener.onSuccess(attemptNanos);
+                result.complete(value);
+                return;
+            }
+
+            Throwable cause = error instanceof CompletionException && error.getCause() != null
+                    ? error.getCause() : error;
+            if (!(cause instanceof Exception e)) {
+                listener.onFailure(attemptNanos);
+                result.completeExceptionally(cause);
+                return;
+            }
+
+            if (shouldIgnore(e)) {
+                listener.onFailure(attemptNanos);
+                result.completeExceptionally(new RuntimeException(e));
+                return;
+            }
+
+            if (!shouldRetry(e) || attempt >= config.getMaxAttempts()) {
+                listener.onFailure(attemptNanos);
+                result.completeExceptionally(
+                        new RuntimeException("Retry exhausted after " + attempt + " attempts", e));
+                return;
+            }
+
+            logger.debug("Async attempt {} failed, retrying in {}ms", attempt, delay.toMillis(), e);
+
+            CompletableFuture.delayedExecutor(withJitter(delay), TimeUnit.MILLISECONDS)
+                    .execute(() -> attemptAsync(supplier, listener, attempt + 1, nextDelay(delay), result));
+        });
+    }
+
+    private long withJitter(Duration delay) {
+        // Add jitter to prevent thundering herd
+        long bound = delay.toMillis() / 4;
+        long jitter = bound > 0 ? ThreadLocalRandom.current().nextLong(bound) : 0;
+        return delay.toMillis() + jitter;
+    }
+
+    private Duration nextDelay(Duration delay) {
+        // Exponential backoff
+        return Duration.ofMillis(
+                Math.min(
+                        (long) (delay.toMillis() * config.getMultiplier()),
+                        config.getMaxDelay().toMillis()
+                )
+        );
+    }
+
     private boolean shouldRetry(Exception e) {
         if (config.getRetryableExceptions().isEmpty()) {
             // Retry all exceptions by default
@@ -92,4 +196,15 @@ public class RetryExecutor {
         return false;
     }
 
+    /**
+     * Told the outcome of a retried operation and how long its last attempt took, without
+     * the backoff before it.
+     */
+    public interface CallListener {
+
+        void onSuccess(long lastAttemptNanos);
+
+        void onFailure(long lastAttemptNanos);
+    }
+
 }
@@ -0,0 +1,96 @@
+package com.andyadc.skeleton.ncache.serialization;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+
+/**
+ * Reader counterpart of {@link BinaryOutput}, over a region of a byte array.
+ */
+public class BinaryInput {
+
+    private final byte[] buffer;
+    private final int limit;
+    private int position;
+
+    public BinaryInput(byte[] buffer) {
+        this(buffer, 0, buffer.length);
+    }
+
+    public BinaryInput(byte[] buffer, int offset, int length) {
+        this.buffer = buffer;
+        this.position = offset;
+        this.limit = offset + length;
+    }
+
+    public int readByte() {
+        if (position >= limit) {
+            throw new SerializationException("Unexpected end of input at " + position);
+        }
+        return buffer[position++] & 0xFF;
+    }
+
+    public byte[] readBytes(int length) {
+        checkAvailable(length);
+        byte[] bytes = Arrays.copyOfRange(buffer, position, position + length);
+        position += length;
+        return bytes;
+    }
+
+    public long readVarLong() {
+        long value = 0;
+        for (int shift = 0; shift < 64; shift += 7) {
+            int b = readByte();
+            value |= (long) (b & 0x7F) << shift;
+            if ((b & 0x80) == 0) {
+                return value;
+            }
+        }
+        throw new SerializationException("Malformed varint at " + position);
+    }
+
+    public int readVarInt() {
+        return (int) readVarLong();
+    }
+
+    public long readSignedVarLong() {
+        long value = readVarLong();
+        return (value >>> 1) ^ -(value & 1);
+    }
+
+    public long readFixedLong() {
+        checkAvailable(8);
+        long value = 0;
+        for (int i = 0; i < 8; i++) {
+            value = (value << 8) | (buffer[position++] & 0xFF);
+        }
+        return value;
+    }
+
+    public String readString() {
+        int length = readVarInt();
+        checkAvailable(length);
+        String value = new String(buffer, position, length, StandardCharsets.UTF_8);
+        position += length;
+        return value;
+    }
+
+    public void skip(int length) {
+        checkAvailable(length);
+        position += length;
+    }
+
+    public int position() {
+        return position;
+    }
+
+    public boolean hasRemaining() {
+        return position < limit;
+    }
+
+    private void checkAvailable(int length) {
+        if (length < 0 || position + length > limit) {
+            throw new SerializationException("Unexpected end of input at " + position);
+        }
+    }
+
+}
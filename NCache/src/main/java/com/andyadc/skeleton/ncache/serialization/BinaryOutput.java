@@ -0,0 +1,197 @@
+package com.andyadc.skeleton.ncache.serialization;
+
+import java.io.OutputStream;
+import java.util.Arrays;
+
+/**
+ * Growable byte buffer with varint and UTF-8 encoding.
+ * <p>
+ * Meant to be reused: callers {@link #reset()} it between values, typically through a
+ * thread-local, so encoding only allocates the final {@link #toByteArray()} copy.
+ */
+public class BinaryOutput extends OutputStream {
+
+    private byte[] buffer;
+    private int position;
+
+    public BinaryOutput(int initialCapacity) {
+        this.buffer = new byte[initialCapacity];
+    }
+
+    public void reset() {
+        position = 0;
+    }
+
+    public int size() {
+        return position;
+    }
+
+    public int capacity() {
+        return buffer.length;
+    }
+
+    @Override
+    public void write(int b) {
+        writeByte(b);
+    }
+
+    @Override
+    public void write(byte[] bytes, int offset, int length) {
+        ensureCapacity(length);
+        System.arraycopy(bytes, offset, buffer, position, length);
+        position += length;
+    }
+
+    public void writeByte(int value) {
+        ensureCapacity(1);
+        buffer[position++] = (byte) value;
+    }
+
+    public void writeBytes(byte[] bytes) {
+        write(bytes, 0, bytes.length);
+    }
+
+    /**
+     * Unsigned LEB128, 1 byte for values below 128.
+     */
+    public void writeVarLong(long value) {
+        ensureCapacity(10);
+        while ((value & ~0x7FL) != 0) {
+            buffer[position++] = (byte) ((value & 0x7F) | 0x80);
+            value >>>= 7;
+        }
+        buffer[position++] = (byte) value;
+    }
+
+    public void writeVarInt(int value) {
+        writeVarLong(Integer.toUnsignedLong(value));
+    }
+
+    /**
+     * ZigZag then varint, so small negative numbers stay small.
+     */
+    public void writeSignedVarLong(long value) {
+        writeVarLong((value << 1) ^ (value >> 63));
+    }
+
+    public void writeFixedLong(long value) {
+        ensureCapacity(8);
+        for (int i = 56; i >= 0; i -= 8) {
+            buffer[position++] = (byte) (value >>> i);
+        }
+    }
+
+    public void writeFixedInt(int value) {
+        ensureCapacity(4);
+        for (int i = 24; i >= 0; i -= 8) {
+            buffer[position++] = (byte) (value >>> i);
+        }
+    }
+
+    /**
+     * Varint UTF-8 length followed by the UTF-8 bytes.
+     */
+    public void writeString(String value) {
+        writeVarInt(utf8Length(value));
+        writeUtf8(value);
+    }
+
+    /**
+     * UTF-8 bytes of {@code value}, encoded in place without an intermediate array.
+     * Unpaired surrogates are written as '?', like {@link String#getBytes}.
+     */
+    public void writeUtf8(String value) {
+        int length = value.length();
+        ensureCapacity(length);
+        int i = 0;
+        // ASCII fast path
+        for (; i < length; i++) {
+            char c = value.charAt(i);
+            if (c >= 0x80) {
+                break;
+            }
+            buffer[position++] = (byte) c;
+        }
+        for (; i < length; i++) {
+            char c = value.charAt(i);
+            if (c < 0x80) {
+                writeByte(c);
+            } else if (c < 0x800) {
+                ensureCapacity(2);
+                buffer[position++] = (byte) (0xC0 | (c >> 6));
+                buffer[position++] = (byte) (0x80 | (c & 0x3F));
+            } else if (Character.isHighSurrogate(c) && i + 1 < length
+                    && Character.isLowSurrogate(value.charAt(i + 1))) {
+                int codePoint = Character.toCodePoint(c, value.charAt(++i));
+                ensureCapacity(4);
+                buffer[position++] = (byte) (0xF0 | (codePoint >> 18));
+                buffer[position++] = (byte) (0x80 | ((codePoint >> 12) & 0x3F));
+                buffer[position++] = (byte) (0x80 | ((codePoint >> 6) & 0x3F));
+                buffer[position++] = (byte) (0x80 | (codePoint & 0x3F));
+            } else if (Character.isSurrogate(c)) {
+                writeByte('?');
+            } else {
+                ensureCapacity(3);
+                buffer[position++] = (byte) (0xE0 | (c >> 12));
+                buffer[position++] = (byte) (0x80 | ((c >> 6) & 0x3F));
+                buffer[position++] = (byte) (0x80 | (c & 0x3F));
+            }
+        }
+    }
+
+    /**
+     * Decimal digits of {@code value} as ASCII, like {@code Long.toString(value)}.
+     */
+    public void writeDecimal(long value) {
+        if (value == Long.MIN_VALUE) {
+            writeUtf8("-9223372036854775808");
+            return;
+        }
+        ensureCapacity(20);
+        if (value < 0) {
+            buffer[position++] = '-';
+            value = -value;
+        }
+        int digits = 1;
+        for (long v = value; v >= 10; v /= 10) {
+            digits++;
+        }
+        for (int i = position + digits - 1; i >= position; i--) {
+            buffer[i] = (byte) ('0' + (value % 10));
+            value /= 10;
+        }
+        position += digits;
+    }
+
+    public byte[] toByteArray() {
+        return Arrays.copyOf(buffer, position);
+    }
+
+    private static int utf8Length(String value) {
+        int length = value.length();
+        int bytes = length;
+        for (int i = 0; i < length; i++) {
+            char c = value.charAt(i);
+            if (c >= 0x80) {
+                if (c < 0x800) {
+                    bytes++;
+                } else if (Character.isHighSurrogate(c) && i + 1 < length
+                        && Character.isLowSurrogate(value.charAt(i + 1))) {
+                    // 4 bytes for 2 chars
+                    bytes += 2;
+                    i++;
+                } else if (!Character.isSurrogate(c)) {
+                    bytes += 2;
+                }
+            }
+        }
+        return bytes;
+    }
+
+    private void ensureCapacity(int extra) {
+        if (position + extra > buffer.length) {
+            buffer = Arrays.copyOf(buffer, Math.max(buffer.length << 1, position + extra));
+        }
+    }
+
+}
@@ -0,0 +1,224 @@
+package com.andyadc.skeleton.ncache.serialization;
+
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.lang.reflect.*;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Field layout of a record or POJO, resolved once per class into method handles so that
+ * {@link BinarySerializer} does no reflection per call.
+ * <p>
+ * A field is identified on the wire by the hash of its name, so fields can be reordered,
+ * added or removed between versions of a class.
+ */
+final class BinarySchema {
+
+    private static final ClassValue<BinarySchema> SCHEMAS = new ClassValue<>() {
+        @Override
+        protected BinarySchema computeValue(Class<?> type) {
+            return new BinarySchema(type);
+        }
+    };
+
+    private static final MethodType GETTER_TYPE = MethodType.methodType(Object.class, Object.class);
+    private static final MethodType SETTER_TYPE = MethodType.methodType(void.class, Object.class, Object.class);
+
+    private final Class<?> type;
+    private final boolean record;
+    private final FieldSchema[] fields;
+    // Record: (Object[]) -> Object over the canonical constructor; POJO: () -> Object
+    private final MethodHandle constructor;
+    private final Object[] recordDefaults;
+
+    private BinarySchema(Class<?> type) {
+        this.type = type;
+        this.record = type.isRecord();
+        MethodHandles.Lookup lookup = MethodHandles.lookup();
+        try {
+            this.fields = record ? recordFields(type, lookup) : pojoFields(type, lookup);
+            checkUniqueIds();
+            if (record) {
+                Class<?>[] componentTypes = new Class<?>[fields.length];
+                recordDefaults = new Object[fields.length];
+                for (FieldSchema field : fields) {
+                    componentTypes[field.index] = field.type;
+                    recordDefaults[field.index] = defaultValue(field.type);
+                }
+                Constructor<?> canonical = type.getDeclaredConstructor(componentTypes);
+                canonical.setAccessible(true);
+                this.constructor = lookup.unreflectConstructor(canonical)
+                        .asSpreader(Object[].class, fields.length)
+                        .asType(MethodType.methodType(Object.class, Object[].class));
+            } else {
+                recordDefaults = null;
+                Constructor<?> noArg = type.getDeclaredConstructor();
+                noArg.setAccessible(true);
+                this.constructor = lookup.unreflectConstructor(noArg)
+                        .asType(MethodType.methodType(Object.class));
+            }
+        } catch (NoSuchMethodException e) {
+            throw new SerializationException("No usable constructor for " + type.getName()
+                    + ", POJOs need a no-arg constructor", e);
+        } catch (IllegalAccessException | RuntimeException e) {
+            throw new SerializationException("Unsupported type for binary serialization: " + type.getName(), e);
+        }
+    }
+
+    static BinarySchema of(Class<?> type) {
+        return SCHEMAS.get(type);
+    }
+
+    Class<?> type() {
+        return type;
+    }
+
+    FieldSchema[] fields() {
+        return fields;
+    }
+
+    /**
+     * Find the field with the given id, trying {@code hint} first since payloads written
+     * by the same class version list fields in schema order.
+     */
+    FieldSchema field(int id, int hint) {
+        if (hint < fields.length && fields[hint].id == id) {
+            return fields[hint];
+        }
+        for (FieldSchema field : fields) {
+            if (field.id == id) {
+                return field;
+            }
+        }
+        return null;
+    }
+
+    boolean isRecord() {
+        return record;
+    }
+
+    Object[] newRecordArguments() {
+        return recordDefaults.clone();
+    }
+
+    Object newRecord(Object[] arguments) throws Throwable {
+        return (Object) constructor.invokeExact(arguments);
+    }
+
+    Object newInstance() throws Throwable {
+        return (Object) constructor.invokeExact();
+    }
+
+    private static FieldSchema[] recordFields(Class<?> type, MethodHandles.Lookup lookup)
+            throws IllegalAccessException {
+        RecordComponent[] components = type.getRecordComponents();
+        FieldSchema[] fields = new FieldSchema[components.length];
+        for (int i = 0; i < components.length; i++) {
+            RecordComponent component = components[i];
+            Method accessor = component.getAccessor();
+            accessor.setAccessible(true);
+            fields[i] = new FieldSchema(component.getName(), i, component.getType(),
+                    component.getGenericType(), lookup.unreflect(accessor).asType(GETTER_TYPE), null);
+        }
+        return fields;
+    }
+
+    private static FieldSchema[] pojoFields(Class<?> type, MethodHandles.Lookup lookup)
+            throws IllegalAccessException {
+        List<FieldSchema> fields = new ArrayList<>();
+        for (Class<?> c = type; c != null && c != Object.class; c = c.getSuperclass()) {
+            for (Field field : c.getDeclaredFields()) {
+                int modifiers = field.getModifiers();
+                if (Modifier.isStatic(modifiers) || Modifier.isTransient(modifiers) || field.isSynthetic()) {
+                    continue;
+                }
+                if (Modifier.isFinal(modifiers)) {
+                    throw new SerializationException("Final field " + c.getName() + "." + field.getName()
+                            + " is not supported, use a record instead");
+                }
+                field.setAccessible(true);
+                fields.add(new FieldSchema(field.getName(), fields.size(), field.getType(), field.getGenericType(),
+                        lookup.unreflectGetter(field).asType(GETTER_TYPE),
+                        lookup.unreflectSetter(field).asType(SETTER_TYPE)));
+            }
+        }
+        return fields.toArray(new FieldSchema[0]);
+    }
+
+    private void checkUniqueIds() {
+        for (int i = 0; i < fields.length; i++) {
+            for (int j = i + 1; j < fields.length; j++) {
+                if (fields[i].id == fields[j].id) {
+                    throw new SerializationException("Fields " + fields[i].name + " and " + fields[j].name
+                            + " of " + type.getName() + " hash to the same id, rename one of them");
+                }
+            }
+        }
+    }
+
+    private static Object defaultValue(Class<?> type) {
+        return type.isPrimitive() ? Array.get(Array.newInstance(type, 1), 0) : null;
+    }
+
+    static final class FieldSchema {
+
+        final String name;
+        final int id;
+        final int index;
+        final Class<?> type;
+        // Boxed form of type, for checking values read off the wire
+        final Class<?> valueType;
+        // Element type of a collection, or key and value types of a map, when declared
+        final Class<?> elementType;
+        final Class<?> mapValueType;
+        final MethodHandle getter;
+        final MethodHandle setter;
+
+        FieldSchema(String name, int index, Class<?> type, Type genericType,
+                    MethodHandle getter, MethodHandle setter) {
+            this.name = name;
+            // 0 terminates an object on the wire
+            int hash = name.hashCode();
+            this.id = hash != 0 ? hash : 1;
+            this.index = index;
+            this.type = type;
+            this.valueType = type.isPrimitive() ? MethodType.methodType(type).wrap().returnType() : type;
+            this.elementType = typeArgument(genericType, 0, type);
+            this.mapValueType = Map.class.isAssignableFrom(type) ? typeArgument(genericType, 1, type) : null;
+            this.getter = getter;
+            this.setter = setter;
+        }
+
+        Object get(Object target) throws Throwable {
+            return (Object) getter.invokeExact(target);
+        }
+
+        void set(Object target, Object value) throws Throwable {
+            setter.invokeExact(target, value);
+        }
+
+        private static Class<?> typeArgument(Type genericType, int index, Class<?> rawType) {
+            if (!Collection.class.isAssignableFrom(rawType) && !Map.class.isAssignableFrom(rawType)) {
+                return null;
+            }
+            if (genericType instanceof ParameterizedType parameterized) {
+                Type[] arguments = parameterized.getActualTypeArguments();
+                if (index < arguments.length) {
+                    Type argument = arguments[index];
+                    if (argument instanceof Class<?> c) {
+                        return c;
+                    }
+                    if (argument instanceof ParameterizedType p && p.getRawType() instanceof Class<?> c) {
+                        return c;
+                    }
+                }
+            }
+            return Object.class;
+        }
+    }
+
+}
@@ -0,0 +1,490 @@
+package com.andyadc.skeleton.ncache.serialization;
+
+import com.andyadc.skeleton.ncache.serialization.BinarySchema.FieldSchema;
+
+import java.lang.reflect.Modifier;
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.time.*;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Compact binary serialization.
+ * <p>
+ * Every value is a one-byte tag followed by its payload. Integers use ZigZag varints, strings
+ * are length-prefixed UTF-8, and records and POJOs are a list of (field id, value) pairs
+ * ending in 0, driven by a per-class {@link BinarySchema} built once. Supported values:
+ * primitives and their wrappers, String, byte[], BigDecimal, BigInteger, UUID, enums,
+ * java.time (Instant, LocalDate, LocalTime, LocalDateTime, OffsetDateTime, ZonedDateTime,
+ * Duration), List, Set, Map, records, and POJOs with a no-arg constructor and non-final fields.
+ * A class name is written only when a value's class differs from the declared type.
+ * <p>
+ * Schema evolution: fields are matched by name, not position.
+ * <ul>
+ *     <li>Fields added since the payload was written read as null, 0 or false.</li>
+ *     <li>Fields no longer in the class are skipped.</li>
+ *     <li>Numeric fields may be widened or narrowed (e.g. int to long). Other type changes
+ *     and renames are not supported; a rename reads as a removal plus an addition.</li>
+ * </ul>
+ */
+public class BinarySerializer<T> implements Serializer<T> {
+
+    private static final int FORMAT_VERSION = 1;
+    private static final int INITIAL_BUFFER_SIZE = 256;
+
+    private static final int NULL = 0;
+    private static final int TRUE = 1;
+    private static final int FALSE = 2;
+    private static final int INT = 3;
+    private static final int LONG = 4;
+    private static final int SHORT = 5;
+    private static final int BYTE = 6;
+    private static final int CHAR = 7;
+    private static final int FLOAT = 8;
+    private static final int DOUBLE = 9;
+    private static final int STRING = 10;
+    private static final int BYTES = 11;
+    private static final int BIG_DECIMAL = 12;
+    private static final int BIG_INTEGER = 13;
+    private static final int UUID_TAG = 14;
+    private static final int INSTANT = 15;
+    private static final int LOCAL_DATE = 16;
+    private static final int LOCAL_TIME = 17;
+    private static final int LOCAL_DATE_TIME = 18;
+    private static final int DURATION = 19;
+    private static final int OFFSET_DATE_TIME = 20;
+    private static final int ZONED_DATE_TIME = 21;
+    private static final int ENUM = 22;
+    private static final int LIST = 23;
+    private static final int SET = 24;
+    private static final int MAP = 25;
+    private static final int OBJECT = 26;
+    // Class name, then the value as if that class were the declared type
+    private static final int TYPED = 27;
+
+    private static final Map<String, Class<?>> CLASSES_BY_NAME = new ConcurrentHashMap<>();
+
+    private final Class<T> type;
+
+    public BinarySerializer(Class<T> type) {
+        this.type = type;
+    }
+
+    @Override
+    public byte[] serialize(T object) throws SerializationException {
+        if (object == null) {
+            return null;
+        }
+
+        BinaryOutput out = new BinaryOutput(INITIAL_BUFFER_SIZE);
+        serialize(object, out);
+        return out.toByteArray();
+    }
+
+    @Override
+    public void serialize(T object, BinaryOutput out) throws SerializationException {
+        out.writeByte(FORMAT_VERSION);
+        try {
+            writeValue(out, object, type);
+        } catch (SerializationException e) {
+            throw e;
+        } catch (Throwable t) {
+            throw new SerializationException("Failed to serialize " + object.getClass().getName(), t);
+        }
+    }
+
+    @Override
+    public T deserialize(byte[] bytes) throws SerializationException {
+        if (bytes == null || bytes.length == 0) {
+            return null;
+        }
+        return deserialize(bytes, 0, bytes.length);
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public T deserialize(byte[] bytes, int offset, int length) throws SerializationException {
+        if (length == 0) {
+            return null;
+        }
+
+        BinaryInput in = new BinaryInput(bytes, offset, length);
+        int version = in.readByte();
+        if (version != FORMAT_VERSION) {
+            throw new SerializationException("Unsupported binary format version: " + version);
+        }
+        try {
+            return (T) readValue(in, type, null, null);
+        } catch (SerializationException e) {
+            throw e;
+        } catch (Throwable t) {
+            throw new SerializationException("Failed to deserialize " + type.getName(), t);
+        }
+    }
+
+    @Override
+    public String getContentType() {
+        return "application/x-ncache-binary";
+    }
+
+    // Writing
+
+    private static void writeValue(BinaryOutput out, Object value, Class<?> declared) throws Throwable {
+        writeValue(out, value, declared, null, null);
+    }
+
+    private static void writeValue(BinaryOutput out, Object value, Class<?> declared,
+                                   Class<?> elementType, Class<?> mapValueType) throws Throwable {
+        if (value == null) {
+            out.writeByte(NULL);
+        } else if (value instanceof String s) {
+            out.writeByte(STRING);
+            out.writeString(s);
+        } else if (value instanceof Integer i) {
+            out.writeByte(INT);
+            out.writeSignedVarLong(i);
+        } else if (value instanceof Long l) {
+            out.writeByte(LONG);
+            out.writeSignedVarLong(l);
+        } else if (value instanceof Boolean b) {
+            out.writeByte(b ? TRUE : FALSE);
+        } else if (value instanceof Double d) {
+            out.writeByte(DOUBLE);
+            out.writeFixedLong(Double.doubleToRawLongBits(d));
+        } else if (value instanceof Float f) {
+            out.writeByte(FLOAT);
+            out.writeVarInt(Float.floatToRawIntBits(f));
+        } else if (value instanceof Short s) {
+            out.writeByte(SHORT);
+            out.writeSignedVarLong(s);
+        } else if (value instanceof Byte b) {
+            out.writeByte(BYTE);
+            out.writeByte(b);
+        } else if (value instanceof Character c) {
+            out.writeByte(CHAR);
+            out.writeVarInt(c);
+        } else if (value instanceof byte[] bytes) {
+            out.writeByte(BYTES);
+            out.writeVarInt(bytes.length);
+            out.writeBytes(bytes);
+        } else if (value instanceof BigDecimal d) {
+            out.writeByte(BIG_DECIMAL);
+            out.writeSignedVarLong(d.scale());
+            byte[] unscaled = d.unscaledValue().toByteArray();
+            out.writeVarInt(unscaled.length);
+            out.writeBytes(unscaled);
+        } else if (value instanceof BigInteger i) {
+            out.writeByte(BIG_INTEGER);
+            byte[] bytes = i.toByteArray();
+            out.writeVarInt(bytes.length);
+            out.writeBytes(bytes);
+        } else if (value instanceof UUID u) {
+            out.writeByte(UUID_TAG);
+            out.writeFixedLong(u.getMostSignificantBits());
+            out.writeFixedLong(u.getLeastSignificantBits());
+        } else if (value instanceof Instant i) {
+            out.writeByte(INSTANT);
+            out.writeSignedVarLong(i.getEpochSecond());
+            out.writeVarInt(i.getNano());
+        } else if (value instanceof LocalDate d) {
+            out.writeByte(LOCAL_DATE);
+            out.writeSignedVarLong(d.toEpochDay());
+        } else if (value instanceof LocalTime t) {
+            out.writeByte(LOCAL_TIME);
+            out.writeVarLong(t.toNanoOfDay());
+        } else if (value instanceof LocalDateTime dt) {
+            out.writeByte(LOCAL_DATE_TIME);
+            writeLocalDateTime(out, dt);
+        } else if (value instanceof Duration d) {
+            out.writeByte(DURATION);
+            out.writeSignedVarLong(d.getSeconds());
+            out.writeVarInt(d.getNano());
+        } else if (value instanceof OffsetDateTime dt) {
+            out.writeByte(OFFSET_DATE_TIME);
+            writeLocalDateTime(out, dt.toLocalDateTime());
+            out.writeSignedVarLong(dt.getOffset().getTotalSeconds());
+        } else if (value instanceof ZonedDateTime dt) {
+            out.writeByte(ZONED_DATE_TIME);
+            writeLocalDateTime(out, dt.toLocalDateTime());
+            out.writeSignedVarLong(dt.getOffset().getTotalSeconds());
+            out.writeString(dt.getZone().getId());
+        } else if (value instanceof Enum<?> e) {
+            if (e.getDeclaringClass() != declared) {
+                writeTyped(out, e.getDeclaringClass());
+            }
+            out.writeByte(ENUM);
+            out.writeString(e.name());
+        } else if (value instanceof Collection<?> collection) {
+            out.writeByte(value instanceof Set ? SET : LIST);
+            out.writeVarInt(collection.size());
+            Class<?> element = elementType != null ? elementType : Object.class;
+            for (Object item : collection) {
+                writeValue(out, item, element);
+            }
+        } else if (value instanceof Map<?, ?> map) {
+            out.writeByte(MAP);
+            out.writeVarInt(map.size());
+            Class<?> keyType = elementType != null ? elementType : Object.class;
+            Class<?> valueType = mapValueType != null ? mapValueType : Object.class;
+            for (Map.Entry<?, ?> entry : map.entrySet()) {
+                writeValue(out, entry.getKey(), keyType);
+                writeValue(out, entry.getValue(), valueType);
+            }
+        } else {
+            writeObject(out, value, declared);
+        }
+    }
+
+    private static void writeObject(BinaryOutput out, Object value, Class<?> declared) throws Throwable {
+        Class<?> actual = value.getClass();
+        if (actual.isArray()) {
+            throw new SerializationException("Arrays other than byte[] are not supported: " + actual.getName());
+        }
+        if (actual != declared) {
+            writeTyped(out, actual);
+        }
+
+        BinarySchema schema = BinarySchema.of(actual);
+        out.writeByte(OBJECT);
+        for (FieldSchema field : schema.fields()) {
+            Object fieldValue = field.get(value);
+            if (fieldValue != null) {
+                out.writeVarInt(field.id);
+                writeValue(out, fieldValue, field.type, field.elementType, field.mapValueType);
+            }
+        }
+        out.writeVarInt(0);
+    }
+
+    private static void writeTyped(BinaryOutput out, Class<?> type) {
+        out.writeByte(TYPED);
+        out.writeString(type.getName());
+    }
+
+    private static void writeLocalDateTime(BinaryOutput out, LocalDateTime dateTime) {
+        out.writeSignedVarLong(dateTime.toLocalDate().toEpochDay());
+        out.writeVarLong(dateTime.toLocalTime().toNanoOfDay());
+    }
+
+    // Reading
+
+    private static Object readValue(BinaryInput in, Class<?> declared,
+                                    Class<?> elementType, Class<?> mapValueType) throws Throwable {
+        int tag = in.readByte();
+        return switch (tag) {
+            case NULL -> null;
+            case TRUE -> Boolean.TRUE;
+            case FALSE -> Boolean.FALSE;
+            case INT -> (int) in.readSignedVarLong();
+            case LONG -> in.readSignedVarLong();
+            case SHORT -> (short) in.readSignedVarLong();
+            case BYTE -> (byte) in.readByte();
+            case CHAR -> (char) in.readVarInt();
+            case FLOAT -> Float.intBitsToFloat(in.readVarInt());
+            case DOUBLE -> Double.longBitsToDouble(in.readFixedLong());
+            case STRING -> in.readString();
+            case BYTES -> in.readBytes(in.readVarInt());
+            case BIG_DECIMAL -> {
+                int scale = (int) in.readSignedVarLong();
+                yield new BigDecimal(new BigInteger(in.readBytes(in.readVarInt())), scale);
+            }
+            case BIG_INTEGER -> new BigInteger(in.readBytes(in.readVarInt()));
+            case UUID_TAG -> new UUID(in.readFixedLong(), in.readFixedLong());
+            case INSTANT -> Instant.ofEpochSecond(in.readSignedVarLong(), in.readVarInt());
+            case LOCAL_DATE -> LocalDate.ofEpochDay(in.readSignedVarLong());
+            case LOCAL_TIME -> LocalTime.ofNanoOfDay(in.readVarLong());
+            case LOCAL_DATE_TIME -> readLocalDateTime(in);
+            case DURATION -> Duration.ofSeconds(in.readSignedVarLong(), in.readVarInt());
+            case OFFSET_DATE_TIME -> OffsetDateTime.of(readLocalDateTime(in),
+                    ZoneOffset.ofTotalSeconds((int) in.readSignedVarLong()));
+            case ZONED_DATE_TIME -> {
+                LocalDateTime dateTime = readLocalDateTime(in);
+                ZoneOffset offset = ZoneOffset.ofTotalSeconds((int) in.readSignedVarLong());
+                yield ZonedDateTime.ofStrict(dateTime, offset, ZoneId.of(in.readString()));
+            }
+            case ENUM -> readEnum(in, declared);
+            case LIST, SET -> readCollection(in, tag, declared, elementType);
+            case MAP -> readMap(in, declared, elementType, mapValueType);
+            case OBJECT -> readObject(in, declared);
+            case TYPED -> readValue(in, classForName(in.readString()), null, null);
+            default -> throw new SerializationException("Unknown binary tag: " + tag);
+        };
+    }
+
+    @SuppressWarnings({"unchecked", "rawtypes"})
+    private static Object readEnum(BinaryInput in, Class<?> declared) {
+        String name = in.readString();
+        if (declared == null || !declared.isEnum()) {
+            throw new SerializationException("Enum constant " + name + " without a declared enum type");
+        }
+        return Enum.valueOf((Class<? extends Enum>) declared, name);
+    }
+
+    private static Collection<Object> readCollection(BinaryInput in, int tag, Class<?> declared,
+                                                     Class<?> elementType) throws Throwable {
+        int size = in.readVarInt();
+        Collection<Object> collection;
+        if (declared != null && SortedSet.class.isAssignableFrom(declared)) {
+            collection = new TreeSet<>();
+        } else if (tag == SET || (declared != null && Set.class.isAssignableFrom(declared))) {
+            collection = new LinkedHashSet<>(Math.max(16, (int) (size / 0.75f) + 1));
+        } else {
+            collection = new ArrayList<>(size);
+        }
+
+        Class<?> element = elementType != null ? elementType : Object.class;
+        for (int i = 0; i < size; i++) {
+            collection.add(readValue(in, element, null, null));
+        }
+        return collection;
+    }
+
+    private static Map<Object, Object> readMap(BinaryInput in, Class<?> declared,
+                                               Class<?> keyType, Class<?> valueType) throws Throwable {
+        int size = in.readVarInt();
+        Map<Object, Object> map = declared != null && SortedMap.class.isAssignableFrom(declared)
+                ? new TreeMap<>()
+                : new LinkedHashMap<>(Math.max(16, (int) (size / 0.75f) + 1));
+
+        Class<?> key = keyType != null ? keyType : Object.class;
+        Class<?> value = valueType != null ? valueType : Object.class;
+        for (int i = 0; i < size; i++) {
+            map.put(readValue(in, key, null, null), readValue(in, value, null, null));
+        }
+        return map;
+    }
+
+    private static Object readObject(BinaryInput in, Class<?> declared) throws Throwable {
+        if (declared == null || declared == Object.class || declared.isInterface()
+                || Modifier.isAbstract(declared.getModifiers())) {
+            throw new SerializationException("Object without a concrete declared type");
+        }
+
+        BinarySchema schema = BinarySchema.of(declared);
+        if (schema.isRecord()) {
+            Object[] arguments = schema.newRecordArguments();
+            int hint = 0;
+            for (int id = in.readVarInt(); id != 0; id = in.readVarInt(), hint++) {
+                FieldSchema field = schema.field(id, hint);
+                if (field == null) {
+                    skipValue(in);
+                    continue;
+                }
+                Object value = readField(in, field);
+                if (value != null) {
+                    arguments[field.index] = value;
+                }
+            }
+            return schema.newRecord(arguments);
+        }
+
+        Object instance = schema.newInstance();
+        int hint = 0;
+        for (int id = in.readVarInt(); id != 0; id = in.readVarInt(), hint++) {
+            FieldSchema field = schema.field(id, hint);
+            if (field == null) {
+                skipValue(in);
+                continue;
+            }
+            Object value = readField(in, field);
+            if (value != null || !field.type.isPrimitive()) {
+                field.set(instance, value);
+            }
+        }
+        return instance;
+    }
+
+    private static Object readField(BinaryInput in, FieldSchema field) throws Throwable {
+        Object value = readValue(in, field.type, field.elementType, field.mapValueType);
+        if (value != null && !field.valueType.isInstance(value) && value instanceof Number number) {
+            return convertNumber(number, field.valueType);
+        }
+        return value;
+    }
+
+    private static Object convertNumber(Number number, Class<?> target) {
+        if (target == Long.class) {
+            return number.longValue();
+        } else if (target == Integer.class) {
+            return number.intValue();
+        } else if (target == Short.class) {
+            return number.shortValue();
+        } else if (target == Byte.class) {
+            return number.byteValue();
+        } else if (target == Double.class) {
+            return number.doubleValue();
+        } else if (target == Float.class) {
+            return number.floatValue();
+        }
+        return number;
+    }
+
+    private static LocalDateTime readLocalDateTime(BinaryInput in) {
+        LocalDate date = LocalDate.ofEpochDay(in.readSignedVarLong());
+        return LocalDateTime.of(date, LocalTime.ofNanoOfDay(in.readVarLong()));
+    }
+
+    private static void skipValue(BinaryInput in) {
+        int tag = in.readByte();
+        switch (tag) {
+            case NULL, TRUE, FALSE -> {
+            }
+            case INT, LONG, SHORT, CHAR, FLOAT, LOCAL_DATE, LOCAL_TIME -> in.readVarLong();
+            case BYTE -> in.readByte();
+            case DOUBLE -> in.skip(8);
+            case UUID_TAG -> in.skip(16);
+            case STRING, BYTES, BIG_INTEGER, ENUM -> in.skip(in.readVarInt());
+            case BIG_DECIMAL -> {
+                in.readVarLong();
+                in.skip(in.readVarInt());
+            }
+            case INSTANT, LOCAL_DATE_TIME, DURATION -> {
+                in.readVarLong();
+                in.readVarLong();
+            }
+            case OFFSET_DATE_TIME, ZONED_DATE_TIME -> {
+                in.readVarLong();
+                in.readVarLong();
+                in.readVarLong();
+                if (tag == ZONED_DATE_TIME) {
+                    in.skip(in.readVarInt());
+                }
+            }
+            case LIST, SET -> {
+                int size = in.readVarInt();
+                for (int i = 0; i < size; i++) {
+                    skipValue(in);
+                }
+            }
+            case MAP -> {
+                int size = in.readVarInt();
+                for (int i = 0; i < size * 2; i++) {
+                    skipValue(in);
+                }
+            }
+            case OBJECT -> {
+                while (in.readVarInt() != 0) {
+                    skipValue(in);
+                }
+            }
+            case TYPED -> {
+                in.skip(in.readVarInt());
+                skipValue(in);
+            }
+            default -> throw new SerializationException("Unknown binary tag: " + tag);
+        }
+    }
+
+    private static Class<?> classForName(String name) {
+        return CLASSES_BY_NAME.computeIfAbsent(name, n -> {
+            try {
+                ClassLoader loader = Thread.currentThread().getContextClassLoader();
+                return Class.forName(n, false, loader != null ? loader : BinarySerializer.class.getClassLoader());
+            } catch (ClassNotFoundException e) {
+                throw new SerializationException("Unknown class in binary payload: " + n, e);
+            }
+        });
+    }
+
+}
@@ -23,13 +23,31 @@ public class JdkSerializer<T> implements Serializer<T> {
     }
 
     @Override
-    @SuppressWarnings("unchecked")
+    public void serialize(T object, BinaryOutput out) throws SerializationException {
+        try (ObjectOutputStream oos = new ObjectOutputStream(out)) {
+            oos.writeObject(object);
+        } catch (IOException e) {
+            throw new SerializationException("Failed to serialize object", e);
+        }
+    }
+
+    @Override
     public T deserialize(byte[] bytes) throws SerializationException {
         if (bytes == null || bytes.length == 0) {
             return null;
         }
 
-        try (ByteArrayInputStream bais = new ByteArrayInputStream(bytes);
+        return deserialize(bytes, 0, bytes.length);
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public T deserialize(byte[] bytes, int offset, int length) throws SerializationException {
+        if (length == 0) {
+            return null;
+        }
+
+        try (ByteArrayInputStream bais = new ByteArrayInputStream(bytes, offset, length);
              ObjectInputStream ois = new ObjectInputStream(bais)) {
             return (T) ois.readObject();
         } catch (IOException | ClassNotFoundException e) {
@@ -9,6 +9,7 @@ import com.fasterxml.jackson.databind.jsontype.impl.LaissezFaireSubTypeValidator
 import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
 
 import java.io.IOException;
+import java.io.OutputStream;
 
 /**
  * JSON serialization using Jackson.
@@ -61,14 +62,32 @@ public class JsonSerializer<T> implements Serializer<T> {
         }
     }
 
+    @Override
+    public void serialize(T object, BinaryOutput out) throws SerializationException {
+        try {
+            objectMapper.writeValue((OutputStream) out, object);
+        } catch (IOException e) {
+            throw new SerializationException("Failed to serialize to JSON", e);
+        }
+    }
+
     @Override
     public T deserialize(byte[] bytes) throws SerializationException {
         if (bytes == null || bytes.length == 0) {
             return null;
         }
 
+        return deserialize(bytes, 0, bytes.length);
+    }
+
+    @Override
+    public T deserialize(byte[] bytes, int offset, int length) throws SerializationException {
+        if (length == 0) {
+            return null;
+        }
+
         try {
-            return objectMapper.readValue(bytes, type);
+            return objectMapper.readValue(bytes, offset, length, type);
         } catch (IOException e) {
             throw new SerializationException("Failed to deserialize from JSON", e);
         }
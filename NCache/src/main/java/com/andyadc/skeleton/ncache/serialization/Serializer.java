@@ -15,6 +15,27 @@ public interface Serializer<T> {
      */
     T deserialize(byte[] bytes) throws SerializationException;
 
+    /**
+     * Serialize object into a (usually reused) buffer. Override to write directly
+     * instead of copying the result of {@link #serialize(Object)}.
+     */
+    default void serialize(T object, BinaryOutput out) throws SerializationException {
+        byte[] bytes = serialize(object);
+        if (bytes != null) {
+            out.writeBytes(bytes);
+        }
+    }
+
+    /**
+     * Deserialize a region of a byte array. Override to read in place instead of copying.
+     */
+    default T deserialize(byte[] bytes, int offset, int length) throws SerializationException {
+        if (offset == 0 && length == bytes.length) {
+            return deserialize(bytes);
+        }
+        return deserialize(java.util.Arrays.copyOfRange(bytes, offset, offset + length));
+    }
+
     /**
      * Get content type identifier.
      */
@@ -0,0 +1,76 @@
+package com.andyadc.skeleton.ncache.serialization;
+
+import java.nio.charset.StandardCharsets;
+import java.util.UUID;
+
+/**
+ * Key serializer writing keys as their UTF-8 text, which keeps Redis keys readable.
+ * <p>
+ * String, integral and UUID keys are encoded straight into the output buffer without
+ * intermediate strings or arrays; other keys use {@code toString()}. Keys read back
+ * as {@link String}, so only use this where keys are not deserialized into other types.
+ */
+public class TextKeySerializer<K> implements Serializer<K> {
+
+    private static final byte[] HEX = "0123456789abcdef".getBytes(StandardCharsets.US_ASCII);
+
+    @Override
+    public byte[] serialize(K key) throws SerializationException {
+        if (key == null) {
+            return null;
+        }
+
+        BinaryOutput out = new BinaryOutput(32);
+        serialize(key, out);
+        return out.toByteArray();
+    }
+
+    @Override
+    public void serialize(K key, BinaryOutput out) throws SerializationException {
+        if (key instanceof String s) {
+            out.writeUtf8(s);
+        } else if (key instanceof Long || key instanceof Integer || key instanceof Short || key instanceof Byte) {
+            out.writeDecimal(((Number) key).longValue());
+        } else if (key instanceof UUID uuid) {
+            writeUuid(uuid, out);
+        } else {
+            out.writeUtf8(String.valueOf(key));
+        }
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public K deserialize(byte[] bytes) throws SerializationException {
+        if (bytes == null) {
+            return null;
+        }
+        return (K) new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    @Override
+    public String getContentType() {
+        return "text/plain";
+    }
+
+    // Same layout as UUID.toString(): 8-4-4-4-12 lowercase hex digits
+    private static void writeUuid(UUID uuid, BinaryOutput out) {
+        long msb = uuid.getMostSignificantBits();
+        long lsb = uuid.getLeastSignificantBits();
+        writeHex(msb >>> 32, 8, out);
+        out.writeByte('-');
+        writeHex(msb >>> 16, 4, out);
+        out.writeByte('-');
+        writeHex(msb, 4, out);
+        out.writeByte('-');
+        writeHex(lsb >>> 48, 4, out);
+        out.writeByte('-');
+        writeHex(lsb, 12, out);
+    }
+
+    private static void writeHex(long value, int digits, BinaryOutput out) {
+        for (int shift = (digits - 1) * 4; shift >= 0; shift -= 4) {
+            out.writeByte(HEX[(int) (value >>> shift) & 0xF]);
+        }
+    }
+
+}
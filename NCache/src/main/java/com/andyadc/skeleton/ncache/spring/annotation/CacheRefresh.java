@@ -0,0 +1,40 @@
+package com.andyadc.skeleton.ncache.spring.annotation;
+
+import java.lang.annotation.Documented;
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * Put the return value of the annotated method into the named two-level caches after
+ * every call, e.g. on methods that update the backing store.
+ */
+@Target(ElementType.METHOD)
+@Retention(RetentionPolicy.RUNTIME)
+@Documented
+public @interface CacheRefresh {
+
+    /**
+     * Names of the caches to refresh.
+     */
+    String[] value() default {};
+
+    /**
+     * SpEL expression over the method arguments giving the key; by default the only
+     * argument, or a hash of all of them.
+     */
+    String key() default "";
+
+    /**
+     * SpEL expression that must be true for the caches to be refreshed; the return value
+     * is available as {@code #result}.
+     */
+    String condition() default "";
+
+    /**
+     * Write the caches without waiting for it.
+     */
+    boolean async() default false;
+
+}
@@ -20,7 +20,6 @@ import org.springframework.expression.spel.standard.SpelExpressionParser;
 import org.springframework.stereotype.Component;
 
 import java.lang.reflect.Method;
-import java.util.concurrent.CompletableFuture;
 
 /**
  * Aspect to handle custom two-level cache annotations.
@@ -65,12 +64,12 @@ public class TwoLevelCacheAspect {
             Cache<Object, Object> cache = cacheManager.getCache(cacheName);
 
             if (cacheRefresh.async()) {
-                CompletableFuture.runAsync(() -> {
-                    try {
-                        cache.put(key, result);
-                        logger.debug("Async cache refresh for key {} in cache {}", key, cacheName);
-                    } catch (Exception e) {
+                // Runs on the cache's own async executor rather than the common pool
+                cache.putAsync(key, result).whenComplete((v, e) -> {
+                    if (e != null) {
                         logger.error("Failed to refresh cache {} for key {}", cacheName, key, e);
+                    } else {
+                        logger.debug("Async cache refresh for key {} in cache {}", key, cacheName);
                     }
                 });
             } else {
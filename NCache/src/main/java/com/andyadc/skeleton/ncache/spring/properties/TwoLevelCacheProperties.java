@@ -2,6 +2,7 @@ package com.andyadc.skeleton.ncache.spring.properties;
 
 import org.springframework.boot.context.properties.ConfigurationProperties;
 import org.springframework.boot.context.properties.NestedConfigurationProperty;
+import org.springframework.util.unit.DataSize;
 
 import java.time.Duration;
 import java.util.ArrayList;
@@ -35,6 +36,40 @@ public class TwoLevelCacheProperties {
      */
     private boolean sync = true;
 
+    /**
+     * How invalidations reach other nodes: PUBSUB, STREAM to replay what a node
+     * missed while disconnected, or TRACKING to let Redis client tracking report changed
+     * keys without any publishing (needs the LETTUCE client and Redis 6+).
+     */
+    private String syncTransport = "PUBSUB";
+
+    /**
+     * TRACKING transport mode: DEFAULT reports only keys this node read or wrote,
+     * BROADCAST reports every change under the L2 key prefix.
+     */
+    private String syncTrackingMode = "DEFAULT";
+
+    /**
+     * Approximate number of entries kept in the STREAM transport's stream.
+     */
+    private long syncStreamMaxLength = 100_000;
+
+    /**
+     * PUBSUB message format: TEXT, or BINARY for coalesced invalidation frames.
+     * Switch only once every node can decode BINARY. STREAM always uses frames.
+     */
+    private String syncProtocol = "TEXT";
+
+    /**
+     * How long BINARY or STREAM invalidations of a cache are collected into one frame.
+     */
+    private Duration syncCoalesceWindow = Duration.ofMillis(2);
+
+    /**
+     * Maximum keys per BINARY frame; a full frame is published before the window ends.
+     */
+    private int syncCoalesceMaxKeys = 256;
+
     /**
      * Enable statistics collection.
      */
@@ -50,6 +85,12 @@ public class TwoLevelCacheProperties {
      */
     private Duration nullValueTtl = Duration.ofMinutes(1);
 
+    /**
+     * Threads for async operations, refreshes, preloads and sync listeners: PLATFORM or VIRTUAL.
+     * VIRTUAL needs JDK 21+ and falls back to PLATFORM otherwise.
+     */
+    private String executorMode = "PLATFORM";
+
     /**
      * L1 (local) cache configuration.
      */
@@ -74,6 +115,30 @@ public class TwoLevelCacheProperties {
     @NestedConfigurationProperty
     private ResilienceProperties resilience = new ResilienceProperties();
 
+    /**
+     * Off-heap tier between L1 and L2.
+     */
+    @NestedConfigurationProperty
+    private OffHeapProperties offHeap = new OffHeapProperties();
+
+    /**
+     * L1 snapshot for warm restarts.
+     */
+    @NestedConfigurationProperty
+    private SnapshotProperties snapshot = new SnapshotProperties();
+
+    /**
+     * Hot-key detection and pinning.
+     */
+    @NestedConfigurationProperty
+    private HotKeyProperties hotKeys = new HotKeyProperties();
+
+    /**
+     * Bloom filter of existing keys, short-circuiting reads of absent ones.
+     */
+    @NestedConfigurationProperty
+    private BloomFilterProperties bloomFilter = new BloomFilterProperties();
+
     /**
      * Per-cache configuration overrides.
      */
@@ -112,6 +177,54 @@ public class TwoLevelCacheProperties {
         this.sync = sync;
     }
 
+    public String getSyncTransport() {
+        return syncTransport;
+    }
+
+    public void setSyncTransport(String syncTransport) {
+        this.syncTransport = syncTransport;
+    }
+
+    public String getSyncTrackingMode() {
+        return syncTrackingMode;
+    }
+
+    public void setSyncTrackingMode(String syncTrackingMode) {
+        this.syncTrackingMode = syncTrackingMode;
+    }
+
+    public long getSyncStreamMaxLength() {
+        return syncStreamMaxLength;
+    }
+
+    public void setSyncStreamMaxLength(long syncStreamMaxLength) {
+        this.syncStreamMaxLength = syncStreamMaxLength;
+    }
+
+    public String getSyncProtocol() {
+        return syncProtocol;
+    }
+
+    public void setSyncProtocol(String syncProtocol) {
+        this.syncProtocol = syncProtocol;
+    }
+
+    public Duration getSyncCoalesceWindow() {
+        return syncCoalesceWindow;
+    }
+
+    public void setSyncCoalesceWindow(Duration syncCoalesceWindow) {
+        this.syncCoalesceWindow = syncCoalesceWindow;
+    }
+
+    public int getSyncCoalesceMaxKeys() {
+        return syncCoalesceMaxKeys;
+    }
+
+    public void setSyncCoalesceMaxKeys(int syncCoalesceMaxKeys) {
+        this.syncCoalesceMaxKeys = syncCoalesceMaxKeys;
+    }
+
     public boolean isStatisticsEnabled() {
         return statisticsEnabled;
     }
@@ -136,6 +249,14 @@ public class TwoLevelCacheProperties {
         this.nullValueTtl = nullValueTtl;
     }
 
+    public String getExecutorMode() {
+        return executorMode;
+    }
+
+    public void setExecutorMode(String executorMode) {
+        this.executorMode = executorMode;
+    }
+
     public L1Properties getL1() {
         return l1;
     }
@@ -168,6 +289,38 @@ public class TwoLevelCacheProperties {
         this.resilience = resilience;
     }
 
+    public OffHeapProperties getOffHeap() {
+        return offHeap;
+    }
+
+    public void setOffHeap(OffHeapProperties offHeap) {
+        this.offHeap = offHeap;
+    }
+
+    public SnapshotProperties getSnapshot() {
+        return snapshot;
+    }
+
+    public void setSnapshot(SnapshotProperties snapshot) {
+        this.snapshot = snapshot;
+    }
+
+    public HotKeyProperties getHotKeys() {
+        return hotKeys;
+    }
+
+    public void setHotKeys(HotKeyProperties hotKeys) {
+        this.hotKeys = hotKeys;
+    }
+
+    public BloomFilterProperties getBloomFilter() {
+        return bloomFilter;
+    }
+
+    public void setBloomFilter(BloomFilterProperties bloomFilter) {
+        this.bloomFilter = bloomFilter;
+    }
+
     public Map<String, CacheInstanceProperties> getCaches() {
         return caches;
     }
@@ -182,8 +335,21 @@ public class TwoLevelCacheProperties {
     public static class L1Properties {
         private boolean enabled = true;
         private long maximumSize = 10000;
+        /**
+         * Bound L1 by estimated bytes instead of maximum-size; unset by default.
+         */
+        private DataSize maximumWeight;
+        /**
+         * How entries are weighed for maximum-weight: ESTIMATED (heap size estimate of
+         * strings, arrays, boxed values and collections) or SERIALIZED (value serializer length).
+         */
+        private String weigher = "ESTIMATED";
         private Duration expireAfterWrite = Duration.ofMinutes(10);
         private Duration expireAfterAccess;
+        /**
+         * Fraction of the TTL, up to which L1 expiry is brought forward at random.
+         */
+        private double ttlJitter = 0;
         private int initialCapacity = 256;
         private boolean recordStats = true;
         private boolean weakKeys = false;
@@ -205,6 +371,22 @@ public class TwoLevelCacheProperties {
             this.maximumSize = maximumSize;
         }
 
+        public DataSize getMaximumWeight() {
+            return maximumWeight;
+        }
+
+        public void setMaximumWeight(DataSize maximumWeight) {
+            this.maximumWeight = maximumWeight;
+        }
+
+        public String getWeigher() {
+            return weigher;
+        }
+
+        public void setWeigher(String weigher) {
+            this.weigher = weigher;
+        }
+
         public Duration getExpireAfterWrite() {
             return expireAfterWrite;
         }
@@ -221,6 +403,14 @@ public class TwoLevelCacheProperties {
             this.expireAfterAccess = expireAfterAccess;
         }
 
+        public double getTtlJitter() {
+            return ttlJitter;
+        }
+
+        public void setTtlJitter(double ttlJitter) {
+            this.ttlJitter = ttlJitter;
+        }
+
         public int getInitialCapacity() {
             return initialCapacity;
         }
@@ -306,6 +496,9 @@ public class TwoLevelCacheProperties {
 
         public static class CompressionProperties {
             private boolean enabled = false;
+            /**
+             * Compression algorithm: GZIP or DEFLATE.
+             */
             private String type = "GZIP";
             private int threshold = 1024;
 
@@ -339,6 +532,10 @@ public class TwoLevelCacheProperties {
      * Redis properties.
      */
     public static class RedisProperties {
+        /**
+         * Client backing the L2 tier: JEDIS or LETTUCE.
+         */
+        private String client = "JEDIS";
         private String host = "localhost";
         private int port = 6379;
         private String password;
@@ -358,6 +555,14 @@ public class TwoLevelCacheProperties {
         @NestedConfigurationProperty
         private SslProperties ssl = new SslProperties();
 
+        public String getClient() {
+            return client;
+        }
+
+        public void setClient(String client) {
+            this.client = client;
+        }
+
         public String getHost() {
             return host;
         }
@@ -568,6 +773,190 @@ public class TwoLevelCacheProperties {
         }
     }
 
+    /**
+     * Off-heap tier properties.
+     */
+    public static class OffHeapProperties {
+        private boolean enabled = false;
+        private DataSize capacity = DataSize.ofMegabytes(256);
+        /**
+         * DIRECT or MAPPED.
+         */
+        private String storage = "DIRECT";
+        /**
+         * Directory for MAPPED segment files; defaults to the temp directory.
+         */
+        private String directory;
+        private int segments = 16;
+
+        public boolean isEnabled() {
+            return enabled;
+        }
+
+        public void setEnabled(boolean enabled) {
+            this.enabled = enabled;
+        }
+
+        public DataSize getCapacity() {
+            return capacity;
+        }
+
+        public void setCapacity(DataSize capacity) {
+            this.capacity = capacity;
+        }
+
+        public String getStorage() {
+            return storage;
+        }
+
+        public void setStorage(String storage) {
+            this.storage = storage;
+        }
+
+        public String getDirectory() {
+            return directory;
+        }
+
+        public void setDirectory(String directory) {
+            this.directory = directory;
+        }
+
+        public int getSegments() {
+            return segments;
+        }
+
+        public void setSegments(int segments) {
+            this.segments = segments;
+        }
+    }
+
+    /**
+     * L1 snapshot properties.
+     */
+    public static class SnapshotProperties {
+        private boolean enabled = false;
+        private String directory;
+        /**
+         * Snapshots older than this are ignored, as invalidations sent meanwhile were missed.
+         */
+        private Duration maxAge = Duration.ofMinutes(10);
+
+        public boolean isEnabled() {
+            return enabled;
+        }
+
+        public void setEnabled(boolean enabled) {
+            this.enabled = enabled;
+        }
+
+        public String getDirectory() {
+            return directory;
+        }
+
+        public void setDirectory(String directory) {
+            this.directory = directory;
+        }
+
+        public Duration getMaxAge() {
+            return maxAge;
+        }
+
+        public void setMaxAge(Duration maxAge) {
+            this.maxAge = maxAge;
+        }
+    }
+
+    /**
+     * Bloom filter properties. Reads are only short-circuited once the filter has been
+     * rebuilt from every existing key.
+     */
+    public static class BloomFilterProperties {
+        private boolean enabled = false;
+        private long expectedInsertions = 1_000_000;
+        private double falsePositiveRate = 0.01;
+        /**
+         * How often each node merges the shared bitmap from Redis.
+         */
+        private Duration reloadInterval = Duration.ofMinutes(1);
+
+        public boolean isEnabled() {
+            return enabled;
+        }
+
+        public void setEnabled(boolean enabled) {
+            this.enabled = enabled;
+        }
+
+        public long getExpectedInsertions() {
+            return expectedInsertions;
+        }
+
+        public void setExpectedInsertions(long expectedInsertions) {
+            this.expectedInsertions = expectedInsertions;
+        }
+
+        public double getFalsePositiveRate() {
+            return falsePositiveRate;
+        }
+
+        public void setFalsePositiveRate(double falsePositiveRate) {
+            this.falsePositiveRate = falsePositiveRate;
+        }
+
+        public Duration getReloadInterval() {
+            return reloadInterval;
+        }
+
+        public void setReloadInterval(Duration reloadInterval) {
+            this.reloadInterval = reloadInterval;
+        }
+    }
+
+    /**
+     * Hot-key properties.
+     */
+    public static class HotKeyProperties {
+        private boolean enabled = false;
+        private int topK = 100;
+        /**
+         * Keep hot keys in L1 past eviction and refresh them ahead of expiry.
+         */
+        private boolean pinning = false;
+        private double refreshAheadRatio = 0.8;
+
+        public boolean isEnabled() {
+            return enabled;
+        }
+
+        public void setEnabled(boolean enabled) {
+            this.enabled = enabled;
+        }
+
+        public int getTopK() {
+            return topK;
+        }
+
+        public void setTopK(int topK) {
+            this.topK = topK;
+        }
+
+        public boolean isPinning() {
+            return pinning;
+        }
+
+        public void setPinning(boolean pinning) {
+            this.pinning = pinning;
+        }
+
+        public double getRefreshAheadRatio() {
+            return refreshAheadRatio;
+        }
+
+        public void setRefreshAheadRatio(double refreshAheadRatio) {
+            this.refreshAheadRatio = refreshAheadRatio;
+        }
+    }
+
     /**
      * Resilience properties.
      */
@@ -600,6 +989,10 @@ public class TwoLevelCacheProperties {
             private int halfOpenMaxCalls = 3;
             private double failureRateThreshold = 50.0;
             private int minimumNumberOfCalls = 10;
+            private Duration slowCallDurationThreshold = Duration.ofSeconds(2);
+            private double slowCallRateThreshold = 80.0;
+            private Duration slidingWindowSize = Duration.ofSeconds(10);
+            private int slidingWindowBuckets = 10;
 
             public int getFailureThreshold() {
                 return failureThreshold;
@@ -640,6 +1033,38 @@ public class TwoLevelCacheProperties {
             public void setMinimumNumberOfCalls(int minimumNumberOfCalls) {
                 this.minimumNumberOfCalls = minimumNumberOfCalls;
             }
+
+            public Duration getSlowCallDurationThreshold() {
+                return slowCallDurationThreshold;
+            }
+
+            public void setSlowCallDurationThreshold(Duration slowCallDurationThreshold) {
+                this.slowCallDurationThreshold = slowCallDurationThreshold;
+            }
+
+            public double getSlowCallRateThreshold() {
+                return slowCallRateThreshold;
+            }
+
+            public void setSlowCallRateThreshold(double slowCallRateThreshold) {
+                this.slowCallRateThreshold = slowCallRateThreshold;
+            }
+
+            public Duration getSlidingWindowSize() {
+                return slidingWindowSize;
+            }
+
+            public void setSlidingWindowSize(Duration slidingWindowSize) {
+                this.slidingWindowSize = slidingWindowSize;
+            }
+
+            public int getSlidingWindowBuckets() {
+                return slidingWindowBuckets;
+            }
+
+            public void setSlidingWindowBuckets(int slidingWindowBuckets) {
+                this.slidingWindowBuckets = slidingWindowBuckets;
+            }
         }
 
         public static class RetryProperties {
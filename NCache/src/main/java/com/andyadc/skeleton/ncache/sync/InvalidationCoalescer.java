@@ -0,0 +1,136 @@
+package com.andyadc.skeleton.ncache.sync;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.function.BiConsumer;
+
+/**
+ * Collects invalidated keys per cache and hands them to a sink in batches, once the
+ * window since the first pending key has elapsed or the batch reaches its key limit.
+ * <p>
+ * Keys are deduplicated while pending, and all batches are flushed from one thread so
+ * frames of a cache are published in the order their keys were invalidated.
+ */
+class InvalidationCoalescer {
+
+    private static final Logger logger = LoggerFactory.getLogger(InvalidationCoalescer.class);
+
+    private final long windowNanos;
+    private final int maxKeys;
+    private final BiConsumer<String, List<Object>> sink;
+    private final ScheduledExecutorService flusher;
+    private final Map<String, Batch> pending = new ConcurrentHashMap<>();
+
+    InvalidationCoalescer(Duration window, int maxKeys, BiConsumer<String, List<Object>> sink) {
+        this.windowNanos = window.toNanos();
+        this.maxKeys = maxKeys;
+        this.sink = sink;
+        this.flusher = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread t = new Thread(r, "cache-sync-coalescer");
+            t.setDaemon(true);
+            return t;
+        });
+    }
+
+    void add(String cacheName, Object key) {
+        Batch batch = pending.computeIfAbsent(cacheName, k -> new Batch());
+        synchronized (batch) {
+            batch.keys.add(key);
+            schedule(cacheName, batch);
+        }
+    }
+
+    void addAll(String cacheName, Collection<?> keys) {
+        Batch batch = pending.computeIfAbsent(cacheName, k -> new Batch());
+        synchronized (batch) {
+            batch.keys.addAll(keys);
+            schedule(cacheName, batch);
+        }
+    }
+
+    /**
+     * Drop the pending keys of a cache, e.g. because a clear supersedes them.
+     */
+    void discard(String cacheName) {
+        Batch batch = pending.get(cacheName);
+        if (batch != null) {
+            synchronized (batch) {
+                batch.keys.clear();
+            }
+        }
+    }
+
+    /**
+     * Flush everything still pending and stop the flusher thread.
+     */
+    void close() {
+        try {
+            flusher.execute(() -> pending.keySet().forEach(this::flush));
+        } catch (Exception e) {
+            // Already shut down
+        }
+        flusher.shutdown();
+        try {
+            if (!flusher.awaitTermination(5, TimeUnit.SECONDS)) {
+                flusher.shutdownNow();
+            }
+        } catch (InterruptedException e) {
+            flusher.shutdownNow();
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    // Called with the batch lock held
+    private void schedule(String cacheName, Batch batch) {
+        if (batch.keys.size() >= maxKeys || windowNanos == 0) {
+            batch.scheduled = true;
+            flusher.execute(() -> flush(cacheName));
+        } else if (!batch.scheduled) {
+            batch.scheduled = true;
+            flusher.schedule(() -> flush(cacheName), windowNanos, TimeUnit.NANOSECONDS);
+        }
+    }
+
+    private void flush(String cacheName) {
+        Batch batch = pending.get(cacheName);
+        if (batch == null) {
+            return;
+        }
+
+        List<Object> keys;
+        synchronized (batch) {
+            batch.scheduled = false;
+            if (batch.keys.isEmpty()) {
+                return;
+            }
+            keys = new ArrayList<>(batch.keys);
+            batch.keys.clear();
+        }
+
+        // A batch over the limit (from addAll) goes out as several frames
+        try {
+            for (int from = 0; from < keys.size(); from += maxKeys) {
+                sink.accept(cacheName, keys.subList(from, Math.min(keys.size(), from + maxKeys)));
+            }
+        } catch (Exception e) {
+            logger.error("Failed to flush invalidations for cache {}", cacheName, e);
+        }
+    }
+
+    private static class Batch {
+        final LinkedHashSet<Object> keys = new LinkedHashSet<>();
+        boolean scheduled;
+    }
+
+}
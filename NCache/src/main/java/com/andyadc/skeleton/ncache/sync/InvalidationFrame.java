@@ -0,0 +1,107 @@
+package com.andyadc.skeleton.ncache.sync;
+
+import com.andyadc.skeleton.ncache.serialization.BinaryInput;
+import com.andyadc.skeleton.ncache.serialization.BinaryOutput;
+import com.andyadc.skeleton.ncache.serialization.Serializer;
+
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Binary invalidation frame.
+ * <pre>
+ * magic(1) version(1) command(1) instanceId(varint length + UTF-8)
+ * keyCount(varint) { keyLength(varint) serializedKey }*
+ * </pre>
+ * The magic byte is not valid as the first byte of a UTF-8 text message, so receivers
+ * can tell frames from the text protocol on the same channel.
+ */
+final class InvalidationFrame {
+
+    static final byte MAGIC = (byte) 0xC5;
+    static final byte VERSION = 1;
+
+    static final byte INVALIDATE = 1;
+    static final byte CLEAR = 2;
+
+    private final byte command;
+    private final String instanceId;
+    private final List<Object> keys;
+
+    private InvalidationFrame(byte command, String instanceId, List<Object> keys) {
+        this.command = command;
+        this.instanceId = instanceId;
+        this.keys = keys;
+    }
+
+    static boolean isFrame(byte[] message) {
+        return message.length > 0 && message[0] == MAGIC;
+    }
+
+    static byte[] encode(byte command, String instanceId, Collection<?> keys, Serializer<Object> serializer) {
+        BinaryOutput out = new BinaryOutput(64 + keys.size() * 32);
+        out.writeByte(MAGIC);
+        out.writeByte(VERSION);
+        out.writeByte(command);
+        out.writeString(instanceId);
+        out.writeVarInt(keys.size());
+        for (Object key : keys) {
+            byte[] bytes = serializer.serialize(key);
+            out.writeVarInt(bytes.length);
+            out.writeBytes(bytes);
+        }
+        return out.toByteArray();
+    }
+
+    /**
+     * Decode a frame, deduplicating keys on their serialized bytes before deserializing them.
+     *
+     * @return the frame, or {@code null} if it was published by {@code selfInstanceId};
+     * such frames are dropped before any key is deserialized
+     */
+    static InvalidationFrame decode(byte[] frame, Serializer<Object> serializer, String selfInstanceId) {
+        BinaryInput in = new BinaryInput(frame);
+        if ((byte) in.readByte() != MAGIC) {
+            throw new IllegalArgumentException("Not an invalidation frame");
+        }
+        int version = in.readByte();
+        if (version != VERSION) {
+            throw new IllegalArgumentException("Unsupported invalidation frame version " + version);
+        }
+        byte command = (byte) in.readByte();
+        String instanceId = in.readString();
+        if (instanceId.equals(selfInstanceId)) {
+            return null;
+        }
+
+        int count = in.readVarInt();
+        List<Object> keys = new ArrayList<>(Math.min(count, 1024));
+        Set<ByteBuffer> seen = count > 1 ? new HashSet<>() : null;
+        for (int i = 0; i < count; i++) {
+            int length = in.readVarInt();
+            int offset = in.position();
+            in.skip(length);
+            if (seen == null || seen.add(ByteBuffer.wrap(frame, offset, length))) {
+                keys.add(serializer.deserialize(frame, offset, length));
+            }
+        }
+        return new InvalidationFrame(command, instanceId, keys);
+    }
+
+    byte getCommand() {
+        return command;
+    }
+
+    String getInstanceId() {
+        return instanceId;
+    }
+
+    List<Object> getKeys() {
+        return keys;
+    }
+
+}
@@ -1,22 +1,30 @@
 package com.andyadc.skeleton.ncache.sync;
 
 import com.andyadc.skeleton.ncache.api.CacheSynchronizer;
+import com.andyadc.skeleton.ncache.jfr.SyncMessageEvent;
+import com.andyadc.skeleton.ncache.metrics.MetricsCollector;
 import com.andyadc.skeleton.ncache.serialization.Serializer;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import redis.clients.jedis.BinaryJedisPubSub;
 import redis.clients.jedis.Jedis;
 import redis.clients.jedis.JedisPool;
-import redis.clients.jedis.JedisPubSub;
 
+import java.nio.charset.StandardCharsets;
 import java.util.Collection;
+import java.util.List;
 import java.util.Set;
 import java.util.concurrent.CopyOnWriteArraySet;
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadFactory;
 import java.util.concurrent.atomic.AtomicBoolean;
 
 /**
  * Redis-based cache synchronizer using Pub/Sub.
+ * <p>
+ * Publishes in the protocol chosen by {@link SyncConfig}; the subscriber accepts both the
+ * text messages and binary {@link InvalidationFrame}s.
  */
 public class RedisCacheSynchronizer implements CacheSynchronizer {
 
@@ -31,57 +39,145 @@ public class RedisCacheSynchronizer implements CacheSynchronizer {
     private final JedisPool jedisPool;
     private final Serializer<Object> serializer;
     private final String instanceId;
+    private final MetricsCollector metricsCollector;
+    private final InvalidationCoalescer coalescer;
     private final Set<InvalidationListener> listeners = new CopyOnWriteArraySet<>();
     private final AtomicBoolean running = new AtomicBoolean(false);
     private final ExecutorService subscriberExecutor;
 
-    private volatile JedisPubSub pubSub;
+    private volatile BinaryJedisPubSub pubSub;
     private volatile Thread subscriberThread;
 
     public RedisCacheSynchronizer(JedisPool jedisPool,
                                   Serializer<Object> serializer,
                                   String instanceId) {
-        this.jedisPool = jedisPool;
-        this.serializer = serializer;
-        this.instanceId = instanceId;
-        this.subscriberExecutor = Executors.newSingleThreadExecutor(r -> {
+        this(jedisPool, serializer, instanceId, r -> {
             Thread t = new Thread(r, "cache-sync-subscriber");
             t.setDaemon(true);
             return t;
         });
     }
 
+    /**
+     * @param subscriberThreadFactory creates the thread that reads the subscription and
+     *                                dispatches to listeners, e.g. a virtual thread factory
+     *                                from {@code CacheExecutors}
+     */
+    public RedisCacheSynchronizer(JedisPool jedisPool,
+                                  Serializer<Object> serializer,
+                                  String instanceId,
+                                  ThreadFactory subscriberThreadFactory) {
+        this(jedisPool, serializer, instanceId, subscriberThreadFactory, SyncConfig.defaultConfig(), null);
+    }
+
+    /**
+     * @param metricsCollector receives the published and received message sizes; may be null
+     */
+    public RedisCacheSynchronizer(JedisPool jedisPool,
+                                  Serializer<Object> serializer,
+                                  String instanceId,
+                                  ThreadFactory subscriberThreadFactory,
+                                  SyncConfig syncConfig,
+                                  MetricsCollector metricsCollector) {
+        this.jedisPool = jedisPool;
+        this.serializer = serializer;
+        this.instanceId = instanceId;
+        this.metricsCollector = metricsCollector;
+        this.coalescer = syncConfig.getProtocol() == SyncConfig.Protocol.BINARY
+                ? new InvalidationCoalescer(syncConfig.getCoalesceWindow(), syncConfig.getCoalesceMaxKeys(),
+                this::publishFrame)
+                : null;
+        this.subscriberExecutor = Executors.newSingleThreadExecutor(subscriberThreadFactory);
+    }
+
     @Override
     public void publishInvalidation(String cacheName, Object key) {
+        if (coalescer != null) {
+            coalescer.add(cacheName, key);
+            return;
+        }
         publish(cacheName, INVALIDATE_CMD + DELIMITER + instanceId + DELIMITER +
-                encodeKey(key));
+                encodeKey(key), 1);
     }
 
     @Override
     public void publishBulkInvalidation(String cacheName, Collection<?> keys) {
+        if (coalescer != null) {
+            coalescer.addAll(cacheName, keys);
+            return;
+        }
         StringBuilder sb = new StringBuilder();
         sb.append(BULK_INVALIDATE_CMD).append(DELIMITER).append(instanceId);
         for (Object key : keys) {
             sb.append(DELIMITER).append(encodeKey(key));
         }
-        publish(cacheName, sb.toString());
+        publish(cacheName, sb.toString(), keys.size());
     }
 
     @Override
     public void publishClear(String cacheName) {
-        publish(cacheName, CLEAR_CMD + DELIMITER + instanceId);
+        if (coalescer != null) {
+            // The clear covers whatever is still pending for this cache
+            coalescer.discard(cacheName);
+            publish(cacheName, InvalidationFrame.encode(InvalidationFrame.CLEAR, instanceId, List.of(), serializer), 0);
+            return;
+        }
+        publish(cacheName, CLEAR_CMD + DELIMITER + instanceId, 0);
     }
 
-    private void publish(String cacheName, String message) {
+    private void publishFrame(String cacheName, List<Object> keys) {
+        publish(cacheName, InvalidationFrame.encode(InvalidationFrame.INVALIDATE, instanceId, keys, serializer),
+                keys.size());
+    }
+
+    private void publish(String cacheName, String message, int keyCount) {
         try (Jedis jedis = jedisPool.getResource()) {
             String channel = CHANNEL_PREFIX + cacheName;
+            SyncMessageEvent event = new SyncMessageEvent();
+            event.begin();
+            long start = System.nanoTime();
             jedis.publish(channel, message);
+            recordPublishTime(cacheName, System.nanoTime() - start);
+            event.complete(cacheName, MetricsCollector.SYNC_PUBLISHED, null, keyCount);
+            recordMessage(cacheName, MetricsCollector.SYNC_PUBLISHED, keyCount);
             logger.debug("Published to channel {}: {}", channel, message);
         } catch (Exception e) {
             logger.error("Failed to publish cache synchronization message", e);
         }
     }
 
+    private void publish(String cacheName, byte[] frame, int keyCount) {
+        try (Jedis jedis = jedisPool.getResource()) {
+            String channel = CHANNEL_PREFIX + cacheName;
+            SyncMessageEvent event = new SyncMessageEvent();
+            event.begin();
+            long start = System.nanoTime();
+            jedis.publish(channel.getBytes(StandardCharsets.UTF_8), frame);
+            recordPublishTime(cacheName, System.nanoTime() - start);
+            event.complete(cacheName, MetricsCollector.SYNC_PUBLISHED, null, keyCount);
+            recordMessage(cacheName, MetricsCollector.SYNC_PUBLISHED, keyCount);
+            logger.debug("Published {} keys in {} bytes to channel {}", keyCount, frame.length, channel);
+        } catch (Exception e) {
+            logger.error("Failed to publish cache synchronization message", e);
+        }
+    }
+
+    private void recordMessage(String cacheName, String direction, int keyCount) {
+        if (metricsCollector != null) {
+            metricsCollector.recordSyncMessage(cacheName, direction, keyCount);
+        }
+        // Published messages have their own event, timed around the write
+        if (MetricsCollector.SYNC_RECEIVED.equals(direction)) {
+            new SyncMessageEvent().complete(cacheName, direction, null, keyCount);
+        }
+    }
+
+    private void recordPublishTime(String cacheName, long nanos) {
+        if (metricsCollector != null) {
+            metricsCollector.recordOperationLatency(cacheName, MetricsCollector.OP_SYNC_PUBLISH, nanos);
+        }
+    }
+
     @Override
     public void subscribe(InvalidationListener listener) {
         listeners.add(listener);
@@ -103,8 +199,11 @@ public class RedisCacheSynchronizer implements CacheSynchronizer {
     @Override
     public void stop() {
         if (running.compareAndSet(true, false)) {
+            if (coalescer != null) {
+                coalescer.close();
+            }
             if (pubSub != null) {
-                pubSub.unsubscribe();
+                pubSub.punsubscribe();
             }
             subscriberExecutor.shutdown();
             logger.info("Cache synchronizer stopped");
@@ -114,20 +213,20 @@ public class RedisCacheSynchronizer implements CacheSynchronizer {
     private void subscribeLoop() {
         while (running.get()) {
             try (Jedis jedis = jedisPool.getResource()) {
-                pubSub = new JedisPubSub() {
+                pubSub = new BinaryJedisPubSub() {
                     @Override
-                    public void onMessage(String channel, String message) {
+                    public void onMessage(byte[] channel, byte[] message) {
                         handleMessage(channel, message);
                     }
 
                     @Override
-                    public void onPMessage(String pattern, String channel, String message) {
+                    public void onPMessage(byte[] pattern, byte[] channel, byte[] message) {
                         handleMessage(channel, message);
                     }
                 };
 
                 // Subscribe to pattern for all cache channels
-                jedis.psubscribe(pubSub, CHANNEL_PREFIX + "*");
+                jedis.psubscribe(pubSub, (CHANNEL_PREFIX + "*").getBytes(StandardCharsets.UTF_8));
             } catch (Exception e) {
                 if (running.get()) {
                     logger.error("Subscriber connection lost, reconnecting...", e);
@@ -142,6 +241,43 @@ public class RedisCacheSynchronizer implements CacheSynchronizer {
         }
     }
 
+    private void handleMessage(byte[] channel, byte[] message) {
+        String channelName = new String(channel, StandardCharsets.UTF_8);
+        if (InvalidationFrame.isFrame(message)) {
+            handleFrame(channelName, message);
+        } else {
+            handleMessage(channelName, new String(message, StandardCharsets.UTF_8));
+        }
+    }
+
+    private void handleFrame(String channel, byte[] message) {
+        try {
+            String cacheName = channel.substring(CHANNEL_PREFIX.length());
+            InvalidationFrame frame = InvalidationFrame.decode(message, serializer, instanceId);
+            // Ignore frames from self
+            if (frame == null) {
+                return;
+            }
+
+            List<Object> keys = frame.getKeys();
+            recordMessage(cacheName, MetricsCollector.SYNC_RECEIVED, keys.size());
+            switch (frame.getCommand()) {
+                case InvalidationFrame.INVALIDATE -> {
+                    if (keys.size() == 1) {
+                        notifyInvalidation(cacheName, keys.get(0));
+                    } else if (!keys.isEmpty()) {
+                        recordMessage(cacheName, MetricsCollector.SYNC_RECEIVED, keys.size());
+                        notifyBulkInvalidation(cacheName, keys);
+                    }
+                }
+                case InvalidationFrame.CLEAR -> notifyClear(cacheName);
+                default -> logger.warn("Unknown sync frame command: {}", frame.getCommand());
+            }
+        } catch (Exception e) {
+            logger.error("Failed to process sync frame", e);
+        }
+    }
+
     private void handleMessage(String channel, String message) {
         try {
             String cacheName = channel.substring(CHANNEL_PREFIX.length());
@@ -164,6 +300,7 @@ public class RedisCacheSynchronizer implements CacheSynchronizer {
                 case INVALIDATE_CMD -> {
                     if (parts.length >= 3) {
                         Object key = decodeKey(parts[2]);
+                        recordMessage(cacheName, MetricsCollector.SYNC_RECEIVED, 1);
                         notifyInvalidation(cacheName, key);
                     }
                 }
@@ -176,7 +313,10 @@ public class RedisCacheSynchronizer implements CacheSynchronizer {
                         notifyBulkInvalidation(cacheName, keys);
                     }
                 }
-                case CLEAR_CMD -> notifyClear(cacheName);
+                case CLEAR_CMD -> {
+                    recordMessage(cacheName, MetricsCollector.SYNC_RECEIVED, 0);
+                    notifyClear(cacheName);
+                }
                 default -> logger.warn("Unknown sync command: {}", command);
             }
         } catch (Exception e) {
@@ -0,0 +1,329 @@
+package com.andyadc.skeleton.ncache.sync;
+
+import com.andyadc.skeleton.ncache.api.CacheSynchronizer;
+import com.andyadc.skeleton.ncache.jfr.SyncMessageEvent;
+import com.andyadc.skeleton.ncache.metrics.MetricsCollector;
+import com.andyadc.skeleton.ncache.serialization.Serializer;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import redis.clients.jedis.Jedis;
+import redis.clients.jedis.JedisPool;
+import redis.clients.jedis.StreamEntryID;
+import redis.clients.jedis.params.XAddParams;
+import redis.clients.jedis.params.XReadParams;
+import redis.clients.jedis.resps.StreamEntry;
+import redis.clients.jedis.resps.StreamEntryBinary;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CopyOnWriteArraySet;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Redis Streams-based cache synchronizer.
+ * <p>
+ * Invalidations are coalesced into {@link InvalidationFrame}s and appended to one stream
+ * with XADD, trimmed to about {@link SyncConfig#getStreamMaxLength()} entries. The reader
+ * remembers the last entry ID it processed and resumes XREAD from there after a
+ * reconnect, so invalidations published during the gap are replayed rather than lost.
+ * Only when the stream was trimmed past that ID, or reset, are all L1 caches cleared.
+ */
+public class StreamCacheSynchronizer implements CacheSynchronizer {
+
+    private static final Logger logger = LoggerFactory.getLogger(StreamCacheSynchronizer.class);
+
+    private static final byte[] CACHE_FIELD = "c".getBytes(StandardCharsets.UTF_8);
+    private static final byte[] FRAME_FIELD = "f".getBytes(StandardCharsets.UTF_8);
+    private static final int READ_COUNT = 500;
+
+    private final JedisPool jedisPool;
+    private final Serializer<Object> serializer;
+    private final String instanceId;
+    private final String streamKey;
+    private final byte[] streamKeyBytes;
+    private final long streamMaxLength;
+    private final XAddParams addParams;
+    private final XReadParams readParams;
+    private final MetricsCollector metricsCollector;
+    private final InvalidationCoalescer coalescer;
+    private final Set<InvalidationListener> listeners = new CopyOnWriteArraySet<>();
+    private final AtomicBoolean running = new AtomicBoolean(false);
+    private final ExecutorService readerExecutor;
+
+    // Last entry handed to listeners; only touched by the reader thread
+    private StreamEntryID lastId;
+
+    public StreamCacheSynchronizer(JedisPool jedisPool,
+                                   Serializer<Object> serializer,
+                                   String instanceId) {
+        this(jedisPool, serializer, instanceId, r -> {
+            Thread t = new Thread(r, "cache-sync-stream-reader");
+            t.setDaemon(true);
+            return t;
+        }, SyncConfig.defaultConfig(), null);
+    }
+
+    /**
+     * @param readerThreadFactory creates the thread that reads the stream and dispatches
+     *                            to listeners
+     * @param syncConfig          stream key, trimming, read timeout and coalescing settings;
+     *                            the block timeout must stay below the pool's socket timeout
+     * @param metricsCollector    receives the published and received entry sizes; may be null
+     */
+    public StreamCacheSynchronizer(JedisPool jedisPool,
+                                   Serializer<Object> serializer,
+                                   String instanceId,
+                                   ThreadFactory readerThreadFactory,
+                                   SyncConfig syncConfig,
+                                   MetricsCollector metricsCollector) {
+        this.jedisPool = jedisPool;
+        this.serializer = serializer;
+        this.instanceId = instanceId;
+        this.streamKey = syncConfig.getStreamKey();
+        this.streamKeyBytes = streamKey.getBytes(StandardCharsets.UTF_8);
+        this.streamMaxLength = syncConfig.getStreamMaxLength();
+        this.addParams = XAddParams.xAddParams().maxLen(streamMaxLength).approximateTrimming();
+        this.readParams = XReadParams.xReadParams()
+                .count(READ_COUNT)
+                .block((int) syncConfig.getStreamBlockTimeout().toMillis());
+        this.metricsCollector = metricsCollector;
+        this.coalescer = new InvalidationCoalescer(syncConfig.getCoalesceWindow(), syncConfig.getCoalesceMaxKeys(),
+                this::appendFrame);
+        this.readerExecutor = Executors.newSingleThreadExecutor(readerThreadFactory);
+    }
+
+    @Override
+    public void publishInvalidation(String cacheName, Object key) {
+        coalescer.add(cacheName, key);
+    }
+
+    @Override
+    public void publishBulkInvalidation(String cacheName, Collection<?> keys) {
+        coalescer.addAll(cacheName, keys);
+    }
+
+    @Override
+    public void publishClear(String cacheName) {
+        // The clear covers whatever is still pending for this cache
+        coalescer.discard(cacheName);
+        append(cacheName, InvalidationFrame.encode(InvalidationFrame.CLEAR, instanceId, List.of(), serializer), 0);
+    }
+
+    private void appendFrame(String cacheName, List<Object> keys) {
+        append(cacheName, InvalidationFrame.encode(InvalidationFrame.INVALIDATE, instanceId, keys, serializer),
+                keys.size());
+    }
+
+    private void append(String cacheName, byte[] frame, int keyCount) {
+        try (Jedis jedis = jedisPool.getResource()) {
+            SyncMessageEvent event = new SyncMessageEvent();
+            event.begin();
+            long start = System.nanoTime();
+            jedis.xadd(streamKeyBytes, addParams,
+                    Map.of(CACHE_FIELD, cacheName.getBytes(StandardCharsets.UTF_8), FRAME_FIELD, frame));
+            recordPublishTime(cacheName, System.nanoTime() - start);
+            event.complete(cacheName, MetricsCollector.SYNC_PUBLISHED, null, keyCount);
+            recordMessage(cacheName, MetricsCollector.SYNC_PUBLISHED, keyCount);
+            logger.debug("Appended {} keys of cache {} to stream {}", keyCount, cacheName, streamKey);
+        } catch (Exception e) {
+            logger.error("Failed to append cache synchronization entry", e);
+        }
+    }
+
+    @Override
+    public void subscribe(InvalidationListener listener) {
+        listeners.add(listener);
+    }
+
+    @Override
+    public void unsubscribe(InvalidationListener listener) {
+        listeners.remove(listener);
+    }
+
+    @Override
+    public void start() {
+        if (running.compareAndSet(false, true)) {
+            readerExecutor.submit(this::readLoop);
+            logger.info("Stream cache synchronizer started with instance ID: {}", instanceId);
+        }
+    }
+
+    @Override
+    public void stop() {
+        if (running.compareAndSet(true, false)) {
+            coalescer.close();
+            // The reader notices within one block timeout
+            readerExecutor.shutdown();
+            logger.info("Stream cache synchronizer stopped");
+        }
+    }
+
+    private void readLoop() {
+        while (running.get()) {
+            try (Jedis jedis = jedisPool.getResource()) {
+                resume(jedis);
+                while (running.get()) {
+                    Map<byte[], List<StreamEntryBinary>> result =
+                            jedis.xreadBinaryAsMap(readParams, Map.of(streamKeyBytes, lastId));
+                    if (result == null) {
+                        continue;
+                    }
+                    for (List<StreamEntryBinary> entries : result.values()) {
+                        for (StreamEntryBinary entry : entries) {
+                            handleEntry(entry);
+                            lastId = entry.getID();
+                        }
+                    }
+                }
+            } catch (Exception e) {
+                if (running.get()) {
+                    logger.error("Stream reader connection lost, reconnecting from {}...", lastId, e);
+                    try {
+                        Thread.sleep(1000);
+                    } catch (InterruptedException ie) {
+                        Thread.currentThread().interrupt();
+                        break;
+                    }
+                }
+            }
+        }
+    }
+
+    /**
+     * Pick the ID to read from. On first start that is the current end of the stream;
+     * afterwards it is the last processed entry, unless entries after it are gone.
+     */
+    private void resume(Jedis jedis) {
+        StreamEntryID newest = firstId(jedis.xrevrange(streamKey, "+", "-", 1));
+        if (lastId == null) {
+            lastId = newest != null ? newest : StreamEntryID.MINIMUM_ID;
+            return;
+        }
+
+        StreamEntryID oldest = firstId(jedis.xrange(streamKey, "-", "+", 1));
+        boolean trimmed;
+        if (StreamEntryID.MINIMUM_ID.equals(lastId)) {
+            // Nothing read yet from a stream that started empty; only trimming loses entries
+            trimmed = oldest != null && jedis.xlen(streamKey) >= streamMaxLength;
+        } else {
+            trimmed = oldest != null && oldest.compareTo(lastId) > 0;
+        }
+        // IDs only grow, so an older tail means the stream was deleted or Redis lost its data
+        boolean reset = newest == null ? !StreamEntryID.MINIMUM_ID.equals(lastId) : newest.compareTo(lastId) < 0;
+        if (trimmed || reset) {
+            logger.warn("Stream {} no longer holds entries after {}, clearing local caches", streamKey, lastId);
+            notifyClearAll();
+            lastId = newest != null ? newest : StreamEntryID.MINIMUM_ID;
+        } else {
+            logger.info("Replaying stream {} from {}", streamKey, lastId);
+        }
+    }
+
+    private static StreamEntryID firstId(List<StreamEntry> entries) {
+        return entries == null || entries.isEmpty() ? null : entries.get(0).getID();
+    }
+
+    private void handleEntry(StreamEntryBinary entry) {
+        try {
+            String cacheName = null;
+            byte[] message = null;
+            for (Map.Entry<byte[], byte[]> field : entry.getFields().entrySet()) {
+                if (Arrays.equals(CACHE_FIELD, field.getKey())) {
+                    cacheName = new String(field.getValue(), StandardCharsets.UTF_8);
+                } else if (Arrays.equals(FRAME_FIELD, field.getKey())) {
+                    message = field.getValue();
+                }
+            }
+            if (cacheName == null || message == null) {
+                logger.warn("Invalid sync stream entry: {}", entry.getID());
+                return;
+            }
+
+            InvalidationFrame frame = InvalidationFrame.decode(message, serializer, instanceId);
+            // Ignore entries from self
+            if (frame == null) {
+                return;
+            }
+
+            List<Object> keys = frame.getKeys();
+            recordMessage(cacheName, MetricsCollector.SYNC_RECEIVED, keys.size());
+            switch (frame.getCommand()) {
+                case InvalidationFrame.INVALIDATE -> {
+                    if (keys.size() == 1) {
+                        notifyInvalidation(cacheName, keys.get(0));
+                    } else if (!keys.isEmpty()) {
+                        notifyBulkInvalidation(cacheName, keys);
+                    }
+                }
+                case InvalidationFrame.CLEAR -> notifyClear(cacheName);
+                default -> logger.warn("Unknown sync frame command: {}", frame.getCommand());
+            }
+        } catch (Exception e) {
+            logger.error("Failed to process sync stream entry {}", entry.getID(), e);
+        }
+    }
+
+    private void recordMessage(String cacheName, String direction, int keyCount) {
+        if (metricsCollector != null) {
+            metricsCollector.recordSyncMessage(cacheName, direction, keyCount);
+        }
+        // Published messages have their own event, timed around the write
+        if (MetricsCollector.SYNC_RECEIVED.equals(direction)) {
+            new SyncMessageEvent().complete(cacheName, direction, null, keyCount);
+        }
+    }
+
+    private void recordPublishTime(String cacheName, long nanos) {
+        if (metricsCollector != null) {
+            metricsCollector.recordOperationLatency(cacheName, MetricsCollector.OP_SYNC_PUBLISH, nanos);
+        }
+    }
+
+    private void notifyInvalidation(String cacheName, Object key) {
+        for (InvalidationListener listener : listeners) {
+            try {
+                listener.onInvalidate(cacheName, key);
+            } catch (Exception e) {
+                logger.error("Listener failed on invalidation", e);
+            }
+        }
+    }
+
+    private void notifyBulkInvalidation(String cacheName, Collection<?> keys) {
+        for (InvalidationListener listener : listeners) {
+            try {
+                listener.onBulkInvalidate(cacheName, keys);
+            } catch (Exception e) {
+                logger.error("Listener failed on bulk invalidation", e);
+            }
+        }
+    }
+
+    private void notifyClear(String cacheName) {
+        for (InvalidationListener listener : listeners) {
+            try {
+                listener.onClear(cacheName);
+            } catch (Exception e) {
+                logger.error("Listener failed on clear", e);
+            }
+        }
+    }
+
+    private void notifyClearAll() {
+        for (InvalidationListener listener : listeners) {
+            try {
+                listener.onClearAll();
+            } catch (Exception e) {
+                logger.error("Listener failed on clear all", e);
+            }
+        }
+    }
+
+}
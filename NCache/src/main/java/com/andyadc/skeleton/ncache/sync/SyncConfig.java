@@ -0,0 +1,142 @@
+package com.andyadc.skeleton.ncache.sync;
+
+import java.time.Duration;
+
+/**
+ * Wire protocol, batching and stream settings for {@link RedisCacheSynchronizer}
+ * and {@link StreamCacheSynchronizer}.
+ */
+public class SyncConfig {
+
+    private final Protocol protocol;
+    private final Duration coalesceWindow;
+    private final int coalesceMaxKeys;
+    private final String streamKey;
+    private final long streamMaxLength;
+    private final Duration streamBlockTimeout;
+
+    private SyncConfig(Builder builder) {
+        this.protocol = builder.protocol;
+        this.coalesceWindow = builder.coalesceWindow;
+        this.coalesceMaxKeys = builder.coalesceMaxKeys;
+        this.streamKey = builder.streamKey;
+        this.streamMaxLength = builder.streamMaxLength;
+        this.streamBlockTimeout = builder.streamBlockTimeout;
+    }
+
+    public static SyncConfig defaultConfig() {
+        return builder().build();
+    }
+
+    public static Builder builder() {
+        return new Builder();
+    }
+
+    // Getters
+    public Protocol getProtocol() {
+        return protocol;
+    }
+
+    public Duration getCoalesceWindow() {
+        return coalesceWindow;
+    }
+
+    public int getCoalesceMaxKeys() {
+        return coalesceMaxKeys;
+    }
+
+    public String getStreamKey() {
+        return streamKey;
+    }
+
+    public long getStreamMaxLength() {
+        return streamMaxLength;
+    }
+
+    public Duration getStreamBlockTimeout() {
+        return streamBlockTimeout;
+    }
+
+    /**
+     * Message format published on the sync channels. Receivers understand both, so a
+     * cluster can be switched to BINARY one node at a time once every node runs a
+     * version that decodes it.
+     */
+    public enum Protocol {
+        /**
+         * One {@code CMD|instanceId|Base64(key)} text message per operation.
+         */
+        TEXT,
+        /**
+         * Invalidations coalesced per cache into binary frames of length-prefixed raw keys.
+         */
+        BINARY
+    }
+
+    public static class Builder {
+        private Protocol protocol = Protocol.TEXT;
+        private Duration coalesceWindow = Duration.ofMillis(2);
+        private int coalesceMaxKeys = 256;
+        private String streamKey = "cache:sync:stream";
+        private long streamMaxLength = 100_000;
+        private Duration streamBlockTimeout = Duration.ofSeconds(1);
+
+        public Builder protocol(Protocol protocol) {
+            this.protocol = protocol;
+            return this;
+        }
+
+        /**
+         * How long BINARY invalidations wait for more keys of the same cache before a
+         * frame is published. Zero publishes every operation in its own frame.
+         */
+        public Builder coalesceWindow(Duration coalesceWindow) {
+            this.coalesceWindow = coalesceWindow;
+            return this;
+        }
+
+        /**
+         * Publish a frame as soon as this many distinct keys are pending, before the window ends.
+         */
+        public Builder coalesceMaxKeys(int coalesceMaxKeys) {
+            this.coalesceMaxKeys = coalesceMaxKeys;
+            return this;
+        }
+
+        public Builder streamKey(String streamKey) {
+            this.streamKey = streamKey;
+            return this;
+        }
+
+        /**
+         * Approximate number of entries the stream keeps. A node that is disconnected for
+         * longer than it takes to publish this many entries clears its L1 on reconnect.
+         */
+        public Builder streamMaxLength(long streamMaxLength) {
+            this.streamMaxLength = streamMaxLength;
+            return this;
+        }
+
+        /**
+         * How long one XREAD blocks waiting for entries.
+         */
+        public Builder streamBlockTimeout(Duration streamBlockTimeout) {
+            this.streamBlockTimeout = streamBlockTimeout;
+            return this;
+        }
+
+        public SyncConfig build() {
+            if (coalesceWindow == null || coalesceWindow.isNegative()) {
+                throw new IllegalArgumentException("coalesceWindow must not be negative");
+            }
+            if (coalesceMaxKeys < 1) {
+                throw new IllegalArgumentException("coalesceMaxKeys must be positive");
+            }
+            if (streamMaxLength < 1) {
+                throw new IllegalArgumentException("streamMaxLength must be positive");
+            }
+            return new SyncConfig(this);
+        }
+    }
+
+}
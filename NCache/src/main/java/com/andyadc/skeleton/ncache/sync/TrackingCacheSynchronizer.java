@@ -0,0 +1,214 @@
+package com.andyadc.skeleton.ncache.sync;
+
+import com.andyadc.skeleton.ncache.api.CacheSynchronizer;
+import io.lettuce.core.RedisChannelHandler;
+import io.lettuce.core.RedisConnectionStateListener;
+import io.lettuce.core.TrackingArgs;
+import io.lettuce.core.api.StatefulRedisConnection;
+import io.lettuce.core.api.push.PushListener;
+import io.lettuce.core.api.push.PushMessage;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.net.SocketAddress;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CompletionStage;
+import java.util.concurrent.CopyOnWriteArraySet;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Cache synchronizer driven by Redis 6 server-assisted client-side caching.
+ * <p>
+ * Enables {@code CLIENT TRACKING ... NOLOOP} on a RESP3 Lettuce connection and turns the
+ * {@code invalidate} push messages Redis sends into L1 invalidations. Nothing is published:
+ * the write to L2 is itself the invalidation, and Redis only notifies connections that
+ * track the key. The publish methods are therefore no-ops.
+ * <p>
+ * In {@link Mode#DEFAULT} Redis tracks the keys read on this connection, so it must be the
+ * connection serving L2 reads, with {@code L2LettuceCache} tracking writes too; writes on
+ * that connection do not come back to this node. In {@link Mode#BROADCAST} every change
+ * under the given key prefixes is reported, whichever connection reads; writes from other
+ * connections of this node are then reported back as well.
+ * <p>
+ * Tracking state lives on the connection, so after a reconnect tracking is re-enabled and
+ * all L1 caches are cleared, since changes made in between were not reported.
+ */
+public class TrackingCacheSynchronizer implements CacheSynchronizer {
+
+    private static final Logger logger = LoggerFactory.getLogger(TrackingCacheSynchronizer.class);
+
+    private static final String INVALIDATE_TYPE = "invalidate";
+
+    private final StatefulRedisConnection<byte[], byte[]> connection;
+    private final TrackingArgs trackingArgs;
+    private final Mode mode;
+    private final Set<InvalidationListener> listeners = new CopyOnWriteArraySet<>();
+    private final AtomicBoolean running = new AtomicBoolean(false);
+    private final PushListener pushListener = this::onPushMessage;
+    private final RedisConnectionStateListener stateListener = new RedisConnectionStateListener() {
+        @Override
+        public void onRedisConnected(RedisChannelHandler<?, ?> handler, SocketAddress address) {
+            if (running.get()) {
+                // Runs on the event loop; enable asynchronously and clear once it is in effect
+                enableTracking().whenComplete((result, e) -> {
+                    if (e != null) {
+                        logger.error("Failed to re-enable client tracking after reconnect", e);
+                    }
+                    notifyClearAll();
+                });
+            }
+        }
+    };
+
+    /**
+     * @param prefixes key prefixes reported in {@link Mode#BROADCAST}, e.g. the L2 key
+     *                 prefix, or empty for all keys; ignored in {@link Mode#DEFAULT}
+     */
+    public TrackingCacheSynchronizer(StatefulRedisConnection<byte[], byte[]> connection,
+                                     Mode mode,
+                                     Collection<String> prefixes) {
+        this.connection = connection;
+        this.mode = mode;
+        TrackingArgs args = TrackingArgs.Builder.enabled().noloop();
+        if (mode == Mode.BROADCAST) {
+            args.bcast();
+            if (prefixes != null && !prefixes.isEmpty()) {
+                args.prefixes(StandardCharsets.UTF_8, prefixes.toArray(new String[0]));
+            }
+        }
+        this.trackingArgs = args;
+    }
+
+    @Override
+    public void publishInvalidation(String cacheName, Object key) {
+        // Redis reports the write to tracking connections
+    }
+
+    @Override
+    public void publishBulkInvalidation(String cacheName, Collection<?> keys) {
+        // Redis reports the writes to tracking connections
+    }
+
+    @Override
+    public void publishClear(String cacheName) {
+        // Every deleted key is reported to tracking connections
+    }
+
+    @Override
+    public void subscribe(InvalidationListener listener) {
+        listeners.add(listener);
+    }
+
+    @Override
+    public void unsubscribe(InvalidationListener listener) {
+        listeners.remove(listener);
+    }
+
+    @Override
+    public void start() {
+        if (running.compareAndSet(false, true)) {
+            connection.addListener(pushListener);
+            connection.addListener(stateListener);
+            try {
+                enableTracking().toCompletableFuture().get(connection.getTimeout().toMillis(), TimeUnit.MILLISECONDS);
+            } catch (Exception e) {
+                running.set(false);
+                connection.removeListener(pushListener);
+                connection.removeListener(stateListener);
+                throw new IllegalStateException("Failed to enable client tracking; a RESP3 connection to "
+                        + "Redis 6 or later is required", e);
+            }
+            logger.info("Client tracking synchronizer started in {} mode", mode);
+        }
+    }
+
+    @Override
+    public void stop() {
+        if (running.compareAndSet(true, false)) {
+            connection.removeListener(stateListener);
+            connection.removeListener(pushListener);
+            if (connection.isOpen()) {
+                connection.async().clientTracking(TrackingArgs.Builder.enabled(false));
+            }
+            logger.info("Client tracking synchronizer stopped");
+        }
+    }
+
+    private CompletionStage<String> enableTracking() {
+        return connection.async().clientTracking(trackingArgs);
+    }
+
+    private void onPushMessage(PushMessage message) {
+        if (!INVALIDATE_TYPE.equals(message.getType())) {
+            return;
+        }
+
+        try {
+            List<Object> content = message.getContent(TrackingCacheSynchronizer::toBytes);
+            Object keys = content.size() > 1 ? content.get(1) : null;
+            // A null key list means the whole dataset was flushed
+            if (!(keys instanceof List<?> keyList)) {
+                notifyClearAll();
+                return;
+            }
+
+            List<byte[]> redisKeys = new ArrayList<>(keyList.size());
+            for (Object key : keyList) {
+                if (key instanceof byte[] bytes) {
+                    redisKeys.add(bytes);
+                }
+            }
+            notifyRedisKeys(redisKeys);
+        } catch (Exception e) {
+            logger.error("Failed to process invalidation push message", e);
+        }
+    }
+
+    private static Object toBytes(ByteBuffer buffer) {
+        byte[] bytes = new byte[buffer.remaining()];
+        buffer.duplicate().get(bytes);
+        return bytes;
+    }
+
+    private void notifyRedisKeys(Collection<byte[]> redisKeys) {
+        for (InvalidationListener listener : listeners) {
+            try {
+                listener.onInvalidateRedisKeys(redisKeys);
+            } catch (Exception e) {
+                logger.error("Listener failed on tracked invalidation", e);
+            }
+        }
+    }
+
+    private void notifyClearAll() {
+        for (InvalidationListener listener : listeners) {
+            try {
+                listener.onClearAll();
+            } catch (Exception e) {
+                logger.error("Listener failed on clear all", e);
+            }
+        }
+    }
+
+    /**
+     * Which keys Redis reports changes for.
+     */
+    public enum Mode {
+        /**
+         * Keys read on the tracking connection; invalidations reach only the nodes that
+         * read the key.
+         */
+        DEFAULT,
+        /**
+         * Keys under the configured prefixes, whoever read them; no per-key state on the server.
+         */
+        BROADCAST
+    }
+
+}
@@ -0,0 +1,75 @@
+package com.andyadc.skeleton.ncache.compression;
+
+import com.andyadc.skeleton.ncache.config.CacheConfig.CompressionConfig;
+import org.junit.jupiter.api.Test;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class CompressionCodecTest {
+
+    private static byte[] json(int items) {
+        StringBuilder sb = new StringBuilder("[");
+        for (int i = 0; i < items; i++) {
+            sb.append("{\"id\":").append(i).append(",\"name\":\"user-").append(i)
+                    .append("\",\"active\":true,\"roles\":[\"reader\",\"writer\"]},");
+        }
+        return sb.append("{}]").toString().getBytes(StandardCharsets.UTF_8);
+    }
+
+    @Test
+    public void roundTripGzip() {
+        byte[] data = json(200);
+        byte[] encoded = new CompressionCodec(CompressionConfig.gzip(1024)).encode(data);
+
+        assertEquals(CompressionCodec.MAGIC, encoded[0]);
+        assertEquals(CompressionCodec.GZIP, encoded[1]);
+        assertTrue(encoded.length < data.length / 4);
+        assertArrayEquals(data, CompressionCodec.decode(encoded));
+    }
+
+    @Test
+    public void roundTripDeflate() {
+        byte[] data = json(200);
+        byte[] encoded = new CompressionCodec(CompressionConfig.deflate(1024)).encode(data);
+
+        assertEquals(CompressionCodec.MAGIC, encoded[0]);
+        assertEquals(CompressionCodec.DEFLATE, encoded[1]);
+        assertTrue(encoded.length < data.length / 4);
+        assertArrayEquals(data, CompressionCodec.decode(encoded));
+    }
+
+    @Test
+    public void smallOrIncompressibleValuesStayRaw() {
+        CompressionCodec codec = new CompressionCodec(CompressionConfig.deflate(1024));
+
+        byte[] small = json(1);
+        byte[] encodedSmall = codec.encode(small);
+        assertSame(small, encodedSmall);
+        assertArrayEquals(small, CompressionCodec.decode(encodedSmall));
+
+        byte[] random = new byte[4096];
+        new Random(7).nextBytes(random);
+        byte[] encodedRandom = codec.encode(random);
+        assertSame(random, encodedRandom);
+        assertArrayEquals(random, CompressionCodec.decode(encodedRandom));
+    }
+
+    @Test
+    public void valuesWithoutAKnownCodecAreReadAsRaw() {
+        byte[] unknownCodec = {CompressionCodec.MAGIC, 9, 0, 0, 0, 1, 42};
+        assertFalse(CompressionCodec.isCompressed(unknownCodec, 0, unknownCodec.length));
+        assertArrayEquals(unknownCodec, CompressionCodec.decode(unknownCodec));
+
+        byte[] empty = new byte[0];
+        assertArrayEquals(empty, CompressionCodec.decode(empty));
+    }
+
+    @Test
+    public void unsupportedTypeIsRejected() {
+        assertThrows(IllegalArgumentException.class, () -> new CompressionCodec(CompressionConfig.lz4(1024)));
+    }
+
+}
@@ -0,0 +1,134 @@
+package com.andyadc.skeleton.ncache.impl;
+
+import com.andyadc.skeleton.ncache.config.CacheConfig;
+import org.junit.jupiter.api.Test;
+
+import java.nio.ByteBuffer;
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class CacheBloomFilterTest {
+
+    private final CacheConfig.BloomFilterConfig config = CacheConfig.BloomFilterConfig.of(10_000, 0.01);
+
+    @Test
+    public void hasNoFalseNegativesAndTheConfiguredFalsePositiveRate() {
+        CacheBloomFilter<Integer> filter = new CacheBloomFilter<>("users", "cache:", config, null, null);
+        assertFalse(filter.isReady());
+        assertTrue(filter.mightContain(-1));
+
+        filter.rebuild(IntStream.range(0, 10_000).boxed().collect(Collectors.toList()));
+        assertTrue(filter.isReady());
+        assertEquals(7, filter.hashCount());
+        assertTrue(IntStream.range(0, 10_000).allMatch(filter::mightContain));
+
+        long falsePositives = IntStream.range(10_000, 110_000).filter(filter::mightContain).count();
+        assertTrue(falsePositives < 2_000, "false positives: " + falsePositives);
+
+        filter.add(-1);
+        assertTrue(filter.mightContain(-1));
+    }
+
+    @Test
+    public void nodesShareTheRedisBitmap() {
+        InMemoryBitmapStore store = new InMemoryBitmapStore();
+        CacheBloomFilter<String> node1 = new CacheBloomFilter<>("users", "cache:", config, null, store);
+        CacheBloomFilter<String> node2 = new CacheBloomFilter<>("users", "cache:", config, null, store);
+
+        // Bits set before any rebuild are not enough to reject keys
+        node1.add("a");
+        node2.reload();
+        assertFalse(node2.isReady());
+
+        node1.rebuild(List.of("a", "b"));
+        node2.reload();
+        assertTrue(node2.isReady());
+        assertTrue(node2.mightContain("a"));
+        assertTrue(node2.mightContain("b"));
+        assertFalse(node2.mightContain("c"));
+
+        // Added on node 1 with SETBIT, merged on node 2
+        node1.add("c");
+        assertFalse(node2.mightContain("c"));
+        node2.reload();
+        assertTrue(node2.mightContain("c"));
+
+        // A rebuild elsewhere replaces the local bits
+        node1.rebuild(List.of("x"));
+        node2.reload();
+        assertTrue(node2.mightContain("x"));
+        assertFalse(node2.mightContain("a"));
+
+        CacheBloomFilter<String> resized = new CacheBloomFilter<>("users", "cache:",
+                CacheConfig.BloomFilterConfig.of(1_000, 0.01), null, store);
+        resized.reload();
+        assertFalse(resized.isReady());
+    }
+
+    @Test
+    public void rejectedKeysSkipTheLoader() {
+        CacheConfig<String, String> cacheConfig = CacheConfig.<String, String>builder()
+                .l2Config(CacheConfig.L2Config.builder().enabled(false).build())
+                .nullValueCaching(true, Duration.ofMinutes(1))
+                .build();
+        DefaultCacheStats stats = new DefaultCacheStats();
+        CacheBloomFilter<String> filter = new CacheBloomFilter<>("users", "cache:", config, null, null);
+        TwoLevelCache<String, String> cache = new TwoLevelCache<>("users", cacheConfig,
+                new L1CaffeineCache<>("users", cacheConfig.getL1Config(), stats, null), null, stats,
+                null, null, "node", filter);
+        cache.rebuildBloomFilter(List.of("a"));
+        AtomicInteger loads = new AtomicInteger();
+
+        assertNull(cache.get("missing", key -> "loaded-" + loads.incrementAndGet()));
+        assertEquals("loaded-1", cache.get("a", key -> "loaded-" + loads.incrementAndGet()));
+
+        // A cached null is served without loading again
+        cache.put("b", "value-b");
+        cache.remove("b");
+        assertNull(cache.get("b", key -> null));
+        assertNull(cache.get("b", key -> "loaded-" + loads.incrementAndGet()));
+        assertEquals(1, loads.get());
+        assertEquals(2, stats.getNegativeHitCount());
+    }
+
+    /**
+     * Redis string semantics of GET, SET and SETBIT.
+     */
+    private static class InMemoryBitmapStore implements CacheBloomFilter.BitmapStore {
+
+        private final Map<ByteBuffer, byte[]> values = new HashMap<>();
+
+        @Override
+        public synchronized void setBits(byte[] key, long[] offsets) {
+            byte[] value = values.getOrDefault(ByteBuffer.wrap(key), new byte[0]);
+            for (long offset : offsets) {
+                int index = (int) (offset >>> 3);
+                if (index >= value.length) {
+                    value = Arrays.copyOf(value, index + 1);
+                }
+                value[index] |= (byte) (0x80 >>> (offset & 7));
+            }
+            values.put(ByteBuffer.wrap(key), value);
+        }
+
+        @Override
+        public synchronized byte[] get(byte[] key) {
+            byte[] value = values.get(ByteBuffer.wrap(key));
+            return value != null ? value.clone() : null;
+        }
+
+        @Override
+        public synchronized void replace(byte[] key, byte[] bitmap) {
+            values.put(ByteBuffer.wrap(key), bitmap.clone());
+        }
+    }
+
+}
@@ -0,0 +1,50 @@
+package com.andyadc.skeleton.ncache.impl;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Random;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class HotKeySketchTest {
+
+    @Test
+    public void findsHotKeysAmongColdTraffic() {
+        HotKeySketch<Integer> sketch = new HotKeySketch<>(5, 10_000, null);
+        Random random = new Random(42);
+        for (int i = 0; i < 200_000; i++) {
+            // Keys 0-4 take about half of the traffic, the rest is spread over 100k keys
+            int key = random.nextBoolean() ? random.nextInt(5) : 5 + random.nextInt(100_000);
+            sketch.record(key);
+        }
+
+        Map<Integer, Long> hotKeys = sketch.hotKeys();
+        assertEquals(Set.of(0, 1, 2, 3, 4), hotKeys.keySet());
+        assertTrue(sketch.isHot(0));
+        assertFalse(sketch.isHot(50_000));
+    }
+
+    @Test
+    public void agesOutKeysThatCooledDown() {
+        Set<Integer> demoted = new HashSet<>();
+        HotKeySketch<Integer> sketch = new HotKeySketch<>(2, 256, demoted::add);
+        for (int i = 0; i < 1_000; i++) {
+            sketch.record(1);
+            sketch.record(2);
+        }
+        assertEquals(Set.of(1, 2), sketch.hotKeys().keySet());
+
+        // Shift all traffic to two new keys over several aging periods
+        for (int i = 0; i < 20_000; i++) {
+            sketch.record(3);
+            sketch.record(4);
+        }
+        assertEquals(Set.of(3, 4), sketch.hotKeys().keySet());
+        assertTrue(demoted.containsAll(Set.of(1, 2)));
+        assertFalse(sketch.isHot(1));
+    }
+
+}
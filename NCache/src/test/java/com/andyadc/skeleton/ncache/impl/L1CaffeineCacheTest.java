@@ -0,0 +1,44 @@
+package com.andyadc.skeleton.ncache.impl;
+
+import com.andyadc.skeleton.ncache.config.CacheConfig;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.IntStream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class L1CaffeineCacheTest {
+
+    @Test
+    public void expiresEachEntryAtItsOwnDeadline() throws Exception {
+        L1CaffeineCache<String, String> l1 = new L1CaffeineCache<>("test",
+                CacheConfig.L1Config.builder().expireAfterWrite(Duration.ofMinutes(10)).build(),
+                new DefaultCacheStats(), null);
+        l1.put("short", CacheEntry.of("a", 50));
+        l1.put("long", CacheEntry.of("b", 60_000));
+
+        TimeUnit.MILLISECONDS.sleep(100);
+
+        assertNull(l1.getEntry("short"));
+        assertEquals("b", l1.getEntry("long").getValue());
+    }
+
+    @Test
+    public void jitterSpreadsExpiryWithoutExtendingIt() throws Exception {
+        L1CaffeineCache<Integer, String> l1 = new L1CaffeineCache<>("test",
+                CacheConfig.L1Config.builder().ttlJitter(0.5).build(), new DefaultCacheStats(), null);
+        for (int i = 0; i < 1000; i++) {
+            l1.put(i, CacheEntry.of("v", 400));
+        }
+
+        TimeUnit.MILLISECONDS.sleep(300);
+        long live = IntStream.range(0, 1000).filter(l1::containsKey).count();
+        assertTrue(live > 0 && live < 1000, "live: " + live);
+
+        TimeUnit.MILLISECONDS.sleep(150);
+        assertEquals(0, IntStream.range(0, 1000).filter(l1::containsKey).count());
+    }
+
+}
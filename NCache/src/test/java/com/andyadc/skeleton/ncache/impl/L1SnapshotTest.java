@@ -0,0 +1,62 @@
+package com.andyadc.skeleton.ncache.impl;
+
+import com.andyadc.skeleton.ncache.serialization.JdkSerializer;
+import com.andyadc.skeleton.ncache.serialization.Serializer;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class L1SnapshotTest {
+
+    private final Serializer<String> keySerializer = new JdkSerializer<>();
+    private final Serializer<String> valueSerializer = new JdkSerializer<>();
+
+    @TempDir
+    Path dir;
+
+    @Test
+    public void restoresLiveEntriesWithTheirExpiry() throws Exception {
+        Map<String, CacheEntry<String>> entries = new LinkedHashMap<>();
+        entries.put("a", CacheEntry.of("value-a", 60_000));
+        entries.put("b", CacheEntry.nullEntry(60_000));
+        entries.put("c", CacheEntry.of("expired", -1));
+        Path file = dir.resolve("users.snapshot");
+
+        assertEquals(2, L1Snapshot.write(file, entries.entrySet(), keySerializer, valueSerializer));
+
+        Map<String, CacheEntry<String>> restored = new HashMap<>();
+        assertEquals(2, L1Snapshot.read(file, Duration.ofMinutes(1), keySerializer, valueSerializer, restored::put));
+        assertEquals("value-a", restored.get("a").getValue());
+        assertEquals(entries.get("a").getExpireTime(), restored.get("a").getExpireTime());
+        assertTrue(restored.get("b").isNullValue());
+        assertFalse(restored.containsKey("c"));
+    }
+
+    @Test
+    public void skipsCorruptAndStaleSnapshots() throws Exception {
+        Path file = dir.resolve("users.snapshot");
+        L1Snapshot.write(file, Map.of("a", CacheEntry.of("value-a", 60_000)).entrySet(),
+                keySerializer, valueSerializer);
+        Map<String, CacheEntry<String>> restored = new HashMap<>();
+
+        assertEquals(0, L1Snapshot.read(file, Duration.ofMillis(-1), keySerializer, valueSerializer, restored::put));
+
+        byte[] bytes = Files.readAllBytes(file);
+        bytes[bytes.length - 1] ^= 1;
+        Files.write(file, bytes);
+        assertEquals(0, L1Snapshot.read(file, null, keySerializer, valueSerializer, restored::put));
+
+        assertEquals(0, L1Snapshot.read(dir.resolve("missing.snapshot"), null,
+                keySerializer, valueSerializer, restored::put));
+        assertTrue(restored.isEmpty());
+    }
+
+}
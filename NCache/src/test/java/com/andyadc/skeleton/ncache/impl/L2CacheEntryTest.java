@@ -0,0 +1,76 @@
+package com.andyadc.skeleton.ncache.impl;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class L2CacheEntryTest {
+
+    private static final long TTL_MILLIS = 10_000;
+    private static final long COMPUTE_MILLIS = 200;
+    private static final long READ_INTERVAL_MILLIS = 10;
+    private static final int KEYS = 10_000;
+
+    @Test
+    public void neverRecomputesEarlyWithoutMetadata() {
+        L2CacheEntry<String> noExpiry = new L2CacheEntry<>("v", COMPUTE_MILLIS, 0);
+        L2CacheEntry<String> noDelta = new L2CacheEntry<>("v", 0, TTL_MILLIS);
+
+        assertFalse(noExpiry.shouldRecomputeEarly(TTL_MILLIS * 10, 1.0, 1e-9));
+        assertFalse(noDelta.shouldRecomputeEarly(TTL_MILLIS - 1, 1.0, 1e-9));
+    }
+
+    @Test
+    public void alwaysRecomputesAtExpiry() {
+        L2CacheEntry<String> entry = new L2CacheEntry<>("v", COMPUTE_MILLIS, TTL_MILLIS);
+
+        assertTrue(entry.shouldRecomputeEarly(TTL_MILLIS, 1.0, 1.0));
+        assertFalse(entry.shouldRecomputeEarly(0, 1.0, 0.5));
+    }
+
+    /**
+     * Simulates a batch of keys written at the same moment with the same TTL, each read
+     * every few milliseconds, and records when each key is first recomputed. Hard expiry
+     * would recompute all of them in the same tick.
+     */
+    @Test
+    public void spreadsRecomputationAheadOfExpiry() {
+        Random random = new Random(42);
+        int[] recomputesPerTick = new int[(int) (TTL_MILLIS / READ_INTERVAL_MILLIS) + 1];
+        long earliest = Long.MAX_VALUE;
+
+        for (int i = 0; i < KEYS; i++) {
+            L2CacheEntry<String> entry = new L2CacheEntry<>("v" + i, COMPUTE_MILLIS, TTL_MILLIS);
+            for (long now = 0; now <= TTL_MILLIS; now += READ_INTERVAL_MILLIS) {
+                if (entry.shouldRecomputeEarly(now, 1.0, 1.0 - random.nextDouble())) {
+                    recomputesPerTick[(int) (now / READ_INTERVAL_MILLIS)]++;
+                    earliest = Math.min(earliest, now);
+                    break;
+                }
+            }
+        }
+
+        int total = 0;
+        int peak = 0;
+        int ticksWithLoad = 0;
+        for (int count : recomputesPerTick) {
+            total += count;
+            peak = Math.max(peak, count);
+            if (count > 0) {
+                ticksWithLoad++;
+            }
+        }
+
+        assertEquals(KEYS, total);
+        // Load is spread over many ticks and no single tick sees more than a tenth of the keys
+        assertTrue(ticksWithLoad >= 50, "recomputes spread over " + ticksWithLoad + " ticks");
+        assertTrue(peak < KEYS / 10, "peak recomputes per tick " + peak);
+        assertTrue(TTL_MILLIS - earliest >= COMPUTE_MILLIS, "earliest recompute " + earliest);
+        // Hardly any key is left to be recomputed at the hard expiry itself
+        int atExpiry = recomputesPerTick[recomputesPerTick.length - 1];
+        assertTrue(atExpiry < KEYS / 100, "recomputes at expiry " + atExpiry);
+    }
+
+}
@@ -0,0 +1,129 @@
+package com.andyadc.skeleton.ncache.impl;
+
+import com.andyadc.skeleton.ncache.config.CacheConfig;
+import com.andyadc.skeleton.ncache.serialization.JdkSerializer;
+import org.junit.jupiter.api.Test;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class L2CodecTest {
+
+    @Test
+    public void decodesOwnKeys() {
+        for (boolean hashTag : new boolean[]{false, true}) {
+            CacheConfig.L2Config config = CacheConfig.L2Config.builder().useKeyHashTag(hashTag).build();
+            L2Codec<Object, String> codec = new L2Codec<>("users", config, null, new JdkSerializer<>(),
+                    new DefaultCacheStats());
+
+            assertEquals("user:42", codec.decodeKey(codec.buildKey("user:42")));
+            assertEquals("42", codec.decodeKey(codec.buildKey(42L)));
+            assertNull(codec.decodeKey("cache:orders:1".getBytes(StandardCharsets.UTF_8)));
+            assertNull(codec.decodeKey("cache:".getBytes(StandardCharsets.UTF_8)));
+        }
+    }
+
+    @Test
+    public void roundTripsTypedKeys() {
+        L2Codec<Long, String> codec = new L2Codec<>("users", CacheConfig.L2Config.defaultConfig(),
+                new JdkSerializer<>(), new JdkSerializer<>(), new DefaultCacheStats());
+
+        assertEquals(42L, codec.decodeKey(codec.buildKey(42L)));
+    }
+
+    @Test
+    public void readsValuesWrittenWithCompressionOffAfterEnablingIt() {
+        String value = "compressible ".repeat(100);
+        L2Codec<String, String> plain = codec(CacheConfig.CompressionConfig.disabled());
+        L2Codec<String, String> gzip = codec(CacheConfig.CompressionConfig.gzip(16));
+
+        byte[] written = plain.encodeValue(value, Duration.ofMinutes(1), 0);
+        assertEquals(value, gzip.decodeEntry(written).getValue());
+    }
+
+    @Test
+    public void readsBareSerializedValuesWhateverTheCompressionSetting() {
+        String value = "stored before compression existed";
+        byte[] legacy = new JdkSerializer<String>().serialize(value);
+
+        assertEquals(value, codec(CacheConfig.CompressionConfig.disabled()).decodeEntry(legacy).getValue());
+        assertEquals(value, codec(CacheConfig.CompressionConfig.gzip(16)).decodeEntry(legacy).getValue());
+        assertArrayEquals(legacy, codec(CacheConfig.CompressionConfig.disabled())
+                .encodeValue(value, Duration.ofMinutes(1), 0));
+    }
+
+    @Test
+    public void readsCompressedValuesAfterDisablingCompression() {
+        String value = "compressible ".repeat(100);
+        L2Codec<String, String> gzip = codec(CacheConfig.CompressionConfig.gzip(16));
+        L2Codec<String, String> plain = codec(CacheConfig.CompressionConfig.disabled());
+
+        byte[] written = gzip.encodeValue(value, Duration.ofMinutes(1), 0);
+        assertTrue(written.length < value.length());
+        assertEquals(value, plain.decodeEntry(written).getValue());
+        assertEquals(value, codec(CacheConfig.CompressionConfig.deflate(16)).decodeEntry(written).getValue());
+    }
+
+    @Test
+    public void tellsNullSentinelsFromValues() {
+        for (boolean early : new boolean[]{false, true}) {
+            CacheConfig.L2Config config = CacheConfig.L2Config.builder()
+                    .earlyExpiration(early ? CacheConfig.EarlyExpirationConfig.xfetch(1.0)
+                            : CacheConfig.EarlyExpirationConfig.disabled())
+                    .build();
+            L2Codec<String, String> codec = new L2Codec<>("users", config, null, new JdkSerializer<>(),
+                    new DefaultCacheStats());
+
+            byte[] sentinel = codec.encodeNull(Duration.ofMinutes(1));
+            assertTrue(isSentinelToPutIfAbsentScript(sentinel));
+            assertFalse(isSentinelToPutIfAbsentScript(codec.encodeValue("", Duration.ofMinutes(1), 5)));
+
+            L2CacheEntry<String> nullEntry = codec.decodeEntry(sentinel);
+            assertTrue(nullEntry.isNullValue());
+            assertNull(nullEntry.getValue());
+            assertEquals(early, nullEntry.getExpireTime() > System.currentTimeMillis());
+
+            L2CacheEntry<String> entry = codec.decodeEntry(codec.encodeValue("", Duration.ofMinutes(1), 5));
+            assertFalse(entry.isNullValue());
+            assertEquals("", entry.getValue());
+        }
+    }
+
+    @Test
+    public void readsValuesAcrossEarlyExpirationChanges() {
+        L2Codec<String, String> plain = codec(CacheConfig.EarlyExpirationConfig.disabled());
+        L2Codec<String, String> early = codec(CacheConfig.EarlyExpirationConfig.xfetch(1.0));
+
+        // Legacy values have no entry header
+        L2CacheEntry<String> legacy = early.decodeEntry(plain.encodeValue("value", Duration.ofMinutes(1), 5));
+        assertEquals("value", legacy.getValue());
+        assertEquals(0, legacy.getExpireTime());
+        assertTrue(early.decodeEntry(plain.encodeNull(Duration.ofMinutes(1))).isNullValue());
+
+        L2CacheEntry<String> entry = plain.decodeEntry(early.encodeValue("value", Duration.ofMinutes(1), 5));
+        assertEquals("value", entry.getValue());
+        assertEquals(5, entry.getComputeTimeMillis());
+        assertTrue(entry.getExpireTime() > System.currentTimeMillis());
+        assertTrue(plain.decodeEntry(early.encodeNull(Duration.ofMinutes(1))).isNullValue());
+    }
+
+    /**
+     * The check {@link L2Codec#PUT_IF_ABSENT_SCRIPT} makes in Lua.
+     */
+    private static boolean isSentinelToPutIfAbsentScript(byte[] value) {
+        return value.length == 0 || (value.length == 13 && value[0] == (byte) 0xE1);
+    }
+
+    private static L2Codec<String, String> codec(CacheConfig.EarlyExpirationConfig earlyExpiration) {
+        CacheConfig.L2Config config = CacheConfig.L2Config.builder().earlyExpiration(earlyExpiration).build();
+        return new L2Codec<>("users", config, null, new JdkSerializer<>(), new DefaultCacheStats());
+    }
+
+    private static L2Codec<String, String> codec(CacheConfig.CompressionConfig compression) {
+        CacheConfig.L2Config config = CacheConfig.L2Config.builder().compression(compression).build();
+        return new L2Codec<>("users", config, null, new JdkSerializer<>(), new DefaultCacheStats());
+    }
+
+}
@@ -0,0 +1,74 @@
+package com.andyadc.skeleton.ncache.impl;
+
+import com.andyadc.skeleton.ncache.config.CacheConfig;
+import com.andyadc.skeleton.ncache.serialization.JdkSerializer;
+import org.junit.jupiter.api.Test;
+
+import java.nio.file.Path;
+import java.util.stream.IntStream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class OffHeapStoreTest {
+
+    @Test
+    public void movesEntriesInAndOut() {
+        OffHeapStore<String, String> store = new OffHeapStore<>(
+                CacheConfig.OffHeapConfig.mapped(64 * 1024, Path.of(System.getProperty("java.io.tmpdir"))),
+                new JdkSerializer<>());
+        CacheEntry<String> entry = CacheEntry.of("value", 60_000);
+        store.put("a", entry);
+        store.put("b", CacheEntry.nullEntry(60_000));
+
+        assertTrue(store.containsKey("a"));
+        CacheEntry<String> restored = store.remove("a");
+        assertEquals("value", restored.getValue());
+        assertEquals(entry.getExpireTime(), restored.getExpireTime());
+        assertNull(store.remove("a"));
+        assertTrue(store.remove("b").isNullValue());
+        assertEquals(0, store.usedBytes());
+
+        store.put("c", CacheEntry.of("expired", -1));
+        assertNull(store.remove("c"));
+    }
+
+    @Test
+    public void evictsOldestEntriesWhenFull() {
+        CacheConfig.OffHeapConfig config = new CacheConfig.OffHeapConfig(
+                true, 4096, CacheConfig.OffHeapConfig.Storage.DIRECT, null, 1);
+        OffHeapStore<Integer, byte[]> store = new OffHeapStore<>(config, new JdkSerializer<>());
+        for (int i = 0; i < 100; i++) {
+            store.put(i, CacheEntry.of(new byte[100], 60_000));
+        }
+
+        assertTrue(store.usedBytes() <= 4096);
+        assertFalse(store.containsKey(0));
+        assertTrue(store.containsKey(99));
+        assertEquals(store.size(), IntStream.range(0, 100).filter(store::containsKey).count());
+    }
+
+    @Test
+    public void l1DemotesEvictedEntriesAndPromotesThemOnRead() {
+        DefaultCacheStats stats = new DefaultCacheStats();
+        OffHeapStore<Integer, String> offHeap = new OffHeapStore<>(
+                CacheConfig.OffHeapConfig.direct(1024 * 1024), new JdkSerializer<>());
+        L1CaffeineCache<Integer, String> l1 = new L1CaffeineCache<>("test",
+                CacheConfig.L1Config.builder().maximumSize(10).build(), stats, null, offHeap);
+        for (int i = 0; i < 100; i++) {
+            l1.put(i, CacheEntry.of("value-" + i, 60_000));
+        }
+        l1.cleanUp();
+
+        assertTrue(l1.offHeapSize() >= 90);
+        assertTrue(stats.getOffHeapBytes() > 0);
+        for (int i = 0; i < 100; i++) {
+            assertEquals("value-" + i, l1.getEntry(i).getValue());
+        }
+        assertTrue(stats.getOffHeapHitCount() >= 90);
+
+        l1.invalidate(5);
+        l1.cleanUp();
+        assertNull(l1.getEntry(5));
+    }
+
+}
@@ -0,0 +1,155 @@
+package com.andyadc.skeleton.ncache.impl;
+
+import com.andyadc.skeleton.ncache.api.Cache;
+import com.andyadc.skeleton.ncache.api.CacheSynchronizer;
+import com.andyadc.skeleton.ncache.config.CacheConfig;
+import com.andyadc.skeleton.ncache.config.TwoLevelCacheManagerConfig;
+import com.andyadc.skeleton.ncache.metrics.DefaultMetricsCollector;
+import com.andyadc.skeleton.ncache.metrics.MetricsCollector;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.Collection;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.CopyOnWriteArraySet;
+import java.util.function.Consumer;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class TwoLevelCacheManagerTest {
+
+    private final RecordingSynchronizer synchronizer = new RecordingSynchronizer();
+    private final DefaultMetricsCollector collector = new DefaultMetricsCollector();
+    private final TwoLevelCacheManager manager = new TwoLevelCacheManager(TwoLevelCacheManagerConfig.builder()
+            .synchronizer(synchronizer)
+            .metricsCollector(collector)
+            .defaultCacheConfig(localConfig())
+            .maintenanceInterval(Duration.ofMillis(20))
+            .build());
+
+    @AfterEach
+    public void tearDown() {
+        manager.shutdown();
+    }
+
+    @Test
+    public void createsCachesOnceAndSubscribesOnce() {
+        Cache<String, String> users = manager.getCache("users");
+        assertSame(users, manager.getCache("users"));
+        manager.getCache("orders");
+
+        assertEquals(Set.of("users", "orders"), Set.copyOf(manager.getCacheNames()));
+        assertEquals(1, synchronizer.listeners.size());
+        assertTrue(manager.getCacheIfPresent("missing").isEmpty());
+    }
+
+    @Test
+    public void routesInvalidationsToTheNamedCache() {
+        Cache<String, String> users = manager.getCache("users");
+        Cache<String, String> orders = manager.getCache("orders");
+        users.put("k", "user");
+        orders.put("k", "order");
+
+        synchronizer.fire(listener -> listener.onInvalidate("users", "k"));
+        assertTrue(users.get("k").isEmpty());
+        assertEquals(Optional.of("order"), orders.get("k"));
+
+        synchronizer.fire(CacheSynchronizer.InvalidationListener::onClearAll);
+        assertTrue(orders.get("k").isEmpty());
+    }
+
+    @Test
+    public void publishesStatsFromTheMaintenanceTask() throws InterruptedException {
+        Cache<String, String> users = manager.getCache("users");
+        users.put("k", "v");
+        users.get("k");
+        users.get("missing");
+
+        long deadline = System.currentTimeMillis() + 5_000;
+        MetricsCollector.CacheMetrics metrics = collector.getCacheMetrics("users");
+        // A run reads the counters one by one, so it may have started before the first operation
+        while (!sawAll(metrics) && System.currentTimeMillis() < deadline) {
+            Thread.sleep(10);
+            metrics = collector.getCacheMetrics("users");
+        }
+        assertNotNull(metrics);
+        assertEquals(1, metrics.getHitCount());
+        assertEquals(1, metrics.getMissCount());
+        assertEquals(1, metrics.getPutCount());
+        assertEquals(1, metrics.getL1Size());
+    }
+
+    @Test
+    public void shutdownDestroysCachesAndUnsubscribes() {
+        manager.getCache("users");
+        manager.shutdown();
+        manager.shutdown();
+
+        assertTrue(manager.getCacheNames().isEmpty());
+        assertTrue(synchronizer.listeners.isEmpty());
+        assertFalse(synchronizer.stopped);
+        assertThrows(IllegalStateException.class, () -> manager.getCache("users"));
+    }
+
+    @Test
+    public void rejectsRemoteCachesWithoutRedis() {
+        assertThrows(IllegalStateException.class,
+                () -> manager.getCache("remote", CacheConfig.<String, String>defaultConfig()));
+        assertTrue(manager.getCacheIfPresent("remote").isEmpty());
+    }
+
+    private static boolean sawAll(MetricsCollector.CacheMetrics metrics) {
+        return metrics != null && metrics.getHitCount() > 0 && metrics.getMissCount() > 0
+                && metrics.getPutCount() > 0 && metrics.getL1Size() > 0;
+    }
+
+    private static CacheConfig<Object, Object> localConfig() {
+        return CacheConfig.builder()
+                .l2Config(CacheConfig.L2Config.builder().enabled(false).build())
+                .build();
+    }
+
+    private static class RecordingSynchronizer implements CacheSynchronizer {
+
+        final Set<InvalidationListener> listeners = new CopyOnWriteArraySet<>();
+        volatile boolean stopped;
+
+        void fire(Consumer<InvalidationListener> message) {
+            listeners.forEach(message);
+        }
+
+        @Override
+        public void publishInvalidation(String cacheName, Object key) {
+        }
+
+        @Override
+        public void publishBulkInvalidation(String cacheName, Collection<?> keys) {
+        }
+
+        @Override
+        public void publishClear(String cacheName) {
+        }
+
+        @Override
+        public void subscribe(InvalidationListener listener) {
+            listeners.add(listener);
+        }
+
+        @Override
+        public void unsubscribe(InvalidationListener listener) {
+            listeners.remove(listener);
+        }
+
+        @Override
+        public void start() {
+        }
+
+        @Override
+        public void stop() {
+            stopped = true;
+        }
+    }
+
+}
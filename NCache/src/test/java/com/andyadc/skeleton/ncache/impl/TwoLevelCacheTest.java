@@ -0,0 +1,407 @@
+package com.andyadc.skeleton.ncache.impl;
+
+import com.andyadc.skeleton.ncache.api.CacheLoader;
+import com.andyadc.skeleton.ncache.config.CacheConfig;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class TwoLevelCacheTest {
+
+    private final DefaultCacheStats stats = new DefaultCacheStats();
+    private final InMemoryL2Cache l2 = new InMemoryL2Cache();
+    private final ExecutorService executor = Executors.newCachedThreadPool();
+
+    @AfterEach
+    public void tearDown() {
+        executor.shutdownNow();
+    }
+
+    @Test
+    public void getAllServesCachedAbsentKeysWithoutLoading() {
+        CacheConfig<String, String> config = CacheConfig.<String, String>builder()
+                .nullValueCaching(true, Duration.ofMinutes(1))
+                .syncEnabled(false)
+                .build();
+        L1CaffeineCache<String, String> l1 = new L1CaffeineCache<>("users", config.getL1Config(), stats, null);
+        TwoLevelCache<String, String> cache = new TwoLevelCache<>("users", config, l1, l2, stats, null, null, "node");
+        AtomicInteger loads = new AtomicInteger();
+        CacheLoader<String, String> loader = new CacheLoader<>() {
+            @Override
+            public String load(String key) {
+                throw new UnsupportedOperationException();
+            }
+
+            @Override
+            public Map<String, String> loadAll(Collection<String> keys) {
+                loads.incrementAndGet();
+                return keys.contains("a") ? Map.of("a", "value-a") : Map.of();
+            }
+        };
+
+        assertEquals(Map.of("a", "value-a"), cache.getAll(List.of("a", "b"), loader));
+        // The absent key is a negative hit in L1, then in L2 once L1 has lost it
+        assertEquals(Map.of("a", "value-a"), cache.getAll(List.of("a", "b"), loader));
+        l1.invalidateAll(List.of("a", "b"));
+        assertEquals(Map.of("a", "value-a"), cache.getAll(List.of("a", "b"), loader));
+
+        assertEquals(1, loads.get());
+        assertEquals(4, stats.getHitCount());
+        assertEquals(2, stats.getNegativeHitCount());
+        assertTrue(l1.getEntry("b").isNullValue());
+    }
+
+    @Test
+    public void cachedAbsentKeysAreNotContained() {
+        CacheConfig<String, String> config = CacheConfig.<String, String>builder()
+                .nullValueCaching(true, Duration.ofMinutes(1))
+                .syncEnabled(false)
+                .build();
+        L1CaffeineCache<String, String> l1 = new L1CaffeineCache<>("users", config.getL1Config(), stats, null);
+        TwoLevelCache<String, String> cache = new TwoLevelCache<>("users", config, l1, l2, stats, null, null, "node");
+
+        assertNull(cache.get("a", key -> null));
+        assertTrue(l1.containsKey("a"));
+        assertFalse(cache.containsKey("a"));
+        l1.invalidateAll(List.of("a"));
+        assertFalse(cache.containsKey("a"));
+
+        cache.put("b", "value-b");
+        l1.invalidateAll(List.of("b"));
+        assertTrue(cache.containsKey("b"));
+    }
+
+    @Test
+    public void getAllBackFillsL1NoLongerThanTheL2Entry() {
+        CacheConfig<String, String> config = CacheConfig.<String, String>builder()
+                .syncEnabled(false)
+                .build();
+        L1CaffeineCache<String, String> l1 = new L1CaffeineCache<>("users", config.getL1Config(), stats, null);
+        TwoLevelCache<String, String> cache = new TwoLevelCache<>("users", config, l1, l2, stats, null, null, "node");
+        l2.put("a", "value-a", Duration.ofSeconds(1));
+
+        long before = System.currentTimeMillis();
+        assertEquals(Map.of("a", "value-a"), cache.getAll(List.of("a")));
+        assertTrue(l1.getEntry("a").getExpireTime() <= before + 1_000 + 50);
+    }
+
+    @Test
+    public void missThatLosesTheRaceWithALoadDoesNotLoadAgain() throws Exception {
+        CountDownLatch readL2 = new CountDownLatch(1);
+        CountDownLatch loaded = new CountDownLatch(1);
+        InMemoryL2Cache slowL2 = new InMemoryL2Cache() {
+            @Override
+            public Optional<L2CacheEntry<String>> getEntry(String key) {
+                Optional<L2CacheEntry<String>> entry = super.getEntry(key);
+                if (Thread.currentThread().getName().equals("reader") && readL2.getCount() > 0) {
+                    readL2.countDown();
+                    await(loaded);
+                }
+                return entry;
+            }
+        };
+        CacheConfig<String, String> config = CacheConfig.<String, String>builder()
+                .syncEnabled(false)
+                .build();
+        TwoLevelCache<String, String> cache = new TwoLevelCache<>("users", config,
+                new L1CaffeineCache<>("users", config.getL1Config(), stats, null), slowL2, stats, null, null, "node");
+        AtomicInteger loads = new AtomicInteger();
+
+        // The reader misses in L2, then a whole load completes before it claims the key
+        FutureTask<String> reader = new FutureTask<>(() -> cache.get("a", key -> "loaded-" + loads.incrementAndGet()));
+        new Thread(reader, "reader").start();
+        readL2.await();
+        assertEquals("loaded-1", cache.get("a", key -> "loaded-" + loads.incrementAndGet()));
+        loaded.countDown();
+
+        assertEquals("loaded-1", reader.get(5, TimeUnit.SECONDS));
+        assertEquals(1, loads.get());
+    }
+
+    @Test
+    public void earlyRecomputeReadsL2OnceAndCountsAMiss() {
+        AtomicInteger l2Reads = new AtomicInteger();
+        InMemoryL2Cache countingL2 = new InMemoryL2Cache() {
+            @Override
+            public Optional<L2CacheEntry<String>> getEntry(String key) {
+                l2Reads.incrementAndGet();
+                return super.getEntry(key);
+            }
+        };
+        CacheConfig<String, String> config = CacheConfig.<String, String>builder()
+                .syncEnabled(false)
+                .l2Config(CacheConfig.L2Config.builder()
+                        .earlyExpiration(CacheConfig.EarlyExpirationConfig.xfetch(1_000_000))
+                        .build())
+                .build();
+        TwoLevelCache<String, String> cache = new TwoLevelCache<>("users", config,
+                new L1CaffeineCache<>("users", config.getL1Config(), stats, null), countingL2, stats, null, null, "node");
+        countingL2.put("a", "old", Duration.ofMinutes(1), 1_000);
+
+        assertEquals("new", cache.get("a", key -> "new"));
+        assertEquals(1, l2Reads.get());
+        assertEquals(1, stats.getEarlyRecomputeCount());
+        assertEquals(1, stats.getMissCount());
+    }
+
+    @Test
+    public void staleHitsServeTheOldValueWhileOneReloadRuns() throws Exception {
+        CountDownLatch reloading = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        AtomicInteger loads = new AtomicInteger();
+        TwoLevelCache<String, String> cache = refreshingCache(Duration.ofMillis(50), key -> {
+            reloading.countDown();
+            await(release);
+            return "value-" + loads.incrementAndGet();
+        });
+        cache.put("a", "value-0");
+        Thread.sleep(60);
+
+        for (int i = 0; i < 5; i++) {
+            assertEquals(Optional.of("value-0"), cache.get("a"));
+        }
+        reloading.await();
+        release.countDown();
+
+        assertEquals("value-1", awaitValue(cache, "a", "value-1"));
+        assertEquals(1, loads.get());
+    }
+
+    @Test
+    public void rejectedRefreshKeepsServingTheOldValue() throws Exception {
+        AtomicInteger loads = new AtomicInteger();
+        TwoLevelCache<String, String> cache = refreshingCache(Duration.ofMillis(50),
+                key -> "value-" + loads.incrementAndGet());
+        cache.put("a", "value-0");
+        Thread.sleep(60);
+        executor.shutdown();
+
+        assertEquals(Optional.of("value-0"), cache.get("a"));
+        CompletableFuture<Void> refresh = cache.refreshAsync("a");
+        assertTrue(refresh.isCompletedExceptionally());
+        // Not left in flight, so the next hit submits again
+        assertNotSame(refresh, cache.refreshAsync("a"));
+        assertEquals(0, loads.get());
+    }
+
+    @Test
+    public void failedReloadWaitsAnotherIntervalAndNullEvicts() throws Exception {
+        AtomicInteger loads = new AtomicInteger();
+        TwoLevelCache<String, String> cache = refreshingCache(Duration.ofMillis(200), key -> {
+            if (loads.incrementAndGet() == 1) {
+                throw new IllegalStateException("Database down");
+            }
+            return null;
+        });
+        cache.put("a", "value-0");
+        Thread.sleep(210);
+
+        cache.refreshAsync("a").join();
+        // Still served, and not reloaded on every hit
+        for (int i = 0; i < 5; i++) {
+            assertEquals(Optional.of("value-0"), cache.get("a"));
+        }
+        Thread.sleep(50);
+        assertEquals(1, loads.get());
+
+        // The next reload finds the key gone
+        Thread.sleep(200);
+        assertEquals(Optional.of("value-0"), cache.get("a"));
+        assertNull(awaitValue(cache, "a", null));
+        assertEquals(2, loads.get());
+        assertFalse(l2.containsKey("a"));
+    }
+
+    @Test
+    public void getAsyncPromotesOffTheL2CompletionThread() {
+        ExecutorService io = Executors.newSingleThreadExecutor(runnable -> new Thread(runnable, "l2-io"));
+        InMemoryL2Cache asyncL2 = new InMemoryL2Cache() {
+            @Override
+            public CompletableFuture<Optional<L2CacheEntry<String>>> getEntryAsync(String key) {
+                return CompletableFuture.supplyAsync(() -> getEntry(key), io);
+            }
+        };
+        CacheConfig<String, String> config = CacheConfig.<String, String>builder()
+                .syncEnabled(false)
+                .build();
+        List<String> promotedOn = new CopyOnWriteArrayList<>();
+        L1CaffeineCache<String, String> l1 = new L1CaffeineCache<>("users", config.getL1Config(), stats, null) {
+            @Override
+            public void put(String key, CacheEntry<String> entry) {
+                promotedOn.add(Thread.currentThread().getName());
+                super.put(key, entry);
+            }
+        };
+        TwoLevelCache<String, String> cache = new TwoLevelCache<>("users", config, l1, asyncL2, stats, null, executor, "node");
+        asyncL2.put("a", "value-a", Duration.ofMinutes(1));
+
+        try {
+            assertEquals(Optional.of("value-a"), cache.getAsync("a").join());
+        } finally {
+            io.shutdownNow();
+        }
+        assertEquals(1, promotedOn.size());
+        assertNotEquals("l2-io", promotedOn.get(0));
+    }
+
+    private TwoLevelCache<String, String> refreshingCache(Duration refreshAfterWrite, CacheLoader<String, String> loader) {
+        CacheConfig<String, String> config = CacheConfig.<String, String>builder()
+                .l1Config(CacheConfig.L1Config.builder().refreshAfterWrite(refreshAfterWrite).build())
+                .cacheLoader(loader)
+                .syncEnabled(false)
+                .build();
+        return new TwoLevelCache<>("users", config,
+                new L1CaffeineCache<>("users", config.getL1Config(), stats, null), l2, stats, null, executor, "node");
+    }
+
+    private static String awaitValue(TwoLevelCache<String, String> cache, String key, String expected)
+            throws InterruptedException {
+        long deadline = System.currentTimeMillis() + 5_000;
+        Optional<String> value = cache.get(key);
+        while (!value.equals(Optional.ofNullable(expected)) && System.currentTimeMillis() < deadline) {
+            Thread.sleep(10);
+            value = cache.get(key);
+        }
+        return value.orElse(null);
+    }
+
+    private static void await(CountDownLatch latch) {
+        try {
+            latch.await();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    /**
+     * L2 backed by a map, returning the expiry of every entry as early expiration would.
+     */
+    static class InMemoryL2Cache implements L2Cache<String, String> {
+
+        final Map<String, L2CacheEntry<String>> entries = new ConcurrentHashMap<>();
+
+        private static long expireTime(Duration ttl) {
+            return ttl == null || ttl.isZero() ? 0 : System.currentTimeMillis() + ttl.toMillis();
+        }
+
+        @Override
+        public Optional<String> get(String key) {
+            return getEntry(key).filter(entry -> !entry.isNullValue()).map(L2CacheEntry::getValue);
+        }
+
+        @Override
+        public Optional<L2CacheEntry<String>> getEntry(String key) {
+            L2CacheEntry<String> entry = entries.get(key);
+            if (entry != null && entry.getExpireTime() > 0 && entry.getTtlMillis(System.currentTimeMillis()) == 0) {
+                entries.remove(key, entry);
+                return Optional.empty();
+            }
+            return Optional.ofNullable(entry);
+        }
+
+        @Override
+        public Map<String, L2CacheEntry<String>> getAllEntries(Collection<String> keys) {
+            Map<String, L2CacheEntry<String>> result = new HashMap<>();
+            keys.forEach(key -> getEntry(key).ifPresent(entry -> result.put(key, entry)));
+            return result;
+        }
+
+        @Override
+        public void put(String key, String value, Duration ttl) {
+            put(key, value, ttl, 0);
+        }
+
+        @Override
+        public void put(String key, String value, Duration ttl, long computeTimeMillis) {
+            entries.put(key, new L2CacheEntry<>(value, computeTimeMillis, expireTime(ttl)));
+        }
+
+        @Override
+        public void putAll(Map<String, String> values, Duration ttl) {
+            values.forEach((key, value) -> put(key, value, ttl));
+        }
+
+        @Override
+        public void putNull(String key, Duration ttl) {
+            entries.put(key, L2CacheEntry.nullEntry(expireTime(ttl)));
+        }
+
+        @Override
+        public boolean putIfAbsent(String key, String value, Duration ttl) {
+            L2CacheEntry<String> current = getEntry(key).orElse(null);
+            L2CacheEntry<String> entry = new L2CacheEntry<>(value, 0, expireTime(ttl));
+            if (current == null) {
+                return entries.putIfAbsent(key, entry) == null;
+            }
+            return current.isNullValue() && entries.replace(key, current, entry);
+        }
+
+        @Override
+        public boolean remove(String key) {
+            return entries.remove(key) != null;
+        }
+
+        @Override
+        public void removeAll(Collection<String> keys) {
+            keys.forEach(entries::remove);
+        }
+
+        @Override
+        public void clear() {
+            entries.clear();
+        }
+
+        @Override
+        public boolean containsKey(String key) {
+            return getEntry(key).filter(entry -> !entry.isNullValue()).isPresent();
+        }
+
+        @Override
+        public CompletableFuture<Optional<String>> getAsync(String key) {
+            return CompletableFuture.completedFuture(get(key));
+        }
+
+        @Override
+        public CompletableFuture<Optional<L2CacheEntry<String>>> getEntryAsync(String key) {
+            return CompletableFuture.completedFuture(getEntry(key));
+        }
+
+        @Override
+        public CompletableFuture<Void> putAsync(String key, String value, Duration ttl) {
+            put(key, value, ttl);
+            return CompletableFuture.completedFuture(null);
+        }
+
+        @Override
+        public CompletableFuture<Boolean> removeAsync(String key) {
+            return CompletableFuture.completedFuture(remove(key));
+        }
+
+        @Override
+        public String decodeKey(byte[] redisKey) {
+            return null;
+        }
+
+        @Override
+        public void close() {
+        }
+    }
+
+}
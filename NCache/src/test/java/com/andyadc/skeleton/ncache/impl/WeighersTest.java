@@ -0,0 +1,40 @@
+package com.andyadc.skeleton.ncache.impl;
+
+import com.andyadc.skeleton.ncache.config.CacheConfig;
+import com.andyadc.skeleton.ncache.serialization.JdkSerializer;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class WeighersTest {
+
+    @Test
+    public void estimatesCommonValueShapes() {
+        CacheConfig.L1Config.Weigher weigher = Weighers.estimated();
+        assertEquals(40 + 1 + 16 + 1000, weigher.weigh("k", new byte[1000]));
+        assertTrue(weigher.weigh("k", List.of(new byte[1000], new byte[1000])) > 2000);
+        assertTrue(weigher.weigh("k", Map.of("a", new long[1000])) > 8000);
+
+        int serialized = Weighers.serialized(new JdkSerializer<>()).weigh("k", new byte[1000]);
+        assertTrue(serialized > 1000 && serialized < 1100);
+    }
+
+    @Test
+    public void l1StaysWithinMaximumWeight() {
+        DefaultCacheStats stats = new DefaultCacheStats();
+        L1CaffeineCache<Integer, byte[]> l1 = new L1CaffeineCache<>("test",
+                CacheConfig.L1Config.builder().maximumWeight(1024 * 1024).build(), stats, null);
+        for (int i = 0; i < 100; i++) {
+            l1.put(i, CacheEntry.of(new byte[100 * 1024], 60_000));
+        }
+        l1.cleanUp();
+
+        assertTrue(l1.weightedSize() <= 1024 * 1024);
+        assertTrue(l1.size() <= 10);
+        assertEquals(l1.weightedSize(), stats.getL1WeightedSize());
+    }
+
+}
@@ -0,0 +1,79 @@
+package com.andyadc.skeleton.ncache.jfr;
+
+import com.andyadc.skeleton.ncache.config.CacheConfig;
+import com.andyadc.skeleton.ncache.impl.DefaultCacheStats;
+import com.andyadc.skeleton.ncache.impl.L1CaffeineCache;
+import com.andyadc.skeleton.ncache.impl.TwoLevelCache;
+import com.andyadc.skeleton.ncache.resilience.CircuitBreaker;
+import com.andyadc.skeleton.ncache.resilience.CircuitBreakerConfig;
+import jdk.jfr.Recording;
+import jdk.jfr.consumer.RecordedEvent;
+import jdk.jfr.consumer.RecordingFile;
+import org.junit.jupiter.api.Test;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class CacheEventTest {
+
+    @Test
+    public void recordsLookupsLoadsAndCircuitBreakerChanges() throws Exception {
+        CacheConfig<String, String> config = CacheConfig.<String, String>builder()
+                .l2Config(CacheConfig.L2Config.builder().enabled(false).build())
+                .build();
+        DefaultCacheStats stats = new DefaultCacheStats();
+        TwoLevelCache<String, String> cache = new TwoLevelCache<>("users", config,
+                new L1CaffeineCache<>("users", config.getL1Config(), stats, null), null, stats,
+                null, null, "node");
+        CircuitBreaker breaker = new CircuitBreaker("users",
+                CircuitBreakerConfig.builder().failureThreshold(1).minimumNumberOfCalls(1).build());
+
+        List<RecordedEvent> events;
+        try (Recording recording = new Recording()) {
+            recording.enable(LookupEvent.class).withoutThreshold();
+            recording.enable(LoadEvent.class).withoutThreshold();
+            recording.enable(CircuitBreakerEvent.class);
+            recording.start();
+
+            cache.get("a", key -> "value-a");
+            cache.get("a", key -> "value-a");
+            assertThrows(IllegalStateException.class, () -> breaker.execute(() -> {
+                throw new IllegalStateException("down");
+            }));
+
+            recording.stop();
+            Path file = Files.createTempFile("ncache-", ".jfr");
+            try {
+                recording.dump(file);
+                events = RecordingFile.readAllEvents(file);
+            } finally {
+                Files.deleteIfExists(file);
+            }
+        }
+
+        List<String> levels = events.stream()
+                .filter(event -> event.getEventType().getName().equals("ncache.Lookup"))
+                .map(event -> event.getString("level"))
+                .collect(Collectors.toList());
+        assertEquals(List.of(CacheEvent.LEVEL_NONE, CacheEvent.LEVEL_L1), levels);
+
+        RecordedEvent load = events.stream()
+                .filter(event -> event.getEventType().getName().equals("ncache.Load"))
+                .findFirst().orElseThrow();
+        assertEquals("users", load.getString("cacheName"));
+        assertEquals("a".hashCode(), load.getInt("keyHash"));
+        assertEquals(LoadEvent.LOAD, load.getString("operation"));
+        assertTrue(load.getBoolean("success"));
+
+        RecordedEvent trip = events.stream()
+                .filter(event -> event.getEventType().getName().equals("ncache.CircuitBreakerState"))
+                .findFirst().orElseThrow();
+        assertEquals("CLOSED", trip.getString("fromState"));
+        assertEquals("OPEN", trip.getString("toState"));
+    }
+
+}
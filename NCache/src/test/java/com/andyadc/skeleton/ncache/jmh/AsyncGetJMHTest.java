@@ -0,0 +1,181 @@
+package com.andyadc.skeleton.ncache.jmh;
+
+import com.andyadc.skeleton.ncache.config.CacheConfig;
+import com.andyadc.skeleton.ncache.config.TwoLevelCacheManagerConfig.ExecutorMode;
+import com.andyadc.skeleton.ncache.impl.CacheExecutors;
+import com.andyadc.skeleton.ncache.impl.DefaultCacheStats;
+import com.andyadc.skeleton.ncache.impl.L1CaffeineCache;
+import com.andyadc.skeleton.ncache.impl.L2Cache;
+import com.andyadc.skeleton.ncache.impl.L2CacheEntry;
+import com.andyadc.skeleton.ncache.impl.TwoLevelCache;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.results.format.ResultFormatType;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.time.Duration;
+import java.util.Collection;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Throughput of 10k concurrent getAsync callers against a blocking L2 with a 1ms round trip,
+ * i.e. the Jedis backend, on platform versus virtual threads. VIRTUAL needs JDK 21+,
+ * on older runtimes both modes run on platform threads.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@State(Scope.Benchmark)
+@Warmup(iterations = 1, time = 2, timeUnit = TimeUnit.SECONDS)
+@Measurement(iterations = 5, time = 2, timeUnit = TimeUnit.SECONDS)
+@Fork(1)
+public class AsyncGetJMHTest {
+
+    private static final int CALLERS = 10_000;
+
+    @Param(value = {"PLATFORM", "VIRTUAL"})
+    private ExecutorMode mode;
+
+    @Param(value = {"128", "1024"})
+    private int maxConcurrency;
+
+    private ExecutorService executor;
+    private TwoLevelCache<Integer, String> cache;
+
+    public static void main(String[] args) throws RunnerException {
+        Options opts = new OptionsBuilder().include(AsyncGetJMHTest.class.getSimpleName()).resultFormat(ResultFormatType.JSON).build();
+        new Runner(opts).run();
+    }
+
+    @Setup
+    public void setup() {
+        executor = CacheExecutors.newAsyncExecutor(mode, maxConcurrency);
+        CacheConfig<Integer, String> config = CacheConfig.<Integer, String>builder()
+                .l1Config(CacheConfig.L1Config.builder().enabled(false).build())
+                .build();
+        DefaultCacheStats stats = new DefaultCacheStats();
+        L1CaffeineCache<Integer, String> l1 = new L1CaffeineCache<>("bench", config.getL1Config(), stats, null);
+        cache = new TwoLevelCache<>("bench", config, l1, new BlockingL2Cache(executor), stats, null, executor, "bench");
+    }
+
+    @TearDown
+    public void tearDown() {
+        executor.shutdownNow();
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(CALLERS)
+    public void getAsync() {
+        CompletableFuture<?>[] futures = new CompletableFuture<?>[CALLERS];
+        for (int i = 0; i < CALLERS; i++) {
+            futures[i] = cache.getAsync(i);
+        }
+        CompletableFuture.allOf(futures).join();
+    }
+
+    /**
+     * Serves every key after a 1ms blocking round trip on the async executor.
+     */
+    private static class BlockingL2Cache implements L2Cache<Integer, String> {
+
+        private final ExecutorService executor;
+
+        BlockingL2Cache(ExecutorService executor) {
+            this.executor = executor;
+        }
+
+        @Override
+        public Optional<String> get(Integer key) {
+            return getEntry(key).map(L2CacheEntry::getValue);
+        }
+
+        @Override
+        public Optional<L2CacheEntry<String>> getEntry(Integer key) {
+            try {
+                Thread.sleep(1);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            return Optional.of(new L2CacheEntry<>("value-" + key, 0, 0));
+        }
+
+        @Override
+        public CompletableFuture<Optional<L2CacheEntry<String>>> getEntryAsync(Integer key) {
+            return CompletableFuture.supplyAsync(() -> getEntry(key), executor);
+        }
+
+        @Override
+        public CompletableFuture<Optional<String>> getAsync(Integer key) {
+            return getEntryAsync(key).thenApply(entry -> entry.map(L2CacheEntry::getValue));
+        }
+
+        @Override
+        public Map<Integer, L2CacheEntry<String>> getAllEntries(Collection<Integer> keys) {
+            throw new UnsupportedOperationException();
+        }
+
+        @Override
+        public void put(Integer key, String value, Duration ttl) {
+        }
+
+        @Override
+        public void put(Integer key, String value, Duration ttl, long computeTimeMillis) {
+        }
+
+        @Override
+        public void putAll(Map<Integer, String> entries, Duration ttl) {
+        }
+
+        @Override
+        public void putNull(Integer key, Duration ttl) {
+        }
+
+        @Override
+        public boolean putIfAbsent(Integer key, String value, Duration ttl) {
+            return true;
+        }
+
+        @Override
+        public boolean remove(Integer key) {
+            return true;
+        }
+
+        @Override
+        public void removeAll(Collection<Integer> keys) {
+        }
+
+        @Override
+        public void clear() {
+        }
+
+        @Override
+        public boolean containsKey(Integer key) {
+            return true;
+        }
+
+        @Override
+        public CompletableFuture<Void> putAsync(Integer key, String value, Duration ttl) {
+            return CompletableFuture.completedFuture(null);
+        }
+
+        @Override
+        public CompletableFuture<Boolean> removeAsync(Integer key) {
+            return CompletableFuture.completedFuture(true);
+        }
+
+        @Override
+        public Integer decodeKey(byte[] redisKey) {
+            return null;
+        }
+
+        @Override
+        public void close() {
+        }
+    }
+
+}
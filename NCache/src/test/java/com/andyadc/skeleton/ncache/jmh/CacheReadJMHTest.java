@@ -0,0 +1,75 @@
+package com.andyadc.skeleton.ncache.jmh;
+
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.results.format.ResultFormatType;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Latency of single-key reads through TwoLevelCache with L2 on the in-process RESP stub:
+ * an L1 hit, an L1 miss served by L2 (the key is dropped from L1 first), and a miss on
+ * both levels that runs the loader and writes the value back to both.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@State(Scope.Benchmark)
+@Warmup(iterations = 2, time = 1, timeUnit = TimeUnit.SECONDS)
+@Measurement(iterations = 5, time = 1, timeUnit = TimeUnit.SECONDS)
+@Fork(1)
+public class CacheReadJMHTest {
+
+    private static final int KEYS = 1024;
+
+    private StubRedisCache stub;
+    private int sequence;
+    private int missKey;
+
+    public static void main(String[] args) throws RunnerException {
+        Options opts = new OptionsBuilder().include(CacheReadJMHTest.class.getSimpleName()).resultFormat(ResultFormatType.JSON).build();
+        new Runner(opts).run();
+    }
+
+    @Setup
+    public void setup() throws IOException {
+        stub = new StubRedisCache(KEYS * 4L);
+    }
+
+    @Setup(Level.Iteration)
+    public void populate() {
+        // Start each iteration from the same data, without the keys loaded by earlier misses
+        stub.server.flush();
+        stub.l1Cache.clear();
+        for (int i = 0; i < KEYS; i++) {
+            stub.cache.put(i, "value-" + i);
+        }
+        missKey = KEYS;
+    }
+
+    @TearDown
+    public void tearDown() throws IOException {
+        stub.close();
+    }
+
+    @Benchmark
+    public Object l1Hit() {
+        return stub.cache.get(sequence++ & (KEYS - 1));
+    }
+
+    @Benchmark
+    public Object l2Hit() {
+        int key = sequence++ & (KEYS - 1);
+        stub.l1Cache.invalidate(key);
+        return stub.cache.get(key);
+    }
+
+    @Benchmark
+    public Object missWithLoader() {
+        return stub.cache.get(missKey++, key -> "loaded-" + key);
+    }
+
+}
@@ -0,0 +1,76 @@
+package com.andyadc.skeleton.ncache.jmh;
+
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.results.format.ResultFormatType;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Latency of getAll per batch with L2 on the in-process RESP stub, with every key in L1
+ * or every key only in L2, i.e. one MGET per call.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@State(Scope.Benchmark)
+@Warmup(iterations = 2, time = 1, timeUnit = TimeUnit.SECONDS)
+@Measurement(iterations = 5, time = 1, timeUnit = TimeUnit.SECONDS)
+@Fork(1)
+public class GetAllJMHTest {
+
+    private static final int KEYS = 4096;
+
+    @Param(value = {"1", "10", "100", "1000"})
+    private int batchSize;
+
+    @Param(value = {"L1", "L2"})
+    private String source;
+
+    private StubRedisCache stub;
+    private List<List<Integer>> batches;
+    private int next;
+
+    public static void main(String[] args) throws RunnerException {
+        Options opts = new OptionsBuilder().include(GetAllJMHTest.class.getSimpleName()).resultFormat(ResultFormatType.JSON).build();
+        new Runner(opts).run();
+    }
+
+    @Setup
+    public void setup() throws IOException {
+        stub = new StubRedisCache(KEYS);
+        for (int i = 0; i < KEYS; i++) {
+            stub.cache.put(i, "value-" + i);
+        }
+
+        batches = new ArrayList<>();
+        for (int start = 0; start + batchSize <= KEYS; start += batchSize) {
+            List<Integer> batch = new ArrayList<>(batchSize);
+            for (int i = start; i < start + batchSize; i++) {
+                batch.add(i);
+            }
+            batches.add(batch);
+        }
+    }
+
+    @TearDown
+    public void tearDown() throws IOException {
+        stub.close();
+    }
+
+    @Benchmark
+    public Map<Integer, String> getAll() {
+        List<Integer> batch = batches.get(next++ % batches.size());
+        if ("L2".equals(source)) {
+            stub.l1Cache.invalidateAll(batch);
+        }
+        return stub.cache.getAll(batch);
+    }
+
+}
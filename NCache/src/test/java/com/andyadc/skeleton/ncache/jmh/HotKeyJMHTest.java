@@ -0,0 +1,80 @@
+package com.andyadc.skeleton.ncache.jmh;
+
+import com.andyadc.skeleton.ncache.config.CacheConfig;
+import com.andyadc.skeleton.ncache.impl.CacheEntry;
+import com.andyadc.skeleton.ncache.impl.DefaultCacheStats;
+import com.andyadc.skeleton.ncache.impl.HotKeySketch;
+import com.andyadc.skeleton.ncache.impl.L1CaffeineCache;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.results.format.ResultFormatType;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Cost of hot key tracking on an L1 hit: the sketch update alone and a hit with and without it,
+ * over a skewed key distribution from several threads.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@State(Scope.Benchmark)
+@Warmup(iterations = 2, time = 1, timeUnit = TimeUnit.SECONDS)
+@Measurement(iterations = 5, time = 1, timeUnit = TimeUnit.SECONDS)
+@Threads(4)
+@Fork(1)
+public class HotKeyJMHTest {
+
+    private static final int KEYS = 10_000;
+    private static final int MASK = (1 << 16) - 1;
+
+    private L1CaffeineCache<Integer, String> l1Cache;
+    private HotKeySketch<Integer> sketch;
+    private final Integer[] accessPattern = new Integer[MASK + 1];
+
+    public static void main(String[] args) throws RunnerException {
+        Options opts = new OptionsBuilder().include(HotKeyJMHTest.class.getSimpleName()).resultFormat(ResultFormatType.JSON).build();
+        new Runner(opts).run();
+    }
+
+    @Setup
+    public void setup() {
+        CacheConfig.L1Config config = CacheConfig.L1Config.builder().maximumSize(KEYS).build();
+        l1Cache = new L1CaffeineCache<>("hot", config, new DefaultCacheStats(), null);
+        sketch = new HotKeySketch<>(16, KEYS, null);
+        for (int i = 0; i < KEYS; i++) {
+            l1Cache.put(i, CacheEntry.of("value-" + i, TimeUnit.HOURS.toMillis(1)));
+        }
+        // Roughly Zipfian: key = KEYS^u - 1 for uniform u
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        for (int i = 0; i < accessPattern.length; i++) {
+            accessPattern[i] = (int) Math.pow(KEYS, random.nextDouble()) - 1;
+        }
+    }
+
+    @State(Scope.Thread)
+    public static class Cursor {
+        int index = ThreadLocalRandom.current().nextInt();
+    }
+
+    @Benchmark
+    public boolean record(Cursor cursor) {
+        return sketch.record(accessPattern[cursor.index++ & MASK]);
+    }
+
+    @Benchmark
+    public CacheEntry<String> hit(Cursor cursor) {
+        return l1Cache.getEntry(accessPattern[cursor.index++ & MASK]);
+    }
+
+    @Benchmark
+    public CacheEntry<String> hitTracked(Cursor cursor) {
+        Integer key = accessPattern[cursor.index++ & MASK];
+        sketch.record(key);
+        return l1Cache.getEntry(key);
+    }
+
+}
@@ -0,0 +1,64 @@
+package com.andyadc.skeleton.ncache.jmh;
+
+import com.andyadc.skeleton.ncache.serialization.JdkSerializer;
+import com.andyadc.skeleton.ncache.serialization.Serializer;
+import com.andyadc.skeleton.ncache.serialization.TextKeySerializer;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.results.format.ResultFormatType;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Key serializer round trips for the key types caches usually have. Every L2 call
+ * serializes its keys, so this is on the hot path of each remote lookup.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@State(Scope.Thread)
+@Warmup(iterations = 2, time = 1, timeUnit = TimeUnit.SECONDS)
+@Measurement(iterations = 5, time = 1, timeUnit = TimeUnit.SECONDS)
+@Fork(1)
+public class KeySerializerJMHTest {
+
+    @Param(value = {"TEXT", "JDK"})
+    private String serializerType;
+
+    @Param(value = {"STRING", "LONG", "UUID"})
+    private String keyType;
+
+    private Serializer<Object> serializer;
+    private Object key;
+    private byte[] bytes;
+
+    public static void main(String[] args) throws RunnerException {
+        Options opts = new OptionsBuilder().include(KeySerializerJMHTest.class.getSimpleName()).resultFormat(ResultFormatType.JSON).build();
+        new Runner(opts).run();
+    }
+
+    @Setup
+    public void setup() {
+        serializer = "TEXT".equals(serializerType) ? new TextKeySerializer<>() : new JdkSerializer<>();
+        key = switch (keyType) {
+            case "STRING" -> "user:1234567:profile";
+            case "LONG" -> 1234567890123L;
+            default -> UUID.fromString("3f2504e0-4f89-11d3-9a0c-0305e82c3301");
+        };
+        bytes = serializer.serialize(key);
+    }
+
+    @Benchmark
+    public byte[] serialize() {
+        return serializer.serialize(key);
+    }
+
+    @Benchmark
+    public Object roundTrip() {
+        return serializer.deserialize(serializer.serialize(key));
+    }
+
+}
@@ -0,0 +1,98 @@
+package com.andyadc.skeleton.ncache.jmh;
+
+import com.andyadc.skeleton.ncache.config.CacheConfig;
+import com.andyadc.skeleton.ncache.impl.DefaultCacheStats;
+import com.andyadc.skeleton.ncache.impl.L2Codec;
+import com.andyadc.skeleton.ncache.serialization.BinarySerializer;
+import com.andyadc.skeleton.ncache.serialization.TextKeySerializer;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.profile.GCProfiler;
+import org.openjdk.jmh.results.format.ResultFormatType;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.nio.charset.StandardCharsets;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * L2 key building, pooled codec versus the previous encode-and-concatenate path.
+ * Run with the GC profiler and compare gc.alloc.rate.norm (bytes per operation).
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@State(Scope.Thread)
+@Warmup(iterations = 2, time = 1, timeUnit = TimeUnit.SECONDS)
+@Measurement(iterations = 5, time = 1, timeUnit = TimeUnit.SECONDS)
+@Fork(1)
+public class L2CodecJMHTest {
+
+    private static final String PREFIX = "cache:users:";
+
+    private final TextKeySerializer<Object> keySerializer = new TextKeySerializer<>();
+    private L2Codec<Object, String> codec;
+
+    private final String stringKey = "user:1234567";
+    private final Long longKey = 1234567890L;
+    private final UUID uuidKey = UUID.randomUUID();
+    private final String value = "x".repeat(200);
+
+    public static void main(String[] args) throws RunnerException {
+        Options opts = new OptionsBuilder().include(L2CodecJMHTest.class.getSimpleName()).addProfiler(GCProfiler.class).resultFormat(ResultFormatType.JSON).build();
+        new Runner(opts).run();
+    }
+
+    @Setup
+    public void setup() {
+        CacheConfig.L2Config config = CacheConfig.L2Config.builder().keyPrefix("cache:").build();
+        codec = new L2Codec<>("users", config, keySerializer, new BinarySerializer<>(String.class), new DefaultCacheStats());
+    }
+
+    @Benchmark
+    public byte[] stringKey() {
+        return codec.buildKey(stringKey);
+    }
+
+    @Benchmark
+    public byte[] stringKeyLegacy() {
+        return legacyBuildKey(stringKey);
+    }
+
+    @Benchmark
+    public byte[] longKey() {
+        return codec.buildKey(longKey);
+    }
+
+    @Benchmark
+    public byte[] longKeyLegacy() {
+        return legacyBuildKey(longKey);
+    }
+
+    @Benchmark
+    public byte[] uuidKey() {
+        return codec.buildKey(uuidKey);
+    }
+
+    @Benchmark
+    public byte[] uuidKeyLegacy() {
+        return legacyBuildKey(uuidKey);
+    }
+
+    @Benchmark
+    public byte[] encodeValue() {
+        return codec.encodeValue(value, null, 0);
+    }
+
+    // The former L2RedisCache.buildKey: re-encode the prefix and concatenate
+    private byte[] legacyBuildKey(Object key) {
+        byte[] serializedKey = keySerializer.serialize(key);
+        byte[] prefix = PREFIX.getBytes(StandardCharsets.UTF_8);
+        byte[] result = new byte[prefix.length + serializedKey.length];
+        System.arraycopy(prefix, 0, result, 0, prefix.length);
+        System.arraycopy(serializedKey, 0, result, prefix.length, serializedKey.length);
+        return result;
+    }
+
+}
@@ -0,0 +1,62 @@
+package com.andyadc.skeleton.ncache.jmh;
+
+import com.andyadc.skeleton.ncache.metrics.LatencyHistogram;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.results.format.ResultFormatType;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Cost of timing an operation into a shared histogram from several threads, including the
+ * two {@code System.nanoTime} calls around it.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@State(Scope.Benchmark)
+@Warmup(iterations = 2, time = 1, timeUnit = TimeUnit.SECONDS)
+@Measurement(iterations = 5, time = 1, timeUnit = TimeUnit.SECONDS)
+@Threads(4)
+@Fork(1)
+public class LatencyHistogramJMHTest {
+
+    private static final int MASK = (1 << 12) - 1;
+
+    private final LatencyHistogram histogram = new LatencyHistogram();
+    private final long[] latencies = new long[MASK + 1];
+
+    public static void main(String[] args) throws RunnerException {
+        Options opts = new OptionsBuilder().include(LatencyHistogramJMHTest.class.getSimpleName()).resultFormat(ResultFormatType.JSON).build();
+        new Runner(opts).run();
+    }
+
+    @Setup
+    public void setup() {
+        // Mostly sub-millisecond with a long tail
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        for (int i = 0; i < latencies.length; i++) {
+            latencies[i] = (long) Math.pow(10_000_000, random.nextDouble());
+        }
+    }
+
+    @State(Scope.Thread)
+    public static class Cursor {
+        int index = ThreadLocalRandom.current().nextInt();
+    }
+
+    @Benchmark
+    public void record(Cursor cursor) {
+        histogram.record(latencies[cursor.index++ & MASK]);
+    }
+
+    @Benchmark
+    public void timeAndRecord() {
+        long start = System.nanoTime();
+        histogram.record(System.nanoTime() - start);
+    }
+
+}
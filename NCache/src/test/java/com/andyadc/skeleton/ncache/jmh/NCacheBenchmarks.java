@@ -0,0 +1,35 @@
+package com.andyadc.skeleton.ncache.jmh;
+
+import org.openjdk.jmh.results.format.ResultFormatType;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.CommandLineOptionException;
+import org.openjdk.jmh.runner.options.CommandLineOptions;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+/**
+ * Runs every benchmark in this package and writes the results as JSON, by default to
+ * {@code target/jmh-result.json}, so runs on different commits can be compared. The usual
+ * JMH command line options apply, e.g. {@code -rff other.json} or a benchmark regexp to
+ * run a subset.
+ */
+public class NCacheBenchmarks {
+
+    public static void main(String[] args) throws RunnerException, CommandLineOptionException {
+        CommandLineOptions commandLine = new CommandLineOptions(args);
+        OptionsBuilder builder = new OptionsBuilder();
+        if (commandLine.getIncludes().isEmpty()) {
+            builder.include(NCacheBenchmarks.class.getPackageName() + "\\..*JMHTest");
+        }
+        if (!commandLine.getResultFormat().hasValue()) {
+            builder.resultFormat(ResultFormatType.JSON);
+        }
+        if (!commandLine.getResult().hasValue()) {
+            builder.result("target/jmh-result.json");
+        }
+        Options opts = builder.parent(commandLine).build();
+        new Runner(opts).run();
+    }
+
+}
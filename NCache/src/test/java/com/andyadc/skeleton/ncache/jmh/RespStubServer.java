@@ -0,0 +1,322 @@
+package com.andyadc.skeleton.ncache.jmh;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * In-process stand-in for Redis speaking RESP2 on a loopback port, so benchmarks run
+ * without a server. Covers the commands the L2 caches send: PING, GET, MGET, SET with
+ * EX/PX/NX/XX, PSETEX, DEL, EXISTS, SCAN and FLUSHALL; others get an error reply.
+ * Pipelined commands are answered in one flush. Expired keys are dropped when read.
+ */
+class RespStubServer implements AutoCloseable {
+
+    private static final byte[] OK = "+OK\r\n".getBytes(StandardCharsets.US_ASCII);
+    private static final byte[] NULL_BULK = "$-1\r\n".getBytes(StandardCharsets.US_ASCII);
+
+    private final Map<ByteBuffer, Value> data = new ConcurrentHashMap<>();
+    private final ServerSocket serverSocket;
+    private final List<Socket> clients = new ArrayList<>();
+    private volatile boolean running = true;
+
+    RespStubServer() throws IOException {
+        serverSocket = new ServerSocket();
+        serverSocket.bind(new InetSocketAddress(InetAddress.getLoopbackAddress(), 0));
+        Thread acceptor = new Thread(this::acceptLoop, "resp-stub-acceptor");
+        acceptor.setDaemon(true);
+        acceptor.start();
+    }
+
+    String getHost() {
+        return serverSocket.getInetAddress().getHostAddress();
+    }
+
+    int getPort() {
+        return serverSocket.getLocalPort();
+    }
+
+    void flush() {
+        data.clear();
+    }
+
+    @Override
+    public void close() throws IOException {
+        running = false;
+        serverSocket.close();
+        synchronized (clients) {
+            for (Socket client : clients) {
+                client.close();
+            }
+        }
+    }
+
+    private void acceptLoop() {
+        while (running) {
+            try {
+                Socket socket = serverSocket.accept();
+                socket.setTcpNoDelay(true);
+                synchronized (clients) {
+                    clients.add(socket);
+                }
+                Thread handler = new Thread(() -> serve(socket), "resp-stub-client");
+                handler.setDaemon(true);
+                handler.start();
+            } catch (IOException e) {
+                // Closed
+            }
+        }
+    }
+
+    private void serve(Socket socket) {
+        try (socket) {
+            InputStream in = new BufferedInputStream(socket.getInputStream(), 64 * 1024);
+            OutputStream out = new BufferedOutputStream(socket.getOutputStream(), 64 * 1024);
+            while (running) {
+                byte[][] command = readCommand(in);
+                execute(command, out);
+                // Answer a whole pipeline in one write
+                if (in.available() == 0) {
+                    out.flush();
+                }
+            }
+        } catch (IOException e) {
+            // Client went away
+        }
+    }
+
+    private void execute(byte[][] args, OutputStream out) throws IOException {
+        String name = new String(args[0], StandardCharsets.US_ASCII).toUpperCase(Locale.ROOT);
+        switch (name) {
+            case "PING" -> out.write("+PONG\r\n".getBytes(StandardCharsets.US_ASCII));
+            case "GET" -> writeBulk(out, read(args[1]));
+            case "MGET" -> {
+                writeHeader(out, '*', args.length - 1);
+                for (int i = 1; i < args.length; i++) {
+                    writeBulk(out, read(args[i]));
+                }
+            }
+            case "SET" -> set(args, out);
+            case "PSETEX" -> {
+                data.put(ByteBuffer.wrap(args[1]), new Value(args[3], deadline(Long.parseLong(ascii(args[2])))));
+                out.write(OK);
+            }
+            case "DEL" -> {
+                long removed = 0;
+                for (int i = 1; i < args.length; i++) {
+                    if (data.remove(ByteBuffer.wrap(args[i])) != null) {
+                        removed++;
+                    }
+                }
+                writeHeader(out, ':', removed);
+            }
+            case "EXISTS" -> {
+                long found = 0;
+                for (int i = 1; i < args.length; i++) {
+                    if (read(args[i]) != null) {
+                        found++;
+                    }
+                }
+                writeHeader(out, ':', found);
+            }
+            case "SCAN" -> scan(args, out);
+            case "FLUSHALL", "FLUSHDB" -> {
+                data.clear();
+                out.write(OK);
+            }
+            case "CLIENT", "SELECT" -> out.write(OK);
+            default -> out.write(("-ERR unknown command '" + name + "'\r\n").getBytes(StandardCharsets.US_ASCII));
+        }
+    }
+
+    private void set(byte[][] args, OutputStream out) throws IOException {
+        long expireAt = Long.MAX_VALUE;
+        boolean nx = false;
+        boolean xx = false;
+        for (int i = 3; i < args.length; i++) {
+            String option = ascii(args[i]).toUpperCase(Locale.ROOT);
+            switch (option) {
+                case "EX" -> expireAt = deadline(Long.parseLong(ascii(args[++i])) * 1000);
+                case "PX" -> expireAt = deadline(Long.parseLong(ascii(args[++i])));
+                case "NX" -> nx = true;
+                case "XX" -> xx = true;
+                default -> {
+                    out.write(("-ERR syntax error\r\n").getBytes(StandardCharsets.US_ASCII));
+                    return;
+                }
+            }
+        }
+
+        ByteBuffer key = ByteBuffer.wrap(args[1]);
+        Value value = new Value(args[2], expireAt);
+        boolean written;
+        if (nx) {
+            // Replace an expired value as if it were absent
+            Value[] previous = new Value[1];
+            data.compute(key, (k, current) -> {
+                previous[0] = current != null && !current.isExpired() ? current : null;
+                return previous[0] != null ? current : value;
+            });
+            written = previous[0] == null;
+        } else if (xx) {
+            written = data.computeIfPresent(key, (k, current) -> current.isExpired() ? null : value) == value;
+        } else {
+            data.put(key, value);
+            written = true;
+        }
+        out.write(written ? OK : NULL_BULK);
+    }
+
+    private void scan(byte[][] args, OutputStream out) throws IOException {
+        byte[] pattern = null;
+        for (int i = 2; i < args.length - 1; i++) {
+            if ("MATCH".equalsIgnoreCase(ascii(args[i]))) {
+                pattern = args[i + 1];
+            }
+        }
+
+        // Everything in one page, so the cursor is always done
+        List<byte[]> keys = new ArrayList<>();
+        for (Map.Entry<ByteBuffer, Value> entry : data.entrySet()) {
+            byte[] key = entry.getKey().array();
+            if (!entry.getValue().isExpired() && matches(pattern, key)) {
+                keys.add(key);
+            }
+        }
+        writeHeader(out, '*', 2);
+        writeBulk(out, "0".getBytes(StandardCharsets.US_ASCII));
+        writeHeader(out, '*', keys.size());
+        for (byte[] key : keys) {
+            writeBulk(out, key);
+        }
+    }
+
+    /**
+     * Glob match supporting a trailing {@code *} only, which is what the caches send.
+     */
+    private static boolean matches(byte[] pattern, byte[] key) {
+        if (pattern == null) {
+            return true;
+        }
+        if (pattern.length > 0 && pattern[pattern.length - 1] == '*') {
+            int prefix = pattern.length - 1;
+            return key.length >= prefix && Arrays.equals(pattern, 0, prefix, key, 0, prefix);
+        }
+        return Arrays.equals(pattern, key);
+    }
+
+    private byte[] read(byte[] key) {
+        ByteBuffer wrapped = ByteBuffer.wrap(key);
+        Value value = data.get(wrapped);
+        if (value == null) {
+            return null;
+        }
+        if (value.isExpired()) {
+            data.remove(wrapped, value);
+            return null;
+        }
+        return value.bytes;
+    }
+
+    private static long deadline(long ttlMillis) {
+        return System.currentTimeMillis() + ttlMillis;
+    }
+
+    private static String ascii(byte[] bytes) {
+        return new String(bytes, StandardCharsets.US_ASCII);
+    }
+
+    private static byte[][] readCommand(InputStream in) throws IOException {
+        int type = in.read();
+        if (type == -1) {
+            throw new EOFException();
+        }
+        if (type != '*') {
+            throw new IOException("Expected a RESP array, got '" + (char) type + "'");
+        }
+        byte[][] args = new byte[(int) readNumber(in)][];
+        for (int i = 0; i < args.length; i++) {
+            if (in.read() != '$') {
+                throw new IOException("Expected a RESP bulk string");
+            }
+            byte[] arg = new byte[(int) readNumber(in)];
+            int read = 0;
+            while (read < arg.length) {
+                int n = in.read(arg, read, arg.length - read);
+                if (n == -1) {
+                    throw new EOFException();
+                }
+                read += n;
+            }
+            in.skipNBytes(2);
+            args[i] = arg;
+        }
+        return args;
+    }
+
+    private static long readNumber(InputStream in) throws IOException {
+        long value = 0;
+        boolean negative = false;
+        int c;
+        while ((c = in.read()) != '\r') {
+            if (c == -1) {
+                throw new EOFException();
+            }
+            if (c == '-') {
+                negative = true;
+            } else {
+                value = value * 10 + (c - '0');
+            }
+        }
+        in.read();
+        return negative ? -value : value;
+    }
+
+    private static void writeHeader(OutputStream out, char type, long value) throws IOException {
+        out.write(type);
+        out.write(Long.toString(value).getBytes(StandardCharsets.US_ASCII));
+        out.write('\r');
+        out.write('\n');
+    }
+
+    private static void writeBulk(OutputStream out, byte[] value) throws IOException {
+        if (value == null) {
+            out.write(NULL_BULK);
+            return;
+        }
+        writeHeader(out, '$', value.length);
+        out.write(value);
+        out.write('\r');
+        out.write('\n');
+    }
+
+    private static final class Value {
+        final byte[] bytes;
+        final long expireAt;
+
+        Value(byte[] bytes, long expireAt) {
+            this.bytes = bytes;
+            this.expireAt = expireAt;
+        }
+
+        boolean isExpired() {
+            return System.currentTimeMillis() >= expireAt;
+        }
+    }
+
+}
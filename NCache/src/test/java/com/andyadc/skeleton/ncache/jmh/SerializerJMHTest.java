@@ -0,0 +1,165 @@
+package com.andyadc.skeleton.ncache.jmh;
+
+import com.andyadc.skeleton.ncache.serialization.BinarySerializer;
+import com.andyadc.skeleton.ncache.serialization.JdkSerializer;
+import com.andyadc.skeleton.ncache.serialization.JsonSerializer;
+import com.andyadc.skeleton.ncache.serialization.Serializer;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.results.format.ResultFormatType;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.io.Serial;
+import java.io.Serializable;
+import java.math.BigDecimal;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Serializer comparison on a typical cached value of a few hundred bytes.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@State(Scope.Thread)
+@Warmup(iterations = 2, time = 1, timeUnit = TimeUnit.SECONDS)
+@Measurement(iterations = 5, time = 1, timeUnit = TimeUnit.SECONDS)
+@Fork(1)
+public class SerializerJMHTest {
+
+    @Param(value = {"JDK", "JSON", "BINARY"})
+    private String serializerType;
+
+    private Serializer<Product> serializer;
+    private Product product;
+    private byte[] bytes;
+
+    public static void main(String[] args) throws RunnerException {
+        Options opts = new OptionsBuilder().include(SerializerJMHTest.class.getSimpleName()).resultFormat(ResultFormatType.JSON).build();
+        new Runner(opts).run();
+    }
+
+    @Setup
+    public void setup() {
+        serializer = switch (serializerType) {
+            case "JDK" -> new JdkSerializer<>();
+            case "JSON" -> new JsonSerializer<>(Product.class);
+            default -> new BinarySerializer<>(Product.class);
+        };
+
+        product = new Product();
+        product.setId(1234567L);
+        product.setName("Wireless noise cancelling headphones");
+        product.setPrice(new BigDecimal("299.99"));
+        product.setStock(87);
+        product.setActive(true);
+        product.setUpdatedAt(Instant.parse("2024-05-01T10:15:30Z"));
+        product.setTags(new ArrayList<>(List.of("audio", "bluetooth", "travel")));
+        Map<String, String> attributes = new LinkedHashMap<>();
+        attributes.put("color", "black");
+        attributes.put("weight", "250g");
+        attributes.put("battery", "30h");
+        product.setAttributes(attributes);
+
+        bytes = serializer.serialize(product);
+    }
+
+    @Benchmark
+    public byte[] serialize() {
+        return serializer.serialize(product);
+    }
+
+    @Benchmark
+    public Product deserialize() {
+        return serializer.deserialize(bytes);
+    }
+
+    @Benchmark
+    public Product roundTrip() {
+        return serializer.deserialize(serializer.serialize(product));
+    }
+
+    public static class Product implements Serializable {
+        @Serial
+        private static final long serialVersionUID = 1L;
+
+        private long id;
+        private String name;
+        private BigDecimal price;
+        private int stock;
+        private boolean active;
+        private Instant updatedAt;
+        private List<String> tags;
+        private Map<String, String> attributes;
+
+        public long getId() {
+            return id;
+        }
+
+        public void setId(long id) {
+            this.id = id;
+        }
+
+        public String getName() {
+            return name;
+        }
+
+        public void setName(String name) {
+            this.name = name;
+        }
+
+        public BigDecimal getPrice() {
+            return price;
+        }
+
+        public void setPrice(BigDecimal price) {
+            this.price = price;
+        }
+
+        public int getStock() {
+            return stock;
+        }
+
+        public void setStock(int stock) {
+            this.stock = stock;
+        }
+
+        public boolean isActive() {
+            return active;
+        }
+
+        public void setActive(boolean active) {
+            this.active = active;
+        }
+
+        public Instant getUpdatedAt() {
+            return updatedAt;
+        }
+
+        public void setUpdatedAt(Instant updatedAt) {
+            this.updatedAt = updatedAt;
+        }
+
+        public List<String> getTags() {
+            return tags;
+        }
+
+        public void setTags(List<String> tags) {
+            this.tags = tags;
+        }
+
+        public Map<String, String> getAttributes() {
+            return attributes;
+        }
+
+        public void setAttributes(Map<String, String> attributes) {
+            this.attributes = attributes;
+        }
+    }
+
+}
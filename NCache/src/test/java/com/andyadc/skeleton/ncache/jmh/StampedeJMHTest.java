@@ -0,0 +1,102 @@
+package com.andyadc.skeleton.ncache.jmh;
+
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.results.format.ResultFormatType;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.io.IOException;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * One stampede per invocation: the key is removed, then all callers are released at once
+ * to read it with a loader taking 1ms. Measures the time until every caller has its
+ * value; the {@code extraLoads} counter totals loader calls beyond the first in each
+ * stampede, which stampede protection should keep at zero.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@State(Scope.Benchmark)
+@Warmup(iterations = 2, time = 1, timeUnit = TimeUnit.SECONDS)
+@Measurement(iterations = 5, time = 1, timeUnit = TimeUnit.SECONDS)
+@Fork(1)
+public class StampedeJMHTest {
+
+    private static final Integer KEY = 42;
+
+    @Param(value = {"1", "4", "16", "64"})
+    private int callers;
+
+    private StubRedisCache stub;
+    private ExecutorService callerPool;
+    private final AtomicInteger loaderCalls = new AtomicInteger();
+
+    public static void main(String[] args) throws RunnerException {
+        Options opts = new OptionsBuilder().include(StampedeJMHTest.class.getSimpleName()).resultFormat(ResultFormatType.JSON).build();
+        new Runner(opts).run();
+    }
+
+    @Setup
+    public void setup() throws IOException {
+        stub = new StubRedisCache(1024);
+        callerPool = Executors.newFixedThreadPool(callers);
+    }
+
+    @TearDown
+    public void tearDown() throws IOException {
+        callerPool.shutdownNow();
+        stub.close();
+    }
+
+    @Benchmark
+    public void stampede(Loads loads) throws Exception {
+        stub.cache.remove(KEY);
+        loaderCalls.set(0);
+
+        CountDownLatch start = new CountDownLatch(1);
+        Future<?>[] futures = new Future<?>[callers];
+        for (int i = 0; i < callers; i++) {
+            futures[i] = callerPool.submit(() -> {
+                start.await();
+                return stub.cache.get(KEY, key -> load(key));
+            });
+        }
+        start.countDown();
+        for (Future<?> future : futures) {
+            future.get();
+        }
+        loads.extraLoads += Math.max(0, loaderCalls.get() - 1);
+    }
+
+    private String load(Integer key) {
+        loaderCalls.incrementAndGet();
+        try {
+            Thread.sleep(1);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        return "loaded-" + key;
+    }
+
+    /**
+     * Reported next to the score as a total per iteration.
+     */
+    @State(Scope.Thread)
+    @AuxCounters(AuxCounters.Type.EVENTS)
+    public static class Loads {
+        public long extraLoads;
+
+        @Setup(Level.Iteration)
+        public void reset() {
+            extraLoads = 0;
+        }
+    }
+
+}
@@ -0,0 +1,71 @@
+package com.andyadc.skeleton.ncache.jmh;
+
+import com.andyadc.skeleton.ncache.config.CacheConfig;
+import com.andyadc.skeleton.ncache.config.TwoLevelCacheManagerConfig.ExecutorMode;
+import com.andyadc.skeleton.ncache.impl.CacheExecutors;
+import com.andyadc.skeleton.ncache.impl.DefaultCacheStats;
+import com.andyadc.skeleton.ncache.impl.L1CaffeineCache;
+import com.andyadc.skeleton.ncache.impl.L2RedisCache;
+import com.andyadc.skeleton.ncache.impl.TwoLevelCache;
+import com.andyadc.skeleton.ncache.resilience.CircuitBreaker;
+import com.andyadc.skeleton.ncache.resilience.CircuitBreakerConfig;
+import com.andyadc.skeleton.ncache.resilience.RetryConfig;
+import com.andyadc.skeleton.ncache.resilience.RetryExecutor;
+import com.andyadc.skeleton.ncache.serialization.BinarySerializer;
+import redis.clients.jedis.JedisPool;
+import redis.clients.jedis.JedisPoolConfig;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.util.concurrent.ExecutorService;
+
+/**
+ * Two-level cache of String values whose L2 is {@link L2RedisCache} on a
+ * {@link RespStubServer}, shared by the benchmarks of the cache paths.
+ */
+class StubRedisCache implements AutoCloseable {
+
+    final RespStubServer server;
+    final JedisPool pool;
+    final ExecutorService executor;
+    final L1CaffeineCache<Integer, String> l1Cache;
+    final TwoLevelCache<Integer, String> cache;
+
+    StubRedisCache(long l1MaximumSize) throws IOException {
+        server = new RespStubServer();
+        JedisPoolConfig poolConfig = new JedisPoolConfig();
+        poolConfig.setMaxTotal(128);
+        poolConfig.setMaxIdle(128);
+        pool = new JedisPool(poolConfig, server.getHost(), server.getPort());
+        executor = CacheExecutors.newAsyncExecutor(ExecutorMode.PLATFORM, 64);
+
+        CacheConfig<Integer, String> config = CacheConfig.<Integer, String>builder()
+                .l1Config(CacheConfig.L1Config.builder()
+                        .maximumSize(l1MaximumSize)
+                        .expireAfterWrite(Duration.ofMinutes(10))
+                        .build())
+                .l2Config(CacheConfig.L2Config.builder()
+                        .keyPrefix("bench:")
+                        .defaultTtl(Duration.ofMinutes(10))
+                        .build())
+                .valueSerializer(new BinarySerializer<>(String.class))
+                .syncEnabled(false)
+                .build();
+        DefaultCacheStats stats = new DefaultCacheStats();
+        l1Cache = new L1CaffeineCache<>("bench", config.getL1Config(), stats, null);
+        L2RedisCache<Integer, String> l2Cache = new L2RedisCache<>("bench", pool, config.getL2Config(), null,
+                config.getValueSerializer(), stats,
+                new CircuitBreaker("bench", CircuitBreakerConfig.defaultConfig()),
+                new RetryExecutor(RetryConfig.defaultConfig()), executor);
+        cache = new TwoLevelCache<>("bench", config, l1Cache, l2Cache, stats, null, executor, "bench");
+    }
+
+    @Override
+    public void close() throws IOException {
+        cache.destroy();
+        executor.shutdownNow();
+        pool.close();
+        server.close();
+    }
+
+}
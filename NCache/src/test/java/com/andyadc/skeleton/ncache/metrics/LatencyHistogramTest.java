@@ -0,0 +1,87 @@
+package com.andyadc.skeleton.ncache.metrics;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ThreadLocalRandom;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class LatencyHistogramTest {
+
+    @Test
+    public void bucketsStayWithinThreePercent() {
+        int previous = -1;
+        for (long value = 0; value < 1L << 40; value = value < 1000 ? value + 1 : value + value / 997) {
+            int bucket = LatencyHistogram.bucket(value);
+            assertTrue(bucket >= previous, "buckets must not decrease at " + value);
+            long highest = LatencyHistogram.highestValue(bucket);
+            assertTrue(highest >= value, "bucket bound below value " + value);
+            assertTrue(highest - value <= Math.max(0, value * 0.032), "bucket too wide at " + value);
+            previous = bucket;
+        }
+        assertEquals(LatencyHistogram.bucket(Long.MAX_VALUE), LatencyHistogram.bucket(1L << 50));
+    }
+
+    @Test
+    public void reportsPercentiles() {
+        LatencyHistogram histogram = new LatencyHistogram();
+        assertEquals(0, histogram.snapshot().getP99());
+
+        for (int i = 1; i <= 10_000; i++) {
+            histogram.record(i * 1000L);
+        }
+        histogram.record(-5);
+        LatencyHistogram.Snapshot snapshot = histogram.snapshot();
+
+        assertEquals(10_001, snapshot.getCount());
+        assertEquals(10_000_000, snapshot.getMax());
+        assertEquals(5_000_000, snapshot.getP50(), 5_000_000 * 0.03);
+        assertEquals(9_900_000, snapshot.getP99(), 9_900_000 * 0.03);
+        assertEquals(9_990_000, snapshot.getP999(), 9_990_000 * 0.03);
+        assertEquals(0, snapshot.getValueAtPercentile(0));
+        assertEquals(10_000_000, snapshot.getValueAtPercentile(1));
+    }
+
+    @Test
+    public void recordsFromManyThreads() throws InterruptedException {
+        LatencyHistogram histogram = new LatencyHistogram();
+        List<Thread> threads = new ArrayList<>();
+        for (int t = 0; t < 8; t++) {
+            Thread thread = new Thread(() -> {
+                for (int i = 0; i < 100_000; i++) {
+                    histogram.record(ThreadLocalRandom.current().nextLong(1_000_000));
+                }
+            });
+            thread.start();
+            threads.add(thread);
+        }
+        for (Thread thread : threads) {
+            thread.join();
+        }
+        assertEquals(800_000, histogram.snapshot().getCount());
+        assertTrue(histogram.snapshot().getMax() < 1_000_000);
+    }
+
+    @Test
+    public void collectorExposesOperationLatencies() {
+        DefaultMetricsCollector collector = new DefaultMetricsCollector();
+        MetricsCollector.LatencyRecorder recorder = collector.latencyRecorder("users", MetricsCollector.OP_L2_GET);
+        recorder.record(2_000);
+        collector.recordOperationLatency("users", MetricsCollector.OP_L2_GET, 4_000);
+
+        LatencyHistogram.Snapshot snapshot = collector.getCacheMetrics("users")
+                .getOperationLatencies().get(MetricsCollector.OP_L2_GET);
+        assertEquals(2, snapshot.getCount());
+        assertEquals(4_000, snapshot.getMax());
+
+        @SuppressWarnings("unchecked")
+        Map<String, Object> users = (Map<String, Object>) collector.getMetrics().get("users");
+        @SuppressWarnings("unchecked")
+        Map<String, Map<String, Long>> latencies = (Map<String, Map<String, Long>>) users.get("latencies");
+        assertEquals(2L, latencies.get(MetricsCollector.OP_L2_GET).get("count"));
+    }
+
+}
@@ -0,0 +1,227 @@
+package com.andyadc.skeleton.ncache.resilience;
+
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class CircuitBreakerTest {
+
+    @Test
+    public void tripsOnFailureRateOnceTheWindowHasEnoughCalls() {
+        CircuitBreaker breaker = new CircuitBreaker("redis", CircuitBreakerConfig.builder()
+                .minimumNumberOfCalls(10)
+                .failureRateThreshold(50.0)
+                .build());
+
+        // Alternating outcomes never make a run of failures, but half the calls fail
+        for (int i = 0; i < 9; i++) {
+            run(breaker, i % 2 == 0);
+        }
+        assertEquals(CircuitBreaker.State.CLOSED, breaker.getState());
+        assertEquals(4, breaker.getFailureCount());
+
+        // The tenth call reaches the minimum with 5 failures out of 10
+        run(breaker, false);
+        assertEquals(CircuitBreaker.State.OPEN, breaker.getState());
+        assertThrows(CircuitBreaker.CircuitBreakerOpenException.class, () -> breaker.execute(() -> "value"));
+    }
+
+    @Test
+    public void tripsOnSlowCallsThatSucceed() {
+        CircuitBreaker breaker = new CircuitBreaker("redis", CircuitBreakerConfig.builder()
+                .minimumNumberOfCalls(4)
+                .slowCallDurationThreshold(Duration.ofMillis(5))
+                .slowCallRateThreshold(50.0)
+                .build());
+
+        breaker.execute(() -> "fast");
+        breaker.execute(() -> "fast");
+        breaker.execute(() -> sleep(10));
+        assertEquals(CircuitBreaker.State.CLOSED, breaker.getState());
+
+        breaker.execute(() -> sleep(10));
+        assertEquals(2, breaker.getSlowCallCount());
+        assertEquals(0, breaker.getFailureCount());
+        assertEquals(CircuitBreaker.State.OPEN, breaker.getState());
+    }
+
+    @Test
+    public void timesAsyncCallsUntilTheyComplete() {
+        CircuitBreaker breaker = new CircuitBreaker("redis", CircuitBreakerConfig.builder()
+                .minimumNumberOfCalls(1)
+                .slowCallDurationThreshold(Duration.ofMillis(5))
+                .slowCallRateThreshold(100.0)
+                .build());
+
+        breaker.executeAsync(() -> CompletableFuture.supplyAsync(() -> sleep(10))).join();
+        assertEquals(CircuitBreaker.State.OPEN, breaker.getState());
+    }
+
+    @Test
+    public void timesTheLastAttemptWithoutTheBackoff() {
+        CircuitBreaker breaker = new CircuitBreaker("redis", CircuitBreakerConfig.builder()
+                .minimumNumberOfCalls(1)
+                .slowCallDurationThreshold(Duration.ofMillis(20))
+                .slowCallRateThreshold(100.0)
+                .build());
+        RetryExecutor retryExecutor = new RetryExecutor(RetryConfig.builder()
+                .initialDelay(Duration.ofMillis(50))
+                .build());
+        AtomicInteger attempts = new AtomicInteger();
+        Callable<String> failsOnce = () -> {
+            if (attempts.incrementAndGet() % 2 == 1) {
+                throw new IllegalStateException("Redis down");
+            }
+            return "value";
+        };
+
+        assertEquals("value", breaker.execute(retryExecutor, failsOnce));
+        assertEquals("value", breaker.executeAsync(retryExecutor,
+                () -> CompletableFuture.supplyAsync(() -> call(failsOnce))).join());
+        assertEquals(0, breaker.getSlowCallCount());
+        assertEquals(CircuitBreaker.State.CLOSED, breaker.getState());
+    }
+
+    @Test
+    public void exhaustedRetriesCountAsOneFailedCall() {
+        CircuitBreaker breaker = new CircuitBreaker("redis", CircuitBreakerConfig.builder().build());
+        RetryExecutor retryExecutor = new RetryExecutor(RetryConfig.builder()
+                .maxAttempts(3)
+                .initialDelay(Duration.ofMillis(1))
+                .build());
+        Callable<String> fails = () -> {
+            throw new IllegalStateException("Redis down");
+        };
+
+        assertThrows(RuntimeException.class, () -> breaker.execute(retryExecutor, fails));
+        assertThrows(CompletionException.class, () -> breaker.executeAsync(retryExecutor,
+                () -> CompletableFuture.supplyAsync(() -> call(fails))).join());
+        assertEquals(2, breaker.getFailureCount());
+    }
+
+    @Test
+    public void failureRateWaitsForTheFailureThreshold() {
+        CircuitBreaker breaker = new CircuitBreaker("redis", CircuitBreakerConfig.builder()
+                .failureThreshold(3)
+                .minimumNumberOfCalls(2)
+                .failureRateThreshold(50.0)
+                .build());
+
+        run(breaker, false);
+        run(breaker, false);
+        assertEquals(CircuitBreaker.State.CLOSED, breaker.getState());
+
+        run(breaker, false);
+        assertEquals(CircuitBreaker.State.OPEN, breaker.getState());
+    }
+
+    @Test
+    public void failuresBelowTheFailureRateNeverTrip() {
+        CircuitBreaker breaker = new CircuitBreaker("redis", CircuitBreakerConfig.builder()
+                .failureThreshold(1)
+                .minimumNumberOfCalls(1)
+                .failureRateThreshold(50.0)
+                .build());
+
+        // However many fail, one call in three stays under the rate
+        for (int i = 0; i < 30; i++) {
+            run(breaker, true);
+            run(breaker, true);
+            run(breaker, false);
+        }
+        assertEquals(30, breaker.getFailureCount());
+        assertEquals(CircuitBreaker.State.CLOSED, breaker.getState());
+    }
+
+    @Test
+    public void callsLeaveTheWindowAsItSlides() throws InterruptedException {
+        CircuitBreaker breaker = new CircuitBreaker("redis", CircuitBreakerConfig.builder()
+                .failureThreshold(1)
+                .minimumNumberOfCalls(3)
+                .slidingWindowSize(Duration.ofMillis(100))
+                .slidingWindowBuckets(4)
+                .build());
+
+        run(breaker, false);
+        run(breaker, false);
+        assertEquals(2, breaker.getFailureCount());
+
+        Thread.sleep(150);
+        assertEquals(0, breaker.getFailureCount());
+        run(breaker, true);
+        run(breaker, false);
+        assertEquals(1, breaker.getFailureCount());
+        assertEquals(CircuitBreaker.State.CLOSED, breaker.getState());
+    }
+
+    @Test
+    public void closesAfterSuccessfulProbesAndForgetsOldCalls() throws InterruptedException {
+        CircuitBreaker breaker = new CircuitBreaker("redis", CircuitBreakerConfig.builder()
+                .failureThreshold(2)
+                .minimumNumberOfCalls(2)
+                .openStateDuration(Duration.ofMillis(20))
+                .halfOpenMaxCalls(2)
+                .build());
+
+        run(breaker, false);
+        run(breaker, false);
+        assertEquals(CircuitBreaker.State.OPEN, breaker.getState());
+
+        Thread.sleep(30);
+        run(breaker, true);
+        assertEquals(CircuitBreaker.State.HALF_OPEN, breaker.getState());
+        run(breaker, true);
+        assertEquals(CircuitBreaker.State.CLOSED, breaker.getState());
+        assertEquals(0, breaker.getFailureCount());
+
+        // A failed probe opens the breaker again
+        run(breaker, false);
+        run(breaker, false);
+        Thread.sleep(30);
+        run(breaker, false);
+        assertEquals(CircuitBreaker.State.OPEN, breaker.getState());
+    }
+
+    @Test
+    public void rejectsAnEmptyWindow() {
+        assertThrows(IllegalArgumentException.class,
+                () -> CircuitBreakerConfig.builder().slidingWindowBuckets(0).build());
+    }
+
+    private static void run(CircuitBreaker breaker, boolean success) {
+        try {
+            breaker.execute(() -> {
+                if (!success) {
+                    throw new IllegalStateException("Redis down");
+                }
+                return "value";
+            });
+        } catch (IllegalStateException e) {
+            // Expected for failures
+        }
+    }
+
+    private static String call(Callable<String> callable) {
+        try {
+            return callable.call();
+        } catch (Exception e) {
+            throw new CompletionException(e);
+        }
+    }
+
+    private static String sleep(long millis) {
+        try {
+            Thread.sleep(millis);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        return "slow";
+    }
+
+}
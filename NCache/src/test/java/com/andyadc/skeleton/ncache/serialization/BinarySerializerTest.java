@@ -0,0 +1,113 @@
+package com.andyadc.skeleton.ncache.serialization;
+
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+import java.time.*;
+import java.util.*;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class BinarySerializerTest {
+
+    enum Status {ACTIVE, SUSPENDED}
+
+    record Address(String city, int zip) {
+    }
+
+    record User(long id, String name, Status status, BigDecimal balance, UUID token,
+                Instant createdAt, LocalDate birthday, Duration sessionTtl,
+                List<String> roles, Set<Integer> groups, Map<String, Address> addresses) {
+    }
+
+    public static class Order {
+        private long id;
+        private String sku;
+        private int quantity;
+        private LocalDateTime placedAt;
+        private ZonedDateTime shippedAt;
+        private List<Address> lines;
+
+        public Order() {
+        }
+    }
+
+    record ProductV1(String sku, int stock, String legacyCode) {
+    }
+
+    record ProductV2(String sku, long stock, boolean discontinued, List<String> tags) {
+    }
+
+    private static User user() {
+        return new User(42L, "alice", Status.ACTIVE, new BigDecimal("1234.56"), UUID.randomUUID(),
+                Instant.parse("2024-05-01T10:15:30.123456789Z"), LocalDate.of(1990, 2, 28), Duration.ofMinutes(30),
+                List.of("reader", "writer"), new LinkedHashSet<>(List.of(1, 2, 3)),
+                Map.of("home", new Address("Shanghai", 200000)));
+    }
+
+    @Test
+    public void roundTripRecord() {
+        BinarySerializer<User> serializer = new BinarySerializer<>(User.class);
+        User user = user();
+
+        assertEquals(user, serializer.deserialize(serializer.serialize(user)));
+    }
+
+    @Test
+    public void roundTripPojo() {
+        Order order = new Order();
+        order.id = 7;
+        order.sku = "SKU-1";
+        order.quantity = -3;
+        order.placedAt = LocalDateTime.of(2024, 1, 2, 3, 4, 5);
+        order.shippedAt = ZonedDateTime.of(2024, 1, 3, 8, 0, 0, 0, ZoneId.of("Asia/Shanghai"));
+        order.lines = List.of(new Address("Beijing", 100000));
+
+        BinarySerializer<Order> serializer = new BinarySerializer<>(Order.class);
+        Order copy = serializer.deserialize(serializer.serialize(order));
+
+        assertEquals(order.id, copy.id);
+        assertEquals(order.sku, copy.sku);
+        assertEquals(order.quantity, copy.quantity);
+        assertEquals(order.placedAt, copy.placedAt);
+        assertEquals(order.shippedAt, copy.shippedAt);
+        assertEquals(order.lines, copy.lines);
+    }
+
+    @Test
+    public void roundTripUntyped() {
+        BinarySerializer<Object> serializer = new BinarySerializer<>(Object.class);
+        List<Object> value = new ArrayList<>(List.of("a", 1, 2L, 3.5d, Status.SUSPENDED, new Address("Hangzhou", 310000)));
+        value.add(null);
+
+        assertEquals(value, serializer.deserialize(serializer.serialize(value)));
+    }
+
+    @Test
+    public void smallerThanJson() {
+        User user = user();
+        int binary = new BinarySerializer<>(User.class).serialize(user).length;
+        int json = new JsonSerializer<>(User.class).serialize(user).length;
+
+        assertTrue(binary < json, "binary=" + binary + " json=" + json);
+    }
+
+    @Test
+    public void addedAndRemovedFields() {
+        byte[] v1 = new BinarySerializer<>(ProductV1.class).serialize(new ProductV1("SKU-1", 12, "X-9"));
+        ProductV2 v2 = new BinarySerializer<>(ProductV2.class).deserialize(v1);
+
+        // legacyCode skipped, stock widened, new fields defaulted
+        assertEquals(new ProductV2("SKU-1", 12L, false, null), v2);
+
+        byte[] back = new BinarySerializer<>(ProductV2.class).serialize(new ProductV2("SKU-2", 5L, true, List.of("sale")));
+        assertEquals(new ProductV1("SKU-2", 5, null), new BinarySerializer<>(ProductV1.class).deserialize(back));
+    }
+
+    @Test
+    public void rejectsUnknownVersion() {
+        assertThrows(SerializationException.class,
+                () -> new BinarySerializer<>(String.class).deserialize(new byte[]{99, 0}));
+    }
+
+}
@@ -0,0 +1,26 @@
+package com.andyadc.skeleton.ncache.serialization;
+
+import org.junit.jupiter.api.Test;
+
+import java.nio.charset.StandardCharsets;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+
+public class TextKeySerializerTest {
+
+    private final TextKeySerializer<Object> serializer = new TextKeySerializer<>();
+
+    @Test
+    public void matchesToStringEncoding() {
+        Object[] keys = {"user:42", "", "ключ", "键值", "emoji-😀", "bad-\uD800-surrogate",
+                0L, -1L, 1234567890123L, Long.MIN_VALUE, Long.MAX_VALUE, 42, (short) -7,
+                UUID.randomUUID(), new UUID(0, 0), new UUID(-1, -1)};
+
+        for (Object key : keys) {
+            assertArrayEquals(key.toString().getBytes(StandardCharsets.UTF_8), serializer.serialize(key),
+                    "key " + key);
+        }
+    }
+
+}
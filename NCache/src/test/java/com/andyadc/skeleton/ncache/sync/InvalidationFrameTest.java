@@ -0,0 +1,70 @@
+package com.andyadc.skeleton.ncache.sync;
+
+import com.andyadc.skeleton.ncache.serialization.JdkSerializer;
+import com.andyadc.skeleton.ncache.serialization.Serializer;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class InvalidationFrameTest {
+
+    private final Serializer<Object> serializer = new JdkSerializer<>();
+
+    @Test
+    public void decodesDistinctKeys() {
+        byte[] bytes = InvalidationFrame.encode(InvalidationFrame.INVALIDATE, "node-1",
+                List.of("a", 42L, "a", "b", 42L), serializer);
+
+        assertTrue(InvalidationFrame.isFrame(bytes));
+        InvalidationFrame frame = InvalidationFrame.decode(bytes, serializer, "node-2");
+        assertEquals(InvalidationFrame.INVALIDATE, frame.getCommand());
+        assertEquals("node-1", frame.getInstanceId());
+        assertEquals(List.of("a", 42L, "b"), frame.getKeys());
+    }
+
+    @Test
+    public void skipsOwnFrames() {
+        byte[] bytes = InvalidationFrame.encode(InvalidationFrame.CLEAR, "node-1", List.of(), serializer);
+        assertNull(InvalidationFrame.decode(bytes, serializer, "node-1"));
+    }
+
+    @Test
+    public void coalescesKeysWithinWindow() throws InterruptedException {
+        List<List<Object>> batches = Collections.synchronizedList(new ArrayList<>());
+        CountDownLatch flushed = new CountDownLatch(1);
+        InvalidationCoalescer coalescer = new InvalidationCoalescer(Duration.ofMillis(50), 100, (cache, keys) -> {
+            batches.add(new ArrayList<>(keys));
+            flushed.countDown();
+        });
+
+        for (int i = 0; i < 10; i++) {
+            coalescer.add("users", i % 5);
+        }
+        assertTrue(flushed.await(5, TimeUnit.SECONDS));
+        coalescer.close();
+
+        assertEquals(List.of(List.of(0, 1, 2, 3, 4)), batches);
+    }
+
+    @Test
+    public void splitsBatchesAtMaxKeys() {
+        List<Integer> sizes = Collections.synchronizedList(new ArrayList<>());
+        InvalidationCoalescer coalescer = new InvalidationCoalescer(Duration.ofSeconds(10), 4,
+                (cache, keys) -> sizes.add(keys.size()));
+
+        coalescer.addAll("users", List.of(1, 2, 3, 4, 5, 6, 7, 8, 9, 10));
+        coalescer.close();
+
+        assertEquals(List.of(4, 4, 2), sizes);
+    }
+
+}